@@ -0,0 +1,65 @@
+package sqlancer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.beust.jcommander.JCommander;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomlyBenchmark {
+
+    @Param({ "SPLITTABLE", "XOSHIRO256", "LEGACY" })
+    public RandomEngine.Kind engine;
+
+    private Randomly r;
+
+    @Setup
+    public void setUp() {
+        MainOptions options = new MainOptions();
+        JCommander.newBuilder().addObject(options).build().parse("--random-engine=" + engine);
+        Randomly.initialize(options);
+        r = new Randomly(0);
+    }
+
+    @Benchmark
+    public long getInteger() {
+        return r.getInteger();
+    }
+
+    @Benchmark
+    public long getBoundedInteger() {
+        return r.getInteger(0, 100);
+    }
+
+    @Benchmark
+    public String getString() {
+        return r.getString();
+    }
+
+    @Benchmark
+    public double getDouble() {
+        return r.getDouble();
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return Randomly.getBoolean();
+    }
+
+}
@@ -0,0 +1,76 @@
+package sqlancer.common.query;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpectedErrorsBenchmark {
+
+    // a list of the size and shape that the expected errors of a mature DBMS implementation have
+    private static final String[] ERRORS = { "division by zero", "value out of range", "integer overflow",
+            "numeric field overflow", "invalid input syntax", "is out of range", "cannot cast", "could not convert",
+            "operator does not exist", "function does not exist", "argument of WHERE must be type boolean",
+            "argument of AND must be type boolean", "argument of OR must be type boolean",
+            "argument of NOT must be type boolean", "invalid regular expression", "collation mismatch",
+            "could not determine which collation", "duplicate key value violates unique constraint",
+            "violates not-null constraint", "violates check constraint", "violates foreign key constraint",
+            "UNIQUE constraint failed", "NOT NULL constraint failed", "CHECK constraint failed",
+            "Data truncation", "Incorrect integer value", "Incorrect string value", "Truncated incorrect",
+            "Out of range value", "BIGINT value is out of range", "DOUBLE value is out of range",
+            "Cannot convert string", "Conversion Error", "Invalid Input Error", "Binder Error",
+            "Not implemented Error", "Parser Error", "Could not choose a best candidate function",
+            "No function matches the given name", "ambiguous column name", "no such column", "no such function",
+            "misuse of aggregate", "GROUP BY term out of range", "ORDER BY term out of range", "too many terms",
+            "string or blob too big", "parser stack overflow", "Expression tree is too large",
+            "memory limit exceeded", "timeout", "canceling statement due to statement timeout" };
+
+    private ExpectedErrors errors;
+
+    @Setup
+    public void setUp() {
+        errors = new ExpectedErrors();
+        for (String error : ERRORS) {
+            errors.add(error);
+        }
+        errors.addRegex(Pattern.compile("Column .* is ambiguous"));
+        errors.addRegex(Pattern.compile("(?s).*cannot be applied to.*"));
+    }
+
+    @Benchmark
+    public boolean firstError() {
+        return errors.errorIsExpected("ERROR: division by zero");
+    }
+
+    @Benchmark
+    public boolean lastError() {
+        return errors.errorIsExpected("ERROR: canceling statement due to statement timeout");
+    }
+
+    @Benchmark
+    public boolean regexError() {
+        return errors.errorIsExpected("Column c0 is ambiguous");
+    }
+
+    @Benchmark
+    public boolean unexpectedError() {
+        return errors.errorIsExpected(
+                "INTERNAL Error: Attempted to access index 3 within vector of size 3 - this is an internal error");
+    }
+
+}
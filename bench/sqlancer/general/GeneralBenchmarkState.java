@@ -0,0 +1,76 @@
+package sqlancer.general;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.beust.jcommander.JCommander;
+
+import sqlancer.MainOptions;
+import sqlancer.Randomly;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.GeneralSchema.GeneralColumn;
+import sqlancer.general.GeneralSchema.GeneralDataType;
+import sqlancer.general.GeneralSchema.GeneralTable;
+
+/**
+ * Creates global states for the benchmarks. By default, the states do not log and are not connected to a database; a
+ * benchmark can pass other options and connect them explicitly.
+ */
+public final class GeneralBenchmarkState {
+
+    public static final String DATABASE_NAME = "bench0";
+
+    private GeneralBenchmarkState() {
+    }
+
+    public static MainOptions createMainOptions(String... args) {
+        MainOptions options = new MainOptions();
+        JCommander.newBuilder().addObject(options).build().parse(args);
+        return options;
+    }
+
+    /**
+     * Creates a global state whose schema consists of two tables t0 and t1 with an INT, a VARCHAR, and a BOOLEAN
+     * column each, and whose expression depth is the maximum depth allowed by the options.
+     *
+     * @param seed
+     *            the seed of the random number generator of the current thread
+     * @param args
+     *            the main options; if none are given, logging is disabled
+     *
+     * @return the global state
+     */
+    public static GeneralGlobalState createGlobalState(long seed, String... args) {
+        GeneralGlobalState state = new GeneralGlobalState();
+        MainOptions options = args.length == 0 ? createMainOptions("--log-each-select=false")
+                : createMainOptions(args);
+        state.setMainOptions(options);
+        state.setDbmsSpecificOptions(new GeneralOptions());
+        state.setRandomly(new Randomly(seed));
+        state.setDatabaseName(DATABASE_NAME);
+        List<GeneralTable> tables = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            List<GeneralColumn> columns = new ArrayList<>();
+            columns.add(new GeneralColumn("c0", GeneralDataType.INT.get(), false, true));
+            columns.add(new GeneralColumn("c1", GeneralDataType.STRING.get(), false, true));
+            columns.add(new GeneralColumn("c2", GeneralDataType.BOOLEAN.get(), false, true));
+            GeneralTable table = new GeneralTable(DATABASE_NAME + "_t" + i, columns, false);
+            for (GeneralColumn c : columns) {
+                c.setTable(table);
+            }
+            tables.add(table);
+        }
+        state.setSchema(tables);
+        GeneralDataType.calcWeight();
+        GeneralErrorHandler handler = state.getHandler();
+        while (handler.getCurDepth(DATABASE_NAME) < options.getMaxExpressionDepth()) {
+            handler.incrementCurDepth(DATABASE_NAME);
+        }
+        return state;
+    }
+
+    public static String getCreateTableStatement(GeneralTable table) {
+        return "CREATE TABLE " + table.getName() + "(c0 INT, c1 VARCHAR(500), c2 BOOLEAN)";
+    }
+
+}
@@ -0,0 +1,84 @@
+package sqlancer.general;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sqlancer.common.ast.newast.Node;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.GeneralSchema.GeneralColumn;
+import sqlancer.general.ast.GeneralExpression;
+import sqlancer.general.gen.GeneralTypedExpressionGenerator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneralExpressionBenchmark {
+
+    private static final int NR_EXPRESSIONS = 1024;
+    private static final int DEEP_EXPRESSION_DEPTH = 8;
+
+    private GeneralGlobalState state;
+    private List<GeneralColumn> columns;
+    @SuppressWarnings("unchecked")
+    private final Node<GeneralExpression>[] expressions = new Node[NR_EXPRESSIONS];
+    @SuppressWarnings("unchecked")
+    private final Node<GeneralExpression>[] deepExpressions = new Node[NR_EXPRESSIONS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        state = GeneralBenchmarkState.createGlobalState(0);
+        columns = state.getSchema().getDatabaseTables().get(0).getColumns();
+        GeneralTypedExpressionGenerator gen = new GeneralTypedExpressionGenerator(state);
+        gen.setColumns(columns);
+        for (int i = 0; i < NR_EXPRESSIONS; i++) {
+            expressions[i] = gen.generateExpression();
+        }
+        GeneralGlobalState deepState = GeneralBenchmarkState.createGlobalState(0, "--log-each-select=false",
+                "--max-expression-depth=" + DEEP_EXPRESSION_DEPTH);
+        GeneralTypedExpressionGenerator deepGen = new GeneralTypedExpressionGenerator(deepState);
+        deepGen.setColumns(deepState.getSchema().getDatabaseTables().get(0).getColumns());
+        for (int i = 0; i < NR_EXPRESSIONS; i++) {
+            deepExpressions[i] = deepGen.generateExpression();
+        }
+    }
+
+    @Benchmark
+    public Node<GeneralExpression> generateExpression() {
+        GeneralTypedExpressionGenerator gen = new GeneralTypedExpressionGenerator(state);
+        gen.setColumns(columns);
+        return gen.generateExpression();
+    }
+
+    @Benchmark
+    public String asString() {
+        next = (next + 1) & (NR_EXPRESSIONS - 1);
+        return GeneralToStringVisitor.asString(expressions[next]);
+    }
+
+    @Benchmark
+    public String asStringDeep() {
+        next = (next + 1) & (NR_EXPRESSIONS - 1);
+        return GeneralToStringVisitor.asString(deepExpressions[next]);
+    }
+
+    @Benchmark
+    public String generateAndRender() {
+        return GeneralToStringVisitor.asString(generateExpression());
+    }
+
+}
@@ -0,0 +1,128 @@
+package sqlancer.general;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sqlancer.ComparatorHelper;
+import sqlancer.IgnoreMeException;
+import sqlancer.Main.StateLogger;
+import sqlancer.ResultSetFingerprint;
+import sqlancer.SQLConnection;
+import sqlancer.common.query.ExpectedErrors;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.GeneralSchema.GeneralColumn;
+import sqlancer.general.GeneralSchema.GeneralTable;
+import sqlancer.general.gen.GeneralTypedExpressionGenerator;
+
+/**
+ * End-to-end benchmarks of single queries against the embedded DBMSs, including generation, rendering, execution,
+ * result retrieval, and statement logging.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneralQueryBenchmark {
+
+    private static final int NR_ROWS = 100;
+
+    public enum Backend {
+        SQLITE("jdbc:sqlite::memory:"), H2("jdbc:h2:mem:bench"), DUCKDB("jdbc:duckdb:");
+
+        private final String url;
+
+        Backend(String url) {
+            this.url = url;
+        }
+    }
+
+    @Param({ "SQLITE", "H2", "DUCKDB" })
+    public Backend backend;
+
+    private GeneralGlobalState state;
+    private Connection conn;
+    private GeneralTable table;
+    private List<GeneralColumn> columns;
+    private final ExpectedErrors errors = new ExpectedErrors();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        state = GeneralBenchmarkState.createGlobalState(0, "--log-flush-policy=ON_BUG");
+        // the logger wipes the log directory of the DBMS, so do not use the one of the general provider
+        GeneralProvider provider = new GeneralProvider() {
+            @Override
+            public String getDBMSName() {
+                return "benchmark";
+            }
+        };
+        state.setStateLogger(new StateLogger(GeneralBenchmarkState.DATABASE_NAME, provider, state.getOptions()));
+        conn = DriverManager.getConnection(backend.url);
+        state.setConnection(new SQLConnection(conn));
+        table = state.getSchema().getDatabaseTables().get(0);
+        columns = table.getColumns();
+        try (Statement s = conn.createStatement()) {
+            for (GeneralTable t : state.getSchema().getDatabaseTables()) {
+                s.execute(GeneralBenchmarkState.getCreateTableStatement(t));
+                for (int i = 0; i < NR_ROWS; i++) {
+                    s.execute(String.format("INSERT INTO %s VALUES (%d, '%d', %s)", t.getName(), i, i % 7,
+                            i % 3 == 0 ? "NULL" : i % 2 == 0 ? "TRUE" : "FALSE"));
+                }
+            }
+        }
+        GeneralErrors.addExpressionErrors(errors);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        state.getLogger().getCurrentFileWriter().close();
+        conn.close();
+    }
+
+    @Benchmark
+    public List<String> getResultSetFirstColumnAsString() throws SQLException {
+        return ComparatorHelper.getResultSetFirstColumnAsString(
+                "SELECT c0 FROM " + table.getName() + " WHERE c2 OR c0 > 50", errors, state);
+    }
+
+    @Benchmark
+    public ResultSetFingerprint getResultSetFirstColumnFingerprint() throws SQLException {
+        return ComparatorHelper.getResultSetFirstColumnFingerprint(
+                "SELECT c0 FROM " + table.getName() + " WHERE c2 OR c0 > 50", errors, state,
+                ComparatorHelper::canonicalizeResultValue);
+    }
+
+    @Benchmark
+    public List<String> generateAndExecute() throws SQLException {
+        GeneralTypedExpressionGenerator gen = new GeneralTypedExpressionGenerator(state);
+        gen.setColumns(columns);
+        String query = "SELECT c0 FROM " + table.getName() + " WHERE "
+                + GeneralToStringVisitor.asString(gen.generateExpression());
+        try {
+            return ComparatorHelper.getResultSetFirstColumnAsString(query, errors, state);
+        } catch (IgnoreMeException e) {
+            // the generated query is not valid for the backend
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package sqlancer.general.learner;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sqlancer.general.GeneralBenchmarkState;
+import sqlancer.general.GeneralLearningManager.SQLFeature;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneralFragmentsBenchmark {
+
+    // fragments in the format of the files in dbconfigs
+    private static final String FRAGMENTS = String.join("\n", "0;ENGINE = MergeTree()",
+            "0;WITH (fillfactor = <RANDOM_POSITIVE_INT>)", "0;COMMENT '<RANDOM_STRING>'",
+            "1;PARTITION BY HASH(<RANDOM_COLUMN>)",
+            "1;PARTITION BY RANGE(<RANDOM_COLUMN>) (PARTITION p0 VALUES LESS THAN (<RANDOM_INT>))",
+            "1;CHECK (<RANDOM_EXPRESSION>)", "2;DEFAULT <RANDOM_INT>", "2;DEFAULT '<RANDOM_DATE>'",
+            "2;DEFAULT '<RANDOM_TIMESTAMP>'", "3;ORDER BY <RANDOM_COLUMN>", "3;", "4;AS SELECT * FROM <RANDOM_TABLE>");
+
+    private static final class BenchmarkFragments extends GeneralFragments {
+
+        @Override
+        public String getConfigName() {
+            return "benchmark.txt";
+        }
+
+        @Override
+        public String getStatementType() {
+            return "CREATE TABLE";
+        }
+
+        @Override
+        public SQLFeature getFeature() {
+            return SQLFeature.CLAUSE;
+        }
+
+        @Override
+        public String genLearnStatement(GeneralGlobalState globalState) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> genValStatements(GeneralGlobalState globalState, String key, String choice,
+                String databaseName) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    private GeneralGlobalState state;
+    private GeneralFragments fragments;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        state = GeneralBenchmarkState.createGlobalState(0);
+        fragments = parse();
+    }
+
+    private GeneralFragments parse() {
+        GeneralFragments f = new BenchmarkFragments();
+        f.loadFragmentsFromCSV(new StringReader(FRAGMENTS), state, false);
+        return f;
+    }
+
+    @Benchmark
+    public GeneralFragments parseFragments() {
+        return parse();
+    }
+
+    @Benchmark
+    public String renderFragment() {
+        next = (next + 1) % 5;
+        return fragments.get(next, state);
+    }
+
+}
@@ -3,20 +3,27 @@ import com.sun.jna.*;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.lang.Thread.sleep;
 
-public class AFLMonitor implements AutoCloseable {
+public class AFLMonitor implements CoverageSource, AutoCloseable {
     // 常量
     public static final int AFL_MAP_SIZE = 1533718;
     private static final String AFL_SHM_ENV_VAR = "__AFL_SHM_ID";
     private static final String   DBMS_PATH= "/usr/local/mysql/bin/mysqld";  // 请根据实际路径修改
+    public static final int DEFAULT_PORT = 3306;
+    // the data directories of the additional instances, e.g., /usr/local/mysql/data1, which must have been initialized
+    private static final String INSTANCE_DATADIR = "/usr/local/mysql/data%d"; // 请根据实际路径修改
     // SysV IPC 常量
     private static final int IPC_PRIVATE = 0;
     private static final int IPC_CREAT = 01000;
@@ -37,18 +44,29 @@ public class AFLMonitor implements AutoCloseable {
 
     private int shmId = -1;
     private Pointer shmPtr = null;
+    // zero-copy view of the shared memory segment
+    private volatile ByteBuffer coverageView = null;
+    private final TouchedEdges reportEdges = new TouchedEdges();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean runningWatch = new AtomicBoolean(false);
     public final static byte[] coverageBuf = new byte[AFL_MAP_SIZE];
     private static volatile AFLMonitor INSTANCE;
     private Process dbmsProcess = null;
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final List<String> dbmsArgs;
+    private final int port;
 
     public byte[] getCoverageBuf() {
         return coverageBuf;
     }
 
     private AFLMonitor() {
+        this(Collections.emptyList(), DEFAULT_PORT);
+    }
+
+    private AFLMonitor(List<String> dbmsArgs, int port) {
+        this.dbmsArgs = dbmsArgs;
+        this.port = port;
         if (!createSharedMemory()) {
             throw new IllegalStateException("共享内存初始化失败");
         }
@@ -86,6 +104,31 @@ public class AFLMonitor implements AutoCloseable {
         }
         cleanup();
     }
+    /**
+     * Starts an additional instance of the DBMS with its own shared memory segment, so that its coverage can be
+     * measured independently of the other instances. Its data directory must have been initialized like that of the
+     * default instance.
+     *
+     * @param index
+     *            a positive number that distinguishes the instance from the others
+     *
+     * @return the monitor of the new instance, which must be closed by the caller
+     */
+    public static AFLMonitor startInstance(int index) {
+        int instancePort = DEFAULT_PORT + index;
+        List<String> args = Arrays.asList("--port=" + instancePort,
+                "--datadir=" + String.format(INSTANCE_DATADIR, index), "--socket=/tmp/mysql" + index + ".sock",
+                "--pid-file=/tmp/mysqld" + index + ".pid", "--mysqlx=OFF");
+        return new AFLMonitor(args, instancePort);
+    }
+
+    /**
+     * @return the port on which the DBMS of this monitor accepts connections
+     */
+    public int getPort() {
+        return port;
+    }
+
     public static AFLMonitor getInstance() {
         if (INSTANCE == null) {
             synchronized (AFLMonitor.class) {
@@ -108,6 +151,7 @@ public class AFLMonitor implements AutoCloseable {
             System.err.println("附加共享内存失败");
             return false;
         }
+        coverageView = shmPtr.getByteBuffer(0, AFL_MAP_SIZE).order(ByteOrder.nativeOrder());
         // 初始化置零
         clearCoverage();
         CLib.INSTANCE.setenv(AFL_SHM_ENV_VAR, String.valueOf(shmId), 1);
@@ -129,6 +173,7 @@ public class AFLMonitor implements AutoCloseable {
     public Process startDBMS() throws IOException {
         java.util.List<String> cmd = new java.util.ArrayList<>();
         cmd.add(DBMS_PATH);
+        cmd.addAll(dbmsArgs);
 //        if (args != null && args.length > 0) {
 //            cmd.addAll(java.util.Arrays.asList(args));
 //        }
@@ -146,26 +191,54 @@ public class AFLMonitor implements AutoCloseable {
         return pb.start();
     }
 
+    /**
+     * Copies the whole coverage map into {@link #coverageBuf}. Prefer {@link #collectTouchedEdges(TouchedEdges)}, which
+     * only pays for the edges that are set.
+     */
     public void refreshBuffer() {
         if (shmPtr == null) return;
         shmPtr.read(0, coverageBuf, 0, AFL_MAP_SIZE);
     }
 
-    public void showCoverageReport() {
-        refreshBuffer();
-        int hitEdges = 0;
+    /**
+     * @return a read-only view of the shared memory segment that reflects the coverage map without copying it, or
+     *         {@code null} if the segment is not attached
+     */
+    public ByteBuffer getCoverageView() {
+        ByteBuffer view = coverageView;
+        return view == null ? null : view.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Collects the edges that are currently set in the shared memory segment, scanning it word by word.
+     *
+     * @param edges
+     *            the list to fill; its previous content is discarded
+     *
+     * @return the given list
+     */
+    @Override
+    public TouchedEdges collectTouchedEdges(TouchedEdges edges) {
+        ByteBuffer view = coverageView;
+        if (view == null) {
+            edges.clear();
+            return edges;
+        }
+        return edges.collect(view, AFL_MAP_SIZE);
+    }
+
+    public synchronized void showCoverageReport() {
+        collectTouchedEdges(reportEdges);
+        int hitEdges = reportEdges.size();
         long totalHits = 0;
         int maxHits = 0;
         int maxIdx = -1;
-        for (int i = 0; i < AFL_MAP_SIZE; i++) {
-            int v = coverageBuf[i] & 0xFF;
-            if (v > 0) {
-                hitEdges++;
-                totalHits += v;
-                if (v > maxHits) {
-                    maxHits = v;
-                    maxIdx = i;
-                }
+        for (int i = 0; i < hitEdges; i++) {
+            int v = reportEdges.getHitCount(i);
+            totalHits += v;
+            if (v > maxHits) {
+                maxHits = v;
+                maxIdx = reportEdges.getEdge(i);
             }
         }
         System.out.println("\n=== MySQL Coverage Report ===");
@@ -186,19 +259,24 @@ public class AFLMonitor implements AutoCloseable {
         System.out.println("==============================\n");
     }
 
-    public void showDetailedCoverage() {
-        refreshBuffer();
+    public synchronized void showDetailedCoverage() {
+        collectTouchedEdges(reportEdges);
         System.out.println("\n=== Top 20 Hottest Edges ===");
         // 复制
-        byte[] temp = Arrays.copyOf(coverageBuf, coverageBuf.length);
+        int[] temp = new int[reportEdges.size()];
+        for (int i = 0; i < temp.length; i++) {
+            temp[i] = reportEdges.getHitCount(i);
+        }
         for (int rank = 1; rank <= 20; rank++) {
             int maxHits = 0;
             int idx = -1;
+            int pos = -1;
             for (int i = 0; i < temp.length; i++) {
-                int v = temp[i] & 0xFF;
+                int v = temp[i];
                 if (v > maxHits) {
                     maxHits = v;
-                    idx = i;
+                    idx = reportEdges.getEdge(i);
+                    pos = i;
                 }
             }
             if (maxHits == 0) break;
@@ -207,11 +285,12 @@ public class AFLMonitor implements AutoCloseable {
             for (int i = 0; i < 20; i++) bar.append(i < barLen ? '#' : ' ');
             bar.append(']');
             System.out.printf("%2d. Edge %-6d: %4d hits %s%n", rank, idx, maxHits, bar);
-            temp[idx] = 0;
+            temp[pos] = 0;
         }
         System.out.println("=============================\n");
     }
 
+    @Override
     public void clearCoverage() {
         if (shmPtr == null) return;
         shmPtr.setMemory(0, AFL_MAP_SIZE, (byte) 0);
@@ -228,17 +307,14 @@ public class AFLMonitor implements AutoCloseable {
         runningWatch.set(true);
         inputThread.setDaemon(true);
         inputThread.start();
+        TouchedEdges touched = new TouchedEdges();
 
         while (runningWatch.get()) {
-            refreshBuffer();
-            int edges = 0;
+            collectTouchedEdges(touched);
+            int edges = touched.size();
             long hits = 0;
-            for (int i = 0; i < AFL_MAP_SIZE; i++) {
-                int v = coverageBuf[i] & 0xFF;
-                if (v > 0) {
-                    edges++;
-                    hits += v;
-                }
+            for (int i = 0; i < edges; i++) {
+                hits += touched.getHitCount(i);
             }
             long elapsedMs = System.currentTimeMillis() - start;
             long elapsedSec = Math.max(1, elapsedMs / 1000);
@@ -267,6 +343,7 @@ public class AFLMonitor implements AutoCloseable {
     }
 
     public void cleanup() {
+        coverageView = null;
         if (shmPtr != null) {
             CLib.INSTANCE.shmdt(shmPtr);
             shmPtr = null;
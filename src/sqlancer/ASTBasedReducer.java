@@ -25,11 +25,14 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
     @SuppressWarnings("unused")
     private G state;
     private G newGlobalState;
-    private Reproducer<G> reproducer;
 
     private List<Query<C>> reducedStatements;
     // statement after reduction.
 
+    private ReducerExecutor<G, O, C> executor;
+    // index of the statement that is currently transformed
+    private int currentIndex;
+
     public ASTBasedReducer(DatabaseProvider<G, O, C> provider) {
         this.provider = provider;
     }
@@ -45,7 +48,6 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
     public void reduce(G state, Reproducer<G> reproducer, G newGlobalState) throws Exception {
         this.state = state;
         this.newGlobalState = newGlobalState;
-        this.reproducer = reproducer;
 
         long maxReduceTime = state.getOptions().getMaxStatementReduceTime();
         long maxReduceSteps = state.getOptions().getMaxStatementReduceSteps();
@@ -64,13 +66,15 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
         transformations.add(new SimplifyConstant());
         transformations.add(new RoundDoubleConstant());
 
-        Transformation.setBugJudgement(() -> {
-            try {
-                return this.bugStillTriggers();
-            } catch (Exception ignored) {
-            }
-            return false;
-        });
+        for (Transformation t : transformations) {
+            t.setBugJudgement(() -> {
+                try {
+                    return this.bugStillTriggers();
+                } catch (Exception ignored) {
+                }
+                return false;
+            });
+        }
 
         boolean observeChange;
         reducedStatements = new ArrayList<>();
@@ -79,65 +83,75 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
         }
 
         Instant startTime = Instant.now();
-        reduceProcess: do {
-            observeChange = false;
-            for (Transformation t : transformations) {
-                for (int i = 0; i < reducedStatements.size(); i++) {
-
-                    Instant currentTime = Instant.now();
-                    if (maxReduceTime != MainOptions.NO_REDUCE_LIMIT
-                            && Duration.between(startTime, currentTime).getSeconds() >= maxReduceTime) {
-                        break reduceProcess;
-                    }
-
-                    if (maxReduceSteps != MainOptions.NO_REDUCE_LIMIT
-                            && Transformation.getReduceSteps() >= maxReduceSteps) {
-                        break reduceProcess;
-                    }
-
-                    Query<?> query = reducedStatements.get(i);
-                    boolean initFlag = t.init(query.getQueryString());
-                    int index = i;
-                    t.setStatementChangedCallBack((statementString) -> {
-                        updateStatements(statementString, index);
-                    });
-
-                    if (!initFlag) {
+        executor = new ReducerExecutor<>(provider, reproducer, newGlobalState);
+        try {
+            reduceProcess: do {
+                observeChange = false;
+                for (Transformation t : transformations) {
+                    long sizeBefore = ReducerExecutor.getSize(reducedStatements);
+                    executor.startPhase();
+                    try {
+                        for (int i = 0; i < reducedStatements.size(); i++) {
+
+                            Instant currentTime = Instant.now();
+                            if (maxReduceTime != MainOptions.NO_REDUCE_LIMIT
+                                    && Duration.between(startTime, currentTime).getSeconds() >= maxReduceTime) {
+                                break reduceProcess;
+                            }
+
+                            if (maxReduceSteps != MainOptions.NO_REDUCE_LIMIT
+                                    && getReduceSteps(transformations) >= maxReduceSteps) {
+                                break reduceProcess;
+                            }
+
+                            Query<?> query = reducedStatements.get(i);
+                            boolean initFlag = t.init(query.getQueryString());
+                            int index = i;
+                            currentIndex = i;
+                            t.setStatementChangedCallBack((statementString) -> {
+                                updateStatements(statementString, index);
+                            });
+
+                            if (!initFlag) {
+                                newGlobalState.getLogger()
+                                        .logReducer("warning: failed parsing the statement at transformer : " + t);
+                                continue;
+                            }
+                            t.apply();
+                            observeChange |= t.changed();
+                        }
+                    } finally {
                         newGlobalState.getLogger()
-                                .logReducer("warning: failed parsing the statement at transformer : " + t);
-                        continue;
+                                .logReducer(String.format("AST-based reducer, %s: %s, %d bytes saved%n", t,
+                                        executor.getPhaseStatistics(),
+                                        sizeBefore - ReducerExecutor.getSize(reducedStatements)));
                     }
-                    t.apply();
-                    observeChange |= t.changed();
                 }
-            }
-        } while (observeChange);
+            } while (observeChange);
+        } finally {
+            executor.close();
+            executor = null;
+        }
 
         newGlobalState.getState().setStatements(new ArrayList<>(reducedStatements));
         newGlobalState.getLogger().logReduced(newGlobalState.getState());
     }
 
-    public boolean bugStillTriggers() throws Exception {
-        try (C con2 = provider.createDatabase(newGlobalState)) {
-            newGlobalState.setConnection(con2);
-            List<Query<C>> candidateStatements = new ArrayList<>(reducedStatements);
-            newGlobalState.getState().setStatements(new ArrayList<>(candidateStatements));
-
-            for (Query<C> s : candidateStatements) {
-                try {
-                    s.execute(newGlobalState);
-                } catch (Throwable ignoredException) {
-                    // ignore
-                }
-            }
-            try {
-                if (reproducer.bugStillTriggers(newGlobalState)) {
-                    newGlobalState.getLogger().logReduced(newGlobalState.getState());
-                    return true;
-                }
-            } catch (Throwable ignoredException) {
+    private static long getReduceSteps(List<Transformation> transformations) {
+        long reduceSteps = 0;
+        for (Transformation t : transformations) {
+            reduceSteps += t.getReduceSteps();
+        }
+        return reduceSteps;
+    }
 
-            }
+    public boolean bugStillTriggers() throws Exception {
+        // only the statement at currentIndex is transformed, so the statements before it can be restored from a
+        // snapshot
+        List<Query<C>> candidateStatements = new ArrayList<>(reducedStatements);
+        if (executor.bugStillTriggers(candidateStatements, currentIndex, reducedStatements)) {
+            newGlobalState.getLogger().logReduced(newGlobalState.getState());
+            return true;
         }
         return false;
     }
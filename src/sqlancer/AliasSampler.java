@@ -0,0 +1,118 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An immutable weighted sampler based on Vose's alias method. Building the table takes a single pass over the items,
+ * after which each draw is O(1) and needs exactly two random numbers, independently of the number of items or their
+ * weights.
+ *
+ * @param <T>
+ *            the type of the items to pick from
+ *
+ * @see <a href="https://www.keithschwarz.com/darts-dice-coins/">Darts, Dice, and Coins</a>
+ */
+public final class AliasSampler<T> {
+
+    private final List<T> items;
+    private final double[] probability;
+    private final int[] alias;
+    private final long stamp;
+
+    private AliasSampler(List<T> items, double[] probability, int[] alias, long stamp) {
+        this.items = items;
+        this.probability = probability;
+        this.alias = alias;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Creates a sampler over the given items. Items with a non-positive (or NaN) weight are never picked.
+     *
+     * @param <T>
+     *            the type of the items
+     * @param candidates
+     *            the items to pick from
+     * @param weight
+     *            computes the weight of an item; it is called exactly once per item
+     * @param stamp
+     *            an arbitrary value that callers can use to detect whether the sampler is stale, see
+     *            {@link #getStamp()}
+     *
+     * @return the sampler, which is empty if no item has a positive weight
+     */
+    public static <T> AliasSampler<T> create(List<T> candidates, ToDoubleFunction<? super T> weight, long stamp) {
+        List<T> items = new ArrayList<>(candidates.size());
+        double[] weights = new double[candidates.size()];
+        double total = 0;
+        for (T candidate : candidates) {
+            double w = weight.applyAsDouble(candidate);
+            if (w > 0) {
+                weights[items.size()] = w;
+                items.add(candidate);
+                total += w;
+            }
+        }
+        int n = items.size();
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int nrSmall = 0;
+        int nrLarge = 0;
+        for (int i = 0; i < n; i++) {
+            probability[i] = weights[i] * n / total;
+            if (probability[i] < 1) {
+                small[nrSmall++] = i;
+            } else {
+                large[nrLarge++] = i;
+            }
+        }
+        while (nrSmall != 0 && nrLarge != 0) {
+            int less = small[--nrSmall];
+            int more = large[--nrLarge];
+            alias[less] = more;
+            probability[more] = probability[more] + probability[less] - 1;
+            if (probability[more] < 1) {
+                small[nrSmall++] = more;
+            } else {
+                large[nrLarge++] = more;
+            }
+        }
+        // the remaining entries are 1 up to floating-point error
+        while (nrLarge != 0) {
+            probability[large[--nrLarge]] = 1;
+        }
+        while (nrSmall != 0) {
+            probability[small[--nrSmall]] = 1;
+        }
+        return new AliasSampler<>(items, probability, alias, stamp);
+    }
+
+    public T sample() {
+        if (items.isEmpty()) {
+            throw new IllegalStateException("no item has a positive weight");
+        }
+        int column = (int) Randomly.getNotCachedInteger(0, items.size());
+        if (Randomly.getUncachedDouble() < probability[column]) {
+            return items.get(column);
+        } else {
+            return items.get(alias[column]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+}
@@ -1,11 +1,11 @@
 package sqlancer;
 
-import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
@@ -38,19 +38,45 @@ public final class ComparatorHelper {
 
     public static List<String> getResultSetFirstColumnAsString(String queryString, ExpectedErrors errors,
             SQLGlobalState<?, ?> state) throws SQLException {
+        List<String> resultSet = new ArrayList<>();
+        consumeResultSetFirstColumn(queryString, errors, state, resultSet::add);
+        return resultSet;
+    }
+
+    /**
+     * Executes the query and computes the fingerprint of its first column while reading the result set, so that the
+     * values are neither stored nor copied.
+     *
+     * @param queryString
+     *            the query to be executed
+     * @param errors
+     *            the errors that are expected by the query
+     * @param state
+     *            the global state
+     * @param canonicalizationRule
+     *            the rule that is applied to each value before it is added to the fingerprint
+     *
+     * @return the fingerprint of the first column of the result set
+     *
+     * @throws SQLException
+     *             if the result set cannot be read
+     */
+    public static ResultSetFingerprint getResultSetFirstColumnFingerprint(String queryString, ExpectedErrors errors,
+            SQLGlobalState<?, ?> state, UnaryOperator<String> canonicalizationRule) throws SQLException {
+        ResultSetFingerprint fingerprint = new ResultSetFingerprint();
+        consumeResultSetFirstColumn(queryString, errors, state,
+                value -> fingerprint.add(canonicalizationRule.apply(value)));
+        return fingerprint;
+    }
+
+    private static void consumeResultSetFirstColumn(String queryString, ExpectedErrors errors,
+            SQLGlobalState<?, ?> state, Consumer<String> consumer) throws SQLException {
         if (state.getOptions().logEachSelect()) {
             // TODO: refactor me
             state.getLogger().writeCurrent(queryString);
-            try {
-                state.getLogger().getCurrentFileWriter().flush();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
         }
         boolean canonicalizeString = state.getOptions().canonicalizeSqlString();
         SQLQueryAdapter q = new SQLQueryAdapter(queryString, errors, true, canonicalizeString);
-        List<String> resultSet = new ArrayList<>();
         SQLancerResultSet result = null;
         try {
             result = q.executeAndGet(state);
@@ -58,12 +84,8 @@ public final class ComparatorHelper {
                 throw new IgnoreMeException();
             }
             while (result.next()) {
-                String resultTemp = result.getString(1);
-                if (resultTemp != null) {
-                    resultTemp = resultTemp.replaceAll("[\\.]0+$", ""); // Remove the trailing zeros as many DBMS treat
-                    // it as non-bugs
-                }
-                resultSet.add(resultTemp);
+                // Remove the trailing zeros as many DBMS treat it as non-bugs
+                consumer.accept(removeTrailingZeros(result.getString(1)));
             }
         } catch (Exception e) {
             if (e instanceof IgnoreMeException) {
@@ -82,11 +104,35 @@ public final class ComparatorHelper {
                 result.close();
             }
         }
-        return resultSet;
+    }
+
+    // equivalent to value.replaceAll("[\\.]0+$", ""), which was too slow to be applied to each value
+    static String removeTrailingZeros(String value) {
+        if (value == null) {
+            return null;
+        }
+        int i = value.length() - 1;
+        while (i >= 0 && value.charAt(i) == '0') {
+            i--;
+        }
+        if (i == value.length() - 1 || i < 0 || value.charAt(i) != '.') {
+            return value;
+        }
+        return value.substring(0, i);
     }
 
     public static void assumeResultSetsAreEqual(List<String> resultSet, List<String> secondResultSet,
             String originalQueryString, List<String> combinedString, SQLGlobalState<?, ?> state) {
+        long start = Metrics.start();
+        try {
+            compareResultSets(resultSet, secondResultSet, originalQueryString, combinedString, state);
+        } finally {
+            Metrics.record(Metrics.Phase.COMPARISON, start);
+        }
+    }
+
+    private static void compareResultSets(List<String> resultSet, List<String> secondResultSet,
+            String originalQueryString, List<String> combinedString, SQLGlobalState<?, ?> state) {
         if (resultSet.size() != secondResultSet.size()) {
             String queryFormatString = "-- %s;" + System.lineSeparator() + "-- cardinality: %d"
                     + System.lineSeparator();
@@ -104,15 +150,29 @@ public final class ComparatorHelper {
             throw new AssertionError(assertionMessage);
         }
 
-        Set<String> firstHashSet = new HashSet<>(resultSet);
-        Set<String> secondHashSet = new HashSet<>(secondResultSet);
-
         boolean validateResultSizeOnly = state.getOptions().validateResultSizeOnly();
-        if (!validateResultSizeOnly && !firstHashSet.equals(secondHashSet)) {
-            Set<String> firstResultSetMisses = new HashSet<>(firstHashSet);
-            firstResultSetMisses.removeAll(secondHashSet);
-            Set<String> secondResultSetMisses = new HashSet<>(secondHashSet);
-            secondResultSetMisses.removeAll(firstHashSet);
+        if (validateResultSizeOnly) {
+            return;
+        }
+        // compare the result sets as multisets, so that a value that is returned a different number of times is
+        // reported as well
+        Map<String, Integer> counts = new HashMap<>();
+        for (String value : resultSet) {
+            counts.merge(value, 1, Integer::sum);
+        }
+        for (String value : secondResultSet) {
+            counts.merge(value, -1, Integer::sum);
+        }
+        counts.values().removeIf(count -> count == 0);
+        if (!counts.isEmpty()) {
+            List<String> firstResultSetMisses = new ArrayList<>();
+            List<String> secondResultSetMisses = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                List<String> misses = entry.getValue() > 0 ? firstResultSetMisses : secondResultSetMisses;
+                for (int i = 0; i < Math.abs(entry.getValue()); i++) {
+                    misses.add(entry.getKey());
+                }
+            }
 
             String queryFormatString = "-- Query: \"%s\"; It misses: \"%s\"";
             String firstQueryString = String.format(queryFormatString, originalQueryString, firstResultSetMisses);
@@ -140,6 +200,78 @@ public final class ComparatorHelper {
                 combinedString, state);
     }
 
+    /**
+     * Checks that two result sets are equal by their fingerprints. Only if the fingerprints differ, the queries are
+     * executed again and their result sets are materialized, to report which values are missing. If the result sets are
+     * equal when the queries are executed again, the result of the queries is not deterministic, and the test case is
+     * ignored.
+     *
+     * @param fingerprint
+     *            the fingerprint of the result set of the original query
+     * @param secondFingerprint
+     *            the fingerprint of the combined result set of the queries in combinedString
+     * @param originalQueryString
+     *            the original query
+     * @param combinedString
+     *            the queries whose result sets were combined into the second fingerprint
+     * @param state
+     *            the global state
+     * @param canonicalizationRule
+     *            the rule that was applied to the values of both result sets
+     * @param errors
+     *            the errors that are expected by the queries
+     *
+     * @throws SQLException
+     *             if the result sets cannot be read again
+     */
+    public static void assumeResultSetsAreEqual(ResultSetFingerprint fingerprint,
+            ResultSetFingerprint secondFingerprint, String originalQueryString, List<String> combinedString,
+            SQLGlobalState<?, ?> state, UnaryOperator<String> canonicalizationRule, ExpectedErrors errors)
+            throws SQLException {
+        long start = Metrics.start();
+        boolean equal = state.getOptions().validateResultSizeOnly()
+                ? fingerprint.getCount() == secondFingerprint.getCount() : fingerprint.equals(secondFingerprint);
+        Metrics.record(Metrics.Phase.COMPARISON, start);
+        if (equal) {
+            return;
+        }
+        List<String> resultSet = getResultSetFirstColumnAsString(originalQueryString, errors, state);
+        List<String> secondResultSet = new ArrayList<>();
+        for (String query : combinedString) {
+            secondResultSet.addAll(getResultSetFirstColumnAsString(query, errors, state));
+        }
+        assumeResultSetsAreEqual(resultSet, secondResultSet, originalQueryString, combinedString, state,
+                canonicalizationRule);
+        if (state.getOptions().logEachSelect()) {
+            state.getLogger()
+                    .writeCurrent(String.format(
+                            "-- the fingerprints of the result sets mismatch (%s and %s),"
+                                    + " but the result sets did not when the queries were executed again",
+                            fingerprint, secondFingerprint));
+        }
+        throw new IgnoreMeException();
+    }
+
+    public static ResultSetFingerprint getCombinedResultSetFingerprint(String firstQueryString,
+            String secondQueryString, String thirdQueryString, List<String> combinedString, boolean asUnion,
+            SQLGlobalState<?, ?> state, ExpectedErrors errors, UnaryOperator<String> canonicalizationRule)
+            throws SQLException {
+        if (asUnion) {
+            String unionString = firstQueryString + " UNION ALL " + secondQueryString + " UNION ALL "
+                    + thirdQueryString;
+            combinedString.add(unionString);
+            return getResultSetFirstColumnFingerprint(unionString, errors, state, canonicalizationRule);
+        }
+        ResultSetFingerprint fingerprint = new ResultSetFingerprint();
+        fingerprint.addAll(getResultSetFirstColumnFingerprint(firstQueryString, errors, state, canonicalizationRule));
+        fingerprint.addAll(getResultSetFirstColumnFingerprint(secondQueryString, errors, state, canonicalizationRule));
+        fingerprint.addAll(getResultSetFirstColumnFingerprint(thirdQueryString, errors, state, canonicalizationRule));
+        combinedString.add(firstQueryString);
+        combinedString.add(secondQueryString);
+        combinedString.add(thirdQueryString);
+        return fingerprint;
+    }
+
     public static List<String> getCombinedResultSet(String firstQueryString, String secondQueryString,
             String thirdQueryString, List<String> combinedString, boolean asUnion, SQLGlobalState<?, ?> state,
             ExpectedErrors errors) throws SQLException {
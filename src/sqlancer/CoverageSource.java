@@ -0,0 +1,25 @@
+package sqlancer;
+
+/**
+ * A coverage map of the DBMS under test, such as the shared memory segment of an AFL-instrumented DBMS (see
+ * {@link AFLMonitor}). Threads that measure the coverage of their own queries concurrently need separate coverage
+ * sources, and thus separate DBMS instances.
+ */
+public interface CoverageSource {
+
+    /**
+     * Resets the coverage map, so that it only reflects the coverage of what is executed afterwards.
+     */
+    void clearCoverage();
+
+    /**
+     * Collects the edges that are currently set in the coverage map.
+     *
+     * @param edges
+     *            the list to fill; its previous content is discarded
+     *
+     * @return the given list
+     */
+    TouchedEdges collectTouchedEdges(TouchedEdges edges);
+
+}
@@ -1,5 +1,6 @@
 package sqlancer;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
 
@@ -11,4 +12,47 @@ public interface DatabaseEngineFactory<G extends GlobalState<?, ?, ?>> {
     void syncData(G globalState) throws SQLException;
 
     boolean isNewSchema();
+
+    /**
+     * Saves the database to which the connection of the given state refers, using the snapshot mechanism of the DBMS.
+     *
+     * @param globalState
+     *            the state whose database is saved
+     * @param snapshot
+     *            the file to which the snapshot is written
+     *
+     * @return false if the DBMS does not support snapshots
+     *
+     * @throws SQLException
+     *             if saving the snapshot fails
+     */
+    default boolean saveSnapshot(G globalState, File snapshot) throws SQLException {
+        return false;
+    }
+
+    /**
+     * Restores a snapshot saved by {@link #saveSnapshot} into the empty database to which the connection of the given
+     * state refers.
+     *
+     * @param globalState
+     *            the state whose database is restored
+     * @param snapshot
+     *            the file to which the snapshot was written
+     *
+     * @throws SQLException
+     *             if restoring the snapshot fails
+     */
+    default void restoreSnapshot(G globalState, File snapshot) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns whether each database name refers to a separate database, for example, a separate in-memory database or
+     * file, so that the statements executed on one database cannot affect another.
+     *
+     * @return whether the databases are isolated from each other
+     */
+    default boolean hasIsolatedDatabases() {
+        return false;
+    }
 }
@@ -1,7 +1,10 @@
 package sqlancer;
 
+import java.io.File;
+
 import sqlancer.common.log.LoggableFactory;
 import sqlancer.general.gen.Configuration.BaseConfigurationGenerator;
+import sqlancer.general.gen.ParameterAwareGenerator;
 
 public interface DatabaseProvider<G extends GlobalState<O, ?, C>, O extends DBMSSpecificOptions<?>, C extends SQLancerDBConnection> {
 
@@ -32,7 +35,24 @@ public interface DatabaseProvider<G extends GlobalState<O, ?, C>, O extends DBMS
      *
      */
     Reproducer<G> generateAndTestDatabase(G globalState) throws Exception;
-    void generateDatabaseWithConfigurationTraining(G globalState, BaseConfigurationGenerator.ConfigurationAction action) throws Exception;
+
+    /**
+     * Trains how a configuration parameter affects the coverage of the features of the queries. The coverage is
+     * measured with the coverage source of the state.
+     *
+     * @param globalState
+     *            the state created and is valid for this method call.
+     * @param action
+     *            the configuration parameter to be trained
+     * @param statistics
+     *            the statistics to which the samples are added, which keeps those collected before a failure
+     *
+     * @throws Exception
+     *             if training fails.
+     */
+    void generateDatabaseWithConfigurationTraining(G globalState, BaseConfigurationGenerator.ConfigurationAction action,
+            ParameterAwareGenerator statistics) throws Exception;
+
     /**
      * The experimental feature: Query Plan Guidance.
      *
@@ -65,6 +85,57 @@ public interface DatabaseProvider<G extends GlobalState<O, ?, C>, O extends DBMS
 
     C createDatabase(G globalState) throws Exception;
 
+    /**
+     * Saves the database of the given state as a snapshot, from which {@link #restoreDatabase} can recreate it faster
+     * than by executing its statements again. The reducers use snapshots to evaluate candidate reductions.
+     *
+     * @param globalState
+     *            the state whose connection refers to the database to be saved
+     * @param snapshot
+     *            the file to which the snapshot is written
+     *
+     * @return whether the snapshot was saved; false if the DBMS does not support snapshots
+     *
+     * @throws Exception
+     *             if saving the snapshot fails
+     */
+    default boolean saveDatabase(G globalState, File snapshot) throws Exception {
+        return false;
+    }
+
+    /**
+     * Creates the database of the given state, like {@link #createDatabase}, from a snapshot saved by
+     * {@link #saveDatabase}.
+     *
+     * @param globalState
+     *            the state for which the database is created
+     * @param snapshot
+     *            the file to which the snapshot was written
+     *
+     * @return the connection to the created database
+     *
+     * @throws Exception
+     *             if creating the database or restoring the snapshot fails
+     */
+    default C restoreDatabase(G globalState, File snapshot) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns whether the database of each state is isolated from the databases of other states, that is, whether the
+     * statements executed for one database name cannot affect the database of another name. The reducers evaluate
+     * candidates on additional databases only if this is the case, since the statements of a candidate still refer to
+     * the original database name.
+     *
+     * @param options
+     *            the DBMS-specific options
+     *
+     * @return whether the databases of the states are isolated
+     */
+    default boolean hasIsolatedDatabases(O options) {
+        return false;
+    }
+
     /**
      * The DBMS name is used to name the log directory and command to test the respective DBMS.
      *
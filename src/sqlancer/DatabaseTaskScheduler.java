@@ -0,0 +1,207 @@
+package sqlancer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules the databases of the tries as separate tasks, rather than looping over the databases of a try on one
+ * thread.
+ *
+ * Each try is a chain of tasks: a task tests one database and then submits the task of the next database of its try.
+ * Thus, a database that is stuck, for example on a slow DROP, only holds up its own try, while the other tries are
+ * balanced over the remaining threads. The number of databases that are tested at the same time, and thus of open
+ * connections, is bounded by a semaphore. The seed of each database only depends on the base seed and the position of
+ * the database, so that it does not depend on the scheduling.
+ */
+public final class DatabaseTaskScheduler {
+
+    /**
+     * How the databases are executed.
+     */
+    public enum ExecutorMode {
+        /**
+         * One thread per try, which tests the databases of the try one after another.
+         */
+        FIXED,
+        /**
+         * A task per database on a work-stealing pool with one thread per connection.
+         */
+        WORK_STEALING,
+        /**
+         * A task per database on a virtual thread, if the runtime supports them, and on a work-stealing pool otherwise.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Tests a single database.
+     */
+    @FunctionalInterface
+    public interface DatabaseTask {
+        /**
+         * Tests a database.
+         *
+         * @param tryIndex
+         *            the index of the try
+         * @param database
+         *            the index of the database within the try
+         * @param seed
+         *            the seed of the database
+         *
+         * @return whether the try should continue with its next database
+         */
+        boolean run(int tryIndex, int database, long seed);
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore connections;
+    private final int nrTries;
+    private final int maxNrDatabases;
+    private final long baseSeed;
+    private final DatabaseTask task;
+    private final Runnable tryFinished;
+    private final AtomicInteger nrRunningTries = new AtomicInteger();
+
+    /**
+     * Creates the scheduler.
+     *
+     * @param executor
+     *            the executor that runs the tasks, which is shut down once all tries have finished
+     * @param maxConnections
+     *            the number of databases that may be tested at the same time
+     * @param nrTries
+     *            the number of tries
+     * @param maxNrDatabases
+     *            the number of databases of each try, or -1 to test databases until the task fails
+     * @param baseSeed
+     *            the seed from which the seeds of the databases are derived
+     * @param task
+     *            the task that tests a database
+     * @param tryFinished
+     *            called whenever a try has finished
+     */
+    public DatabaseTaskScheduler(ExecutorService executor, int maxConnections, int nrTries, int maxNrDatabases,
+            long baseSeed, DatabaseTask task, Runnable tryFinished) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException(String.valueOf(maxConnections));
+        }
+        this.executor = executor;
+        this.connections = new Semaphore(maxConnections);
+        this.nrTries = nrTries;
+        this.maxNrDatabases = maxNrDatabases;
+        this.baseSeed = baseSeed;
+        this.task = task;
+        this.tryFinished = tryFinished;
+    }
+
+    /**
+     * Computes the seed of a database. The first database of each try gets the seed that the try would get in the
+     * {@link ExecutorMode#FIXED} mode, and a database can be reproduced by passing its seed as the random seed with a
+     * single try and database.
+     *
+     * @param baseSeed
+     *            the base seed
+     * @param nrTries
+     *            the number of tries
+     * @param tryIndex
+     *            the index of the try
+     * @param database
+     *            the index of the database within the try
+     *
+     * @return the seed
+     */
+    public static long getSeed(long baseSeed, int nrTries, int tryIndex, int database) {
+        return baseSeed + tryIndex + (long) database * nrTries;
+    }
+
+    /**
+     * Creates the executor of a mode.
+     *
+     * @param mode
+     *            the mode
+     * @param nrThreads
+     *            the number of threads of the fixed or work-stealing pool
+     *
+     * @return the executor
+     */
+    public static ExecutorService createExecutorService(ExecutorMode mode, int nrThreads) {
+        switch (mode) {
+        case FIXED:
+            return Executors.newFixedThreadPool(nrThreads);
+        case VIRTUAL:
+            try {
+                // available since Java 21
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads are not supported by this runtime, using a work-stealing pool");
+                return Executors.newWorkStealingPool(nrThreads);
+            }
+        case WORK_STEALING:
+            return Executors.newWorkStealingPool(nrThreads);
+        default:
+            throw new AssertionError(mode);
+        }
+    }
+
+    /**
+     * Submits the first database of every try.
+     */
+    public void start() {
+        nrRunningTries.set(nrTries);
+        if (nrTries == 0) {
+            executor.shutdown();
+            return;
+        }
+        for (int i = 0; i < nrTries; i++) {
+            if (maxNrDatabases == 0) {
+                finishTry();
+            } else {
+                submit(i, 0);
+            }
+        }
+    }
+
+    private void submit(int tryIndex, int database) {
+        try {
+            executor.execute(() -> run(tryIndex, database));
+        } catch (RejectedExecutionException e) {
+            // the executor has been shut down, for example by a timeout
+            finishTry();
+        }
+    }
+
+    private void run(int tryIndex, int database) {
+        boolean continueRunning = false;
+        try {
+            connections.acquire();
+            try {
+                continueRunning = task.run(tryIndex, database, getSeed(baseSeed, nrTries, tryIndex, database));
+            } finally {
+                connections.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            int next = database + 1;
+            if (continueRunning && (next < maxNrDatabases || maxNrDatabases == -1)
+                    && !Thread.currentThread().isInterrupted() && !executor.isShutdown()) {
+                submit(tryIndex, next);
+            } else {
+                finishTry();
+            }
+        }
+    }
+
+    private void finishTry() {
+        tryFinished.run();
+        if (nrRunningTries.decrementAndGet() == 0) {
+            executor.shutdown();
+        }
+    }
+
+}
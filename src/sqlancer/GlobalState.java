@@ -19,7 +19,7 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
     private Main.QueryManager<C> manager;
     private String databaseName;
     private int successCaseNum;
-    private AFLMonitor aflMonitor;
+    private CoverageSource coverageSource;
     private BaseConfigurationGenerator configurationGenerator;
 
     public BaseConfigurationGenerator getConfigurationGenerator() {
@@ -30,12 +30,12 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
         this.configurationGenerator = configurationGenerator;
     }
 
-    public void setAflMonitor(AFLMonitor aflMonitor) {
-            this.aflMonitor = aflMonitor;
+    public void setCoverageSource(CoverageSource coverageSource) {
+        this.coverageSource = coverageSource;
     }
 
-    public AFLMonitor getAflMonitor() {
-        return aflMonitor;
+    public CoverageSource getCoverageSource() {
+        return coverageSource;
     }
 
     public void setConnection(C con) {
@@ -1,20 +1,22 @@
 package sqlancer;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -23,6 +25,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.JCommander.Builder;
 
+import sqlancer.common.log.AsyncLogWriter;
 import sqlancer.common.log.Loggable;
 import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
@@ -61,10 +64,10 @@ public final class Main {
         private File queryPlanFile;
         private File reduceFile;
         private File learnerFileDir;
-        private FileWriter logFileWriter;
-        public FileWriter currentFileWriter;
-        private FileWriter queryPlanFileWriter;
-        private FileWriter reduceFileWriter;
+        private AsyncLogWriter logFileWriter;
+        public AsyncLogWriter currentFileWriter;
+        private AsyncLogWriter queryPlanFileWriter;
+        private AsyncLogWriter reduceFileWriter;
 
         private static final List<String> INITIALIZED_PROVIDER_NAMES = new ArrayList<>();
         private final boolean logEachSelect;
@@ -73,25 +76,10 @@ public final class Main {
 
         private final boolean useReducer;
         private final DatabaseProvider<?, ?, ?> databaseProvider;
-
-        private static final class AlsoWriteToConsoleFileWriter extends FileWriter {
-
-            AlsoWriteToConsoleFileWriter(File file) throws IOException {
-                super(file);
-            }
-
-            @Override
-            public Writer append(CharSequence arg0) throws IOException {
-                System.err.println(arg0);
-                return super.append(arg0);
-            }
-
-            @Override
-            public void write(String str) throws IOException {
-                System.err.println(str);
-                super.write(str);
-            }
-        }
+        private final AsyncLogWriter.FlushPolicy flushPolicy;
+        private final long flushIntervalMillis;
+        private final int bufferSize;
+        private final AsyncLogWriter.Compression compression;
 
         public StateLogger(String databaseName, DatabaseProvider<?, ?, ?> provider, MainOptions options) {
             File dir = new File(LOG_DIRECTORY, provider.getDBMSName());
@@ -125,6 +113,18 @@ public final class Main {
                 }
             }
             this.databaseProvider = provider;
+            this.flushPolicy = options.getLogFlushPolicy();
+            this.flushIntervalMillis = options.getLogFlushIntervalMillis();
+            this.bufferSize = options.getLogBufferSize();
+            this.compression = options.getLogCompression();
+        }
+
+        private AsyncLogWriter openLog(File file, boolean append, AsyncLogWriter.Compression compression) {
+            try {
+                return new AsyncLogWriter(file, append, compression, flushPolicy, flushIntervalMillis, bufferSize);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
         }
 
         private void ensureExistsAndIsEmpty(File dir, DatabaseProvider<?, ?, ?> provider) {
@@ -150,55 +150,40 @@ public final class Main {
             }
         }
 
-        private FileWriter getLogFileWriter() {
+        private AsyncLogWriter getLogFileWriter() {
             if (logFileWriter == null) {
-                try {
-                    logFileWriter = new AlsoWriteToConsoleFileWriter(loggerFile);
-                } catch (IOException e) {
-                    throw new AssertionError(e);
-                }
+                // the log directory has been emptied, so appending keeps the bugs of earlier reports of the database
+                logFileWriter = openLog(loggerFile, true, AsyncLogWriter.Compression.NONE);
             }
             return logFileWriter;
         }
 
-        public FileWriter getCurrentFileWriter() {
+        public AsyncLogWriter getCurrentFileWriter() {
             if (!logEachSelect) {
                 throw new UnsupportedOperationException();
             }
             if (currentFileWriter == null) {
-                try {
-                    currentFileWriter = new FileWriter(curFile, false);
-                } catch (IOException e) {
-                    throw new AssertionError(e);
-                }
+                currentFileWriter = openLog(curFile, false, compression);
             }
             return currentFileWriter;
         }
 
-        public FileWriter getQueryPlanFileWriter() {
+        public AsyncLogWriter getQueryPlanFileWriter() {
             if (!logQueryPlan) {
                 throw new UnsupportedOperationException();
             }
             if (queryPlanFileWriter == null) {
-                try {
-                    queryPlanFileWriter = new FileWriter(queryPlanFile, true);
-                } catch (IOException e) {
-                    throw new AssertionError(e);
-                }
+                queryPlanFileWriter = openLog(queryPlanFile, true, compression);
             }
             return queryPlanFileWriter;
         }
 
-        public FileWriter getReduceFileWriter() {
+        public AsyncLogWriter getReduceFileWriter() {
             if (!useReducer) {
                 throw new UnsupportedOperationException();
             }
             if (reduceFileWriter == null) {
-                try {
-                    reduceFileWriter = new FileWriter(reduceFile, false);
-                } catch (IOException e) {
-                    throw new AssertionError(e);
-                }
+                reduceFileWriter = openLog(reduceFile, false, AsyncLogWriter.Compression.NONE);
             }
             return reduceFileWriter;
         }
@@ -215,12 +200,6 @@ public final class Main {
                 throw new UnsupportedOperationException();
             }
             printState(getCurrentFileWriter(), state);
-            try {
-                currentFileWriter.flush();
-
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
 
         public void writeCurrent(String input) {
@@ -237,8 +216,6 @@ public final class Main {
             }
             try {
                 getCurrentFileWriter().write(loggable.getLogString());
-
-                currentFileWriter.flush();
             } catch (IOException e) {
                 throw new AssertionError();
             }
@@ -249,15 +226,15 @@ public final class Main {
                 throw new UnsupportedOperationException();
             }
             try {
-                getQueryPlanFileWriter().append(removeNamesFromQueryPlans(queryPlan));
-                queryPlanFileWriter.flush();
+                // avoid duplicate tables, views, and indexes
+                getQueryPlanFileWriter().append(QueryPlanPool.normalize(queryPlan) + "\n");
             } catch (IOException e) {
                 throw new AssertionError();
             }
         }
 
         public void logReducer(String reducerLog) {
-            FileWriter reduceFileWriter = getReduceFileWriter();
+            AsyncLogWriter reduceFileWriter = getReduceFileWriter();
 
             StringBuilder sb = new StringBuilder();
             sb.append("[reducer log] ");
@@ -277,7 +254,7 @@ public final class Main {
         }
 
         public void logReduced(StateToReproduce state) {
-            FileWriter reduceFileWriter = getReduceFileWriter();
+            AsyncLogWriter reduceFileWriter = getReduceFileWriter();
 
             StringBuilder sb = new StringBuilder();
             for (Query<?> s : state.getStatements()) {
@@ -299,19 +276,32 @@ public final class Main {
 
         }
 
+        /**
+         * Writes the bug and the statements to reproduce it to the log file, and forces both the log file and the
+         * current log to disk before returning, so that no reproduction is lost if the process dies afterwards. The log
+         * file stays open, so that later bugs are appended to it.
+         *
+         * @param reduce
+         *            the exception that indicates the bug
+         * @param state
+         *            the state to reproduce the bug
+         */
         public void logException(Throwable reduce, StateToReproduce state) {
-            Loggable stackTrace = getStackTrace(reduce);
-            FileWriter logFileWriter2 = getLogFileWriter();
+            String bug = getStackTrace(reduce).getLogString() + getStateString(state);
+            System.err.println(bug);
+            AsyncLogWriter logFileWriter2 = getLogFileWriter();
             try {
-                logFileWriter2.write(stackTrace.getLogString());
-                printState(logFileWriter2, state);
+                logFileWriter2.write(bug);
+                logFileWriter2.sync();
             } catch (IOException e) {
                 throw new AssertionError(e);
             } finally {
-                try {
-                    logFileWriter2.flush();
-                } catch (IOException e) {
-                    e.printStackTrace();
+                if (currentFileWriter != null) {
+                    try {
+                        currentFileWriter.sync();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
                 }
             }
         }
@@ -320,7 +310,15 @@ public final class Main {
             return databaseProvider.getLoggableFactory().convertStacktraceToLoggable(e1);
         }
 
-        private void printState(FileWriter writer, StateToReproduce state) {
+        private void printState(Writer writer, StateToReproduce state) {
+            try {
+                writer.write(getStateString(state));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private String getStateString(StateToReproduce state) {
             StringBuilder sb = new StringBuilder();
 
             sb.append(databaseProvider.getLoggableFactory()
@@ -329,34 +327,37 @@ public final class Main {
             for (Query<?> s : state.getStatements()) {
                 sb.append(databaseProvider.getLoggableFactory().createLoggable(s.getLogString()).getLogString());
             }
-            try {
-                writer.write(sb.toString());
-            } catch (IOException e) {
-                throw new AssertionError(e);
-            }
-        }
-
-        private String removeNamesFromQueryPlans(String queryPlan) {
-            String result = queryPlan;
-            result = result.replaceAll("t[0-9]+", "t0"); // Avoid duplicate tables
-            result = result.replaceAll("v[0-9]+", "v0"); // Avoid duplicate views
-            result = result.replaceAll("i[0-9]+", "i0"); // Avoid duplicate indexes
-            return result + "\n";
+            return sb.toString();
         }
     }
 
     public static class QueryManager<C extends SQLancerDBConnection> {
 
         private final GlobalState<?, ?, C> globalState;
+        // the label of the DBMS in the metrics
+        private String dbms;
 
         QueryManager(GlobalState<?, ?, C> globalState) {
             this.globalState = globalState;
         }
 
+        private String getDbms() {
+            if (dbms == null) {
+                DBMSSpecificOptions<?> dbmsOptions = globalState.getDbmsSpecificOptions();
+                if (dbmsOptions == null || dbmsOptions.getDatabaseEngineFactory() == null) {
+                    dbms = "unknown";
+                } else {
+                    dbms = dbmsOptions.getDatabaseEngineFactory().name().toLowerCase(Locale.ROOT);
+                }
+            }
+            return dbms;
+        }
+
         public boolean execute(Query<C> q, String... fills) throws Exception {
             boolean success;
             success = q.execute(globalState, fills);
             Main.nrSuccessfulActions.addAndGet(1);
+            Metrics.increment(getDbms(), success ? Metrics.Counter.STATEMENTS : Metrics.Counter.FAILED_STATEMENTS);
             if (globalState.getOptions().loggerPrintFailed() || success) {
                 globalState.getState().logStatement(q);
             }
@@ -368,11 +369,14 @@ public final class Main {
             SQLancerResultSet result;
             result = q.executeAndGet(globalState, fills);
             Main.nrSuccessfulActions.addAndGet(1);
+            Metrics.increment(getDbms(),
+                    result != null ? Metrics.Counter.STATEMENTS : Metrics.Counter.FAILED_STATEMENTS);
             return result;
         }
 
         public void incrementSelectQueryCount() {
             Main.nrQueries.addAndGet(1);
+            Metrics.increment(getDbms(), Metrics.Counter.QUERIES);
         }
 
         public Long getSelectQueryCount() {
@@ -381,6 +385,7 @@ public final class Main {
 
         public void incrementCreateDatabase() {
             Main.nrDatabases.addAndGet(1);
+            Metrics.increment(getDbms(), Metrics.Counter.DATABASES);
         }
 
     }
@@ -431,49 +436,131 @@ public final class Main {
             G state = getInitializedGlobalState(System.currentTimeMillis());
             provider.initializeFeatures(state);
         }
-        public void runConfigurationTraining() throws Exception {
-            G state = createGlobalState();
-            stateToRepro = provider.getStateToReproduce(databaseName);
-            stateToRepro.seedValue = r.getSeed();
+        /**
+         * Trains the configuration parameters. The actions are partitioned among the training workers, which run on the
+         * thread pool. Since the coverage of a DBMS instance is shared by all its connections, each worker tests its
+         * own instrumented instance; the first one uses the instance of {@link AFLMonitor#getInstance()} and runs in
+         * the current thread.
+         *
+         * @param execService
+         *            the thread pool that runs the other workers
+         *
+         * @throws Exception
+         *             if the first worker fails
+         */
+        public void runConfigurationTraining(ExecutorService execService) throws Exception {
             //Tang: AFLMonitor是用来和AFL进行交互的类
-            state.setAflMonitor(AFLMonitor.getInstance());
-            state.setState(stateToRepro);
-            logger = new StateLogger(databaseName, provider, options);
-            state.setRandomly(r);
-            state.setDatabaseName(databaseName);
-            state.setMainOptions(options);
-            state.setDbmsSpecificOptions(command);
-            state.setSuccessCaseNum(0);
-            state.setStateLogger(logger);
+            G state = createTrainingState(databaseName, r, AFLMonitor.getInstance());
+            stateToRepro = state.getState();
+            logger = state.getLogger();
 
             BaseConfigurationGenerator configGenerator = GeneralConfigurationGenerator
                     .createGenerator(state.getDbmsSpecificOptions().getDatabaseEngineFactory(),state);
             state.setConfigurationGenerator(configGenerator);
 
-            for (BaseConfigurationGenerator.ConfigurationAction action :configGenerator.getAllActions()) {
+            int nrWorkers = Math.min(options.getNrTrainingWorkers(), options.getNumberConcurrentThreads());
+            List<List<BaseConfigurationGenerator.ConfigurationAction>> partitions = BaseConfigurationGenerator
+                    .partitionActions(configGenerator.getAllActions(), nrWorkers);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 1; i < partitions.size(); i++) {
+                int worker = i;
+                long seed = r.getSeed() + i;
+                List<BaseConfigurationGenerator.ConfigurationAction> partition = partitions.get(i);
+                workers.add(execService.submit(() -> runTrainingWorker(worker, seed, partition)));
+            }
+            try {
+                trainActions(state, partitions.get(0));
+            } finally {
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            }
+//            configGenerator.calculateParameterWeights();
+        }
+
+        private StateToReproduce createStateToReproduce(String name) {
+            StateToReproduce state = provider.getStateToReproduce(name);
+            state.setMemoryBudget(options.getReproductionMemoryBudget());
+            return state;
+        }
+
+        private G createTrainingState(String name, Randomly random, CoverageSource coverageSource) {
+            G state = createGlobalState();
+            StateToReproduce workerStateToRepro = createStateToReproduce(name);
+            workerStateToRepro.seedValue = random.getSeed();
+            state.setCoverageSource(coverageSource);
+            state.setState(workerStateToRepro);
+            state.setRandomly(random);
+            state.setDatabaseName(name);
+            state.setMainOptions(options);
+            state.setDbmsSpecificOptions(command);
+            state.setSuccessCaseNum(0);
+            state.setStateLogger(new StateLogger(name, provider, options));
+            return state;
+        }
+
+        private void runTrainingWorker(int worker, long seed,
+                List<BaseConfigurationGenerator.ConfigurationAction> actions) {
+            String name = databaseName + "_t" + worker;
+            Thread.currentThread().setName(name);
+            try (AFLMonitor monitor = AFLMonitor.startInstance(worker)) {
+                G state = createTrainingState(name, new Randomly(seed), monitor);
+                state.setConfigurationGenerator(GeneralConfigurationGenerator
+                        .createTrainingGenerator(state.getDbmsSpecificOptions().getDatabaseEngineFactory(), state));
+                StateLogger workerLogger = state.getLogger();
+                try {
+                    trainActions(state, actions);
+                } catch (IgnoreMeException e) {
+
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    state.getState().exception = t.getMessage();
+                    workerLogger.logException(t, state.getState());
+                } finally {
+                    try {
+                        if (workerLogger.currentFileWriter != null) {
+                            workerLogger.currentFileWriter.close();
+                            workerLogger.currentFileWriter = null;
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    state.getState().close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /*
+         * Trains each action on a new connection. The statistics of an action are merged even if the training fails, so
+         * that the samples collected before are kept.
+         */
+        private void trainActions(G state, List<BaseConfigurationGenerator.ConfigurationAction> actions)
+                throws Exception {
+            for (BaseConfigurationGenerator.ConfigurationAction action : actions) {
+                ParameterAwareGenerator statistics = new ParameterAwareGenerator();
                 try (C con = provider.createDatabase(state)) {
                     QueryManager<C> manager = new QueryManager<>(state);
                     state.setManager(manager);
                     state.setConnection(con);
                     if (options.logEachSelect()) {
-                        logger.writeCurrent(state.getState());
+                        state.getLogger().writeCurrent(state.getState());
                     }
-//                    state.getAflMonitor().clearCoverage();
-                    provider.generateDatabaseWithConfigurationTraining(state,action);
-//                    AFLMonitor.getInstance().refreshBuffer();
-//                    byte[] coverageBuf = AFLMonitor.getInstance().getCoverageBuf();
+                    provider.generateDatabaseWithConfigurationTraining(state, action, statistics);
+                } finally {
+                    BaseConfigurationGenerator.mergeTrainingResults(Map.of(action.getName(), statistics));
                 }
             }
-//            configGenerator.calculateParameterWeights();
         }
 
         //TODO: Tang: run()函数是整个程序的入口
         public void run() throws Exception {
             G state = createGlobalState();
-            stateToRepro = provider.getStateToReproduce(databaseName);
+            stateToRepro = createStateToReproduce(databaseName);
             stateToRepro.seedValue = r.getSeed();
             //Tang: AFLMonitor是用来和AFL进行交互的类
-            state.setAflMonitor(AFLMonitor.getInstance());
+            state.setCoverageSource(AFLMonitor.getInstance());
             state.setState(stateToRepro);
             logger = new StateLogger(databaseName, provider, options);
             state.setRandomly(r);
@@ -539,6 +626,7 @@ public final class Main {
                     newGlobalState.setStateLogger(newLogger);
                     newGlobalState.setManager(newManager);
 
+                    long reductionStart = Metrics.start();
                     Reducer<G> reducer = new StatementReducer<>(provider);
                     reducer.reduce(state, reproducer, newGlobalState);
 
@@ -546,6 +634,7 @@ public final class Main {
                         Reducer<G> astBasedReducer = new ASTBasedReducer<>(provider);
                         astBasedReducer.reduce(state, reproducer, newGlobalState);
                     }
+                    Metrics.record(Metrics.Phase.REDUCTION, reductionStart);
 
                     try {
                         newLogger.getReduceFileWriter().close();
@@ -567,7 +656,7 @@ public final class Main {
 
         private G getInitializedGlobalState(long seed) {
             G state = createGlobalState();
-            stateToRepro = provider.getStateToReproduce(databaseName);
+            stateToRepro = createStateToReproduce(databaseName);
             stateToRepro.seedValue = seed;
             state.setState(stateToRepro);
             logger = new StateLogger(databaseName, provider, options);
@@ -626,6 +715,10 @@ public final class Main {
             return provider;
         }
 
+        public boolean hasIsolatedDatabases() {
+            return provider.hasIsolatedDatabases(command);
+        }
+
     }
 
     public static int executeMain(String... args) throws AssertionError {
@@ -647,10 +740,19 @@ public final class Main {
             return options.getErrorExitCode();
         }
 
-        ExecutorService execService = Executors.newFixedThreadPool(options.getNumberConcurrentThreads());
+        // the other executors run as many threads as databases are tested concurrently
+        int nrThreads = options.getExecutorMode() == DatabaseTaskScheduler.ExecutorMode.FIXED
+                ? options.getNumberConcurrentThreads() : options.getMaxConnections();
+        ExecutorService execService = DatabaseTaskScheduler.createExecutorService(options.getExecutorMode(), nrThreads);
         DBMSExecutorFactory<?, ?, ?> executorFactory = nameToProvider.get(jc.getParsedCommand());
+        if (options.getNrReducerWorkers() > 1 && !executorFactory.hasIsolatedDatabases()) {
+            System.err.println("--reducer-workers requires a DBMS whose databases are isolated from each other, such"
+                    + " as SQLite, DuckDB, or H2, since the reduced statements refer to the original database.");
+            return options.getErrorExitCode();
+        }
 
         Randomly.initialize(options);
+        ScheduledExecutorService metricsExporter = startMetricsExporter(options);
         if (options.printProgressInformation()) {
             startProgressMonitor();
             if (options.printProgressSummary()) {
@@ -714,14 +816,13 @@ public final class Main {
         DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(options.getDatabasePrefix() + 0, new Randomly(System.currentTimeMillis()));
         try {
             BaseConfigurationGenerator.isTrainingPhase=true;
-            executor.runConfigurationTraining();
+            executor.runConfigurationTraining(execService);
 
         } catch (IgnoreMeException e) {
 
         } catch (Throwable reduce) {
             reduce.printStackTrace();
             executor.getStateToReproduce().exception = reduce.getMessage();
-            executor.getLogger().logFileWriter = null;
             executor.getLogger().logException(reduce, executor.getStateToReproduce());
 
         } finally {
@@ -733,82 +834,77 @@ public final class Main {
                     }
                     executor.getLogger().currentFileWriter = null;
                 }
+                if (executor.getLogger().queryPlanFileWriter != null) {
+                    executor.getLogger().queryPlanFileWriter.close();
+                    executor.getLogger().queryPlanFileWriter = null;
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            if (executor.getStateToReproduce() != null) {
+                executor.getStateToReproduce().close();
+            }
         }
 
 
-        for (int i = 0; i < options.getTotalNumberTries(); i++) {
-            final String databaseName = options.getDatabasePrefix() + i;
-            final long seed;
-            if (options.getRandomSeed() == -1) {
-                seed = System.currentTimeMillis() + i;
-            } else {
-                seed = options.getRandomSeed() + i;
-            }
-            execService.execute(new Runnable() {
-
-                @Override
-                public void run() {
-                    Thread.currentThread().setName(databaseName);
-                    runThread(databaseName);
+        if (options.getExecutorMode() == DatabaseTaskScheduler.ExecutorMode.FIXED) {
+            for (int i = 0; i < options.getTotalNumberTries(); i++) {
+                final String databaseName = options.getDatabasePrefix() + i;
+                final long seed;
+                if (options.getRandomSeed() == -1) {
+                    seed = System.currentTimeMillis() + i;
+                } else {
+                    seed = options.getRandomSeed() + i;
                 }
+                execService.execute(new Runnable() {
 
-                private void runThread(final String databaseName) {
-                    Randomly r = new Randomly(seed);
-                    try {
-                        int maxNrDbs = options.getMaxGeneratedDatabases();
-                        // run without a limit if maxNrDbs == -1
-                        for (int i = 0; i < maxNrDbs || maxNrDbs == -1; i++) {
-                            if (Thread.currentThread().isInterrupted()) {
-                                System.out.println("线程 " + databaseName + " 收到中断信号，正在退出...");
-                                break;
-                            }
-                            String postfix = options.keepLogs() ? "_" + i : "";
-                            Boolean continueRunning = run(options, execService, executorFactory, r,
-                                    databaseName + postfix);
-                            if (!continueRunning) {
-                                someOneFails.set(true);
-                                break;
-                            }
-                        }
-                    } finally {
-                        threadsShutdown.addAndGet(1);
-                        if (threadsShutdown.get() == options.getTotalNumberTries()) {
-                            execService.shutdown();
-                        }
+                    @Override
+                    public void run() {
+                        Thread.currentThread().setName(databaseName);
+                        runThread(databaseName);
                     }
-                }
 
-                private boolean run(MainOptions options, ExecutorService execService,
-                        DBMSExecutorFactory<?, ?, ?> executorFactory, Randomly r, final String databaseName) {
-                    DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(databaseName, r);
-                    try {
-                        executor.run();
-                        return true;
-                    } catch (IgnoreMeException e) {
-                        return true;
-                    } catch (Throwable reduce) {
-                        reduce.printStackTrace();
-                        executor.getStateToReproduce().exception = reduce.getMessage();
-                        executor.getLogger().logFileWriter = null;
-                        executor.getLogger().logException(reduce, executor.getStateToReproduce());
-                        return false;
-                    } finally {
+                    private void runThread(final String databaseName) {
+                        Randomly r = new Randomly(seed);
                         try {
-                            if (options.logEachSelect()) {
-                                if (executor.getLogger().currentFileWriter != null) {
-                                    executor.getLogger().currentFileWriter.close();
+                            int maxNrDbs = options.getMaxGeneratedDatabases();
+                            // run without a limit if maxNrDbs == -1
+                            for (int i = 0; i < maxNrDbs || maxNrDbs == -1; i++) {
+                                if (Thread.currentThread().isInterrupted()) {
+                                    System.out.println("线程 " + databaseName + " 收到中断信号，正在退出...");
+                                    break;
+                                }
+                                String postfix = options.keepLogs() ? "_" + i : "";
+                                boolean continueRunning = runDatabase(options, executorFactory, r,
+                                        databaseName + postfix);
+                                if (!continueRunning) {
+                                    someOneFails.set(true);
+                                    break;
                                 }
-                                executor.getLogger().currentFileWriter = null;
                             }
-                        } catch (IOException e) {
-                            e.printStackTrace();
+                        } finally {
+                            threadsShutdown.addAndGet(1);
+                            if (threadsShutdown.get() == options.getTotalNumberTries()) {
+                                execService.shutdown();
+                            }
                         }
                     }
-                }
-            });
+                });
+            }
+        } else {
+            long baseSeed = options.getRandomSeed() == -1 ? System.currentTimeMillis() : options.getRandomSeed();
+            new DatabaseTaskScheduler(execService, options.getMaxConnections(), options.getTotalNumberTries(),
+                    options.getMaxGeneratedDatabases(), baseSeed, (tryIndex, database, seed) -> {
+                        String postfix = options.keepLogs() ? "_" + database : "";
+                        String databaseName = options.getDatabasePrefix() + tryIndex + postfix;
+                        Thread.currentThread().setName(databaseName);
+                        boolean continueRunning = runDatabase(options, executorFactory, new Randomly(seed),
+                                databaseName);
+                        if (!continueRunning) {
+                            someOneFails.set(true);
+                        }
+                        return continueRunning;
+                    }, threadsShutdown::incrementAndGet).start();
         }
         try {
             if (options.getTimeoutSeconds() == -1) {
@@ -819,10 +915,70 @@ public final class Main {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        SQLConnectionPool.getInstance().closeIdle();
+        if (metricsExporter != null) {
+            metricsExporter.shutdownNow();
+            writeMetrics(options);
+        }
 
         return someOneFails.get() ? options.getErrorExitCode() : 0;
     }
 
+    private static boolean runDatabase(MainOptions options, DBMSExecutorFactory<?, ?, ?> executorFactory, Randomly r,
+            String databaseName) {
+        DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(databaseName, r);
+        try {
+            executor.run();
+            return true;
+        } catch (IgnoreMeException e) {
+            return true;
+        } catch (Throwable reduce) {
+            reduce.printStackTrace();
+            executor.getStateToReproduce().exception = reduce.getMessage();
+            executor.getLogger().logException(reduce, executor.getStateToReproduce());
+            return false;
+        } finally {
+            try {
+                if (options.logEachSelect()) {
+                    if (executor.getLogger().currentFileWriter != null) {
+                        executor.getLogger().currentFileWriter.close();
+                    }
+                    executor.getLogger().currentFileWriter = null;
+                }
+                if (executor.getLogger().queryPlanFileWriter != null) {
+                    executor.getLogger().queryPlanFileWriter.close();
+                    executor.getLogger().queryPlanFileWriter = null;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (executor.getStateToReproduce() != null) {
+                executor.getStateToReproduce().close();
+            }
+        }
+    }
+
+    private static ScheduledExecutorService startMetricsExporter(MainOptions options) {
+        if (options.getMetricsFile().isEmpty()) {
+            return null;
+        }
+        ScheduledExecutorService exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        exporter.scheduleAtFixedRate(() -> writeMetrics(options), 5, 5, TimeUnit.SECONDS);
+        return exporter;
+    }
+
+    private static void writeMetrics(MainOptions options) {
+        try {
+            Metrics.writeSnapshot(Paths.get(options.getMetricsFile()), options.getMetricsFormat());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * To register a new provider, it is necessary to implement the DatabaseProvider interface and add an additional
      * configuration file, see https://docs.oracle.com/javase/9/docs/api/java/util/ServiceLoader.html. Currently, we use
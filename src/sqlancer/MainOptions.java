@@ -6,6 +6,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 
 import sqlancer.Randomly.StringGenerationStrategy;
+import sqlancer.common.log.AsyncLogWriter;
 
 @Parameters(separators = "=", commandDescription = "Options applicable to all DBMS")
 public class MainOptions {
@@ -20,6 +21,22 @@ public class MainOptions {
             "--num-threads" }, description = "How many threads should run concurrently to test separate databases")
     private int nrConcurrentThreads = 4; // NOPMD
 
+    @Parameter(names = {
+            "--training-workers" }, description = "How many workers should train the configuration parameters concurrently, each with its own instrumented DBMS instance")
+    private int nrTrainingWorkers = 1; // NOPMD
+
+    @Parameter(names = {
+            "--executor" }, description = "How the databases are executed: FIXED uses one thread per try, WORK_STEALING and VIRTUAL schedule each database as a task on a work-stealing pool or on virtual threads")
+    private DatabaseTaskScheduler.ExecutorMode executorMode = DatabaseTaskScheduler.ExecutorMode.FIXED; // NOPMD
+
+    @Parameter(names = {
+            "--max-connections" }, description = "How many databases should be tested concurrently by the WORK_STEALING and VIRTUAL executors (-1 to use --num-threads)")
+    private int maxConnections = -1; // NOPMD
+
+    @Parameter(names = {
+            "--reproduction-memory-budget" }, description = "How many bytes of the statements to reproduce a bug each thread should keep in memory. Older statements are written to a temporary file")
+    private long reproductionMemoryBudget = StateToReproduce.DEFAULT_MEMORY_BUDGET; // NOPMD
+
     @Parameter(names = {
             "--random-seed" }, description = "A seed value != -1 that can be set to make the query and database generation deterministic")
     private long randomSeed = -1; // NOPMD
@@ -51,6 +68,18 @@ public class MainOptions {
     @Parameter(names = "--print-failed", description = "Logs failed insert, create and other statements without results", arity = 1)
     private boolean loggerPrintFailed = true; // NOPMD
 
+    @Parameter(names = "--log-flush-policy", description = "When buffered logs are written to disk: EVERY_WRITE, INTERVAL, SIZE, or ON_BUG (logs of a bug are always written before the thread continues)")
+    private AsyncLogWriter.FlushPolicy logFlushPolicy = AsyncLogWriter.FlushPolicy.INTERVAL; // NOPMD
+
+    @Parameter(names = "--log-flush-interval", description = "The interval in milliseconds in which the INTERVAL flush policy writes buffered logs")
+    private long logFlushIntervalMillis = 1000; // NOPMD
+
+    @Parameter(names = "--log-buffer-size", description = "The number of buffered characters after which the SIZE flush policy writes a log (logs are written by the fuzzing thread once they buffer four times as many)")
+    private int logBufferSize = 1 << 16; // NOPMD
+
+    @Parameter(names = "--log-compression", description = "Compress the -cur.log and -plan.log files: NONE or GZIP")
+    private AsyncLogWriter.Compression logCompression = AsyncLogWriter.Compression.NONE; // NOPMD
+
     @Parameter(names = "--qpg-enable", description = "Enable the experimental feature Query Plan Guidance (QPG)", arity = 1)
     private boolean enableQPG;
 
@@ -66,6 +95,9 @@ public class MainOptions {
     @Parameter(names = "--qpg-selection-probability", description = "The probability (0-1) of the random selection of mutators. A higher value (>0.5) favors exploration over exploitation. (requires --qpg-enable)")
     private static double qpgProbability = 0.7;
 
+    @Parameter(names = "--qpg-max-rechecked-queries", description = "The maximum number of queries whose plans are obtained again after the tables have been mutated, starting with those whose plans have been unchecked longest (-1 to recheck all queries, requires --qpg-enable)")
+    private static int qpgMaxRecheckedQueries = 100;
+
     @Parameter(names = "--username", description = "The user name used to log into the DBMS")
     private String userName = "sqlancer"; // NOPMD
 
@@ -84,6 +116,12 @@ public class MainOptions {
     @Parameter(names = "--print-progress-summary", description = "Whether to print an execution summary when exiting SQLancer", arity = 1)
     private boolean printProgressSummary=true; // NOPMD
 
+    @Parameter(names = "--metrics-file", description = "The file to which the latencies of the phases and the counters per DBMS are written every few seconds and on exit (empty to disable)")
+    private String metricsFile = ""; // NOPMD
+
+    @Parameter(names = "--metrics-format", description = "The format of the metrics file (PROMETHEUS or JSON)")
+    private Metrics.Format metricsFormat = Metrics.Format.PROMETHEUS; // NOPMD
+
     @Parameter(names = "--timeout-seconds", description = "The timeout in seconds")
     private int timeoutSeconds = -1; // NOPMD
 
@@ -108,6 +146,9 @@ public class MainOptions {
     @Parameter(names = "--random-string-generation", description = "Select the random-string eneration approach")
     private StringGenerationStrategy randomStringGenerationStrategy = StringGenerationStrategy.SOPHISTICATED; // NOPMD
 
+    @Parameter(names = "--random-engine", description = "Select the pseudo-random number generator that backs each thread (seeded from --random-seed). Only LEGACY reproduces the seeds of bug reports from earlier versions")
+    private RandomEngine.Kind randomEngine = RandomEngine.Kind.LEGACY; // NOPMD
+
     @Parameter(names = "--string-constant-max-length", description = "Specify the maximum-length of generated string constants")
     private int maxStringConstantLength = 10; // NOPMD
 
@@ -141,12 +182,21 @@ public class MainOptions {
     @Parameter(names = "--ast-reducer-max-time", description = "EXPERIMENTAL Maximum time duration (secs) the statement reducer will do")
     private long maxStatementReduceTime = NO_REDUCE_LIMIT; // NOPMD
 
+    @Parameter(names = "--reducer-workers", description = "EXPERIMENTAL Number of connections on which the reducers evaluate candidate reductions in parallel, for DBMSs whose databases are isolated from each other (e.g., SQLite, DuckDB, and H2)")
+    private int nrReducerWorkers = 1; // NOPMD
+
+    @Parameter(names = "--reducer-snapshots", description = "EXPERIMENTAL Restore candidate reductions from database snapshots instead of executing all their statements, if the DBMS supports it and its databases are isolated from each other", arity = 1)
+    private boolean useReducerSnapshots = true; // NOPMD
+
     @Parameter(names = "--validate-result-size-only", description = "Should validate result size only and skip comparing content of the result set ", arity = 1)
     private boolean validateResultSizeOnly = false; // NOPMD
 
     @Parameter(names = "--canonicalize-sql-strings", description = "Should canonicalize query string (add ';' at the end", arity = 1)
     private boolean canonicalizeSqlString = false; // NOPMD
 
+    @Parameter(names = "--bind-constants", description = "EXPERIMENTAL Execute the queries of the oracles that support it as prepared statements whose parameters are the constants of the query, so that queries of the same shape share a prepared statement", arity = 1)
+    private boolean bindConstants = false; // NOPMD
+
     @Parameter(names = "--keep-logs", description = "Should keep logs of the executed queries", arity = 1)
     private boolean keepLogs = false; // NOPMD
 
@@ -174,6 +224,30 @@ public class MainOptions {
         return nrConcurrentThreads;
     }
 
+    public int getNrTrainingWorkers() {
+        return nrTrainingWorkers;
+    }
+
+    public DatabaseTaskScheduler.ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections == -1 ? nrConcurrentThreads : maxConnections;
+    }
+
+    public long getReproductionMemoryBudget() {
+        return reproductionMemoryBudget;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    public Metrics.Format getMetricsFormat() {
+        return metricsFormat;
+    }
+
     public boolean logEachSelect() {
         return logEachSelect;
     }
@@ -203,6 +277,22 @@ public class MainOptions {
         return loggerPrintFailed;
     }
 
+    public AsyncLogWriter.FlushPolicy getLogFlushPolicy() {
+        return logFlushPolicy;
+    }
+
+    public long getLogFlushIntervalMillis() {
+        return logFlushIntervalMillis;
+    }
+
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public AsyncLogWriter.Compression getLogCompression() {
+        return logCompression;
+    }
+
     public boolean logQueryPlan() {
         return logQueryPlan;
     }
@@ -223,6 +313,10 @@ public class MainOptions {
         return qpgProbability;
     }
 
+    public int getQPGMaxRecheckedQueries() {
+        return qpgMaxRecheckedQueries;
+    }
+
     public int getNrQueries() {
         return nrQueries;
     }
@@ -287,6 +381,10 @@ public class MainOptions {
         return randomStringGenerationStrategy;
     }
 
+    public RandomEngine.Kind getRandomEngine() {
+        return randomEngine;
+    }
+
     public int getMaxStringConstantLength() {
         return maxStringConstantLength;
     }
@@ -327,6 +425,14 @@ public class MainOptions {
         return reduceAST;
     }
 
+    public int getNrReducerWorkers() {
+        return nrReducerWorkers;
+    }
+
+    public boolean useReducerSnapshots() {
+        return useReducerSnapshots;
+    }
+
     public long getMaxStatementReduceSteps() {
         return maxStatementReduceSteps;
     }
@@ -351,6 +457,10 @@ public class MainOptions {
         return canonicalizeSqlString;
     }
 
+    public boolean bindConstants() {
+        return bindConstants;
+    }
+
     public boolean keepLogs() {
         return keepLogs;
     }
@@ -0,0 +1,42 @@
+package sqlancer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A coverage map in an anonymous buffer outside the Java heap, which whoever produces the coverage writes directly, for
+ * example tests or DBMSs that run in the same process.
+ */
+public class MemoryCoverageSource implements CoverageSource {
+
+    private static final byte[] ZEROS = new byte[4096];
+
+    private final ByteBuffer map;
+    private final int mapSize;
+
+    public MemoryCoverageSource(int mapSize) {
+        this.map = ByteBuffer.allocateDirect(mapSize).order(ByteOrder.nativeOrder());
+        this.mapSize = mapSize;
+    }
+
+    /**
+     * @return a view of the coverage map, through which edges can be set
+     */
+    public ByteBuffer getMap() {
+        return map.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void clearCoverage() {
+        ByteBuffer view = map.duplicate();
+        while (view.hasRemaining()) {
+            view.put(ZEROS, 0, Math.min(ZEROS.length, view.remaining()));
+        }
+    }
+
+    @Override
+    public TouchedEdges collectTouchedEdges(TouchedEdges edges) {
+        return edges.collect(map, mapSize);
+    }
+
+}
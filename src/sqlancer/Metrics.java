@@ -0,0 +1,284 @@
+package sqlancer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Latency histograms of the phases of testing and counters per DBMS, which all threads share.
+ *
+ * Recording a phase takes two calls of {@link System#nanoTime()} and an increment of two {@link LongAdder}s, so the
+ * metrics are always enabled. The latencies are counted in buckets whose bounds are powers of two nanoseconds. Each
+ * phase is also emitted as a JDK Flight Recorder event, which costs nothing unless a recording is running. The metrics
+ * can be exported in the Prometheus text format or as JSON.
+ */
+public final class Metrics {
+
+    /**
+     * The phases whose latencies are recorded.
+     */
+    public enum Phase {
+        DATABASE_SETUP, CLEAN_OR_SET_UP_DATABASE, GENERATION, RENDERING, EXECUTION, ORACLE, COMPARISON, REDUCTION,
+        LLM_CALL;
+
+        private final String label = name().toLowerCase(Locale.ROOT);
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The events that are counted per DBMS.
+     */
+    public enum Counter {
+        DATABASES, STATEMENTS, FAILED_STATEMENTS, QUERIES;
+
+        private final String label = name().toLowerCase(Locale.ROOT);
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public enum Format {
+        PROMETHEUS, JSON
+    }
+
+    // bucket i counts the latencies below 2^i ns, the last one those of 2^(NR_BUCKETS - 2) ns or more
+    static final int NR_BUCKETS = 41;
+    // the buckets below a microsecond are only exported summed up
+    private static final int FIRST_EXPORTED_BUCKET = 10;
+
+    private static final Histogram[] HISTOGRAMS = new Histogram[Phase.values().length];
+    private static final Map<String, LongAdder[]> COUNTERS = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new Histogram();
+        }
+    }
+
+    @Name("sqlancer.Phase")
+    @Label("SQLancer Phase")
+    @Category("SQLancer")
+    @Description("A phase of generating or testing a database")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[NR_BUCKETS];
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < NR_BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            buckets[getBucket(nanos)].increment();
+            sumNanos.add(nanos);
+        }
+
+        long[] getCounts() {
+            long[] counts = new long[NR_BUCKETS];
+            for (int i = 0; i < NR_BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+    }
+
+    private Metrics() {
+    }
+
+    static int getBucket(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(0, nanos)), NR_BUCKETS - 1);
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @return the start time to pass to {@link #record(Phase, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a phase that started at the given time and ends now.
+     *
+     * @param phase
+     *            the phase
+     * @param startNanos
+     *            the time returned by {@link #start()}
+     */
+    public static void record(Phase phase, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        HISTOGRAMS[phase.ordinal()].record(nanos);
+        PhaseEvent event = new PhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.getLabel();
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    public static void increment(String dbms, Counter counter) {
+        getCounters(dbms)[counter.ordinal()].increment();
+    }
+
+    private static LongAdder[] getCounters(String dbms) {
+        LongAdder[] counters = COUNTERS.get(dbms);
+        if (counters != null) {
+            return counters;
+        }
+        return COUNTERS.computeIfAbsent(dbms, d -> {
+            LongAdder[] newCounters = new LongAdder[Counter.values().length];
+            for (int i = 0; i < newCounters.length; i++) {
+                newCounters[i] = new LongAdder();
+            }
+            return newCounters;
+        });
+    }
+
+    public static long getCount(String dbms, Counter counter) {
+        LongAdder[] counters = COUNTERS.get(dbms);
+        return counters == null ? 0 : counters[counter.ordinal()].sum();
+    }
+
+    public static long getCount(Phase phase) {
+        long count = 0;
+        for (long bucketCount : HISTOGRAMS[phase.ordinal()].getCounts()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    private static String getUpperBound(int bucket) {
+        return bucket == NR_BUCKETS - 1 ? "+Inf" : Double.toString((1L << bucket) / 1e9);
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     *
+     * @param writer
+     *            the writer to which the metrics are written
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void writePrometheus(Writer writer) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP sqlancer_phase_seconds The latency of the phases of testing.\n");
+        sb.append("# TYPE sqlancer_phase_seconds histogram\n");
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = HISTOGRAMS[phase.ordinal()];
+            long[] counts = histogram.getCounts();
+            long cumulative = 0;
+            for (int i = 0; i < NR_BUCKETS; i++) {
+                cumulative += counts[i];
+                if (i >= FIRST_EXPORTED_BUCKET) {
+                    sb.append("sqlancer_phase_seconds_bucket{phase=\"").append(phase.getLabel()).append("\",le=\"")
+                            .append(getUpperBound(i)).append("\"} ").append(cumulative).append('\n');
+                }
+            }
+            sb.append("sqlancer_phase_seconds_sum{phase=\"").append(phase.getLabel()).append("\"} ")
+                    .append(histogram.sumNanos.sum() / 1e9).append('\n');
+            sb.append("sqlancer_phase_seconds_count{phase=\"").append(phase.getLabel()).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        for (Counter counter : Counter.values()) {
+            String name = "sqlancer_" + counter.getLabel() + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, LongAdder[]> entry : COUNTERS.entrySet()) {
+                sb.append(name).append("{dbms=\"").append(entry.getKey()).append("\"} ")
+                        .append(entry.getValue()[counter.ordinal()].sum()).append('\n');
+            }
+        }
+        writer.write(sb.toString());
+    }
+
+    /**
+     * Returns a snapshot of the metrics as JSON. The buckets of each phase map their upper bound in seconds to the
+     * number of latencies in the bucket, which are not cumulative.
+     *
+     * @return the snapshot
+     */
+    public static JSONObject toJson() {
+        JSONObject phases = new JSONObject();
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = HISTOGRAMS[phase.ordinal()];
+            long[] counts = histogram.getCounts();
+            JSONObject buckets = new JSONObject();
+            long count = 0;
+            for (int i = 0; i < NR_BUCKETS; i++) {
+                count += counts[i];
+                if (counts[i] != 0) {
+                    buckets.put(getUpperBound(i), counts[i]);
+                }
+            }
+            phases.put(phase.getLabel(), new JSONObject().put("count", count)
+                    .put("sumSeconds", histogram.sumNanos.sum() / 1e9).put("buckets", buckets));
+        }
+        JSONObject counters = new JSONObject();
+        for (Map.Entry<String, LongAdder[]> entry : COUNTERS.entrySet()) {
+            JSONObject dbmsCounters = new JSONObject();
+            for (Counter counter : Counter.values()) {
+                dbmsCounters.put(counter.getLabel(), entry.getValue()[counter.ordinal()].sum());
+            }
+            counters.put(entry.getKey(), dbmsCounters);
+        }
+        return new JSONObject().put("phases", phases).put("counters", counters);
+    }
+
+    /**
+     * Writes a snapshot of the metrics to a file. The snapshot is written to a temporary file first and then moved, so
+     * that readers never see a partial snapshot.
+     *
+     * @param file
+     *            the file to which the snapshot is written
+     * @param format
+     *            the format of the snapshot
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void writeSnapshot(Path file, Format format) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            if (format == Format.JSON) {
+                writer.write(toJson().toString(2));
+            } else {
+                writePrometheus(writer);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -16,7 +16,7 @@ import sqlancer.general.gen.Configuration.BaseConfigurationGenerator;
 import sqlancer.general.gen.GeneralConfigurationGenerator;
 import sqlancer.general.gen.ParameterAwareGenerator;
 
-import static sqlancer.general.gen.ParameterAwareGenerator.featureSet;
+import static sqlancer.general.gen.ParameterAwareGenerator.getFeatureSet;
 
 
 public abstract class ProviderAdapter<G extends GlobalState<O, ? extends AbstractSchema<G, ?>, C>, O extends DBMSSpecificOptions<? extends OracleFactory<G>>, C extends SQLancerDBConnection>
@@ -26,7 +26,7 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     private final Class<O> optionClass;
 
     // Variables for QPG
-    Map<String, String> queryPlanPool = new HashMap<>();
+    QueryPlanPool queryPlanPool = new QueryPlanPool();
     static double[] weightedAverageReward; // static variable for sharing across all threads
     int currentSelectRewards;
     int currentSelectCounts;
@@ -59,9 +59,12 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     }
 
     @Override
-    public void generateDatabaseWithConfigurationTraining(G globalState, BaseConfigurationGenerator.ConfigurationAction action) throws Exception{
+    public void generateDatabaseWithConfigurationTraining(G globalState,
+            BaseConfigurationGenerator.ConfigurationAction action, ParameterAwareGenerator parameterAwareGenerator)
+            throws Exception {
         //Tang: 生成配置参数并进行训练
-        ParameterAwareGenerator parameterAwareGenerator = new ParameterAwareGenerator();
+        CoverageSource coverageSource = globalState.getCoverageSource();
+        TouchedEdges touchedEdges = new TouchedEdges();
         OracleFactory<G> testOracleFactory = (OracleFactory<G>) GeneralOptions.GeneralOracleFactory.NOREC;
         try {
                 for (int i = 0; i < BaseConfigurationGenerator.TRAINING_SAMPLES; i++) {
@@ -75,11 +78,11 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                             assert localState != null;
                             try {
                                 globalState.getManager().incrementSelectQueryCount();
-                                featureSet.clear();
-                                AFLMonitor.getInstance().clearCoverage();
+                                getFeatureSet().clear();
+                                coverageSource.clearCoverage();
                                 testOracle.genSelect();
-                                AFLMonitor.getInstance().refreshBuffer();
-                                parameterAwareGenerator.updateCounts();
+                                coverageSource.collectTouchedEdges(touchedEdges);
+                                parameterAwareGenerator.updateCounts(touchedEdges);
 
                                 Main.nrSuccessfulActions.addAndGet(1);
                                 globalState.incrementSuccessCaseNum();
@@ -100,8 +103,6 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                 globalState.updateHandler(true);
                 generateDefaultConfiguration(globalState, action);
         }finally {
-            double[] featureProbabilities = parameterAwareGenerator.getFeatureProbabilities();
-            BaseConfigurationGenerator.parameterFeatureProbabilities.putIfAbsent(action.getName(), featureProbabilities.clone());
             clearSchema(globalState);
             globalState.getConnection().close();
         }
@@ -111,7 +112,9 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     @Override
     public Reproducer<G> generateAndTestDatabase(G globalState) throws Exception {
         try {
+            long setUpStart = Metrics.start();
             generateDatabase(globalState);
+            Metrics.record(Metrics.Phase.DATABASE_SETUP, setUpStart);
             checkViewsAreValid(globalState);
             globalState.getManager().incrementCreateDatabase();
 
@@ -121,7 +124,12 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                 try (OracleRunReproductionState localState = globalState.getState().createLocalState()) {
                     assert localState != null;
                     try {
-                        oracle.check();
+                        long oracleStart = Metrics.start();
+                        try {
+                            oracle.check();
+                        } finally {
+                            Metrics.record(Metrics.Phase.ORACLE, oracleStart);
+                        }
                         globalState.getManager().incrementSelectQueryCount();
                         globalState.incrementSuccessCaseNum();
                     } catch (IgnoreMeException ignored) {
@@ -189,7 +197,9 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
             weightedAverageReward = initializeWeightedAverageReward(); // Same length as the list of mutators
         }
         try {
+            long setUpStart = Metrics.start();
             generateDatabase(globalState);
+            Metrics.record(Metrics.Phase.DATABASE_SETUP, setUpStart);
             checkViewsAreValid(globalState);
             globalState.getManager().incrementCreateDatabase();
 
@@ -201,7 +211,12 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                     try (OracleRunReproductionState localState = globalState.getState().createLocalState()) {
                         assert localState != null;
                         try {
-                            oracle.check();
+                            long oracleStart = Metrics.start();
+                            try {
+                                oracle.check();
+                            } finally {
+                                Metrics.record(Metrics.Phase.ORACLE, oracleStart);
+                            }
                             String query = oracle.getLastQueryString();
                             executedQueryCount += 1;
                             if (addQueryPlan(query, globalState)) {
@@ -243,7 +258,7 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         } else {
             selectedActionIndex = DBMSCommon.getMaxIndexInDoubleArray(weightedAverageReward);
         }
-        int reward = 0;
+        double reward = 0;
 
         try {
             executeMutator(selectedActionIndex, globalState);
@@ -252,7 +267,7 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         } catch (IgnoreMeException | AssertionError e) {
         } finally {
             // Update rewards based on existing queries associated with the query plan pool
-            updateReward(selectedActionIndex, (double) reward / (double) queryPlanPool.size(), globalState);
+            updateReward(selectedActionIndex, reward, globalState);
             currentMutationOperator = selectedActionIndex;
         }
 
@@ -271,36 +286,18 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         }
 
         currentSelectCounts += 1;
-        if (queryPlanPool.containsKey(queryPlan)) {
-            return false;
-        } else {
-            queryPlanPool.put(queryPlan, selectStr);
+        if (queryPlanPool.add(queryPlan, selectStr)) {
             currentSelectRewards += 1;
             return true;
+        } else {
+            return false;
         }
     }
 
-    // Obtain the reward of the current action based on the queries associated with the query plan pool
-    private int checkQueryPlan(G globalState) throws Exception {
-        int newQueryPlanFound = 0;
-        HashMap<String, String> modifiedQueryPlan = new HashMap<>();
-        for (Iterator<Map.Entry<String, String>> it = queryPlanPool.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<String, String> item = it.next();
-            String queryPlan = item.getKey();
-            String selectStr = item.getValue();
-            String newQueryPlan = getQueryPlan(selectStr, globalState);
-            if (newQueryPlan.isEmpty()) { // Invalid query
-                it.remove();
-            } else if (!queryPlan.equals(newQueryPlan)) { // A query plan has been changed
-                it.remove();
-                modifiedQueryPlan.put(newQueryPlan, selectStr);
-                if (!queryPlanPool.containsKey(newQueryPlan)) { // A new query plan is found
-                    newQueryPlanFound++;
-                }
-            }
-        }
-        queryPlanPool.putAll(modifiedQueryPlan);
-        return newQueryPlanFound;
+    // Obtain the reward of the current action as the fraction of the rechecked queries whose plans became new
+    private double checkQueryPlan(G globalState) throws Exception {
+        return queryPlanPool.checkAfterMutation(selectStr -> getQueryPlan(selectStr, globalState),
+                globalState.getOptions().getQPGMaxRecheckedQueries()).getReward();
     }
 
     // QPG: update the reward of current action
@@ -0,0 +1,199 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The query plans that Query Plan Guidance (QPG) has observed, each with a query that has the plan.
+ *
+ * Plans are stored as 64-bit fingerprints of their normalized text, in which the numbers of tables, views, and indexes
+ * are removed, so that the pool neither stores nor compares the plans themselves. The pool is ordered by when the plan
+ * of each query was last checked, so that after the tables have been mutated, the plans that have been unchecked
+ * longest are checked first, and only a bounded number of queries needs to be explained again.
+ */
+public class QueryPlanPool {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // ordered from the least to the most recently checked plan
+    private final LinkedHashMap<Long, Entry> plans = new LinkedHashMap<>();
+
+    /**
+     * Obtains the plan of a query.
+     */
+    @FunctionalInterface
+    public interface QueryPlanProvider {
+        /**
+         * Returns the plan of a query, or the empty string if the query is invalid.
+         */
+        String getQueryPlan(String query) throws Exception;
+    }
+
+    private static final class Entry {
+        private final long fingerprint;
+        private final String query;
+
+        Entry(long fingerprint, String query) {
+            this.fingerprint = fingerprint;
+            this.query = query;
+        }
+    }
+
+    /**
+     * Adds a query whose plan has been obtained.
+     *
+     * @param queryPlan
+     *            the plan
+     * @param query
+     *            the query
+     *
+     * @return whether the plan is new
+     */
+    public boolean add(String queryPlan, String query) {
+        long fingerprint = getFingerprint(queryPlan);
+        if (plans.containsKey(fingerprint)) {
+            return false;
+        }
+        plans.put(fingerprint, new Entry(fingerprint, query));
+        return true;
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    public boolean containsPlan(String queryPlan) {
+        return plans.containsKey(getFingerprint(queryPlan));
+    }
+
+    /**
+     * The result of checking the plans of the pool after a mutation.
+     */
+    public static final class CheckResult {
+        private final int nrChecked;
+        private final int nrNewPlans;
+
+        CheckResult(int nrChecked, int nrNewPlans) {
+            this.nrChecked = nrChecked;
+            this.nrNewPlans = nrNewPlans;
+        }
+
+        public int getNrChecked() {
+            return nrChecked;
+        }
+
+        public int getNrNewPlans() {
+            return nrNewPlans;
+        }
+
+        /**
+         * Returns the fraction of the checked queries whose plan changed to a new one.
+         */
+        public double getReward() {
+            return nrChecked == 0 ? 0 : (double) nrNewPlans / nrChecked;
+        }
+    }
+
+    /**
+     * Obtains the plans of the queries whose plans have been unchecked longest again, after the tables have been
+     * mutated. Queries that have become invalid are removed, and queries whose plan changed are stored with the new
+     * plan, unless the pool already contains it.
+     *
+     * @param provider
+     *            obtains the plan of a query
+     * @param maxNrChecks
+     *            the maximum number of queries whose plans are obtained, or -1 to check all queries
+     *
+     * @return the number of checked queries and of new plans that have been found
+     *
+     * @throws Exception
+     *             if obtaining a plan fails
+     */
+    public CheckResult checkAfterMutation(QueryPlanProvider provider, int maxNrChecks) throws Exception {
+        List<Entry> toCheck = new ArrayList<>();
+        for (Iterator<Entry> it = plans.values().iterator(); it.hasNext()
+                && (maxNrChecks == -1 || toCheck.size() < maxNrChecks);) {
+            toCheck.add(it.next());
+        }
+        int nrNewPlans = 0;
+        for (Entry entry : toCheck) {
+            String newQueryPlan = provider.getQueryPlan(entry.query);
+            plans.remove(entry.fingerprint);
+            if (newQueryPlan.isEmpty()) {
+                continue; // invalid query
+            }
+            long newFingerprint = getFingerprint(newQueryPlan);
+            if (newFingerprint == entry.fingerprint) {
+                plans.put(entry.fingerprint, entry);
+            } else if (!plans.containsKey(newFingerprint)) {
+                plans.put(newFingerprint, new Entry(newFingerprint, entry.query));
+                nrNewPlans++;
+            }
+        }
+        return new CheckResult(toCheck.size(), nrNewPlans);
+    }
+
+    /**
+     * Removes the numbers of the tables, views, and indexes from a plan, so that plans that only differ in which tables
+     * they access are the same. This is equivalent to replacing <code>t[0-9]+</code>, <code>v[0-9]+</code>, and
+     * <code>i[0-9]+</code> by <code>t0</code>, <code>v0</code>, and <code>i0</code>.
+     *
+     * @param queryPlan
+     *            the plan
+     *
+     * @return the normalized plan
+     */
+    public static String normalize(String queryPlan) {
+        StringBuilder sb = new StringBuilder(queryPlan.length());
+        int length = queryPlan.length();
+        for (int i = 0; i < length; i++) {
+            char c = queryPlan.charAt(i);
+            sb.append(c);
+            int end = getEndOfNumberedName(queryPlan, i);
+            if (end != -1) {
+                sb.append('0');
+                i = end - 1;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Computes the fingerprint of the normalized plan, without creating the normalized plan.
+     *
+     * @param queryPlan
+     *            the plan
+     *
+     * @return the 64-bit FNV-1a hash of the normalized plan
+     */
+    public static long getFingerprint(String queryPlan) {
+        long hash = FNV_OFFSET_BASIS;
+        int length = queryPlan.length();
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ queryPlan.charAt(i)) * FNV_PRIME;
+            int end = getEndOfNumberedName(queryPlan, i);
+            if (end != -1) {
+                hash = (hash ^ '0') * FNV_PRIME;
+                i = end - 1;
+            }
+        }
+        return hash;
+    }
+
+    // returns the end of the digits that follow a t, v, or i at the position, or -1 if none follow
+    private static int getEndOfNumberedName(String queryPlan, int i) {
+        char c = queryPlan.charAt(i);
+        if (c != 't' && c != 'v' && c != 'i') {
+            return -1;
+        }
+        int end = i + 1;
+        while (end < queryPlan.length() && queryPlan.charAt(end) >= '0' && queryPlan.charAt(end) <= '9') {
+            end++;
+        }
+        return end == i + 1 ? -1 : end;
+    }
+
+}
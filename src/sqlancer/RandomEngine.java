@@ -0,0 +1,271 @@
+package sqlancer;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * The source of randomness behind {@link Randomly}. Each fuzzing thread owns exactly one engine, so implementations are
+ * not thread-safe. All draws, including the bounded ones, operate on primitives and do not allocate.
+ */
+public abstract class RandomEngine {
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian;
+
+    public enum Kind {
+        SPLITTABLE {
+            @Override
+            public RandomEngine create(long seed) {
+                return new SplittableRandomEngine(seed);
+            }
+        },
+        XOSHIRO256 {
+            @Override
+            public RandomEngine create(long seed) {
+                return new Xoshiro256StarStarEngine(seed);
+            }
+        },
+        // java.util.Random, which SQLancer used before the engines were introduced, so that the seeds of earlier bug
+        // reports reproduce; nextLong(lower, upper) follows Random#longs(lower, upper), which Randomly used
+        LEGACY {
+            @Override
+            public RandomEngine create(long seed) {
+                return new LegacyRandomEngine(seed);
+            }
+        };
+
+        public abstract RandomEngine create(long seed);
+
+    }
+
+    public abstract long nextLong();
+
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    // polar method, see java.util.Random#nextGaussian
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * Returns a value in [lower, upper). The computation follows the algorithm that the JDK uses for bounded streams,
+     * so that the range may span more than {@link Long#MAX_VALUE} values.
+     *
+     * @param lower
+     *            the inclusive lower bound
+     * @param upper
+     *            the exclusive upper bound
+     *
+     * @return the random value
+     */
+    public long nextLong(long lower, long upper) {
+        if (lower >= upper) {
+            throw new IllegalArgumentException(lower + " " + upper);
+        }
+        long r = nextLong();
+        long n = upper - lower;
+        long m = n - 1;
+        if ((n & m) == 0L) {
+            // power of two
+            return (r & m) + lower;
+        } else if (n > 0L) {
+            for (long u = r >>> 1; u + m - (r = u % n) < 0L; u = nextLong() >>> 1) {
+                // reject over-represented candidates
+            }
+            return r + lower;
+        } else {
+            // the range is not representable as a long
+            while (r < lower || r >= upper) {
+                r = nextLong();
+            }
+            return r;
+        }
+    }
+
+    public int nextInt(int lower, int upper) {
+        return (int) nextLong(lower, upper);
+    }
+
+    // a value in [0, bound), which java.util.Random draws differently than a value in [lower, upper)
+    public int nextInt(int bound) {
+        return nextInt(0, bound);
+    }
+
+    public void nextBytes(byte[] bytes) {
+        int i = 0;
+        int len = bytes.length;
+        for (int words = len >> 3; words-- > 0;) {
+            long rnd = nextLong();
+            for (int n = 8; n-- > 0; rnd >>>= Byte.SIZE) {
+                bytes[i++] = (byte) rnd;
+            }
+        }
+        if (i < len) {
+            for (long rnd = nextLong(); i < len; rnd >>>= Byte.SIZE) {
+                bytes[i++] = (byte) rnd;
+            }
+        }
+    }
+
+    /**
+     * Fills the given buffer with characters that are drawn uniformly from the alphabet.
+     *
+     * @param chars
+     *            the buffer to fill
+     * @param alphabet
+     *            the characters to pick from
+     */
+    public void nextChars(char[] chars, String alphabet) {
+        int n = alphabet.length();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = alphabet.charAt(nextInt(0, n));
+        }
+    }
+
+    public String nextString(String alphabet, int length) {
+        char[] chars = new char[length];
+        nextChars(chars, alphabet);
+        return new String(chars);
+    }
+
+    static long mix64(long z) {
+        // SplitMix64 finalizer, used to expand a single seed into engine state
+        long x = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    private static final class SplittableRandomEngine extends RandomEngine {
+
+        private final SplittableRandom random;
+
+        SplittableRandomEngine(long seed) {
+            random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public long nextLong() {
+            return random.nextLong();
+        }
+
+        @Override
+        public long nextLong(long lower, long upper) {
+            if (lower >= upper) {
+                throw new IllegalArgumentException(lower + " " + upper);
+            }
+            return random.nextLong(lower, upper);
+        }
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            random.nextBytes(bytes);
+        }
+
+    }
+
+    // see https://prng.di.unimi.it/xoshiro256starstar.c
+    private static final class Xoshiro256StarStarEngine extends RandomEngine {
+
+        private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+        private long s0;
+        private long s1;
+        private long s2;
+        private long s3;
+
+        Xoshiro256StarStarEngine(long seed) {
+            long x = seed;
+            s0 = mix64(x += GOLDEN_GAMMA);
+            s1 = mix64(x += GOLDEN_GAMMA);
+            s2 = mix64(x += GOLDEN_GAMMA);
+            s3 = mix64(x + GOLDEN_GAMMA);
+        }
+
+        @Override
+        public long nextLong() {
+            long result = Long.rotateLeft(s1 * 5, 7) * 9;
+            long t = s1 << 17;
+            s2 ^= s0;
+            s3 ^= s1;
+            s1 ^= s2;
+            s0 ^= s3;
+            s2 ^= t;
+            s3 = Long.rotateLeft(s3, 45);
+            return result;
+        }
+
+    }
+
+    private static final class LegacyRandomEngine extends RandomEngine {
+
+        private final Random random;
+
+        LegacyRandomEngine(long seed) {
+            random = new Random(seed);
+        }
+
+        @Override
+        public long nextLong() {
+            return random.nextLong();
+        }
+
+        @Override
+        public int nextInt() {
+            return random.nextInt();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return random.nextBoolean();
+        }
+
+        @Override
+        public double nextDouble() {
+            return random.nextDouble();
+        }
+
+        @Override
+        public double nextGaussian() {
+            return random.nextGaussian();
+        }
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            random.nextBytes(bytes);
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return random.nextInt(bound);
+        }
+
+    }
+
+}
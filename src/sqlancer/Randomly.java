@@ -6,7 +6,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public final class Randomly {
@@ -15,33 +16,70 @@ public final class Randomly {
     private static int maxStringLength = 10;
     private static boolean useCaching = true;
     private static int cacheSize = 100;
-
-    private final List<Long> cachedLongs = new ArrayList<>();
-    private final List<Integer> cachedIntegers = new ArrayList<>();
+    private static RandomEngine.Kind engineKind = RandomEngine.Kind.LEGACY;
+
+    // the numeric caches are kept unboxed so that neither lookups nor insertions allocate
+    private long[] cachedLongs = new long[0];
+    private int nrCachedLongs;
+    private int[] cachedIntegers = new int[0];
+    private int nrCachedIntegers;
+    private double[] cachedDoubles = new double[0];
+    private int nrCachedDoubles;
     private final List<String> cachedStrings = new ArrayList<>();
-    private final List<Double> cachedDoubles = new ArrayList<>();
     private final List<byte[]> cachedBytes = new ArrayList<>();
     private Supplier<String> provider;
 
-    private static final ThreadLocal<Random> THREAD_RANDOM = new ThreadLocal<>();
+    private static final ThreadLocal<RandomEngine> THREAD_RANDOM = new ThreadLocal<>();
     private long seed;
 
+    private static int grownCacheCapacity(int currentCapacity) {
+        return Math.min(cacheSize, Math.max(8, currentCapacity * 2));
+    }
+
     private void addToCache(long val) {
-        if (useCaching && cachedLongs.size() < cacheSize && !cachedLongs.contains(val)) {
-            cachedLongs.add(val);
+        if (!useCaching || nrCachedLongs >= cacheSize) {
+            return;
+        }
+        for (int i = 0; i < nrCachedLongs; i++) {
+            if (cachedLongs[i] == val) {
+                return;
+            }
+        }
+        if (nrCachedLongs == cachedLongs.length) {
+            cachedLongs = Arrays.copyOf(cachedLongs, grownCacheCapacity(nrCachedLongs));
         }
+        cachedLongs[nrCachedLongs++] = val;
     }
 
     private void addToCache(int val) {
-        if (useCaching && cachedIntegers.size() < cacheSize && !cachedIntegers.contains(val)) {
-            cachedIntegers.add(val);
+        if (!useCaching || nrCachedIntegers >= cacheSize) {
+            return;
         }
+        for (int i = 0; i < nrCachedIntegers; i++) {
+            if (cachedIntegers[i] == val) {
+                return;
+            }
+        }
+        if (nrCachedIntegers == cachedIntegers.length) {
+            cachedIntegers = Arrays.copyOf(cachedIntegers, grownCacheCapacity(nrCachedIntegers));
+        }
+        cachedIntegers[nrCachedIntegers++] = val;
     }
 
     private void addToCache(double val) {
-        if (useCaching && cachedDoubles.size() < cacheSize && !cachedDoubles.contains(val)) {
-            cachedDoubles.add(val);
+        if (!useCaching || nrCachedDoubles >= cacheSize) {
+            return;
+        }
+        for (int i = 0; i < nrCachedDoubles; i++) {
+            // same semantics as Double#equals, which the boxed cache used
+            if (Double.doubleToLongBits(cachedDoubles[i]) == Double.doubleToLongBits(val)) {
+                return;
+            }
+        }
+        if (nrCachedDoubles == cachedDoubles.length) {
+            cachedDoubles = Arrays.copyOf(cachedDoubles, grownCacheCapacity(nrCachedDoubles));
         }
+        cachedDoubles[nrCachedDoubles++] = val;
     }
 
     private void addToCache(String val) {
@@ -50,19 +88,27 @@ public final class Randomly {
         }
     }
 
+    private long randomCachedLong() {
+        return cachedLongs[getNextInt(0, nrCachedLongs)];
+    }
+
+    private double randomCachedDouble() {
+        return cachedDoubles[getNextInt(0, nrCachedDoubles)];
+    }
+
     private Long getFromLongCache() {
-        if (!useCaching || cachedLongs.isEmpty()) {
+        if (!useCaching || nrCachedLongs == 0) {
             return null;
         } else {
-            return Randomly.fromList(cachedLongs);
+            return randomCachedLong();
         }
     }
 
     private Integer getFromIntegerCache() {
-        if (!useCaching || cachedIntegers.isEmpty()) {
+        if (!useCaching || nrCachedIntegers == 0) {
             return null;
         } else {
-            return Randomly.fromList(cachedIntegers);
+            return cachedIntegers[getNextInt(0, nrCachedIntegers)];
         }
     }
 
@@ -70,10 +116,10 @@ public final class Randomly {
         if (!useCaching) {
             return null;
         }
-        if (Randomly.getBoolean() && !cachedLongs.isEmpty()) {
-            return (double) Randomly.fromList(cachedLongs);
-        } else if (!cachedDoubles.isEmpty()) {
-            return Randomly.fromList(cachedDoubles);
+        if (Randomly.getBoolean() && nrCachedLongs != 0) {
+            return (double) randomCachedLong();
+        } else if (nrCachedDoubles != 0) {
+            return randomCachedDouble();
         } else {
             return null;
         }
@@ -83,10 +129,10 @@ public final class Randomly {
         if (!useCaching) {
             return null;
         }
-        if (Randomly.getBoolean() && !cachedLongs.isEmpty()) {
-            return String.valueOf(Randomly.fromList(cachedLongs));
-        } else if (Randomly.getBoolean() && !cachedDoubles.isEmpty()) {
-            return String.valueOf(Randomly.fromList(cachedDoubles));
+        if (Randomly.getBoolean() && nrCachedLongs != 0) {
+            return String.valueOf(randomCachedLong());
+        } else if (Randomly.getBoolean() && nrCachedDoubles != 0) {
+            return String.valueOf(randomCachedDouble());
         } else if (Randomly.getBoolean() && !cachedBytes.isEmpty()
                 && stringGenerationStrategy == StringGenerationStrategy.SOPHISTICATED) {
             return new String(Randomly.fromList(cachedBytes));
@@ -112,6 +158,38 @@ public final class Randomly {
         return list.get((int) getNextLong(0, list.size()));
     }
 
+    /**
+     * Returns a random element that satisfies the predicate, without collecting the elements that satisfy it. The
+     * element is the same as the one that {@link #fromList(List)} returns for the list of these elements.
+     *
+     * @param <T>
+     *            the type of the elements
+     * @param list
+     *            the elements
+     * @param predicate
+     *            the predicate
+     *
+     * @return the element
+     *
+     * @throws IndexOutOfBoundsException
+     *             if no element satisfies the predicate
+     */
+    public static <T> T fromList(List<T> list, Predicate<? super T> predicate) {
+        int nrMatches = 0;
+        for (T element : list) {
+            if (predicate.test(element)) {
+                nrMatches++;
+            }
+        }
+        int index = (int) getNextLong(0, nrMatches);
+        for (T element : list) {
+            if (predicate.test(element) && index-- == 0) {
+                return element;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index 0 out of bounds for length 0");
+    }
+
     @SafeVarargs
     public static <T> T fromOptions(T... options) {
         return options[getNextInt(0, options.length)];
@@ -177,23 +255,25 @@ public final class Randomly {
 
     public static int smallNumber() {
         // no need to cache for small numbers
-        return (int) (Math.abs(getThreadRandom().get().nextGaussian())) * 2;
+        return (int) (Math.abs(getThreadRandom().nextGaussian())) * 2;
     }
 
     public static boolean getBoolean() {
-        return getThreadRandom().get().nextBoolean();
+        return getThreadRandom().nextBoolean();
     }
 
     public static double getPercentage() {
-        return getThreadRandom().get().nextDouble();
+        return getThreadRandom().nextDouble();
     }
 
-    private static ThreadLocal<Random> getThreadRandom() {
-        if (THREAD_RANDOM.get() == null) {
+    private static RandomEngine getThreadRandom() {
+        RandomEngine engine = THREAD_RANDOM.get();
+        if (engine == null) {
             // a static method has been called, before Randomly was instantiated
-            THREAD_RANDOM.set(new Random());
+            engine = engineKind.create(ThreadLocalRandom.current().nextLong());
+            THREAD_RANDOM.set(engine);
         }
-        return THREAD_RANDOM;
+        return engine;
     }
 
     public long getInteger() {
@@ -206,7 +286,7 @@ public final class Randomly {
                     return l;
                 }
             }
-            long nextLong = getThreadRandom().get().nextInt();
+            long nextLong = getThreadRandom().nextInt();
             addToCache(nextLong);
             return nextLong;
         }
@@ -326,11 +406,7 @@ public final class Randomly {
 
         private static String getStringOfAlphabet(Randomly r, String alphabet) {
             int chars = getStringLength(r);
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < chars; i++) {
-                sb.append(alphabet.charAt(getNextInt(0, alphabet.length())));
-            }
-            return sb.toString();
+            return getThreadRandom().nextString(alphabet, chars);
         }
 
         public abstract String getString(Randomly r);
@@ -348,7 +424,7 @@ public final class Randomly {
     public byte[] getBytes() {
         int size = Randomly.smallNumber();
         byte[] arr = new byte[size];
-        getThreadRandom().get().nextBytes(arr);
+        getThreadRandom().nextBytes(arr);
         return arr;
     }
 
@@ -425,17 +501,17 @@ public final class Randomly {
                 return d;
             }
         }
-        double value = getThreadRandom().get().nextDouble();
+        double value = getThreadRandom().nextDouble();
         addToCache(value);
         return value;
     }
 
     private static boolean smallBiasProbability() {
-        return getThreadRandom().get().nextInt(100) == 1;
+        return getThreadRandom().nextInt(100) == 1;
     }
 
     public static boolean getBooleanWithRatherLowProbability() {
-        return getThreadRandom().get().nextInt(10) == 1;
+        return getThreadRandom().nextInt(10) == 1;
     }
 
     public static boolean getBooleanWithSmallProbability() {
@@ -469,7 +545,7 @@ public final class Randomly {
     }
 
     public BigDecimal getRandomBigDecimal() {
-        return BigDecimal.valueOf(getThreadRandom().get().nextDouble());
+        return BigDecimal.valueOf(getThreadRandom().nextDouble());
     }
 
     public long getPositiveIntegerNotNull() {
@@ -482,7 +558,7 @@ public final class Randomly {
     }
 
     public static long getNonCachedInteger() {
-        return getThreadRandom().get().nextLong();
+        return getThreadRandom().nextLong();
     }
 
     public static long getPositiveOrZeroNonCachedInteger() {
@@ -498,16 +574,16 @@ public final class Randomly {
     }
 
     public Randomly() {
-        THREAD_RANDOM.set(new Random());
+        THREAD_RANDOM.set(engineKind.create(ThreadLocalRandom.current().nextLong()));
     }
 
     public Randomly(long seed) {
         this.seed = seed;
-        THREAD_RANDOM.set(new Random(seed));
+        THREAD_RANDOM.set(engineKind.create(seed));
     }
 
     public static double getUncachedDouble() {
-        return getThreadRandom().get().nextDouble();
+        return getThreadRandom().nextDouble();
     }
 
     public String getChar() {
@@ -528,9 +604,8 @@ public final class Randomly {
         }
     }
 
-    // see https://stackoverflow.com/a/2546158
-    // uniformity does not seem to be important for us
-    // SQLancer previously used ThreadLocalRandom.current().nextLong(lower, upper)
+    // SQLancer previously used ThreadLocalRandom.current().nextLong(lower, upper) and later
+    // Random.longs(lower, upper).findFirst(), which built a stream pipeline for every draw
     private static long getNextLong(long lower, long upper) {
         if (lower > upper) {
             throw new IllegalArgumentException(lower + " " + upper);
@@ -538,7 +613,7 @@ public final class Randomly {
         if (lower == upper) {
             return lower;
         }
-        return getThreadRandom().get().longs(lower, upper).findFirst().getAsLong();
+        return getThreadRandom().nextLong(lower, upper);
     }
 
     private static int getNextInt(int lower, int upper) {
@@ -554,6 +629,7 @@ public final class Randomly {
         maxStringLength = options.getMaxStringConstantLength();
         useCaching = options.useConstantCaching();
         cacheSize = options.getConstantCacheSize();
+        engineKind = options.getRandomEngine();
     }
 
 }
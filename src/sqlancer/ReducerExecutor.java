@@ -0,0 +1,376 @@
+package sqlancer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import sqlancer.common.query.Query;
+
+/**
+ * Evaluates candidate reductions for the reducers. A candidate is a list of statements, which is executed on a fresh
+ * database before the reproducer checks whether the bug still triggers.
+ *
+ * If the DBMS supports snapshots (see {@link DatabaseProvider#saveDatabase}), the database that results from a prefix
+ * of the statements that a candidate shares with the statements known to reproduce the bug is restored from a snapshot,
+ * and only the remaining statements are executed. The snapshots are taken incrementally on a separate database, so that
+ * each statement of the prefix is executed once per reduction pass rather than once per candidate, and a snapshot is
+ * reused for the candidates with the same prefix until the statements known to reproduce the bug change within the
+ * prefix.
+ *
+ * Candidates can be evaluated in parallel on several worker states, each with its own database. The first worker uses
+ * the state passed to the reducer, so that a single worker behaves like evaluating the candidates one by one. Since the
+ * statements of a candidate refer to the database name of that state, the snapshot database and the additional workers
+ * are only used if the databases of the DBMS are isolated (see {@link DatabaseProvider#hasIsolatedDatabases}).
+ */
+public class ReducerExecutor<G extends GlobalState<O, ?, C>, O extends DBMSSpecificOptions<?>, C extends SQLancerDBConnection>
+        implements AutoCloseable {
+
+    private final DatabaseProvider<G, O, C> provider;
+    private final Reproducer<G> reproducer;
+    private final G newGlobalState;
+    private final List<G> workerStates = new ArrayList<>();
+    private final ExecutorService executor;
+
+    private boolean useSnapshots;
+    private Path snapshotDirectory;
+    private G snapshotState;
+    private C snapshotConnection;
+    private final List<Query<C>> snapshotStatements = new ArrayList<>();
+    private int nrSnapshots;
+    // the saved snapshots by prefix length, which are prefixes of knownStatements
+    private final Map<Integer, File> savedSnapshots = new HashMap<>();
+    private final List<Query<C>> knownStatements = new ArrayList<>();
+
+    private long nrCandidates;
+    private long nrRestoredCandidates;
+    private long evaluationNanos;
+    private long phaseCandidates;
+    private long phaseRestoredCandidates;
+    private long phaseNanos;
+
+    public ReducerExecutor(DatabaseProvider<G, O, C> provider, Reproducer<G> reproducer, G newGlobalState) {
+        this.provider = provider;
+        this.reproducer = reproducer;
+        this.newGlobalState = newGlobalState;
+        MainOptions options = newGlobalState.getOptions();
+        boolean isolated = provider.hasIsolatedDatabases(newGlobalState.getDbmsSpecificOptions());
+        this.useSnapshots = options.useReducerSnapshots() && isolated;
+        int nrWorkers = isolated ? Math.max(1, options.getNrReducerWorkers()) : 1;
+        workerStates.add(newGlobalState);
+        for (int i = 1; i < nrWorkers; i++) {
+            workerStates.add(createWorkerState("_w" + i));
+        }
+        executor = nrWorkers == 1 ? null : Executors.newFixedThreadPool(nrWorkers, r -> {
+            Thread t = new Thread(r, "reducer-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private G createWorkerState(String suffix) {
+        G state;
+        try {
+            state = provider.getGlobalStateClass().getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        String databaseName = newGlobalState.getDatabaseName() + suffix;
+        state.setState(provider.getStateToReproduce(databaseName));
+        state.setRandomly(new Randomly());
+        state.setDatabaseName(databaseName);
+        state.setMainOptions(newGlobalState.getOptions());
+        state.setDbmsSpecificOptions(newGlobalState.getDbmsSpecificOptions());
+        state.setStateLogger(newGlobalState.getLogger());
+        state.setManager(new Main.QueryManager<>(state));
+        return state;
+    }
+
+    public int getNrWorkers() {
+        return workerStates.size();
+    }
+
+    /**
+     * Evaluates the candidates in parallel, at most {@link #getNrWorkers()} at a time.
+     *
+     * @param candidates
+     *            the candidates to be evaluated
+     * @param prefixLengths
+     *            for each candidate, the number of its first statements that are equal to those of the statements known
+     *            to reproduce the bug
+     * @param knownToReproduceBugStatements
+     *            the statements known to reproduce the bug
+     *
+     * @return the index of the first candidate that still triggers the bug, or -1 if none does
+     */
+    public int findFirstTriggering(List<List<Query<C>>> candidates, List<Integer> prefixLengths,
+            List<Query<C>> knownToReproduceBugStatements) {
+        if (candidates.size() > workerStates.size()) {
+            throw new IllegalArgumentException();
+        }
+        long start = System.nanoTime();
+        invalidateSnapshots(knownToReproduceBugStatements);
+        List<File> snapshots = new ArrayList<>();
+        try {
+            for (int prefixLength : prefixLengths) {
+                snapshots.add(getSnapshot(knownToReproduceBugStatements, prefixLength));
+            }
+            if (executor == null || candidates.size() == 1) {
+                return bugStillTriggers(newGlobalState, candidates.get(0), prefixLengths.get(0), snapshots.get(0)) ? 0
+                        : -1;
+            }
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                G workerState = workerStates.get(i);
+                List<Query<C>> candidate = candidates.get(i);
+                int prefixLength = prefixLengths.get(i);
+                File snapshot = snapshots.get(i);
+                results.add(executor.submit(() -> bugStillTriggers(workerState, candidate, prefixLength, snapshot)));
+            }
+            int first = -1;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    if (results.get(i).get() && first == -1) {
+                        first = i;
+                    }
+                } catch (ExecutionException e) {
+                    throw new AssertionError(e.getCause());
+                }
+            }
+            if (first > 0) {
+                // the reducer continues with the state of the first worker
+                newGlobalState.getState().setStatements(new ArrayList<>(candidates.get(first)));
+            }
+            return first;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IgnoreMeException();
+        } finally {
+            nrCandidates += candidates.size();
+            evaluationNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Evaluates a single candidate on the state passed to the reducer.
+     *
+     * @param candidate
+     *            the candidate to be evaluated
+     * @param prefixLength
+     *            the number of first statements of the candidate that are equal to those of the statements known to
+     *            reproduce the bug
+     * @param knownToReproduceBugStatements
+     *            the statements known to reproduce the bug
+     *
+     * @return whether the candidate still triggers the bug
+     */
+    public boolean bugStillTriggers(List<Query<C>> candidate, int prefixLength,
+            List<Query<C>> knownToReproduceBugStatements) {
+        return findFirstTriggering(List.of(candidate), List.of(prefixLength), knownToReproduceBugStatements) == 0;
+    }
+
+    private boolean bugStillTriggers(G state, List<Query<C>> candidate, int prefixLength, File snapshot) {
+        if (snapshot != null) {
+            try (C con = provider.restoreDatabase(state, snapshot)) {
+                synchronized (this) {
+                    nrRestoredCandidates++;
+                }
+                return bugStillTriggers(state, con, candidate, prefixLength);
+            } catch (Exception e) {
+                logFailure("Restoring a snapshot", e);
+                // evaluate the candidate without the snapshot
+            }
+        }
+        try (C con = provider.createDatabase(state)) {
+            return bugStillTriggers(state, con, candidate, 0);
+        } catch (Exception e) {
+            logFailure("Creating a database", e);
+            return false;
+        }
+    }
+
+    private boolean bugStillTriggers(G state, C con, List<Query<C>> candidate, int firstStatement) {
+        state.setConnection(con);
+        state.getState().setStatements(new ArrayList<>(candidate));
+        for (Query<C> s : candidate.subList(firstStatement, candidate.size())) {
+            try {
+                s.execute(state);
+            } catch (Throwable ignoredException) {
+                // ignore
+            }
+        }
+        try {
+            return reproducer.bugStillTriggers(state);
+        } catch (Throwable ignoredException) {
+            return false;
+        }
+    }
+
+    // the workers share the reducer log
+    private synchronized void logFailure(String action, Exception e) {
+        Main.StateLogger logger = newGlobalState.getLogger();
+        if (logger != null) {
+            logger.logReducer(String.format("%s failed: %s%n", action, e));
+        }
+    }
+
+    /*
+     * Deletes the snapshots whose prefixes are not prefixes of the statements known to reproduce the bug anymore.
+     */
+    private void invalidateSnapshots(List<Query<C>> statements) {
+        int nrCommon = 0;
+        while (nrCommon < Math.min(knownStatements.size(), statements.size())
+                && knownStatements.get(nrCommon) == statements.get(nrCommon)) {
+            nrCommon++;
+        }
+        for (Iterator<Map.Entry<Integer, File>> it = savedSnapshots.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Integer, File> entry = it.next();
+            if (entry.getKey() > nrCommon) {
+                delete(entry.getValue().toPath());
+                it.remove();
+            }
+        }
+        knownStatements.clear();
+        knownStatements.addAll(statements);
+    }
+
+    /*
+     * Returns a snapshot of the database after executing the first prefixLength statements, or null if snapshots are
+     * not supported. The snapshot database is reused as long as the statements it executed are still a prefix of the
+     * requested one.
+     */
+    private File getSnapshot(List<Query<C>> statements, int prefixLength) {
+        if (!useSnapshots || prefixLength == 0) {
+            return null;
+        }
+        File saved = savedSnapshots.get(prefixLength);
+        if (saved != null) {
+            return saved;
+        }
+        try {
+            if (snapshotState == null) {
+                snapshotDirectory = Files.createTempDirectory("sqlancer-reducer");
+                snapshotState = createWorkerState("_s");
+            }
+            if (snapshotConnection == null || !isPrefix(snapshotStatements, statements, prefixLength)) {
+                if (snapshotConnection != null) {
+                    snapshotConnection.close();
+                }
+                snapshotConnection = provider.createDatabase(snapshotState);
+                snapshotState.setConnection(snapshotConnection);
+                snapshotStatements.clear();
+            }
+            for (int i = snapshotStatements.size(); i < prefixLength; i++) {
+                Query<C> s = statements.get(i);
+                try {
+                    s.execute(snapshotState);
+                } catch (Throwable ignoredException) {
+                    // ignore
+                }
+                snapshotStatements.add(s);
+            }
+            File snapshot = snapshotDirectory.resolve("snapshot" + nrSnapshots++).toFile();
+            if (provider.saveDatabase(snapshotState, snapshot)) {
+                savedSnapshots.put(prefixLength, snapshot);
+                return snapshot;
+            }
+        } catch (Exception e) {
+            logFailure("Saving a snapshot", e);
+        }
+        // do not try again for every candidate
+        useSnapshots = false;
+        closeSnapshotDatabase();
+        return null;
+    }
+
+    private static <T> boolean isPrefix(List<T> executed, List<T> statements, int prefixLength) {
+        if (executed.size() > prefixLength) {
+            return false;
+        }
+        for (int i = 0; i < executed.size(); i++) {
+            if (executed.get(i) != statements.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void closeSnapshotDatabase() {
+        if (snapshotConnection != null) {
+            try {
+                snapshotConnection.close();
+            } catch (Exception e) {
+                logFailure("Closing the snapshot database", e);
+            }
+            snapshotConnection = null;
+        }
+        snapshotStatements.clear();
+        savedSnapshots.clear();
+        if (snapshotDirectory != null) {
+            delete(snapshotDirectory);
+            snapshotDirectory = null;
+        }
+    }
+
+    private static void delete(Path path) {
+        // snapshots of some DBMSs are directories
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Starts a new phase of the reduction, whose statistics {@link #getPhaseStatistics()} reports.
+     */
+    public void startPhase() {
+        phaseCandidates = nrCandidates;
+        phaseRestoredCandidates = nrRestoredCandidates;
+        phaseNanos = evaluationNanos;
+    }
+
+    /**
+     * Formats the statistics of the candidates that were evaluated since the current phase started.
+     *
+     * @return the number of candidates and the candidates per second
+     */
+    public String getPhaseStatistics() {
+        long candidates = nrCandidates - phaseCandidates;
+        double seconds = (evaluationNanos - phaseNanos) / 1e9;
+        return String.format("%d candidates in %.1f s (%.1f candidates/s, %d workers, %d restored from snapshots)",
+                candidates, seconds, seconds == 0 ? 0 : candidates / seconds, workerStates.size(),
+                nrRestoredCandidates - phaseRestoredCandidates);
+    }
+
+    public long getNrCandidates() {
+        return nrCandidates;
+    }
+
+    public static long getSize(List<? extends Query<?>> statements) {
+        long size = 0;
+        for (Query<?> s : statements) {
+            size += s.getQueryString().length();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        closeSnapshotDatabase();
+    }
+
+}
@@ -0,0 +1,83 @@
+package sqlancer;
+
+/**
+ * An order-insensitive fingerprint of a multiset of result values. Each value is hashed to 128 bits, and the
+ * fingerprint consists of the number of values and the sums of their hashes. Two fingerprints are thus equal for equal
+ * multisets, including the number of duplicates, regardless of the order in which the values were added, and a result
+ * set can be fingerprinted while it is being read, without materializing it.
+ */
+public final class ResultSetFingerprint {
+
+    private static final long SEED1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME1 = 0x100000001B3L;
+    private static final long PRIME2 = 0xFF51AFD7ED558CCDL;
+    private static final long NULL_HASH1 = 0x6A09E667F3BCC908L;
+    private static final long NULL_HASH2 = 0xBB67AE8584CAA73BL;
+
+    private long count;
+    private long sum1;
+    private long sum2;
+
+    public void add(String value) {
+        count++;
+        if (value == null) {
+            sum1 += NULL_HASH1;
+            sum2 += NULL_HASH2;
+            return;
+        }
+        long h1 = SEED1;
+        long h2 = SEED2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            h1 = (h1 ^ c) * PRIME1;
+            h2 = Long.rotateLeft(h2 + c, 31) * PRIME2;
+        }
+        sum1 += mix(h1 ^ value.length());
+        sum2 += mix(h2 + value.length());
+    }
+
+    public void addAll(ResultSetFingerprint other) {
+        count += other.count;
+        sum1 += other.sum1;
+        sum2 += other.sum2;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // finalizer of MurmurHash3
+    private static long mix(long h) {
+        long k = h;
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ResultSetFingerprint)) {
+            return false;
+        }
+        ResultSetFingerprint other = (ResultSetFingerprint) obj;
+        return count == other.count && sum1 == other.sum1 && sum2 == other.sum2;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(count) * 31 + Long.hashCode(sum1 ^ sum2);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows (%016x%016x)", count, sum1, sum2);
+    }
+
+}
@@ -2,15 +2,54 @@ package sqlancer;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * A connection to a DBMS that caches its statements.
+ *
+ * Statements are borrowed from the connection and released when they are not used anymore, rather than being created
+ * and closed for each query, which costs a round trip for some drivers. Plain statements can execute any query and are
+ * kept in a small pool; prepared statements are kept in a cache that is keyed by their query and evicts the least
+ * recently used one. A borrowed statement is not handed out again until it is released, so that a result set that is
+ * still being read is not closed by another query. Like the global state that owns it, a connection must only be used
+ * by one thread.
+ */
 public class SQLConnection implements SQLancerDBConnection {
 
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final int MAX_IDLE_STATEMENTS = 4;
+
     private final Connection connection;
+    private final int statementCacheSize;
+    private final Deque<Statement> idleStatements = new ArrayDeque<>();
+    private final LinkedHashMap<String, PreparedStatement> preparedStatements;
 
     public SQLConnection(Connection connection) {
+        this(connection, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public SQLConnection(Connection connection, int statementCacheSize) {
         this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.preparedStatements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > SQLConnection.this.statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
     }
 
     @Override
@@ -21,6 +60,10 @@ public class SQLConnection implements SQLancerDBConnection {
 
     @Override
     public void close() throws SQLException {
+        invalidatePreparedStatements();
+        while (!idleStatements.isEmpty()) {
+            closeQuietly(idleStatements.pop());
+        }
         connection.close();
     }
 
@@ -32,6 +75,109 @@ public class SQLConnection implements SQLancerDBConnection {
         return connection.createStatement();
     }
 
+    /**
+     * Borrows a plain statement, which must be passed to {@link #releaseStatement(Statement)} instead of being closed.
+     *
+     * @return the statement
+     *
+     * @throws SQLException
+     *             if no statement can be created
+     */
+    public Statement borrowStatement() throws SQLException {
+        Statement statement = idleStatements.poll();
+        return statement == null ? connection.createStatement() : statement;
+    }
+
+    /**
+     * Releases a statement that has been borrowed by {@link #borrowStatement()}. Its result set is closed when it
+     * executes its next query.
+     *
+     * @param statement
+     *            the statement
+     */
+    public void releaseStatement(Statement statement) {
+        try {
+            if (statement.isClosed()) {
+                return;
+            }
+            if (idleStatements.size() < MAX_IDLE_STATEMENTS) {
+                statement.clearWarnings();
+                idleStatements.push(statement);
+            } else {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Borrows a prepared statement for a query, which must be passed to
+     * {@link #releasePreparedStatement(String, PreparedStatement, boolean)} instead of being closed.
+     *
+     * @param query
+     *            the query
+     *
+     * @return the statement, whose parameters have been cleared
+     *
+     * @throws SQLException
+     *             if the query cannot be prepared
+     */
+    public PreparedStatement borrowPreparedStatement(String query) throws SQLException {
+        PreparedStatement statement = preparedStatements.remove(query);
+        if (statement == null) {
+            return connection.prepareStatement(query);
+        }
+        statement.clearParameters();
+        return statement;
+    }
+
+    /**
+     * Releases a prepared statement that has been borrowed by {@link #borrowPreparedStatement(String)}.
+     *
+     * @param query
+     *            the query of the statement
+     * @param statement
+     *            the statement
+     * @param reusable
+     *            whether the statement can be reused, which it should not after its execution failed
+     */
+    public void releasePreparedStatement(String query, PreparedStatement statement, boolean reusable) {
+        try {
+            if (!reusable || statementCacheSize == 0 || statement.isClosed() || preparedStatements.containsKey(query)) {
+                closeQuietly(statement);
+                return;
+            }
+            statement.clearWarnings();
+            preparedStatements.put(query, statement);
+        } catch (SQLException e) {
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Closes the cached prepared statements, for example, because their plans might refer to a schema that has been
+     * changed.
+     */
+    public void invalidatePreparedStatements() {
+        for (Iterator<PreparedStatement> it = preparedStatements.values().iterator(); it.hasNext();) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    public int getNrCachedPreparedStatements() {
+        return preparedStatements.size();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the statement is not used anymore
+        }
+    }
+
     public DatabaseMetaData getMetaData() throws SQLException {
         return connection.getMetaData();
     }
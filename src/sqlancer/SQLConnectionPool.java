@@ -0,0 +1,351 @@
+package sqlancer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reuses physical JDBC connections across databases.
+ *
+ * A connection that is closed by its user is returned to the pool after its statements have been closed and its session
+ * has been reset by the reset statements of its DBMS. Connections for which a reset statement fails, or that have been
+ * idle for a while and are not valid anymore, are closed. The reset statements are executed once on the first
+ * connection to a URL, and those that fail, for example, because the version of the DBMS does not support a variable,
+ * are not used for the connections to the URL. Since some DBMSs cannot leave a database after it has been selected on a
+ * connection, a connection is only reused for the same URL and database name that it was created for. The number of
+ * idle connections is bounded, and the connection that has been idle longest is closed first.
+ */
+public final class SQLConnectionPool {
+
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    // idle connections are validated before being reused only if they have been idle for longer than this
+    private static final long VALIDATION_INTERVAL_NANOS = 5_000_000_000L;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // the statements of a connection that have been closed by their user are forgotten once there are this many
+    private static final int PRUNE_THRESHOLD = 64;
+
+    private static final SQLConnectionPool INSTANCE = new SQLConnectionPool();
+
+    // the most recently returned connection first
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private int maxIdle = DEFAULT_MAX_IDLE;
+    // the reset statements that succeeded on the first connection, by URL
+    private final Map<String, List<String>> supportedResetStatements = new HashMap<>();
+
+    private long nrCreated;
+    private long nrReused;
+    private long nrDiscarded;
+
+    private static final class IdleConnection {
+        private final String key;
+        private final Connection connection;
+        private final long returnedNanos;
+
+        IdleConnection(String key, Connection connection, long returnedNanos) {
+            this.key = key;
+            this.connection = connection;
+            this.returnedNanos = returnedNanos;
+        }
+    }
+
+    /**
+     * Connector for the physical connections, which the tests replace.
+     */
+    @FunctionalInterface
+    interface Connector {
+        Connection connect(String url) throws SQLException;
+    }
+
+    private final Connector connector;
+
+    SQLConnectionPool(Connector connector) {
+        this.connector = connector;
+    }
+
+    private SQLConnectionPool() {
+        this(DriverManager::getConnection);
+    }
+
+    public static SQLConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void setMaxIdle(int maxIdle) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException(String.valueOf(maxIdle));
+        }
+        this.maxIdle = maxIdle;
+        evict();
+    }
+
+    /**
+     * Borrows a connection, which is returned to the pool when it is closed.
+     *
+     * @param url
+     *            the JDBC URL
+     * @param databaseName
+     *            the name of the database for which the connection is used
+     * @param resetStatements
+     *            the statements that reset the session of the connection before it is returned
+     *
+     * @return the connection
+     *
+     * @throws SQLException
+     *             if no connection can be established
+     */
+    public Connection getConnection(String url, String databaseName, List<String> resetStatements) throws SQLException {
+        String key = url + '\u0000' + databaseName;
+        Connection physical = takeIdle(key);
+        if (physical != null) {
+            List<String> supported;
+            synchronized (this) {
+                nrReused++;
+                supported = supportedResetStatements.get(url);
+            }
+            return wrap(key, physical, supported);
+        }
+        physical = connector.connect(url);
+        List<String> supported;
+        synchronized (this) {
+            nrCreated++;
+            supported = supportedResetStatements.get(url);
+        }
+        if (supported == null) {
+            try {
+                supported = getSupportedResetStatements(physical, resetStatements);
+            } catch (SQLException e) {
+                discard(physical);
+                throw e;
+            }
+            synchronized (this) {
+                supportedResetStatements.putIfAbsent(url, supported);
+            }
+        }
+        return wrap(key, physical, supported);
+    }
+
+    // executes the reset statements on a new connection, whose session has its default state
+    private static List<String> getSupportedResetStatements(Connection physical, List<String> resetStatements)
+            throws SQLException {
+        List<String> supported = new ArrayList<>();
+        try (Statement s = physical.createStatement()) {
+            for (String statement : resetStatements) {
+                try {
+                    s.execute(statement);
+                    supported.add(statement);
+                } catch (SQLException e) {
+                    // for example, a variable that this version of the DBMS does not support
+                }
+            }
+        }
+        physical.clearWarnings();
+        return List.copyOf(supported);
+    }
+
+    private Connection takeIdle(String key) {
+        while (true) {
+            IdleConnection candidate = null;
+            synchronized (this) {
+                for (Iterator<IdleConnection> it = idle.iterator(); it.hasNext();) {
+                    IdleConnection c = it.next();
+                    if (c.key.equals(key)) {
+                        it.remove();
+                        candidate = c;
+                        break;
+                    }
+                }
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (System.nanoTime() - candidate.returnedNanos < VALIDATION_INTERVAL_NANOS
+                    || isValid(candidate.connection)) {
+                return candidate.connection;
+            }
+            discard(candidate.connection);
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private Connection wrap(String key, Connection physical, List<String> resetStatements) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new PooledConnection(key, physical, resetStatements));
+    }
+
+    private void release(String key, Connection physical, List<String> resetStatements) {
+        if (!reset(physical, resetStatements)) {
+            discard(physical);
+            return;
+        }
+        synchronized (this) {
+            idle.addFirst(new IdleConnection(key, physical, System.nanoTime()));
+            evict();
+        }
+    }
+
+    private static boolean reset(Connection physical, List<String> resetStatements) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (resetStatements.isEmpty()) {
+                return isValid(physical);
+            }
+            try (Statement s = physical.createStatement()) {
+                for (String statement : resetStatements) {
+                    s.execute(statement);
+                }
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            // the state of the session is unknown
+            return false;
+        }
+    }
+
+    private void evict() {
+        assert Thread.holdsLock(this);
+        while (idle.size() > maxIdle) {
+            discard(idle.removeLast().connection);
+        }
+    }
+
+    private void discard(Connection physical) {
+        synchronized (this) {
+            nrDiscarded++;
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // the connection is broken anyway
+        }
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    public synchronized void closeIdle() {
+        while (!idle.isEmpty()) {
+            discard(idle.removeFirst().connection);
+        }
+    }
+
+    public synchronized int getNrIdle() {
+        return idle.size();
+    }
+
+    public synchronized long getNrCreated() {
+        return nrCreated;
+    }
+
+    public synchronized long getNrReused() {
+        return nrReused;
+    }
+
+    public synchronized long getNrDiscarded() {
+        return nrDiscarded;
+    }
+
+    /*
+     * The connection that is handed out. Closing it closes the statements that were created through it and returns the
+     * physical connection to the pool; afterwards, it cannot be used anymore.
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final String key;
+        private final Connection physical;
+        private final List<String> resetStatements;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean closed;
+
+        PooledConnection(String key, Connection physical, List<String> resetStatements) {
+            this.key = key;
+            this.physical = physical;
+            this.resetStatements = resetStatements;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed || physical.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "pooled " + physical;
+            default:
+                break;
+            }
+            if (closed) {
+                throw new SQLException("The connection has been returned to the pool");
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                if (statements.size() >= PRUNE_THRESHOLD) {
+                    statements.removeIf(SQLConnectionPool::isClosed);
+                }
+                statements.add((Statement) result);
+            }
+            return result;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // the statement is not used anymore
+                }
+            }
+            statements.clear();
+            release(key, physical, resetStatements);
+        }
+    }
+
+}
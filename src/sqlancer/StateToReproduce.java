@@ -1,15 +1,52 @@
 package sqlancer;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
+import sqlancer.common.query.ExpectedErrors;
 import sqlancer.common.query.Query;
 
-public class StateToReproduce {
-
-    private List<Query<?>> statements = new ArrayList<>();
+/**
+ * The statements that are needed to reproduce a bug in a database.
+ *
+ * Only the most recent statements are kept in memory, in a ring whose estimated size is bounded by the memory budget.
+ * Older statements are appended to a temporary file as their log strings, together with their expected errors and
+ * whether they could affect the schema, and are read back as queries of the loggable factory when the statements are
+ * requested. Thus, the reducers execute them like the original statements. The statements that are set, for example,
+ * the candidates of a reducer, are already in memory and are not spilled. The file is deleted by {@link #close()}.
+ */
+public class StateToReproduce implements Closeable {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 16 * 1024 * 1024;
+
+    // the estimated size of a query object besides its string, and of a character of the string
+    private static final int QUERY_OVERHEAD = 64;
+    private static final int CHAR_SIZE = 2;
+
+    private final ArrayDeque<Query<?>> statements = new ArrayDeque<>();
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private long memoryUsed;
+
+    private Path spillFile;
+    private DataOutputStream spillOutput;
+    private int nrSpilledStatements;
+    // the encoded expected errors of the last spilled statement, which consecutive statements often share
+    private byte[] lastSpilledErrors;
 
     private final String databaseName;
 
@@ -63,11 +100,168 @@ public class StateToReproduce {
         if (query == null) {
             throw new IllegalArgumentException();
         }
-        statements.add(query);
+        statements.addLast(query);
+        memoryUsed += estimateSize(query);
+        spillOldStatements();
+    }
+
+    /**
+     * Sets the estimated number of bytes that the statements may take in memory. Statements beyond the budget are
+     * written to a temporary file, except for the most recent one.
+     *
+     * @param memoryBudget
+     *            the budget in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException(String.valueOf(memoryBudget));
+        }
+        this.memoryBudget = memoryBudget;
+        spillOldStatements();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public int getNrSpilledStatements() {
+        return nrSpilledStatements;
+    }
+
+    private static long estimateSize(Query<?> query) {
+        return QUERY_OVERHEAD + (long) CHAR_SIZE * query.getLogString().length();
+    }
+
+    private void spillOldStatements() {
+        while (memoryUsed > memoryBudget && statements.size() > 1) {
+            Query<?> oldest = statements.pollFirst();
+            memoryUsed -= estimateSize(oldest);
+            try {
+                if (spillOutput == null) {
+                    spillFile = Files.createTempFile("sqlancer-" + databaseName + "-", ".statements");
+                    spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile)));
+                    lastSpilledErrors = null;
+                }
+                writeString(spillOutput, oldest.getLogString());
+                spillOutput.writeBoolean(oldest.couldAffectSchema());
+                byte[] errors = encodeErrors(oldest.getExpectedErrors());
+                if (Arrays.equals(errors, lastSpilledErrors)) {
+                    spillOutput.writeBoolean(false);
+                } else {
+                    spillOutput.writeBoolean(true);
+                    spillOutput.write(errors);
+                    lastSpilledErrors = errors;
+                }
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            nrSpilledStatements++;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeErrors(ExpectedErrors expectedErrors) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (expectedErrors == null) {
+                out.writeInt(0);
+                out.writeInt(0);
+            } else {
+                out.writeInt(expectedErrors.getErrors().size());
+                for (String error : expectedErrors.getErrors()) {
+                    writeString(out, error);
+                }
+                out.writeInt(expectedErrors.getRegexes().size());
+                for (Pattern regex : expectedErrors.getRegexes()) {
+                    writeString(out, regex.pattern());
+                    out.writeInt(regex.flags());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ExpectedErrors readErrors(DataInputStream in) throws IOException {
+        ExpectedErrors expectedErrors = new ExpectedErrors();
+        int nrErrors = in.readInt();
+        for (int i = 0; i < nrErrors; i++) {
+            expectedErrors.add(readString(in));
+        }
+        int nrRegexes = in.readInt();
+        for (int i = 0; i < nrRegexes; i++) {
+            String regex = readString(in);
+            expectedErrors.addRegex(Pattern.compile(regex, in.readInt()));
+        }
+        return expectedErrors;
+    }
+
+    private List<Query<?>> readSpilledStatements() {
+        List<Query<?>> spilled = new ArrayList<>(nrSpilledStatements);
+        if (spillOutput == null) {
+            return spilled;
+        }
+        try {
+            spillOutput.flush();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+                ExpectedErrors expectedErrors = null;
+                for (int i = 0; i < nrSpilledStatements; i++) {
+                    String logString = readString(in);
+                    boolean couldAffectSchema = in.readBoolean();
+                    if (in.readBoolean()) {
+                        expectedErrors = readErrors(in);
+                    }
+                    spilled.add(databaseProvider.getLoggableFactory().getQueryForStateToReproduce(logString,
+                            expectedErrors, couldAffectSchema));
+                }
+            }
+        } catch (EOFException e) {
+            throw new AssertionError("the spilled statements of " + databaseName + " are truncated", e);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return spilled;
     }
 
+    /**
+     * Returns all statements, including those that spilled to the temporary file.
+     *
+     * @return the statements in the order in which they were logged
+     */
     public List<Query<?>> getStatements() {
-        return Collections.unmodifiableList(statements);
+        List<Query<?>> all = readSpilledStatements();
+        all.addAll(statements);
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Deletes the temporary file of the statements that spilled to it, and forgets them.
+     */
+    @Override
+    public void close() {
+        nrSpilledStatements = 0;
+        if (spillOutput == null) {
+            return;
+        }
+        try {
+            spillOutput.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } finally {
+            spillOutput = null;
+            spillFile = null;
+        }
     }
 
     /**
@@ -75,11 +269,11 @@ public class StateToReproduce {
      */
     @Deprecated
     public void commentStatements() {
-        for (int i = 0; i < statements.size(); i++) {
-            Query<?> statement = statements.get(i);
-            Query<?> newQuery = databaseProvider.getLoggableFactory().commentOutQuery(statement);
-            statements.set(i, newQuery);
+        List<Query<?>> commented = new ArrayList<>();
+        for (Query<?> statement : getStatements()) {
+            commented.add(databaseProvider.getLoggableFactory().commentOutQuery(statement));
         }
+        setStatements(commented);
     }
 
     public long getSeedValue() {
@@ -120,7 +314,9 @@ public class StateToReproduce {
         @Override
         public void close() {
             if (!success) {
-                StateToReproduce.this.statements.addAll(statements);
+                for (Query<?> statement : statements) {
+                    logStatement(statement);
+                }
             }
 
         }
@@ -132,7 +328,15 @@ public class StateToReproduce {
     }
 
     public void setStatements(List<Query<?>> statements) {
-        this.statements = statements;
+        close();
+        this.statements.clear();
+        memoryUsed = 0;
+        // the caller holds the statements in memory anyway, so spilling them would only write them again for every
+        // reducer candidate
+        for (Query<?> statement : statements) {
+            this.statements.addLast(statement);
+            memoryUsed += estimateSize(statement);
+        }
     }
 
 }
@@ -66,7 +66,12 @@ public class StatementExecutor<G extends GlobalState<?, ?, ?>, A extends Abstrac
             try {
                 int nrTries = 0;
                 do {
-                    query = nextAction.getQuery(globalState);
+                    long start = Metrics.start();
+                    try {
+                        query = nextAction.getQuery(globalState);
+                    } finally {
+                        Metrics.record(Metrics.Phase.GENERATION, start);
+                    }
                     success = globalState.executeStatement(query);
                 } while (nextAction.canBeRetried() && !success
                         && nrTries++ < globalState.getOptions().getNrStatementRetryCount());
@@ -19,6 +19,8 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
     private long maxReduceSteps;
     private long maxReduceTime;
 
+    private ReducerExecutor<G, O, C> executor;
+
     Instant timeOfReductionBegins;
 
     public StatementReducer(DatabaseProvider<G, O, C> provider) {
@@ -58,20 +60,32 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
         currentReduceTime = 0;
         partitionNum = 2;
 
-        while (knownToReproduceBugStatements.size() >= 2 && hasNotReachedLimit(currentReduceSteps, maxReduceSteps)
-                && hasNotReachedLimit(currentReduceTime, maxReduceTime)) {
-            observedChange = false;
-
-            knownToReproduceBugStatements = tryReduction(state, reproducer, newGlobalState,
-                    knownToReproduceBugStatements);
-
-            if (!observedChange) {
-                if (partitionNum == knownToReproduceBugStatements.size()) {
-                    break;
+        try (ReducerExecutor<G, O, C> executor = new ReducerExecutor<>(provider, reproducer, newGlobalState)) {
+            this.executor = executor;
+            while (knownToReproduceBugStatements.size() >= 2 && hasNotReachedLimit(currentReduceSteps, maxReduceSteps)
+                    && hasNotReachedLimit(currentReduceTime, maxReduceTime)) {
+                observedChange = false;
+                int granularity = partitionNum;
+                long sizeBefore = ReducerExecutor.getSize(knownToReproduceBugStatements);
+                executor.startPhase();
+
+                knownToReproduceBugStatements = tryReduction(state, reproducer, newGlobalState,
+                        knownToReproduceBugStatements);
+
+                newGlobalState.getLogger()
+                        .logReducer(String.format("statement reducer, granularity %d: %s, %d bytes saved%n",
+                                granularity, executor.getPhaseStatistics(),
+                                sizeBefore - ReducerExecutor.getSize(knownToReproduceBugStatements)));
+                if (!observedChange) {
+                    if (partitionNum == knownToReproduceBugStatements.size()) {
+                        break;
+                    }
+                    // increase the search granularity
+                    partitionNum = Math.min(partitionNum * 2, knownToReproduceBugStatements.size());
                 }
-                // increase the search granularity
-                partitionNum = Math.min(partitionNum * 2, knownToReproduceBugStatements.size());
             }
+        } finally {
+            this.executor = null;
         }
 
         // System.out.println("Reduced query:");
@@ -89,40 +103,31 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
         int start = 0;
         int subLength = statements.size() / partitionNum;
         while (start < statements.size()) {
-            // newStatements = candidate[:start] + candidate[start+subLength:]
-            // in other word, remove [start, start+subLength) from candidates
-            try (C con2 = provider.createDatabase(newGlobalState)) {
-                newGlobalState.setConnection(con2);
+            // evaluate as many candidates at once as there are workers, and continue with the first one that still
+            // triggers the bug, which is the one that evaluating them one by one would find
+            List<List<Query<C>>> candidates = new ArrayList<>();
+            List<Integer> prefixLengths = new ArrayList<>();
+            for (int i = 0; i < executor.getNrWorkers() && start < statements.size(); i++) {
+                // newStatements = candidate[:start] + candidate[start+subLength:]
+                // in other word, remove [start, start+subLength) from candidates
                 List<Query<C>> candidateStatements = new ArrayList<>(statements);
                 int endPoint = Math.min(start + subLength, candidateStatements.size());
                 candidateStatements.subList(start, endPoint).clear();
-                newGlobalState.getState().setStatements(new ArrayList<>(candidateStatements));
-
-                for (Query<C> s : candidateStatements) {
-                    try {
-                        s.execute(newGlobalState);
-                    } catch (Throwable ignoredException) {
-                        // ignore
-                    }
-                }
-                try {
-                    if (reproducer.bugStillTriggers(newGlobalState)) {
-                        observedChange = true;
-                        statements = candidateStatements;
-                        partitionNum = Math.max(partitionNum - 1, 2);
-                        // reproducer.outputHook((SQLite3GlobalState) newGlobalState);
-                        newGlobalState.getLogger().logReduced(newGlobalState.getState());
-                        break;
-
-                    }
-                } catch (Throwable ignoredException) {
-
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+                candidates.add(candidateStatements);
+                prefixLengths.add(start);
+                start = start + subLength;
+            }
+            int triggering = executor.findFirstTriggering(candidates, prefixLengths, statements);
+            currentReduceSteps += candidates.size();
+            if (triggering != -1) {
+                observedChange = true;
+                statements = candidates.get(triggering);
+                partitionNum = Math.max(partitionNum - 1, 2);
+                // reproducer.outputHook((SQLite3GlobalState) newGlobalState);
+                newGlobalState.getLogger().logReduced(newGlobalState.getState());
+                break;
             }
 
-            currentReduceSteps++;
             Instant currentInstant = Instant.now();
 
             currentReduceTime = Duration.between(timeOfReductionBegins, currentInstant).getSeconds();
@@ -130,7 +135,6 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
                     || !hasNotReachedLimit(currentReduceTime, maxReduceTime)) {
                 return statements;
             }
-            start = start + subLength;
         }
         return statements;
     }
@@ -0,0 +1,99 @@
+package sqlancer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A compact, reusable list of the edges that are set in an AFL coverage map, together with their hit counts. The map is
+ * scanned eight bytes at a time and zero words are skipped, so that collecting the edges of a query costs time
+ * proportional to the map size divided by eight plus the number of touched edges, and consumers only iterate over the
+ * edges that the query actually touched.
+ */
+public final class TouchedEdges {
+
+    private int[] edges = new int[1024];
+    private byte[] hits = new byte[1024];
+    private int size;
+
+    @FunctionalInterface
+    public interface EdgeVisitor {
+
+        /**
+         * Called once per touched edge, in ascending order of the edge index.
+         *
+         * @param edge
+         *            the index of the edge in the coverage map
+         * @param hitCount
+         *            the (saturating) hit counter of the edge, which is always in [1, 255]
+         */
+        void visit(int edge, int hitCount);
+
+    }
+
+    /**
+     * Replaces the content of this list with the non-zero entries of the given coverage map.
+     *
+     * @param map
+     *            the coverage map; its position and limit are ignored
+     * @param mapSize
+     *            the number of bytes of the map to scan
+     *
+     * @return this list
+     */
+    public TouchedEdges collect(ByteBuffer map, int mapSize) {
+        size = 0;
+        int wordEnd = mapSize & ~(Long.BYTES - 1);
+        int i = 0;
+        for (; i < wordEnd; i += Long.BYTES) {
+            if (map.getLong(i) != 0) {
+                for (int j = i; j < i + Long.BYTES; j++) {
+                    addIfTouched(j, map.get(j));
+                }
+            }
+        }
+        for (; i < mapSize; i++) {
+            addIfTouched(i, map.get(i));
+        }
+        return this;
+    }
+
+    private void addIfTouched(int edge, byte hitCount) {
+        if (hitCount == 0) {
+            return;
+        }
+        if (size == edges.length) {
+            edges = Arrays.copyOf(edges, size * 2);
+            hits = Arrays.copyOf(hits, size * 2);
+        }
+        edges[size] = edge;
+        hits[size] = hitCount;
+        size++;
+    }
+
+    public void forEach(EdgeVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(edges[i], hits[i] & 0xFF);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEdge(int i) {
+        return edges[i];
+    }
+
+    public int getHitCount(int i) {
+        return hits[i] & 0xFF;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+}
@@ -1,42 +1,111 @@
 package sqlancer.common.ast.newast;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public abstract class NewToStringVisitor<E> {
 
-    protected final StringBuilder sb = new StringBuilder();
+    private static final int INITIAL_CAPACITY = 1024;
+    // a builder that grew larger than this, for example, for a deeply nested expression, is shrunk when reset
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    // the node types that are rendered by this class, in the order in which they are checked
+    private enum NodeKind {
+        COLUMN_REFERENCE(ColumnReferenceNode.class), UNARY_POSTFIX(NewUnaryPostfixOperatorNode.class),
+        UNARY_PREFIX(NewUnaryPrefixOperatorNode.class), BINARY(NewBinaryOperatorNode.class),
+        TABLE_REFERENCE(TableReferenceNode.class), FUNCTION(NewFunctionNode.class),
+        BETWEEN(NewBetweenOperatorNode.class), IN(NewInOperatorNode.class), CASE(NewCaseOperatorNode.class),
+        ORDERING_TERM(NewOrderingTerm.class), ALIAS(NewAliasNode.class), POSTFIX_TEXT(NewPostfixTextNode.class),
+        TERNARY(NewTernaryNode.class), SPECIFIC(Object.class);
+
+        private final Class<?> type;
+
+        NodeKind(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    // the kind of each node class, so that each node is dispatched by a single lookup and switch
+    private static final ClassValue<NodeKind> NODE_KINDS = new ClassValue<NodeKind>() {
+        @Override
+        protected NodeKind computeValue(Class<?> type) {
+            for (NodeKind kind : NodeKind.values()) {
+                if (kind.type.isAssignableFrom(type)) {
+                    return kind;
+                }
+            }
+            throw new AssertionError(type);
+        }
+    };
+
+    protected final StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+    private Map<Node<E>, String> segments = Collections.emptyMap();
+
+    /**
+     * Appends the given text of the subtrees that have already been rendered, instead of visiting them again. The
+     * subtrees are identified by identity, so the map should be an {@link java.util.IdentityHashMap}.
+     *
+     * @param segments
+     *            the rendered text of each subtree
+     */
+    public void setSegments(Map<Node<E>, String> segments) {
+        this.segments = segments;
+    }
 
     @SuppressWarnings("unchecked")
     public void visit(Node<E> expr) {
         assert expr != null;
-        if (expr instanceof ColumnReferenceNode<?, ?>) {
+        String segment = segments.get(expr);
+        if (segment != null) {
+            sb.append(segment);
+            return;
+        }
+        switch (NODE_KINDS.get(expr.getClass())) {
+        case COLUMN_REFERENCE:
             sb.append(((ColumnReferenceNode<?, ?>) expr).getColumn().getFullQualifiedName());
-        } else if (expr instanceof NewUnaryPostfixOperatorNode<?>) {
+            break;
+        case UNARY_POSTFIX:
             visit((NewUnaryPostfixOperatorNode<E>) expr);
-        } else if (expr instanceof NewUnaryPrefixOperatorNode<?>) {
+            break;
+        case UNARY_PREFIX:
             visit((NewUnaryPrefixOperatorNode<E>) expr);
-        } else if (expr instanceof NewBinaryOperatorNode<?>) {
+            break;
+        case BINARY:
             visit((NewBinaryOperatorNode<E>) expr);
-        } else if (expr instanceof TableReferenceNode<?, ?>) {
+            break;
+        case TABLE_REFERENCE:
             visit((TableReferenceNode<E, ?>) expr);
-        } else if (expr instanceof NewFunctionNode<?, ?>) {
+            break;
+        case FUNCTION:
             visit((NewFunctionNode<E, ?>) expr);
-        } else if (expr instanceof NewBetweenOperatorNode<?>) {
+            break;
+        case BETWEEN:
             visit((NewBetweenOperatorNode<E>) expr);
-        } else if (expr instanceof NewInOperatorNode<?>) {
+            break;
+        case IN:
             visit((NewInOperatorNode<E>) expr);
-        } else if (expr instanceof NewCaseOperatorNode<?>) {
+            break;
+        case CASE:
             visit((NewCaseOperatorNode<E>) expr);
-        } else if (expr instanceof NewOrderingTerm<?>) {
+            break;
+        case ORDERING_TERM:
             visit((NewOrderingTerm<E>) expr);
-        } else if (expr instanceof NewAliasNode<?>) {
+            break;
+        case ALIAS:
             visit((NewAliasNode<E>) expr);
-        } else if (expr instanceof NewPostfixTextNode<?>) {
+            break;
+        case POSTFIX_TEXT:
             visit((NewPostfixTextNode<E>) expr);
-        } else if (expr instanceof NewTernaryNode<?>) {
+            break;
+        case TERNARY:
             visit((NewTernaryNode<E>) expr);
-        } else {
+            break;
+        case SPECIFIC:
             visitSpecific(expr);
+            break;
+        default:
+            throw new AssertionError(expr.getClass());
         }
     }
 
@@ -165,6 +234,18 @@ public abstract class NewToStringVisitor<E> {
         return sb.toString();
     }
 
+    /**
+     * Clears the rendered text and the segments, so that the visitor and its builder can be reused.
+     */
+    public void reset() {
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            sb.setLength(INITIAL_CAPACITY);
+            sb.trimToSize();
+        }
+        sb.setLength(0);
+        segments = Collections.emptyMap();
+    }
+
     public abstract void visitSpecific(Node<E> expr);
 
 }
@@ -0,0 +1,280 @@
+package sqlancer.common.log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A log file writer that only appends to an in-memory buffer on the calling thread and leaves the file I/O to a shared
+ * background thread. Every writer is owned by a single fuzzing thread; the buffer is double-buffered, so that the owner
+ * can keep appending while the background thread writes out the previous chunk.
+ *
+ * When the file is written is determined by the {@link FlushPolicy}. Independently of the policy, the buffer is
+ * bounded: once it holds four times the configured buffer size, the owner writes it out itself. {@link #sync()} writes
+ * all buffered content and forces it to the storage device, which is what callers should do before they move on from a
+ * bug.
+ */
+public final class AsyncLogWriter extends Writer {
+
+    public enum FlushPolicy {
+        // write through on every call, as SQLancer did before the logs were buffered
+        EVERY_WRITE,
+        // the background thread writes the buffer periodically
+        INTERVAL,
+        // the background thread writes the buffer once it holds the configured number of characters
+        SIZE,
+        // the buffer is only written when it is full, when a bug is logged, and when the log is closed
+        ON_BUG
+    }
+
+    public enum Compression {
+        NONE(""), GZIP(".gz");
+
+        private final String fileSuffix;
+
+        Compression(String fileSuffix) {
+            this.fileSuffix = fileSuffix;
+        }
+
+        public String getFileSuffix() {
+            return fileSuffix;
+        }
+    }
+
+    private static final ScheduledExecutorService BACKGROUND = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "log-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Set<AsyncLogWriter> OPEN_WRITERS = ConcurrentHashMap.newKeySet();
+
+    static {
+        // the background thread is a daemon, so write out whatever is still buffered when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (AsyncLogWriter writer : OPEN_WRITERS) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "log-writer-shutdown"));
+    }
+
+    private final FileOutputStream fileStream;
+    private final Writer out;
+    private final FlushPolicy policy;
+    private final int flushSize;
+    private final int capacity;
+    private final ScheduledFuture<?> periodicFlush;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Object ioLock = new Object();
+
+    private StringBuilder pending;
+    private StringBuilder spare;
+    private boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Opens the log file.
+     *
+     * @param file
+     *            the log file; if compression is enabled, its suffix is appended to the name
+     * @param append
+     *            whether to append to an existing file instead of truncating it
+     * @param compression
+     *            how the file is compressed
+     * @param policy
+     *            when the buffered content is written to the file
+     * @param flushIntervalMillis
+     *            the interval of the {@link FlushPolicy#INTERVAL} policy
+     * @param bufferSize
+     *            the number of characters after which the {@link FlushPolicy#SIZE} policy writes the buffer
+     *
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public AsyncLogWriter(File file, boolean append, Compression compression, FlushPolicy policy,
+            long flushIntervalMillis, int bufferSize) throws IOException {
+        File target = new File(file.getPath() + compression.getFileSuffix());
+        this.fileStream = new FileOutputStream(target, append);
+        OutputStream stream = new BufferedOutputStream(fileStream, 1 << 16);
+        if (compression == Compression.GZIP) {
+            stream = new FastGZIPOutputStream(stream);
+        }
+        this.out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        this.policy = policy;
+        this.flushSize = Math.max(bufferSize, 1);
+        this.capacity = flushSize * 4;
+        this.pending = new StringBuilder(Math.min(capacity, 1 << 16));
+        this.spare = new StringBuilder(Math.min(capacity, 1 << 16));
+        if (policy == FlushPolicy.INTERVAL) {
+            periodicFlush = BACKGROUND.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis,
+                    flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            periodicFlush = null;
+        }
+        OPEN_WRITERS.add(this);
+    }
+
+    // trades compression ratio for the throughput that a log written on the side needs
+    private static final class FastGZIPOutputStream extends GZIPOutputStream {
+
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            // sync flushes keep the file readable up to the last flush
+            super(out, 1 << 16, true);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+
+    }
+
+    // Writer#write(int) would call afterWrite while holding the lock of this writer
+    @Override
+    public void write(int c) throws IOException {
+        int size;
+        synchronized (this) {
+            checkOpen();
+            pending.append((char) c);
+            size = pending.length();
+        }
+        afterWrite(size);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int size;
+        synchronized (this) {
+            checkOpen();
+            pending.append(cbuf, off, len);
+            size = pending.length();
+        }
+        afterWrite(size);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int size;
+        synchronized (this) {
+            checkOpen();
+            pending.append(str, off, off + len);
+            size = pending.length();
+        }
+        afterWrite(size);
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("log writer is closed");
+        }
+        IOException e = failure;
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void afterWrite(int size) throws IOException {
+        if (policy == FlushPolicy.EVERY_WRITE) {
+            flush();
+        } else if (size >= capacity) {
+            drain();
+        } else if (policy == FlushPolicy.SIZE && size >= flushSize && drainScheduled.compareAndSet(false, true)) {
+            BACKGROUND.execute(() -> {
+                drainScheduled.set(false);
+                flushInBackground();
+            });
+        }
+    }
+
+    private void drain() throws IOException {
+        synchronized (ioLock) {
+            StringBuilder chunk;
+            synchronized (this) {
+                chunk = pending;
+                pending = spare;
+                spare = chunk;
+            }
+            if (chunk.length() != 0) {
+                out.append(chunk);
+                chunk.setLength(0);
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            synchronized (ioLock) {
+                if (!isClosed()) {
+                    drain();
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (ioLock) {
+            synchronized (this) {
+                checkOpen();
+            }
+            drain();
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes all buffered content and forces it to the storage device.
+     *
+     * @throws IOException
+     *             if writing fails, including earlier failures of the background thread
+     */
+    public void sync() throws IOException {
+        synchronized (ioLock) {
+            flush();
+            fileStream.getFD().sync();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (ioLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            OPEN_WRITERS.remove(this);
+            if (periodicFlush != null) {
+                periodicFlush.cancel(false);
+            }
+            try {
+                drain();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+}
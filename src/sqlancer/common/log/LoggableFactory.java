@@ -4,6 +4,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import sqlancer.common.query.ExpectedErrors;
 import sqlancer.common.query.Query;
 
 public abstract class LoggableFactory {
@@ -20,6 +21,24 @@ public abstract class LoggableFactory {
 
     public abstract Query<?> getQueryForStateToReproduce(String queryString);
 
+    /**
+     * Creates the query for a statement that was logged, like {@link #getQueryForStateToReproduce(String)}, but with
+     * the errors that executing the statement is expected to result in.
+     *
+     * @param queryString
+     *            the query string
+     * @param expectedErrors
+     *            the expected errors of the statement
+     * @param couldAffectSchema
+     *            whether the statement could affect the schema
+     *
+     * @return the query
+     */
+    public Query<?> getQueryForStateToReproduce(String queryString, ExpectedErrors expectedErrors,
+            boolean couldAffectSchema) {
+        return getQueryForStateToReproduce(queryString);
+    }
+
     @Deprecated
     public abstract Query<?> commentOutQuery(Query<?> query);
 
@@ -2,6 +2,7 @@ package sqlancer.common.query;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -16,12 +17,15 @@ public class ExpectedErrors {
 
     private final Set<String> errors = new HashSet<>();
     private final List<Pattern> regexes = new ArrayList<>();
+    // compiled on the first check after the expected errors have changed
+    private volatile ExpectedErrorsMatcher matcher;
 
     public ExpectedErrors add(String error) {
         if (error == null) {
             throw new IllegalArgumentException();
         }
         errors.add(error);
+        matcher = null;
         return this;
     }
 
@@ -30,11 +34,13 @@ public class ExpectedErrors {
             throw new IllegalArgumentException();
         }
         regexes.add(errorPattern);
+        matcher = null;
         return this;
     }
 
     public ExpectedErrors addAll(Collection<String> list) {
         errors.addAll(list);
+        matcher = null;
         return this;
     }
 
@@ -43,9 +49,18 @@ public class ExpectedErrors {
             throw new IllegalArgumentException();
         }
         regexes.addAll(list);
+        matcher = null;
         return this;
     }
 
+    public Set<String> getErrors() {
+        return Collections.unmodifiableSet(errors);
+    }
+
+    public List<Pattern> getRegexes() {
+        return Collections.unmodifiableList(regexes);
+    }
+
     public static ExpectedErrors from(String... errors) {
         ExpectedErrors expectedErrors = new ExpectedErrors();
         for (String error : errors) {
@@ -64,23 +79,29 @@ public class ExpectedErrors {
      * @return whether the error message contains any of the substrings specified as expected errors
      */
     public boolean errorIsExpected(String error) {
+        return getMatchingError(error) != null;
+    }
+
+    /**
+     * Returns the expected error that matches the error message, for example, to count how often each expected error
+     * occurs. Syntax errors, whose message contains "syntax" in any case, are always expected.
+     *
+     * @param error
+     *            the error message
+     *
+     * @return the substring or the pattern of the regex that matches the message, "syntax" for a syntax error, or null
+     *         if the error is not expected
+     */
+    public String getMatchingError(String error) {
         if (error == null) {
             throw new IllegalArgumentException();
         }
-        if (error.toLowerCase().contains("syntax")) {
-            return true;
-        }
-        for (String s : this.errors) {
-            if (error.contains(s)) {
-                return true;
-            }
-        }
-        for (Pattern p : this.regexes) {
-            if (p.matcher(error).matches()) {
-                return true;
-            }
+        ExpectedErrorsMatcher m = matcher;
+        if (m == null) {
+            m = new ExpectedErrorsMatcher(errors, regexes);
+            matcher = m;
         }
-        return false;
+        return m.getMatchingError(error);
     }
 
 }
@@ -0,0 +1,235 @@
+package sqlancer.common.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches error messages against the expected errors in a single pass over the message.
+ *
+ * The substrings are compiled into an Aho-Corasick automaton, which also contains all case variants of "syntax", since
+ * syntax errors are always expected. The regexes are combined into one alternation in which each regex is a capturing
+ * group, so that the regex that matched can be determined. Regexes whose flags cannot be expressed inline or that refer
+ * to their groups by number are matched separately, and a regex that matches every message is only tried last.
+ */
+final class ExpectedErrorsMatcher {
+
+    static final String SYNTAX_ERROR = "syntax";
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+    private static final String INLINE_FLAGS = "idmsuU";
+    private static final int[] INLINE_FLAG_VALUES = { Pattern.CASE_INSENSITIVE, Pattern.UNIX_LINES, Pattern.MULTILINE,
+            Pattern.DOTALL, Pattern.UNICODE_CASE, Pattern.UNICODE_CHARACTER_CLASS };
+
+    // the automaton, in which node 0 is the root
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    // the substring that ends at a node or at one of its failure nodes, or null
+    private final String[] output;
+
+    private final Pattern combinedRegex;
+    // the regex of each capturing group of the combined regex that encloses a whole regex
+    private final Pattern[] combinedRegexByGroup;
+    private final List<Pattern> separateRegexes = new ArrayList<>();
+    private final Pattern matchAllRegex;
+
+    ExpectedErrorsMatcher(Collection<String> substrings, Collection<Pattern> regexes) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<String> outputs = new ArrayList<>();
+        trie.add(new HashMap<>());
+        outputs.add(null);
+        for (String substring : substrings) {
+            insert(trie, outputs, substring, substring);
+        }
+        for (String variant : getCaseVariants(SYNTAX_ERROR)) {
+            insert(trie, outputs, variant, SYNTAX_ERROR);
+        }
+        int nrNodes = trie.size();
+        transitionChars = new char[nrNodes][];
+        transitionTargets = new int[nrNodes][];
+        failure = new int[nrNodes];
+        output = outputs.toArray(new String[0]);
+        for (int node = 0; node < nrNodes; node++) {
+            Character[] chars = trie.get(node).keySet().toArray(new Character[0]);
+            Arrays.sort(chars);
+            transitionChars[node] = new char[chars.length];
+            transitionTargets[node] = new int[chars.length];
+            for (int i = 0; i < chars.length; i++) {
+                transitionChars[node][i] = chars[i];
+                transitionTargets[node][i] = trie.get(node).get(chars[i]);
+            }
+        }
+        computeFailureLinks();
+
+        StringBuilder sb = new StringBuilder();
+        List<Pattern> groups = new ArrayList<>();
+        groups.add(null);
+        Pattern matchAll = null;
+        for (Pattern regex : regexes) {
+            String inline = toInlineRegex(regex);
+            if (matchAll == null && isMatchAll(regex)) {
+                matchAll = regex;
+            } else if (inline == null) {
+                separateRegexes.add(regex);
+            } else {
+                if (sb.length() != 0) {
+                    sb.append('|');
+                }
+                sb.append('(').append(inline).append(')');
+                groups.add(regex);
+                for (int i = 0; i < Pattern.compile(inline).matcher("").groupCount(); i++) {
+                    groups.add(null);
+                }
+            }
+        }
+        matchAllRegex = matchAll;
+        combinedRegex = sb.length() == 0 ? null : Pattern.compile(sb.toString());
+        combinedRegexByGroup = groups.toArray(new Pattern[0]);
+    }
+
+    private static void insert(List<Map<Character, Integer>> trie, List<String> outputs, String s, String pattern) {
+        int node = 0;
+        for (int i = 0; i < s.length(); i++) {
+            Integer next = trie.get(node).get(s.charAt(i));
+            if (next == null) {
+                next = trie.size();
+                trie.add(new HashMap<>());
+                outputs.add(null);
+                trie.get(node).put(s.charAt(i), next);
+            }
+            node = next;
+        }
+        if (outputs.get(node) == null) {
+            outputs.set(node, pattern);
+        }
+    }
+
+    private static List<String> getCaseVariants(String s) {
+        List<String> variants = new ArrayList<>();
+        for (int mask = 0; mask < 1 << s.length(); mask++) {
+            char[] chars = s.toLowerCase(Locale.ROOT).toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    chars[i] = Character.toUpperCase(chars[i]);
+                }
+            }
+            variants.add(new String(chars));
+        }
+        return variants;
+    }
+
+    private void computeFailureLinks() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : transitionTargets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (output[node] == null) {
+                output[node] = output[failure[node]];
+            }
+            for (int i = 0; i < transitionChars[node].length; i++) {
+                int child = transitionTargets[node][i];
+                int fallback = failure[node];
+                int next;
+                while ((next = getTransition(fallback, transitionChars[node][i])) == -1 && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = next == -1 ? 0 : next;
+                queue.add(child);
+            }
+        }
+    }
+
+    private int getTransition(int node, char c) {
+        int i = Arrays.binarySearch(transitionChars[node], c);
+        return i < 0 ? -1 : transitionTargets[node][i];
+    }
+
+    /*
+     * Returns the regex with its flags inline, or null if its flags cannot be expressed inline or it contains a back
+     * reference by number, which would refer to another group in the combined regex.
+     */
+    private static String toInlineRegex(Pattern regex) {
+        int flags = regex.flags();
+        String source = regex.pattern();
+        if ((flags & Pattern.LITERAL) != 0) {
+            source = Pattern.quote(source);
+            flags &= ~Pattern.LITERAL;
+        } else if (BACK_REFERENCE.matcher(source).find()) {
+            return null;
+        }
+        StringBuilder inlineFlags = new StringBuilder();
+        for (int i = 0; i < INLINE_FLAG_VALUES.length; i++) {
+            if ((flags & INLINE_FLAG_VALUES[i]) != 0) {
+                inlineFlags.append(INLINE_FLAGS.charAt(i));
+                flags &= ~INLINE_FLAG_VALUES[i];
+            }
+        }
+        if (flags != 0) {
+            // for example, COMMENTS, whose comments would extend over the rest of the combined regex
+            return null;
+        }
+        return "(?" + inlineFlags + ":" + source + ")";
+    }
+
+    private static boolean isMatchAll(Pattern regex) {
+        return regex.pattern().equals(".*") && (regex.flags() & Pattern.DOTALL) != 0
+                || regex.pattern().equals("(?s).*");
+    }
+
+    /**
+     * Returns the expected error that matches the error message.
+     *
+     * @param error
+     *            the error message
+     *
+     * @return the substring, the pattern of the regex, or {@link #SYNTAX_ERROR} that matches the message, or null if
+     *         the error is not expected
+     */
+    String getMatchingError(String error) {
+        if (output[0] != null) {
+            return output[0];
+        }
+        int node = 0;
+        for (int i = 0; i < error.length(); i++) {
+            char c = error.charAt(i);
+            int next;
+            while ((next = getTransition(node, c)) == -1 && node != 0) {
+                node = failure[node];
+            }
+            node = next == -1 ? 0 : next;
+            if (output[node] != null) {
+                return output[node];
+            }
+        }
+        if (combinedRegex != null) {
+            Matcher matcher = combinedRegex.matcher(error);
+            if (matcher.matches()) {
+                for (int group = 1; group < combinedRegexByGroup.length; group++) {
+                    if (combinedRegexByGroup[group] != null && matcher.start(group) != -1) {
+                        return combinedRegexByGroup[group].pattern();
+                    }
+                }
+                throw new AssertionError(error);
+            }
+        }
+        for (Pattern regex : separateRegexes) {
+            if (regex.matcher(error).matches()) {
+                return regex.pattern();
+            }
+        }
+        return matchAllRegex == null ? null : matchAllRegex.pattern();
+    }
+
+}
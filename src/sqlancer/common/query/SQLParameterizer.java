@@ -0,0 +1,214 @@
+package sqlancer.common.query;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Replaces the constants of a query by bind parameters, so that queries of the same shape share a prepared statement.
+ *
+ * Only integer, decimal and string constants whose position makes them an operand are replaced: after an operator, an
+ * opening parenthesis, or a keyword such as SELECT, WHERE or AND, and after a comma only within the parentheses of a
+ * parenthesized list such as IN (...). Thus, an expression is parameterized the same way whether it is the first column
+ * of a query or its WHERE clause, as in the two queries of NoREC. The constants of function calls, type parameters,
+ * LIMIT, and ORDER BY or GROUP BY positions are kept. Queries with comments or question marks are not parameterized.
+ */
+public final class SQLParameterizer {
+
+    private static final Set<String> OPERAND_KEYWORDS = Set.of("SELECT", "WHERE", "ON", "HAVING", "AND", "OR", "NOT",
+            "LIKE", "BETWEEN", "IN", "WHEN", "THEN", "ELSE");
+
+    private static final String OPERATOR_CHARS = "=<>+-*/%|&!^~";
+
+    private SQLParameterizer() {
+    }
+
+    /**
+     * A query whose constants have been replaced by bind parameters.
+     */
+    public static final class ParameterizedQuery {
+        private final String template;
+        private final List<Object> parameters;
+
+        ParameterizedQuery(String template, List<Object> parameters) {
+            this.template = template;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Returns the query with a <code>?</code> for each parameter.
+         */
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * Returns the values of the parameters, which are {@link Long}s, {@link BigDecimal}s, or {@link String}s.
+         */
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Binds the parameters to a statement that has been prepared for the template.
+         *
+         * @param statement
+         *            the prepared statement
+         *
+         * @throws SQLException
+         *             if a parameter cannot be bound
+         */
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+        }
+    }
+
+    /**
+     * Replaces the constants of a query by bind parameters.
+     *
+     * @param query
+     *            the query
+     *
+     * @return the parameterized query, whose template is the query itself if no constants have been replaced
+     */
+    public static ParameterizedQuery parameterize(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        List<Object> parameters = new ArrayList<>();
+        // for each open parenthesis, whether it encloses operands rather than the arguments of a call
+        Deque<Boolean> parentheses = new ArrayDeque<>();
+        // the last keyword, operator, or punctuation before the current position, in upper case
+        String previous = "";
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                sb.append(c);
+                i++;
+            } else if (c == '-' && i + 1 < length && query.charAt(i + 1) == '-'
+                    || c == '/' && i + 1 < length && query.charAt(i + 1) == '*' || c == '?') {
+                return new ParameterizedQuery(query, Collections.emptyList());
+            } else if (c == '\'') {
+                int end = skipQuoted(query, i, '\'');
+                if (end == -1) {
+                    return new ParameterizedQuery(query, Collections.emptyList());
+                }
+                if (isOperandPosition(previous, parentheses)) {
+                    parameters.add(query.substring(i + 1, end - 1).replace("''", "'"));
+                    sb.append('?');
+                } else {
+                    sb.append(query, i, end);
+                }
+                previous = "'";
+                i = end;
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(query, i, c);
+                if (end == -1) {
+                    return new ParameterizedQuery(query, Collections.emptyList());
+                }
+                sb.append(query, i, end);
+                previous = "IDENTIFIER";
+                i = end;
+            } else if (Character.isDigit(c) || c == '.' && i + 1 < length && Character.isDigit(query.charAt(i + 1))) {
+                int end = i;
+                boolean decimal = false;
+                while (end < length && (Character.isDigit(query.charAt(end)) || query.charAt(end) == '.' && !decimal)) {
+                    decimal |= query.charAt(end) == '.';
+                    end++;
+                }
+                String number = query.substring(i, end);
+                // numbers such as 1e5 are kept
+                boolean partOfToken = end < length && isIdentifierPart(query.charAt(end));
+                Object value = partOfToken ? null : parseNumber(number, decimal);
+                if (value != null && isOperandPosition(previous, parentheses)) {
+                    parameters.add(value);
+                    sb.append('?');
+                } else {
+                    sb.append(number);
+                }
+                previous = "NUMBER";
+                i = end;
+            } else if (isIdentifierPart(c)) {
+                int end = i;
+                while (end < length && isIdentifierPart(query.charAt(end))) {
+                    end++;
+                }
+                sb.append(query, i, end);
+                previous = query.substring(i, end).toUpperCase(Locale.ROOT);
+                i = end;
+            } else {
+                if (c == '(') {
+                    parentheses.push(OPERAND_KEYWORDS.contains(previous) || isPunctuation(previous));
+                } else if (c == ')' && !parentheses.isEmpty()) {
+                    parentheses.pop();
+                }
+                sb.append(c);
+                previous = String.valueOf(c);
+                i++;
+            }
+        }
+        if (parameters.isEmpty()) {
+            return new ParameterizedQuery(query, Collections.emptyList());
+        }
+        return new ParameterizedQuery(sb.toString(), parameters);
+    }
+
+    private static boolean isOperandPosition(String previous, Deque<Boolean> parentheses) {
+        if (OPERAND_KEYWORDS.contains(previous)) {
+            return true;
+        }
+        if (previous.equals("(") || previous.equals(",")) {
+            return !parentheses.isEmpty() && parentheses.peek();
+        }
+        return previous.length() == 1 && OPERATOR_CHARS.indexOf(previous.charAt(0)) != -1;
+    }
+
+    private static boolean isPunctuation(String previous) {
+        return previous.isEmpty() || previous.length() == 1 && !isIdentifierPart(previous.charAt(0))
+                && previous.charAt(0) != ')' && previous.charAt(0) != '\'';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static int skipQuoted(String query, int start, char quote) {
+        int i = start + 1;
+        while (i < query.length()) {
+            if (query.charAt(i) == quote) {
+                if (i + 1 < query.length() && query.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else if (query.charAt(i) == '\\') {
+                // the meaning of backslashes depends on the DBMS
+                return -1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static Object parseNumber(String number, boolean decimal) {
+        if (decimal) {
+            return number.endsWith(".") ? null : new BigDecimal(number);
+        }
+        try {
+            return Long.valueOf(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
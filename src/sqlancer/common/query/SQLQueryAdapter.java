@@ -7,13 +7,18 @@ import java.sql.Statement;
 
 import sqlancer.GlobalState;
 import sqlancer.Main;
+import sqlancer.MainOptions;
+import sqlancer.Metrics;
 import sqlancer.SQLConnection;
+import sqlancer.common.query.SQLParameterizer.ParameterizedQuery;
 
 public class SQLQueryAdapter extends Query<SQLConnection> {
 
     private final String query;
     private final ExpectedErrors expectedErrors;
     private final boolean couldAffectSchema;
+    private final boolean bindConstants;
+    private ParameterizedQuery parameterizedQuery;
 
     public SQLQueryAdapter(String query) {
         this(query, new ExpectedErrors());
@@ -44,9 +49,35 @@ public class SQLQueryAdapter extends Query<SQLConnection> {
         }
         this.expectedErrors = expectedErrors;
         this.couldAffectSchema = couldAffectSchema;
+        this.bindConstants = false;
         // checkQueryString();
     }
 
+    private SQLQueryAdapter(SQLQueryAdapter adapter, boolean bindConstants) {
+        this.query = adapter.query;
+        this.expectedErrors = adapter.expectedErrors;
+        this.couldAffectSchema = adapter.couldAffectSchema;
+        this.bindConstants = bindConstants;
+    }
+
+    /**
+     * Returns a query that is executed as a prepared statement whose parameters are the constants of the query, if
+     * enabled by the options, so that the queries of the same shape share a cached prepared statement. The constants
+     * are bound with the types of their JDBC values, which might be inferred differently than the constants by the
+     * DBMS. Thus, a query that is compared to this query must bind its constants the same way. Like that of the query
+     * with constants, an error of the query is only ignored if it is expected.
+     *
+     * @param options
+     *            the options
+     *
+     * @return the query
+     *
+     * @see SQLParameterizer
+     */
+    public SQLQueryAdapter withBoundConstants(MainOptions options) {
+        return options.bindConstants() ? new SQLQueryAdapter(this, true) : this;
+    }
+
     private String canonicalizeString(String s) {
         if (s.endsWith(";")) {
             return s;
@@ -84,30 +115,85 @@ public class SQLQueryAdapter extends Query<SQLConnection> {
     @Override
     public <G extends GlobalState<?, ?, SQLConnection>> boolean execute(G globalState, String... fills)
             throws SQLException {
-        Statement s;
-        if (fills.length > 0) {
-            s = globalState.getConnection().prepareStatement(fills[0]);
-            for (int i = 1; i < fills.length; i++) {
-                ((PreparedStatement) s).setString(i, fills[i]);
-            }
-        } else {
-            s = globalState.getConnection().createStatement();
-        }
+        SQLConnection con = globalState.getConnection();
+        String preparedQuery = getPreparedQuery(fills);
+        Statement s = borrowStatement(con, preparedQuery, fills);
+        boolean success = false;
+        long start = Metrics.start();
         try {
-            if (fills.length > 0) {
+            if (preparedQuery != null) {
                 ((PreparedStatement) s).execute();
             } else {
                 s.execute(query);
             }
+            success = true;
+            Metrics.record(Metrics.Phase.EXECUTION, start);
             Main.nrSuccessfulActions.addAndGet(1);
             return true;
         } catch (Exception e) {
+            Metrics.record(Metrics.Phase.EXECUTION, start);
             Main.nrUnsuccessfulActions.addAndGet(1);
             checkException(e);
             globalState.getLogger().writeCurrent(" -- " + e.getMessage());
             return false;
         } finally {
-            s.close();
+            releaseStatement(con, preparedQuery, s, success);
+            if (couldAffectSchema) {
+                con.invalidatePreparedStatements();
+            }
+        }
+    }
+
+    /*
+     * Returns the query of the prepared statement that executes this query, or null if it is executed by a plain
+     * statement. The first fill is the query of a prepared statement, whose parameters are the remaining fills.
+     */
+    private String getPreparedQuery(String... fills) {
+        if (fills.length > 0) {
+            return fills[0];
+        }
+        if (bindConstants) {
+            ParameterizedQuery parameterized = getParameterizedQuery();
+            if (!parameterized.getParameters().isEmpty()) {
+                return parameterized.getTemplate();
+            }
+        }
+        return null;
+    }
+
+    private ParameterizedQuery getParameterizedQuery() {
+        if (parameterizedQuery == null) {
+            parameterizedQuery = SQLParameterizer.parameterize(query);
+        }
+        return parameterizedQuery;
+    }
+
+    private Statement borrowStatement(SQLConnection con, String preparedQuery, String... fills) throws SQLException {
+        if (preparedQuery == null) {
+            return con.borrowStatement();
+        }
+        PreparedStatement s = con.borrowPreparedStatement(preparedQuery);
+        try {
+            if (fills.length > 0) {
+                for (int i = 1; i < fills.length; i++) {
+                    s.setString(i, fills[i]);
+                }
+            } else {
+                getParameterizedQuery().bind(s);
+            }
+        } catch (SQLException e) {
+            con.releasePreparedStatement(preparedQuery, s, false);
+            throw e;
+        }
+        return s;
+    }
+
+    private static void releaseStatement(SQLConnection con, String preparedQuery, Statement s, boolean reusable) {
+        if (preparedQuery == null) {
+            con.releaseStatement(s);
+        } else {
+            // the plan of a prepared statement that failed might be invalid, for example, after a schema change
+            con.releasePreparedStatement(preparedQuery, (PreparedStatement) s, reusable);
         }
     }
 
@@ -128,32 +214,34 @@ public class SQLQueryAdapter extends Query<SQLConnection> {
     @Override
     public <G extends GlobalState<?, ?, SQLConnection>> SQLancerResultSet executeAndGet(G globalState, String... fills)
             throws SQLException {
-        Statement s;
-        if (fills.length > 0) {
-            s = globalState.getConnection().prepareStatement(fills[0]);
-            for (int i = 1; i < fills.length; i++) {
-                ((PreparedStatement) s).setString(i, fills[i]);
-            }
-        } else {
-            s = globalState.getConnection().createStatement();
-        }
+        SQLConnection con = globalState.getConnection();
+        String preparedQuery = getPreparedQuery(fills);
+        Statement s = borrowStatement(con, preparedQuery, fills);
         ResultSet result;
+        long start = Metrics.start();
         try {
-            if (fills.length > 0) {
+            if (preparedQuery != null) {
                 result = ((PreparedStatement) s).executeQuery();
             } else {
                 result = s.executeQuery(query);
             }
+            Metrics.record(Metrics.Phase.EXECUTION, start);
             Main.nrSuccessfulActions.addAndGet(1);
             if (result == null) {
+                releaseStatement(con, preparedQuery, s, true);
                 return null;
             }
-            return new SQLancerResultSet(result);
+            return new SQLancerResultSet(result, () -> releaseStatement(con, preparedQuery, s, true));
         } catch (Exception e) {
-            s.close();
+            Metrics.record(Metrics.Phase.EXECUTION, start);
+            releaseStatement(con, preparedQuery, s, false);
             Main.nrUnsuccessfulActions.addAndGet(1);
             checkException(e);
             globalState.getLogger().writeCurrent("-- " + e.getMessage());
+        } finally {
+            if (couldAffectSchema) {
+                con.invalidatePreparedStatements();
+            }
         }
         return null;
     }
@@ -9,8 +9,24 @@ public class SQLancerResultSet implements Closeable {
     ResultSet rs;
     private Runnable runnableEpilogue;
 
+    private final Runnable releaseStatement;
+    private boolean released;
+
     public SQLancerResultSet(ResultSet rs) {
+        this(rs, null);
+    }
+
+    /**
+     * Creates a result set whose statement is released rather than closed when the result set is closed.
+     *
+     * @param rs
+     *            the result set
+     * @param releaseStatement
+     *            releases the statement of the result set, or null to close it
+     */
+    public SQLancerResultSet(ResultSet rs, Runnable releaseStatement) {
         this.rs = rs;
+        this.releaseStatement = releaseStatement;
     }
 
     @Override
@@ -19,8 +35,20 @@ public class SQLancerResultSet implements Closeable {
             if (runnableEpilogue != null) {
                 runnableEpilogue.run();
             }
-            rs.getStatement().close();
-            rs.close();
+            if (releaseStatement == null) {
+                rs.getStatement().close();
+                rs.close();
+            } else if (!released) {
+                released = true;
+                try {
+                    if (!rs.isClosed()) {
+                        rs.close();
+                    }
+                } finally {
+                    // the result set might have been closed by the driver after it has been exhausted
+                    releaseStatement.run();
+                }
+            }
         } catch (SQLException e) {
             throw new AssertionError(e);
         }
@@ -1,7 +1,13 @@
 package sqlancer.common.schema;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -10,12 +16,42 @@ import sqlancer.GlobalState;
 import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
 
+/**
+ * An immutable snapshot of the tables of a database. The lookups by name and the views and base tables are indexed when
+ * the snapshot is created, so that they do not filter the tables; a changed schema is a new snapshot.
+ *
+ * @param <G>
+ *            the global state type
+ * @param <A>
+ *            the table type
+ */
 public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTable<?, ?, G>> {
 
     private final List<A> databaseTables;
+    private final Map<String, A> tablesByName = new HashMap<>();
+    private final Set<String> lowerCaseTableNames = new HashSet<>();
+    private final Set<String> indexNames = new HashSet<>();
+    private final List<A> views;
+    private final List<A> tablesWithoutViews;
 
     public AbstractSchema(List<A> databaseTables) {
-        this.databaseTables = Collections.unmodifiableList(databaseTables);
+        this.databaseTables = Collections.unmodifiableList(new ArrayList<>(databaseTables));
+        List<A> views = new ArrayList<>();
+        List<A> tablesWithoutViews = new ArrayList<>();
+        for (A table : this.databaseTables) {
+            tablesByName.putIfAbsent(table.getName(), table);
+            lowerCaseTableNames.add(table.getName().toLowerCase(Locale.ROOT));
+            for (TableIndex index : table.getIndexes()) {
+                indexNames.add(index.getIndexName());
+            }
+            if (table.isView()) {
+                views.add(table);
+            } else {
+                tablesWithoutViews.add(table);
+            }
+        }
+        this.views = Collections.unmodifiableList(views);
+        this.tablesWithoutViews = Collections.unmodifiableList(tablesWithoutViews);
     }
 
     @Override
@@ -41,15 +77,24 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
     }
 
     public A getRandomTable(Predicate<A> predicate) {
-        return Randomly.fromList(getDatabaseTables().stream().filter(predicate).collect(Collectors.toList()));
+        return Randomly.fromList(getDatabaseTables(), predicate);
+    }
+
+    /**
+     * Returns a random base table, which is the same table as <code>getRandomTable(t -&gt; !t.isView())</code>.
+     *
+     * @return the table
+     */
+    public A getRandomTableNoView() {
+        return Randomly.fromList(tablesWithoutViews);
     }
 
     public A getRandomTableOrBailout(Function<A, Boolean> f) {
-        List<A> relevantTables = databaseTables.stream().filter(f::apply).collect(Collectors.toList());
-        if (relevantTables.isEmpty()) {
+        Predicate<A> predicate = f::apply;
+        if (databaseTables.stream().noneMatch(predicate)) {
             throw new IgnoreMeException();
         }
-        return Randomly.fromList(relevantTables);
+        return Randomly.fromList(databaseTables, predicate);
     }
 
     public List<A> getDatabaseTables() {
@@ -65,31 +110,30 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
     }
 
     public A getDatabaseTable(String name) {
-        return databaseTables.stream().filter(t -> t.getName().equals(name)).findAny().orElse(null);
+        return tablesByName.get(name);
     }
 
     public List<A> getViews() {
-        return databaseTables.stream().filter(t -> t.isView()).collect(Collectors.toList());
+        return views;
     }
 
     public List<A> getDatabaseTablesWithoutViews() {
-        return databaseTables.stream().filter(t -> !t.isView()).collect(Collectors.toList());
+        return tablesWithoutViews;
     }
 
     public A getRandomViewOrBailout() {
-        if (getViews().isEmpty()) {
+        if (views.isEmpty()) {
             throw new IgnoreMeException();
         } else {
-            return Randomly.fromList(getViews());
+            return Randomly.fromList(views);
         }
     }
 
     public A getRandomTableNoViewOrBailout() {
-        List<A> databaseTablesWithoutViews = getDatabaseTablesWithoutViews();
-        if (databaseTablesWithoutViews.isEmpty()) {
+        if (tablesWithoutViews.isEmpty()) {
             throw new IgnoreMeException();
         }
-        return Randomly.fromList(databaseTablesWithoutViews);
+        return Randomly.fromList(tablesWithoutViews);
     }
 
     public String getFreeIndexName() {
@@ -98,15 +142,8 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
             i = (int) Randomly.getNotCachedInteger(0, 100);
         }
         do {
-            String indexName = String.format("i%d", i++);
-            boolean indexNameFound = false;
-            for (A table : databaseTables) {
-                if (table.getIndexes().stream().anyMatch(ind -> ind.getIndexName().contentEquals(indexName))) {
-                    indexNameFound = true;
-                    break;
-                }
-            }
-            if (!indexNameFound) {
+            String indexName = "i" + i++;
+            if (!indexNames.contains(indexName)) {
                 return indexName;
             }
         } while (true);
@@ -118,8 +155,8 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
             i = (int) Randomly.getNotCachedInteger(0, 100);
         }
         do {
-            String tableName = String.format("t%d", i++);
-            if (databaseTables.stream().noneMatch(t -> t.getName().equalsIgnoreCase(tableName))) {
+            String tableName = "t" + i++;
+            if (!lowerCaseTableNames.contains(tableName)) {
                 return tableName;
             }
         } while (true);
@@ -132,8 +169,8 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
             i = (int) Randomly.getNotCachedInteger(0, 100);
         }
         do {
-            String tableName = String.format("v%d", i++);
-            if (databaseTables.stream().noneMatch(t -> t.getName().contentEquals(tableName))) {
+            String tableName = "v" + i++;
+            if (!tablesByName.containsKey(tableName)) {
                 return tableName;
             }
         } while (true);
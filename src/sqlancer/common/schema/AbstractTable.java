@@ -1,7 +1,10 @@
 package sqlancer.common.schema;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -15,6 +18,7 @@ public abstract class AbstractTable<C extends AbstractTableColumn<?, ?>, I exten
     protected static final int NO_ROW_COUNT_AVAILABLE = -1;
     protected final String name;
     private final List<C> columns;
+    private final Set<String> columnNames = new HashSet<>();
     private final List<I> indexes;
     private final boolean isView;
     protected long rowCount = NO_ROW_COUNT_AVAILABLE;
@@ -23,7 +27,10 @@ public abstract class AbstractTable<C extends AbstractTableColumn<?, ?>, I exten
         this.name = name;
         this.indexes = indexes;
         this.isView = isView;
-        this.columns = Collections.unmodifiableList(columns);
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        for (C c : columns) {
+            columnNames.add(c.getName());
+        }
     }
 
     public String getName() {
@@ -63,12 +70,10 @@ public abstract class AbstractTable<C extends AbstractTableColumn<?, ?>, I exten
     }
 
     public C getRandomColumnOrBailout(Predicate<C> predicate) {
-        List<C> relevantColumns = columns.stream().filter(predicate).collect(Collectors.toList());
-        if (relevantColumns.isEmpty()) {
+        if (columns.stream().noneMatch(predicate)) {
             throw new IgnoreMeException();
         }
-
-        return Randomly.fromList(relevantColumns);
+        return Randomly.fromList(columns, predicate);
     }
 
     public boolean hasIndexes() {
@@ -97,8 +102,8 @@ public abstract class AbstractTable<C extends AbstractTableColumn<?, ?>, I exten
             i = (int) Randomly.getNotCachedInteger(0, 100);
         }
         do {
-            String columnName = String.format("c%d", i++);
-            if (columns.stream().noneMatch(t -> t.getName().contentEquals(columnName))) {
+            String columnName = "c" + i++;
+            if (!columnNames.contains(columnName)) {
                 return columnName;
             }
         } while (true);
@@ -0,0 +1,116 @@
+package sqlancer.general;
+
+import java.util.Arrays;
+
+import sqlancer.general.gen.LongCounterMap;
+
+/**
+ * Exponentially-decayed success counts and sums of the options of the generator, indexed by their ids in
+ * {@link GeneralStatistics}. Each statement that is added decays the earlier ones by a constant factor, so that the
+ * counters reflect the recent statements and their memory does not depend on the number of statements.
+ *
+ * Rather than multiplying all counters for each statement, the counters store values scaled by the weight of the
+ * current statement, which grows by the inverse of the factor, and are divided by it when read. The counters are
+ * rescaled once the weight gets large.
+ */
+public final class GeneralDecayedCounters {
+
+    private static final double MAX_WEIGHT = 1e100;
+
+    private final double decay;
+    private double weight = 1;
+    private double[] success = new double[16];
+    private double[] count = new double[16];
+    private int size;
+
+    /**
+     * Creates the counters.
+     *
+     * @param decay
+     *            the factor by which the earlier statements decay for each statement, in (0, 1], where 1 does not decay
+     *            at all
+     */
+    public GeneralDecayedCounters(double decay) {
+        if (!(decay > 0 && decay <= 1)) {
+            throw new IllegalArgumentException(String.valueOf(decay));
+        }
+        this.decay = decay;
+    }
+
+    /**
+     * Adds the score of a statement. The sum of each option grows by its score if the statement executed successfully,
+     * and its count by one.
+     *
+     * @param score
+     *            the number of times the statement used each option, by id
+     * @param successful
+     *            whether the statement executed successfully
+     */
+    public void add(LongCounterMap score, boolean successful) {
+        weight /= decay;
+        if (weight > MAX_WEIGHT) {
+            rescale();
+        }
+        score.forEach((key, value) -> {
+            int id = (int) key;
+            if (id >= size) {
+                ensureCapacity(id + 1);
+                size = id + 1;
+            }
+            if (successful) {
+                success[id] += value * weight;
+            }
+            count[id] += weight;
+        });
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > count.length) {
+            int newCapacity = Math.max(capacity, count.length * 2);
+            success = Arrays.copyOf(success, newCapacity);
+            count = Arrays.copyOf(count, newCapacity);
+        }
+    }
+
+    private void rescale() {
+        for (int i = 0; i < size; i++) {
+            success[i] /= weight;
+            count[i] /= weight;
+        }
+        weight = 1;
+    }
+
+    /**
+     * Returns one more than the largest id that has been added.
+     *
+     * @return the size of the arrays returned by {@link #getSuccess()} and {@link #getCount()}
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getSuccess(int id) {
+        return id < size ? success[id] / weight : 0;
+    }
+
+    public double getCount(int id) {
+        return id < size ? count[id] / weight : 0;
+    }
+
+    public double[] getSuccess() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getSuccess(i);
+        }
+        return values;
+    }
+
+    public double[] getCount() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getCount(i);
+        }
+        return values;
+    }
+
+}
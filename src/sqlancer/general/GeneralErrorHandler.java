@@ -3,12 +3,16 @@ package sqlancer.general;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.opencsv.CSVParser;
@@ -28,6 +32,7 @@ import sqlancer.general.ast.GeneralUnaryPostfixOperator;
 import sqlancer.general.ast.GeneralUnaryPrefixOperator;
 import sqlancer.general.gen.GeneralIndexGenerator;
 import sqlancer.general.gen.GeneralTableGenerator;
+import sqlancer.general.gen.LongCounterMap;
 import sqlancer.general.learner.GeneralFragments.GeneralFragmentChoice;
 
 public class GeneralErrorHandler implements ErrorHandler {
@@ -35,51 +40,39 @@ public class GeneralErrorHandler implements ErrorHandler {
     private final GeneratorInfoTable generatorTable;
     private GeneratorInfo generatorInfo;
 
-    // expression depth for each DATABASE --> it is thread unique parameter
-    // TODO concurrent
+    // the scores of a single statement, which only the thread that generates it accesses. The generator nodes are
+    // keyed by their ordinal, the composite options and fragments by their ids in the shared statistics
     public class GeneratorInfo {
-        private final Map<GeneratorNode, Integer> generatorScore;
-        private final Map<String, Integer> compositeGeneratorScore;
-        private final Map<GeneralFragmentChoice, Integer> fragmentScore;
+        private final LongCounterMap generatorScore;
+        private LongCounterMap compositeGeneratorScore;
+        private final LongCounterMap fragmentScore;
         private boolean status;
         private boolean isQuery;
 
         public GeneratorInfo() {
-            this.generatorScore = new HashMap<>();
-            this.compositeGeneratorScore = new HashMap<>();
-            this.fragmentScore = new HashMap<>();
+            this.generatorScore = new LongCounterMap();
+            this.compositeGeneratorScore = new LongCounterMap();
+            this.fragmentScore = new LongCounterMap();
             this.status = false;
             this.isQuery = false;
         }
 
-        public Map<GeneratorNode, Integer> getGeneratorScore() {
+        public LongCounterMap getGeneratorScore() {
             return generatorScore;
         }
 
-        public Map<String, Integer> getCompositeGeneratorScore() {
+        public LongCounterMap getCompositeGeneratorScore() {
             return compositeGeneratorScore;
         }
 
-        public Map<GeneralFragmentChoice, Integer> getFragmentScore() {
+        public LongCounterMap getFragmentScore() {
             return fragmentScore;
         }
 
-        public <N> void countSuccess(Map<N, Integer> success, Map<N, Integer> count, Map<N, Integer> score) {
-            // HashMap<N, Integer> generator = supplier.get();
-            int executionStatus = status ? 1 : 0;
-
-            // sum up all the successful generator options
-            for (Map.Entry<N, Integer> entry : score.entrySet()) {
-                N key = entry.getKey();
-                int value = entry.getValue();
-                if (success.containsKey(key)) {
-                    success.put(key, success.get(key) + value * executionStatus);
-                    count.put(key, count.get(key) + 1);
-                } else {
-                    success.put(key, value * executionStatus);
-                    count.put(key, 1);
-                }
-            }
+        public Map<GeneratorNode, Long> getGeneratorScoreByNode() {
+            Map<GeneratorNode, Long> score = new EnumMap<>(GeneratorNode.class);
+            generatorScore.forEach((ordinal, value) -> score.put(GeneratorNode.values()[(int) ordinal], value));
+            return score;
         }
 
         public boolean getStatus() {
@@ -100,86 +93,83 @@ public class GeneralErrorHandler implements ErrorHandler {
 
         @Override
         public String toString() {
-            return "GeneratorInfo [generatorScore=" + generatorScore + ", status=" + status + "]";
+            return "GeneratorInfo [generatorScore=" + getGeneratorScoreByNode() + ", status=" + status + "]";
         }
     }
 
+    // running aggregates of the statements of the database, which do not keep the statements themselves, except for a
+    // bounded window of the most recent ones
     private class GeneratorInfoTable {
-        private final List<GeneratorInfo> generatorTable;
+        private final ArrayDeque<GeneratorInfo> recent = new ArrayDeque<>();
+        private int windowSize = DEFAULT_WINDOW_SIZE;
 
-        private final Map<GeneratorNode, Integer> nodeSuccess = new HashMap<>();
-        private final Map<GeneratorNode, Integer> nodeCount = new HashMap<>();
-        private final Map<String, Integer> compositeSuccess = new HashMap<>();
-        private final Map<String, Integer> compositeCount = new HashMap<>();
-        private final Map<GeneralFragmentChoice, Integer> fragmentSuccess = new HashMap<>();
-        private final Map<GeneralFragmentChoice, Integer> fragmentCount = new HashMap<>();
+        private GeneralDecayedCounters nodeCounters = new GeneralDecayedCounters(DEFAULT_DECAY);
+        private GeneralDecayedCounters compositeCounters = new GeneralDecayedCounters(DEFAULT_DECAY);
+        private GeneralDecayedCounters fragmentCounters = new GeneralDecayedCounters(DEFAULT_DECAY);
 
-        GeneratorInfoTable() {
-            this.generatorTable = new ArrayList<>();
-        }
+        private int stmtNum;
+        private int queryNum;
+        private int qsuccess;
+        private int ssuccess;
 
-        public List<GeneratorInfo> getGeneratorTable() {
-            return generatorTable;
+        // must be called before the first statement is added
+        public void configure(double decay, int windowSize) {
+            nodeCounters = new GeneralDecayedCounters(decay);
+            compositeCounters = new GeneralDecayedCounters(decay);
+            fragmentCounters = new GeneralDecayedCounters(decay);
+            this.windowSize = Math.max(1, windowSize);
         }
 
-        public void add(GeneratorInfo generatorInfo) {
-            generatorTable.add(generatorInfo);
+        public int getNrStatements() {
+            return stmtNum + queryNum;
         }
 
-        public GeneratorInfo getLastGeneratorScore() {
-            return generatorTable.get(generatorTable.size() - 1);
-        }
-
-        public void calcNodeSuccess() {
-            int stmtNum = 0;
-            int queryNum = 0;
-            int qsuccess = 0;
-            int ssuccess = 0;
-            for (GeneratorInfo info : generatorTable) {
-                info.countSuccess(nodeSuccess, nodeCount, info.getGeneratorScore());
-                // logging info
-                if (info.isQuery()) {
-                    qsuccess += info.getStatus() ? 1 : 0;
-                    queryNum++;
-                } else {
-                    ssuccess += info.getStatus() ? 1 : 0;
-                    stmtNum++;
-                }
+        public void add(GeneratorInfo generatorInfo) {
+            boolean status = generatorInfo.getStatus();
+            nodeCounters.add(generatorInfo.getGeneratorScore(), status);
+            compositeCounters.add(generatorInfo.getCompositeGeneratorScore(), status);
+            fragmentCounters.add(generatorInfo.getFragmentScore(), status);
+            // logging info
+            if (generatorInfo.isQuery()) {
+                qsuccess += status ? 1 : 0;
+                queryNum++;
+            } else {
+                ssuccess += status ? 1 : 0;
+                stmtNum++;
             }
-            System.out.println("Successful query pairs rate: " + (double) qsuccess / queryNum);
-            System.out.println("Successful statements rate: " + (double) ssuccess / stmtNum);
+            if (recent.size() == windowSize) {
+                recent.removeFirst();
+            }
+            recent.addLast(generatorInfo);
         }
 
-        public void calcCompositeSuccess() {
-            for (GeneratorInfo info : generatorTable) {
-                info.countSuccess(compositeSuccess, compositeCount, info.getCompositeGeneratorScore());
+        public GeneratorInfo getLastGeneratorScore() {
+            GeneratorInfo last = recent.peekLast();
+            if (last == null) {
+                throw new NoSuchElementException();
             }
+            return last;
         }
 
-        public void calcFragmentSuccess() {
-            for (GeneratorInfo info : generatorTable) {
-                info.countSuccess(fragmentSuccess, fragmentCount, info.getFragmentScore());
-            }
+        public void printSuccessRates() {
+            System.out.println("Successful query pairs rate: " + (double) qsuccess / queryNum);
+            System.out.println("Successful statements rate: " + (double) ssuccess / stmtNum);
         }
 
-        public synchronized <N> Map<N, Double> calcAverageScore(Map<N, Integer> success, Map<N, Integer> count,
-                Map<N, Integer> allSuccess, Map<N, Integer> allCount, int minCnt, boolean quickStart) {
-            Map<N, Double> average = new HashMap<>();
-            // sum the success and count
-            for (Map.Entry<N, Integer> entry : success.entrySet()) {
-                N key = entry.getKey();
-                if (allSuccess.containsKey(key)) {
-                    allSuccess.put(key, allSuccess.get(key) + entry.getValue());
-                    allCount.put(key, allCount.get(key) + count.get(key));
+        // returns the average by id, which is NaN for the ids that have not been counted often enough
+        public double[] calcAverageScore(GeneralDecayedCounters counters, GeneralStatistics<?> all, int minCnt,
+                boolean quickStart) {
+            // add the aggregates of this table to the stripe of this thread, and sum the stripes
+            all.addAll(counters.getSuccess(), counters.getCount());
+            GeneralStatistics.Snapshot snapshot = all.aggregate();
+            double[] average = new double[snapshot.size()];
+            for (int id = 0; id < average.length; id++) {
+                double cnt = snapshot.getCount(id);
+                double sum = snapshot.getSuccess(id);
+                if (cnt != 0 && (cnt > minCnt || (quickStart && sum > 0))) {
+                    average[id] = sum / cnt;
                 } else {
-                    allSuccess.put(key, entry.getValue());
-                    allCount.put(key, count.get(key));
-                }
-            }
-            for (Map.Entry<N, Integer> entry : allSuccess.entrySet()) {
-                int cnt = allCount.get(entry.getKey());
-                if (cnt > minCnt || (quickStart && entry.getValue() > 0)) {
-                    average.put(entry.getKey(), (double) entry.getValue() / cnt);
+                    average[id] = Double.NaN;
                 }
             }
             return average;
@@ -187,32 +177,42 @@ public class GeneralErrorHandler implements ErrorHandler {
 
     }
 
-    // volatile
-    private static Map<String, Integer> curDepth = new HashMap<>();
-    private static volatile int execDatabaseNum = 0;
-    private static volatile Map<String, GeneratorInfo> assertionGeneratorHistory = new HashMap<>();
-    private static volatile Map<GeneratorNode, Boolean> generatorOptions = new HashMap<>();
-    private static volatile Map<String, Boolean> compositeGeneratorOptions = new HashMap<>();
-    private static volatile Map<GeneralFragmentChoice, Boolean> fragmentOptions = new HashMap<>();
-    private static volatile List<String> disabledFragments = new ArrayList<>();
+    // the options and statistics shared by all threads
+    private static final GeneralStatistics<GeneratorNode> NODES = new GeneralStatistics<>();
+    private static final GeneralStatistics<String> COMPOSITES = new GeneralStatistics<>();
+    private static final GeneralStatistics<GeneralFragmentChoice> FRAGMENTS = new GeneralStatistics<>();
+    // the ids of composite options of the form first-second, to look them up without concatenating the strings
+    private static final Map<String, Map<String, Integer>> COMPOSITE_IDS = new ConcurrentHashMap<>();
+
+    static {
+        // so that the id of each node is its ordinal
+        for (GeneratorNode node : GeneratorNode.values()) {
+            NODES.getId(node);
+        }
+    }
 
-    private static volatile Map<String, Integer> allCompositeSuccess = new HashMap<>();
-    private static volatile Map<String, Integer> allCompositeCount = new HashMap<>();
-    private static volatile Map<GeneralFragmentChoice, Integer> allFragmentSuccess = new HashMap<>();
-    private static volatile Map<GeneralFragmentChoice, Integer> allFragmentCount = new HashMap<>();
-    private static volatile Map<GeneratorNode, Integer> allNodeSuccess = new HashMap<>();
-    private static volatile Map<GeneratorNode, Integer> allNodeCount = new HashMap<>();
+    // expression depth for each DATABASE
+    private static final Map<String, AtomicInteger> CUR_DEPTH = new ConcurrentHashMap<>();
+    private static final AtomicInteger EXEC_DATABASE_NUM = new AtomicInteger();
+    private static final Map<String, GeneratorInfo> ASSERTION_GENERATOR_HISTORY = new ConcurrentHashMap<>();
+    private static final Set<String> DISABLED_FRAGMENTS = ConcurrentHashMap.newKeySet();
 
-    private static volatile Map<GeneratorNode, Double> generatorAverage = new HashMap<>();
-    private static volatile Map<String, Double> compositeAverage = new HashMap<>();
-    private static volatile Map<GeneralFragmentChoice, Double> fragmentAverage = new HashMap<>();
+    // incremented whenever a generator or composite option changes, so that samplers derived from them can be rebuilt
+    private static final AtomicInteger OPTIONS_VERSION = new AtomicInteger();
 
-    private static volatile Map<GeneratorNode, String> generatorExample = new HashMap<>();
-    private static volatile Map<String, String> compositeExample = new HashMap<>();
-    private static volatile Map<GeneralFragmentChoice, String> fragmentExample = new HashMap<>();
+    private double[] generatorAverage = new double[0];
+    private double[] compositeAverage = new double[0];
+    private double[] fragmentAverage = new double[0];
+
+    // the depth of the database that was looked up last, which does not change while a database is generated
+    private String depthDatabaseName;
+    private AtomicInteger depth;
 
     private double nodeNum = GeneratorNode.values().length;
 
+    public static final double DEFAULT_DECAY = 0.9999;
+    public static final int DEFAULT_WINDOW_SIZE = 1;
+
     public enum GeneratorNode {
         // Meta nodes
         UNTYPE_EXPR,
@@ -247,63 +247,76 @@ public class GeneralErrorHandler implements ErrorHandler {
     }
 
     public void incrementExecDatabaseNum() {
-        execDatabaseNum++;
+        EXEC_DATABASE_NUM.incrementAndGet();
     }
 
     public int getExecDatabaseNum() {
-        return execDatabaseNum;
+        return EXEC_DATABASE_NUM.get();
     }
 
     public GeneralErrorHandler() {
         this.generatorTable = new GeneratorInfoTable();
         this.generatorInfo = new GeneratorInfo();
-        if (generatorOptions.isEmpty()) {
+        if (!NODES.hasOption(GeneratorNode.UNTYPE_EXPR.ordinal())) {
             initGeneratorOptions();
         }
         updateGeneratorNodeNum();
     }
 
+    /**
+     * Configures how the statements of the database are aggregated.
+     *
+     * @param decay
+     *            the factor by which the statistics of the earlier statements decay for each statement
+     * @param windowSize
+     *            the number of recent statements whose scores are kept, at least one
+     */
+    public void configure(double decay, int windowSize) {
+        generatorTable.configure(decay, windowSize);
+    }
+
     public Map<GeneratorNode, Boolean> getGeneratorOptions() {
-        return GeneralErrorHandler.generatorOptions;
+        Map<GeneratorNode, Boolean> options = new EnumMap<>(GeneratorNode.class);
+        for (GeneratorNode node : GeneratorNode.values()) {
+            if (NODES.hasOption(node.ordinal())) {
+                options.put(node, NODES.getOption(node.ordinal(), true));
+            }
+        }
+        return options;
     }
 
-    public int getCurDepth(String databaseName) {
-        databaseName = databaseName.split("_")[0]; // for experiment usage
-        if (curDepth.containsKey(databaseName)) {
-            return curDepth.get(databaseName);
-        } else {
+    private AtomicInteger getDepth(String databaseName) {
+        if (!databaseName.equals(depthDatabaseName)) {
+            // for experiment usage
+            int suffix = databaseName.indexOf('_');
+            String name = suffix == -1 ? databaseName : databaseName.substring(0, suffix);
             // We currently don't explicitly initiate the depth of the database
-            return 1;
+            depth = CUR_DEPTH.computeIfAbsent(name, n -> new AtomicInteger(1));
+            depthDatabaseName = databaseName;
         }
+        return depth;
+    }
+
+    public int getCurDepth(String databaseName) {
+        return getDepth(databaseName).get();
     }
 
     public void setCurDepth(String databaseName, int depth) {
-        databaseName = databaseName.split("_")[0];
-        curDepth.put(databaseName, depth);
+        getDepth(databaseName).set(depth);
     }
 
     public void incrementCurDepth(String databaseName) {
-        databaseName = databaseName.split("_")[0];
-        if (curDepth.containsKey(databaseName)) {
-            curDepth.put(databaseName, curDepth.get(databaseName) + 1);
-        } else {
-            // we initiate the depth of the database here.
-            curDepth.put(databaseName, 2);
-        }
+        getDepth(databaseName).incrementAndGet();
     }
 
-    private synchronized <N> void updateByLeastOnce(Map<N, Double> score, Map<N, Boolean> options) {
-        for (Map.Entry<N, Double> entry : score.entrySet()) {
-            if (options.containsKey(entry.getKey())) {
-                if (options.get(entry.getKey())) {
-                    // If true, then continue, don't make available function unavailable
-                    continue;
-                }
+    private static void updateByLeastOnce(double[] score, GeneralStatistics<?> options) {
+        for (int id = 0; id < score.length; id++) {
+            if (Double.isNaN(score[id]) || options.getOption(id, false)) {
+                // If true, then continue, don't make available function unavailable
+                continue;
             }
-            if (entry.getValue() > 0) {
-                options.put(entry.getKey(), true);
-            } else {
-                options.put(entry.getKey(), false);
+            if (options.setOption(id, score[id] > 0)) {
+                OPTIONS_VERSION.incrementAndGet();
             }
         }
 
@@ -316,35 +329,29 @@ public class GeneralErrorHandler implements ErrorHandler {
     }
 
     public void calcAverageScore() {
-        generatorTable.calcNodeSuccess();
-        generatorAverage = generatorTable.calcAverageScore(generatorTable.nodeSuccess, generatorTable.nodeCount,
-                allNodeSuccess, allNodeCount, 100, true);
-        // generatorTable.calcAverageCompositeScore();
-        generatorTable.calcCompositeSuccess();
-        compositeAverage = generatorTable.calcAverageScore(generatorTable.compositeSuccess,
-                generatorTable.compositeCount, allCompositeSuccess, allCompositeCount, 200, false);
-
-        generatorTable.calcFragmentSuccess();
-        fragmentAverage = generatorTable.calcAverageScore(generatorTable.fragmentSuccess, generatorTable.fragmentCount,
-                allFragmentSuccess, allFragmentCount, 10, true);
+        generatorTable.printSuccessRates();
+        generatorAverage = generatorTable.calcAverageScore(generatorTable.nodeCounters, NODES, 100, true);
+        compositeAverage = generatorTable.calcAverageScore(generatorTable.compositeCounters, COMPOSITES, 200, false);
+        fragmentAverage = generatorTable.calcAverageScore(generatorTable.fragmentCounters, FRAGMENTS, 10, true);
     }
 
     public void updateGeneratorOptions() {
 
         // if not zero then the option is true
-        updateByLeastOnce(generatorAverage, generatorOptions);
-        updateByLeastOnce(compositeAverage, compositeGeneratorOptions);
+        updateByLeastOnce(generatorAverage, NODES);
+        updateByLeastOnce(compositeAverage, COMPOSITES);
         postUpdateFunctionOptions();
-        updateByLeastOnce(fragmentAverage, fragmentOptions);
+        updateByLeastOnce(fragmentAverage, FRAGMENTS);
 
         // Special handling for the untype_expr option
-        if (generatorOptions.get(GeneratorNode.UNTYPE_EXPR)) {
+        int untypeExpr = GeneratorNode.UNTYPE_EXPR.ordinal();
+        if (NODES.getOption(untypeExpr, false) && !Double.isNaN(generatorAverage[untypeExpr])) {
             // TODO make it super parameter
-            generatorOptions.put(GeneratorNode.UNTYPE_EXPR, generatorAverage.get(GeneratorNode.UNTYPE_EXPR) > 0.5);
+            setOption(GeneratorNode.UNTYPE_EXPR, generatorAverage[untypeExpr] > 0.5);
         }
     }
 
-    private synchronized void postUpdateFunctionOptions() {
+    private void postUpdateFunctionOptions() {
         // iterate funtions
         for (Map.Entry<String, Integer> entry : GeneralFunction.getFunctions().entrySet()) {
             String funcName = entry.getKey();
@@ -354,7 +361,7 @@ public class GeneralErrorHandler implements ErrorHandler {
                         .filter(t -> getCompositeOption(funcName, ind + t.toString())).collect(Collectors.toList());
                 if (availTypes.size() == 0) {
                     System.out.println("Function " + funcName + " with " + i + " arguments is not available");
-                    setCompositeOption("FUNCTION-" + funcName, false);
+                    setCompositeOption("FUNCTION", funcName, false);
                 }
             }
         }
@@ -371,7 +378,7 @@ public class GeneralErrorHandler implements ErrorHandler {
     }
 
     public static boolean checkFragmentAvailability(GeneralFragmentChoice fragment) {
-        return !disabledFragments.contains(fragment.getFragmentName());
+        return !DISABLED_FRAGMENTS.contains(fragment.getFragmentName());
     }
 
     public void disableOptions(String fileName) {
@@ -392,7 +399,7 @@ public class GeneralErrorHandler implements ErrorHandler {
                         setCompositeOptionIfNonExist(name, false);
                     } else {
                         String disabledFragment = String.format("%s", name);
-                        disabledFragments.add(disabledFragment);
+                        DISABLED_FRAGMENTS.add(disabledFragment);
                     }
                 } catch (IllegalArgumentException e) {
                     System.out.println("Parsing row " + rowValues + " failed");
@@ -426,44 +433,78 @@ public class GeneralErrorHandler implements ErrorHandler {
     // this.generatorInfo = info;
     // }
 
+    /**
+     * Gets the id of a composite option, by which {@link GeneratorInfo#getCompositeGeneratorScore()} is keyed.
+     *
+     * @param option
+     *            the name of the composite option
+     *
+     * @return the id of the option
+     */
+    public static int getCompositeId(String option) {
+        return COMPOSITES.getId(option);
+    }
+
+    /**
+     * Gets the id of the composite option named first-second.
+     *
+     * @param first
+     *            the first part of the name
+     * @param second
+     *            the second part of the name
+     *
+     * @return the id of the option
+     */
+    public static int getCompositeId(String first, String second) {
+        Map<String, Integer> ids = COMPOSITE_IDS.get(first);
+        if (ids == null) {
+            ids = COMPOSITE_IDS.computeIfAbsent(first, f -> new ConcurrentHashMap<>());
+        }
+        Integer id = ids.get(second);
+        if (id == null) {
+            id = COMPOSITES.getId(first + "-" + second);
+            ids.put(second, id);
+        }
+        return id;
+    }
+
+    public static String getCompositeName(int id) {
+        return COMPOSITES.getKey(id);
+    }
+
     public void addScore(GeneratorNode generatorName) {
-        Map<GeneratorNode, Integer> score = generatorInfo.getGeneratorScore();
-        if (score.containsKey(generatorName)) {
-            score.put(generatorName, score.get(generatorName) + 1);
-        } else {
-            score.put(generatorName, 1);
-        }
+        generatorInfo.getGeneratorScore().add(generatorName.ordinal(), 1);
     }
 
     public void addScore(String generatorName) {
-        Map<String, Integer> score = generatorInfo.getCompositeGeneratorScore();
-        if (score.containsKey(generatorName)) {
-            score.put(generatorName, score.get(generatorName) + 1);
-        } else {
-            score.put(generatorName, 1);
-        }
+        addCompositeScore(getCompositeId(generatorName));
+    }
+
+    public void addScore(String first, String second) {
+        addCompositeScore(getCompositeId(first, second));
+    }
+
+    public void addCompositeScore(int id) {
+        generatorInfo.getCompositeGeneratorScore().add(id, 1);
     }
 
     public void addScore(GeneralFragmentChoice fragment) {
-        Map<GeneralFragmentChoice, Integer> score = generatorInfo.getFragmentScore();
-        if (score.containsKey(fragment)) {
-            score.put(fragment, score.get(fragment) + 1);
-        } else {
-            score.put(fragment, 1);
-        }
+        generatorInfo.getFragmentScore().add(FRAGMENTS.getId(fragment), 1);
     }
 
-    public void setScore(GeneratorNode generatorName, Integer score) {
-        generatorInfo.getGeneratorScore().put(generatorName, score);
+    public void setScore(GeneratorNode generatorName, int score) {
+        LongCounterMap scores = generatorInfo.getGeneratorScore();
+        scores.add(generatorName.ordinal(), score - scores.get(generatorName.ordinal()));
     }
 
-    public void setScore(String generatorName, Integer score) {
-        generatorInfo.getCompositeGeneratorScore().put(generatorName, score);
+    public void setScore(String generatorName, int score) {
+        LongCounterMap scores = generatorInfo.getCompositeGeneratorScore();
+        int id = getCompositeId(generatorName);
+        scores.add(id, score - scores.get(id));
     }
 
-    public void loadCompositeScore(Map<String, Integer> compositeScore) {
-        generatorInfo.getCompositeGeneratorScore().clear();
-        generatorInfo.getCompositeGeneratorScore().putAll(compositeScore);
+    public void loadCompositeScore(LongCounterMap compositeScore) {
+        generatorInfo.compositeGeneratorScore = compositeScore.copy();
     }
 
     public void setExecutionStatus(boolean status) {
@@ -489,11 +530,11 @@ public class GeneralErrorHandler implements ErrorHandler {
     }
 
     public void appendHistory(String databaseName) {
-        assertionGeneratorHistory.put(databaseName, getLastGeneratorScore());
+        ASSERTION_GENERATOR_HISTORY.put(databaseName, getLastGeneratorScore());
     }
 
     public void printStatistics() {
-        System.out.println("Executed Databases: " + execDatabaseNum);
+        System.out.println("Executed Databases: " + EXEC_DATABASE_NUM.get());
         // System.out.println("Generator Score: " + generatorInfo);
         // System.out.println("Generator Table: " + generatorTable);
         // System.out.println("Generator Options: " + generatorOptions);
@@ -506,7 +547,7 @@ public class GeneralErrorHandler implements ErrorHandler {
         // get the average value for each key for all the hashmap in the
         // successGeneratorTable
         // HashMap<GeneratorNode, Double> average = getAverageScore(generatorTable);
-        System.out.println("Total queries: " + generatorTable.getGeneratorTable().size());
+        System.out.println("Total queries: " + generatorTable.getNrStatements());
         // System.out.println("Average: " + average);
 
         // HashMap<String, Double> compositeAverage =
@@ -514,7 +555,13 @@ public class GeneralErrorHandler implements ErrorHandler {
         // System.out.println("Composite Average: " + compositeAverage);
 
         // Print the history failed generator options
-        System.out.println("Assertion Generator History: " + assertionGeneratorHistory);
+        System.out.println("Assertion Generator History: " + ASSERTION_GENERATOR_HISTORY);
+    }
+
+    private static Set<Long> getKeys(LongCounterMap score) {
+        Set<Long> keys = new HashSet<>();
+        score.forEach((key, value) -> keys.add(key));
+        return keys;
     }
 
     public boolean checkIfDuplicate() {
@@ -522,14 +569,15 @@ public class GeneralErrorHandler implements ErrorHandler {
         boolean duplicate = false;
 
         boolean isError = !getLastGeneratorScore().getStatus();
-        Set<GeneratorNode> nodes = new HashSet<>(getLastGeneratorScore().getGeneratorScore().keySet());
-        Set<GeneralFragmentChoice> fragments = new HashSet<>(getLastGeneratorScore().getFragmentScore().keySet());
-        Set<String> composites = new HashSet<>(getLastGeneratorScore().getCompositeGeneratorScore().keySet());
-        Set<String> functions = composites.stream().filter(s -> s.startsWith("FUNCTION")).collect(Collectors.toSet());
-        ArrayList<GeneratorInfo> history = new ArrayList<>(assertionGeneratorHistory.values());
+        Set<Long> nodes = getKeys(getLastGeneratorScore().getGeneratorScore());
+        Set<Long> fragments = getKeys(getLastGeneratorScore().getFragmentScore());
+        Set<Long> composites = getKeys(getLastGeneratorScore().getCompositeGeneratorScore());
+        Set<Long> functions = composites.stream().filter(id -> COMPOSITES.getKey(id.intValue()).startsWith("FUNCTION"))
+                .collect(Collectors.toSet());
+        ArrayList<GeneratorInfo> history = new ArrayList<>(ASSERTION_GENERATOR_HISTORY.values());
 
         // remove meta nodes
-        nodes.remove(GeneratorNode.UNTYPE_EXPR);
+        nodes.remove((long) GeneratorNode.UNTYPE_EXPR.ordinal());
         // System.out.println("General Features: " + nodes);
         // System.out.println("General Fragments: " + fragments);
         // System.out.println("Function Features: " + functions);
@@ -540,8 +588,8 @@ public class GeneralErrorHandler implements ErrorHandler {
             if (isError != (!generator.getStatus())) {
                 continue;
             }
-            Set<GeneratorNode> generatorNodes = new HashSet<>(generator.getGeneratorScore().keySet());
-            generatorNodes.remove(GeneratorNode.UNTYPE_EXPR);
+            Set<Long> generatorNodes = getKeys(generator.getGeneratorScore());
+            generatorNodes.remove((long) GeneratorNode.UNTYPE_EXPR.ordinal());
             // 1. if it is empty, then it's a expression with only constant. Probably a
             // String comment false alarm
             if (generatorNodes.size() == 0) {
@@ -564,7 +612,7 @@ public class GeneralErrorHandler implements ErrorHandler {
                 }
                 break;
             }
-            Set<GeneralFragmentChoice> generatorFragments = new HashSet<>(generator.getFragmentScore().keySet());
+            Set<Long> generatorFragments = getKeys(generator.getFragmentScore());
             // 3. if any of the fragments is in the generatorFragments, then it is a
             // duplicated bug
             // use disjoint to check if the two sets are disjoint
@@ -577,7 +625,7 @@ public class GeneralErrorHandler implements ErrorHandler {
                 }
                 break;
             }
-            Set<String> generatorComposites = new HashSet<>(generator.getCompositeGeneratorScore().keySet());
+            Set<Long> generatorComposites = getKeys(generator.getCompositeGeneratorScore());
             // 4. if any of the composite FUNCTION is in the generatorComposite, then it is
             // a duplicated bug
             if (functions.stream().anyMatch(generatorComposites::contains)) {
@@ -596,28 +644,34 @@ public class GeneralErrorHandler implements ErrorHandler {
 
     public synchronized void saveStatistics(GeneralGlobalState globalState) {
         // TODO It is a quite ugly function
-        // TODO make it thread safe
         try (FileWriter file = new FileWriter(
                 "logs/" + globalState.getDbmsSpecificOptions().getDatabaseEngineFactory().toString() + "Options.csv")) {
             String delim = ";";
             file.write("Type" + delim + "Key" + delim + "Name" + delim + "Value" + delim + "Success" + delim + "Count"
                     + delim + "Example" + "\n");
-            for (Map.Entry<GeneratorNode, Boolean> entry : generatorOptions.entrySet()) {
-                file.write(String.format("NODE;;\"%s\";%s;%s;%s;\"%s\"\n", entry.getKey(), entry.getValue(),
-                        allNodeSuccess.get(entry.getKey()), allNodeCount.get(entry.getKey()),
-                        generatorExample.get(entry.getKey())));
+            GeneralStatistics.Snapshot nodes = NODES.aggregate();
+            for (int id = 0; id < NODES.size(); id++) {
+                if (NODES.hasOption(id)) {
+                    file.write(String.format("NODE;;\"%s\";%s;%s;%s;\"%s\"\n", NODES.getKey(id),
+                            NODES.getOption(id, true), nodes.getSuccess(id), nodes.getCount(id), NODES.getExample(id)));
+                }
             }
-            for (Map.Entry<String, Boolean> entry : compositeGeneratorOptions.entrySet()) {
-                file.write(String.format("COMPOSITE;;\"%s\";%s;%s;%s;\"%s\"\n", entry.getKey(), entry.getValue(),
-                        allCompositeSuccess.get(entry.getKey()), allCompositeCount.get(entry.getKey()),
-                        compositeExample.get(entry.getKey())));
+            GeneralStatistics.Snapshot composites = COMPOSITES.aggregate();
+            for (int id = 0; id < COMPOSITES.size(); id++) {
+                if (COMPOSITES.hasOption(id)) {
+                    file.write(String.format("COMPOSITE;;\"%s\";%s;%s;%s;\"%s\"\n", COMPOSITES.getKey(id),
+                            COMPOSITES.getOption(id, true), composites.getSuccess(id), composites.getCount(id),
+                            COMPOSITES.getExample(id)));
+                }
             }
-            for (Map.Entry<GeneralFragmentChoice, Boolean> entry : fragmentOptions.entrySet()) {
-                GeneralFragmentChoice fragmentChoice = entry.getKey();
-                file.write(String.format("%s;%s;\"%s\";%s;%s;%s;\"%s\"\n", fragmentChoice.getType(),
-                        fragmentChoice.getKey(), fragmentChoice.getFragmentName(), entry.getValue(),
-                        allFragmentSuccess.get(entry.getKey()), allFragmentCount.get(entry.getKey()),
-                        fragmentExample.get(entry.getKey())));
+            GeneralStatistics.Snapshot fragments = FRAGMENTS.aggregate();
+            for (int id = 0; id < FRAGMENTS.size(); id++) {
+                if (FRAGMENTS.hasOption(id)) {
+                    GeneralFragmentChoice fragmentChoice = FRAGMENTS.getKey(id);
+                    file.write(String.format("%s;%s;\"%s\";%s;%s;%s;\"%s\"\n", fragmentChoice.getType(),
+                            fragmentChoice.getKey(), fragmentChoice.getFragmentName(), FRAGMENTS.getOption(id, true),
+                            fragments.getSuccess(id), fragments.getCount(id), FRAGMENTS.getExample(id)));
+                }
             }
         } catch (Exception e) {
             // TODO: handle exception
@@ -630,11 +684,11 @@ public class GeneralErrorHandler implements ErrorHandler {
         if (!historyFileDir.exists()) {
             historyFileDir.mkdirs();
         }
-        for (Map.Entry<String, GeneratorInfo> entry : assertionGeneratorHistory.entrySet()) {
+        for (Map.Entry<String, GeneratorInfo> entry : ASSERTION_GENERATOR_HISTORY.entrySet()) {
             String databaseName = entry.getKey();
-            Map<GeneratorNode, Integer> generatorScore = entry.getValue().getGeneratorScore();
+            Map<GeneratorNode, Long> generatorScore = entry.getValue().getGeneratorScoreByNode();
             try (FileWriter file = new FileWriter("logs/general/generator/" + databaseName + "Options.txt")) {
-                for (Map.Entry<GeneratorNode, Integer> generator : generatorScore.entrySet()) {
+                for (Map.Entry<GeneratorNode, Long> generator : generatorScore.entrySet()) {
                     file.write(generator.getKey() + " : " + generator.getValue() + "\n");
                 }
             } catch (Exception e) {
@@ -644,77 +698,79 @@ public class GeneralErrorHandler implements ErrorHandler {
     }
 
     public void setOption(GeneratorNode option, boolean value) {
-        generatorOptions.put(option, value);
+        if (NODES.setOption(option.ordinal(), value)) {
+            OPTIONS_VERSION.incrementAndGet();
+        }
     }
 
     public void setOptionIfNonExist(GeneratorNode option, boolean value) {
-        if (!generatorOptions.containsKey(option)) {
-            setOption(option, value);
+        if (NODES.setOptionIfAbsent(option.ordinal(), value)) {
+            OPTIONS_VERSION.incrementAndGet();
         }
     }
 
     public void setCompositeOptionIfNonExist(String option, boolean value) {
-        if (!compositeGeneratorOptions.containsKey(option)) {
-            setCompositeOption(option, value);
+        if (COMPOSITES.setOptionIfAbsent(getCompositeId(option), value)) {
+            OPTIONS_VERSION.incrementAndGet();
         }
     }
 
     public boolean getOption(GeneratorNode option) {
-        Boolean value = generatorOptions.get(option);
-        return value != null ? value : true;
+        return NODES.getOption(option.ordinal(), true);
     }
 
     public void setCompositeOption(String option, boolean value) {
-        compositeGeneratorOptions.put(option, value);
+        setCompositeOption(getCompositeId(option), value);
     }
 
-    public void setExample(GeneratorInfo info, String sql) {
-        for (Map.Entry<GeneratorNode, Integer> entry : info.getGeneratorScore().entrySet()) {
-            if (!generatorExample.containsKey(entry.getKey())) {
-                generatorExample.put(entry.getKey(), sql);
-            }
-        }
-        for (Map.Entry<String, Integer> entry : info.getCompositeGeneratorScore().entrySet()) {
-            // compositeExample.put(entry.getKey(), sql);
-            if (!compositeExample.containsKey(entry.getKey())) {
-                compositeExample.put(entry.getKey(), sql);
-            }
-        }
-        for (Map.Entry<GeneralFragmentChoice, Integer> entry : info.getFragmentScore().entrySet()) {
-            if (!fragmentExample.containsKey(entry.getKey())) {
-                fragmentExample.put(entry.getKey(), sql);
-            }
+    public void setCompositeOption(String option1, String option2, boolean value) {
+        setCompositeOption(getCompositeId(option1, option2), value);
+    }
+
+    private static void setCompositeOption(int id, boolean value) {
+        if (COMPOSITES.setOption(id, value)) {
+            OPTIONS_VERSION.incrementAndGet();
         }
     }
 
+    /**
+     * Returns a counter that changes whenever the value of a generator or composite option changes. Weighted samplers
+     * that depend on {@link #getOption(GeneratorNode)} or {@link #getCompositeOption(String)} use it to decide whether
+     * they need to be rebuilt.
+     *
+     * @return the current version of the options
+     */
+    public int getOptionsVersion() {
+        return OPTIONS_VERSION.get();
+    }
+
+    public void setExample(GeneratorInfo info, String sql) {
+        info.getGeneratorScore().forEach((id, value) -> NODES.setExampleIfAbsent((int) id, sql));
+        info.getCompositeGeneratorScore().forEach((id, value) -> COMPOSITES.setExampleIfAbsent((int) id, sql));
+        info.getFragmentScore().forEach((id, value) -> FRAGMENTS.setExampleIfAbsent((int) id, sql));
+    }
+
     public boolean getCompositeOption(String option) {
-        // TODO: make it simplifier
-        Boolean value = compositeGeneratorOptions.get(option);
-        return value != null ? value : true;
-        // if (compositeGeneratorOptions.containsKey(option)) {
-        // return compositeGeneratorOptions.get(option);
-        // } else {
-        // return true;
-        // }
+        return getCompositeOption(getCompositeId(option));
+    }
+
+    public boolean getCompositeOption(int id) {
+        return COMPOSITES.getOption(id, true);
     }
 
     public boolean getCompositeOptionNullAsFalse(String option) {
-        Boolean value = compositeGeneratorOptions.get(option);
-        return value != null ? value : false;
+        return COMPOSITES.getOption(getCompositeId(option), false);
+    }
+
+    public boolean getCompositeOptionNullAsFalse(String option1, String option2) {
+        return COMPOSITES.getOption(getCompositeId(option1, option2), false);
     }
 
     public boolean getFragmentOption(GeneralFragmentChoice option) {
-        Boolean value = fragmentOptions.get(option);
-        return value != null ? value : true;
-        // if (fragmentOptions.containsKey(option)) {
-        // return fragmentOptions.get(option);
-        // } else {
-        // return true;
-        // }
+        return FRAGMENTS.getOption(FRAGMENTS.getId(option), true);
     }
 
     public boolean getCompositeOption(String option1, String option2) {
-        String option = option1 + "-" + option2;
-        return getCompositeOption(option);
+        return getCompositeOption(getCompositeId(option1, option2));
     }
 }
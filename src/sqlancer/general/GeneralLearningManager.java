@@ -3,6 +3,9 @@ package sqlancer.general;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import sqlancer.Randomly;
@@ -47,6 +50,8 @@ public class GeneralLearningManager {
     // if True, then the topic is learned
     private static HashMap<String, String> topics = new HashMap<>();
     private static volatile HashMap<String, Boolean> topicPool = new HashMap<>();
+    // topics whose fragments are being learned
+    private static final Map<String, CompletableFuture<String>> PENDING_TOPICS = new ConcurrentHashMap<>();
 
     public String getTopic() {
         return curTopic;
@@ -81,6 +86,26 @@ public class GeneralLearningManager {
         }
     }
 
+    private void loadLearnedTopics(GeneralGlobalState globalState, GeneralFragments fragments) {
+        for (Map.Entry<String, CompletableFuture<String>> entry : PENDING_TOPICS.entrySet()) {
+            if (!entry.getValue().isDone() || !PENDING_TOPICS.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            // the fragments are parsed for the current topic
+            String previousTopic = curTopic;
+            curTopic = entry.getKey();
+            try {
+                fragments.loadLearnedTopic(globalState, entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                e.printStackTrace();
+            } finally {
+                curTopic = previousTopic;
+            }
+            GeneralFunction.loadFunctionsFromFragments(globalState);
+            GeneralBinaryOperator.loadOperatorsFromFragments(globalState);
+        }
+    }
+
     public void learnTypeByTopic(GeneralGlobalState globalState) {
         GeneralFragments fragments = GeneralSchema.getFragments(); // TODO: change it to feature
         // update topicPool HashMap
@@ -102,6 +127,7 @@ public class GeneralLearningManager {
                 }
             }
         }
+        loadLearnedTopics(globalState, fragments);
         // randomly pick a topic to learn
         if (Randomly.getBooleanWithRatherLowProbability() || globalState.getHandler().getExecDatabaseNum() == 0) {
             // pick one topic that is in the topicPool with false value
@@ -119,10 +145,9 @@ public class GeneralLearningManager {
             setTopic(globalState.getDatabaseName(), topic);
             curTopic = topic;
             // globalState.getHandler().setCompositeOption(topic, true);
-            // learn the topic
-            fragments.learnSpecificTopicFromLearner(globalState, topic);
-            GeneralFunction.loadFunctionsFromFragments(globalState);
-            GeneralBinaryOperator.loadOperatorsFromFragments(globalState);
+            // learn the topic in the background; the fragments are loaded by the first thread that learns a topic
+            // after the learner answered
+            PENDING_TOPICS.computeIfAbsent(topic, t -> fragments.learnSpecificTopicAsync(globalState, t));
             // System.out.println(GeneralFunction.getFuncNames());
             // System.out.println(GeneralBinaryOperator.getOperators());
             // globalState.getHandler().setCurDepth(globalState.getDatabaseName(), 2);
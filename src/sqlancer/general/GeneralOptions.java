@@ -1,5 +1,6 @@
 package sqlancer.general;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -11,13 +12,18 @@ import java.util.List;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 
+import sqlancer.AFLMonitor;
+import sqlancer.CoverageSource;
 import sqlancer.DBMSSpecificOptions;
 import sqlancer.DatabaseEngineFactory;
 import sqlancer.OracleFactory;
+import sqlancer.SQLConnectionPool;
 import sqlancer.common.oracle.CompositeTestOracle;
 import sqlancer.common.oracle.TestOracle;
 import sqlancer.general.GeneralProvider.GeneralGlobalState;
 import sqlancer.general.GeneralSchema.GeneralTable;
+import sqlancer.general.gen.Configuration.MySQLConfigurationGenerator;
+import sqlancer.general.learner.GeneralLearnerCache;
 import sqlancer.general.oracle.GeneralNoRECOracle;
 import sqlancer.general.oracle.GeneralQueryPartitioningWhere;
 
@@ -57,6 +63,12 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
     @Parameter(names = "--enable-feedback", description = "Enable feedback for generator", arity = 1)
     public boolean enableFeedback = true;
 
+    @Parameter(names = "--feedback-decay", description = "The factor by which the feedback of the earlier statements of a database decays for each statement, where 1 does not decay", arity = 1)
+    public double feedbackDecay = GeneralErrorHandler.DEFAULT_DECAY;
+
+    @Parameter(names = "--feedback-window", description = "The number of recent statements of a database whose generator scores are kept in memory", arity = 1)
+    public int feedbackWindow = GeneralErrorHandler.DEFAULT_WINDOW_SIZE;
+
     @Parameter(names = "--untype-expr", description = "Allow untyped expressions", arity = 1)
     public boolean untypeExpr = false;
 
@@ -75,6 +87,19 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
     @Parameter(names = "--enable-direct-validation", description = "Enable direct validation", arity = 1)
     public boolean enableDirectValidation = false;
 
+    @Parameter(names = "--learner-cache", description = "How the responses of the learner are cached on disk: OFF, READ_WRITE, or REPLAY, which serves only cached responses without accessing the network")
+    public GeneralLearnerCache.Mode learnerCache = GeneralLearnerCache.Mode.READ_WRITE;
+
+    @Parameter(names = "--learner-cache-dir", description = "The directory in which the responses of the learner are cached")
+    public String learnerCacheDirectory = "learner-cache";
+
+    @Parameter(names = "--schema-reset", description = "How the tables and views of a reused database are removed: CATALOG drops the objects listed in the catalog, BLIND tries to drop t0..t99 and v0..v99")
+    public SchemaResetMode schemaReset = SchemaResetMode.CATALOG;
+
+    public enum SchemaResetMode {
+        BLIND, CATALOG
+    }
+
     public enum GeneralOracleFactory implements OracleFactory<GeneralGlobalState> {
         NOREC {
 
@@ -101,6 +126,12 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
 
     };
 
+    @Parameter(names = "--connection-pool", description = "Reuse the connections to the DBMS across databases, if the DBMS supports resetting a session", arity = 1)
+    public boolean useConnectionPool = true;
+
+    @Parameter(names = "--max-idle-connections", description = "The maximum number of idle connections that the connection pool keeps open", arity = 1)
+    public int maxIdleConnections = SQLConnectionPool.DEFAULT_MAX_IDLE;
+
     @Parameter(names = "--database-engine")
     public GeneralDatabaseEngineFactory databaseEngine = GeneralDatabaseEngineFactory.CRATE;
 
@@ -134,7 +165,16 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
         MYSQL {
             @Override
             public String getJDBCString(GeneralGlobalState globalState) {
-                return String.format("jdbc:mysql://localhost:3306/?user=root&password=root");
+                // each instance of the DBMS that is used for measuring coverage in parallel has its own port
+                CoverageSource coverageSource = globalState.getCoverageSource();
+                int port = coverageSource instanceof AFLMonitor ? ((AFLMonitor) coverageSource).getPort()
+                        : AFLMonitor.DEFAULT_PORT;
+                return String.format("jdbc:mysql://localhost:%d/?user=root&password=root", port);
+            }
+
+            @Override
+            public List<String> getSessionResetStatements() {
+                return MySQLConfigurationGenerator.getSessionResetStatements();
             }
         },
         DOLT {
@@ -152,20 +192,9 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    globalState.getState().logStatement(String.format("DROP TABLE %s_t%d", databaseName, i));
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    globalState.getState().logStatement(String.format("DROP VIEW %s_v%d", databaseName, i));
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).withoutDropList().logStatements().run();
                 try (Statement s = conn.createStatement()) {
                     s.execute("set query_mode to local;");
                     globalState.getState().logStatement("set query_mode to local;");
@@ -193,7 +222,23 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                return DriverManager.getConnection(getJDBCString(globalState));
+                return getConnection(globalState, databaseName);
+            }
+
+            // each connection has its own in-memory database, unless a database file is given
+            @Override
+            public boolean hasIsolatedDatabases() {
+                return System.getProperty("duckdb.database.file", "").isEmpty();
+            }
+
+            @Override
+            public boolean saveSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                return executeSnapshotStatement(globalState, "EXPORT DATABASE " + toLiteral(snapshot));
+            }
+
+            @Override
+            public void restoreSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                executeSnapshotStatement(globalState, "IMPORT DATABASE " + toLiteral(snapshot));
             }
         },
         POSTGRESQL {
@@ -202,21 +247,17 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
                 return String.format("jdbc:postgresql://localhost:10010/?user=postgres&password=postgres");
             };
 
+            @Override
+            public List<String> getSessionResetStatements() {
+                return List.of("DISCARD ALL");
+            }
+
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).run();
                 try (Statement s = conn.createStatement()) {
                     s.execute("set statement_timeout to 5000;");
                     globalState.getState().logStatement("set statement_timeout to 5000;");
@@ -233,7 +274,7 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 Statement s = conn.createStatement();
                 s.execute("DROP DATABASE IF EXISTS " + databaseName);
                 globalState.getState().logStatement("DROP DATABASE IF EXISTS " + databaseName);
@@ -267,7 +308,34 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                return DriverManager.getConnection(getJDBCString(globalState));
+                return getConnection(globalState, databaseName);
+            }
+
+            @Override
+            public boolean hasIsolatedDatabases() {
+                return true;
+            }
+
+            // backup and restore are commands of the SQLite JDBC driver, which copy the database page by page
+            @Override
+            public boolean saveSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                return executeSnapshotStatement(globalState, "backup to " + toFileName(snapshot));
+            }
+
+            @Override
+            public void restoreSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                executeSnapshotStatement(globalState, "restore from " + toFileName(snapshot));
+            }
+
+            // the driver removes the quotes around the file name, but does not unescape quotes within it
+            private String toFileName(File file) throws SQLException {
+                String path = file.getAbsolutePath();
+                if (!path.contains("\"")) {
+                    return "\"" + path + "\"";
+                } else if (!path.contains("'")) {
+                    return "'" + path + "'";
+                }
+                throw new SQLException("The file name cannot be quoted: " + path);
             }
         },
         UMBRA {
@@ -279,18 +347,9 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).run();
                 try (Statement s = conn.createStatement()) {
                     s.execute("set debug.storage = 'P';");
                     globalState.getState().logStatement("set debug.storage = 'P';");
@@ -338,18 +397,9 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).cascade().withoutDropList().run();
                 return conn;
             }
         },
@@ -362,12 +412,27 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 conn.createStatement().execute("DROP ALL OBJECTS DELETE FILES");
                 conn.close();
-                conn = DriverManager.getConnection(getJDBCString(globalState));
+                conn = getConnection(globalState, databaseName);
                 return conn;
             }
+
+            @Override
+            public boolean hasIsolatedDatabases() {
+                return true;
+            }
+
+            @Override
+            public boolean saveSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                return executeSnapshotStatement(globalState, "SCRIPT TO " + toLiteral(snapshot));
+            }
+
+            @Override
+            public void restoreSnapshot(GeneralGlobalState globalState, File snapshot) throws SQLException {
+                executeSnapshotStatement(globalState, "RUNSCRIPT FROM " + toLiteral(snapshot));
+            }
         },
         CLICKHOUSE {
             @Override
@@ -378,19 +443,9 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                String dbTableDelim = globalState.getDbmsSpecificOptions().dbTableDelim;
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s%st%d", databaseName, dbTableDelim, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s%sv%d", databaseName, dbTableDelim, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).withoutDropList().run();
                 return conn;
             }
         },
@@ -403,7 +458,7 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
                 // since vitess create database requires a lot of time
                 try (Statement s = conn.createStatement()) {
@@ -414,16 +469,7 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
                 } catch (Exception e) {
                     // TODO: handle exception
                 }
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).cascade().run();
                 return conn;
             }
         },
@@ -436,17 +482,10 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE IF EXISTS MEMORY.%s.t%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW IF EXISTS MEMORY.%s.v%d", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                Connection conn = getConnection(globalState, databaseName);
+                new GeneralSchemaReset(globalState, conn, "")
+                        .inSchema("memory", databaseName, "MEMORY." + databaseName + ".").ifExists().withoutDropList()
+                        .run();
                 try (Statement s = conn.createStatement()) {
                     s.execute("DROP SCHEMA IF EXISTS MEMORY." + databaseName);
                     globalState.getState().logStatement("DROP SCHEMA IF EXISTS MEMORY." + databaseName);
@@ -477,18 +516,9 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             @Override
             public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                     throws SQLException {
-                Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+                Connection conn = getConnection(globalState, databaseName);
                 setIsNewSchema(false);
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s_t%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s_v%d CASCADE", databaseName, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).cascade().run();
                 try (Statement s = conn.createStatement()) {
                     s.execute("SET implicit_cross_products = ON;");
                     globalState.getState().logStatement("SET implicit_cross_products = ON;");
@@ -514,6 +544,28 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
             this.isNewSchema = isNewSchema;
         }
 
+        /**
+         * Returns the statements that reset the session of a connection, so that it can be reused for another database,
+         * or null if the connections of the DBMS should not be reused, for example, because each database is embedded
+         * or in memory.
+         */
+        public List<String> getSessionResetStatements() {
+            return null;
+        }
+
+        /**
+         * Returns a connection to the DBMS, which is borrowed from the connection pool if the pool is enabled and the
+         * connections of the DBMS can be reused.
+         */
+        public Connection getConnection(GeneralGlobalState globalState, String databaseName) throws SQLException {
+            List<String> resetStatements = getSessionResetStatements();
+            if (resetStatements == null || !globalState.getDbmsSpecificOptions().useConnectionPool) {
+                return DriverManager.getConnection(getJDBCString(globalState));
+            }
+            return SQLConnectionPool.getInstance().getConnection(getJDBCString(globalState), databaseName,
+                    resetStatements);
+        }
+
         public String getDropTableStatement(String tableName) {
             return String.format("DROP TABLE %s", tableName);
         }
@@ -521,7 +573,7 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
         @Override
         public Connection cleanOrSetUpDatabase(GeneralGlobalState globalState, String databaseName)
                 throws SQLException {
-            Connection conn = DriverManager.getConnection(getJDBCString(globalState));
+            Connection conn = getConnection(globalState, databaseName);
             try (Statement s = conn.createStatement()) {
                 s.execute("DROP DATABASE IF EXISTS " + databaseName);
                 globalState.getState().logStatement("DROP DATABASE IF EXISTS " + databaseName);
@@ -532,17 +584,7 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
                 isNewSchema = true;
             } catch (SQLException e) {
                 isNewSchema = false;
-                String dbTableDelim = globalState.getDbmsSpecificOptions().dbTableDelim;
-                for (int i = 0; i < 100; i++) {
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP TABLE %s%st%d", databaseName, dbTableDelim, i));
-                    } catch (SQLException e1) {
-                    }
-                    try (Statement s = conn.createStatement()) {
-                        s.execute(String.format("DROP VIEW %s%sv%d", databaseName, dbTableDelim, i));
-                    } catch (SQLException e1) {
-                    }
-                }
+                GeneralSchemaReset.forDatabase(globalState, conn, databaseName).run();
             }
             return conn;
         }
@@ -551,6 +593,18 @@ public class GeneralOptions implements DBMSSpecificOptions<GeneralOptions.Genera
         public void syncData(GeneralGlobalState globalState) throws SQLException {
         }
 
+        private static boolean executeSnapshotStatement(GeneralGlobalState globalState, String statement)
+                throws SQLException {
+            try (Statement s = globalState.getConnection().createStatement()) {
+                s.execute(statement);
+            }
+            return true;
+        }
+
+        private static String toLiteral(File file) {
+            return "'" + file.getAbsolutePath().replace("'", "''") + "'";
+        }
+
     }
 
     @Override
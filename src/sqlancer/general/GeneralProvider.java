@@ -5,7 +5,6 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -19,10 +18,12 @@ import sqlancer.AbstractAction;
 import sqlancer.DatabaseEngineFactory;
 import sqlancer.DatabaseProvider;
 import sqlancer.ExecutionTimer;
+import sqlancer.Metrics;
 import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
 import sqlancer.Reproducer;
 import sqlancer.SQLConnection;
+import sqlancer.SQLConnectionPool;
 import sqlancer.SQLGlobalState;
 import sqlancer.SQLProviderAdapter;
 import sqlancer.StatementExecutor;
@@ -145,15 +146,16 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
             return schema;
         }
 
-        public String replaceTestObject(String key) {
-            if (testObjectMap.isEmpty()) {
-                return key;
-            } else {
-                for (HashMap.Entry<String, String> entry : testObjectMap.entrySet()) {
-                    key = key.replace(entry.getKey(), entry.getValue());
-                }
-                return key;
-            }
+        public boolean hasTestObjects() {
+            return !testObjectMap.isEmpty();
+        }
+
+        /**
+         * Returns the test object of a name such as <code>TEST_TABLE</code> or <code>TEST_COLUMN0</code>, which
+         * fragments refer to, or null if there is none.
+         */
+        public String getTestObject(String name) {
+            return testObjectMap.get(name);
         }
 
         public void setTestObject(String key, String value) {
@@ -180,6 +182,11 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
             this.schema = new GeneralSchema(tables);
         }
 
+        @Override
+        public void setSchema(GeneralSchema schema) {
+            this.schema = schema;
+        }
+
         public void setUpdateTable(GeneralTable updateTable) {
             this.updateTable = updateTable;
         }
@@ -199,20 +206,8 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
         @Override
         public void updateSchema() {
             if (updateTable != null) {
-                List<GeneralTable> databaseTables = new ArrayList<>(schema.getDatabaseTables());
-                boolean found = false;
                 // substitute or add the table with the new one according to getName
-                for (int i = 0; i < databaseTables.size(); i++) {
-                    if (databaseTables.get(i).getName().equals(updateTable.getName())) {
-                        databaseTables.set(i, updateTable);
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    databaseTables.add(updateTable);
-                }
-                setSchema(databaseTables);
+                schema = schema.withTable(updateTable);
             }
             updateTable = null;
         }
@@ -290,6 +285,7 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
                 }
                 if (getOptions().debugLogs()) {
                     handler.printStatistics();
+                    System.out.print(GeneralSchemaReset.getReport());
                 }
                 handler.saveStatistics(this);
                 if (handler.getCurDepth(databaseName) < getOptions().getMaxExpressionDepth()) {
@@ -328,7 +324,7 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
                                               String databaseName) {
             GeneralDatabaseEngineFactory databaseEngine = globalState.getDbmsSpecificOptions()
                     .getDatabaseEngineFactory();
-            try (Connection conn = DriverManager.getConnection(databaseEngine.getJDBCString(globalState))) {
+            try (Connection conn = databaseEngine.getConnection(globalState, databaseName)) {
                 try (Statement s = conn.createStatement()) {
                     s.execute("DROP TABLE " + databaseName);
                 } catch (SQLException e) {
@@ -407,14 +403,7 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
         } catch (Throwable t2) {
             globalState.getLogger().writeCurrent(" -- " + t2.getMessage());
         } finally {
-            List<GeneralTable> databaseTables = new ArrayList<>(globalState.getSchema().getDatabaseTables());
-            for (int i = 0; i < databaseTables.size(); i++) {
-                if (databaseTables.get(i).getName().equals(viewName)) {
-                    databaseTables.remove(i);
-                    break;
-                }
-            }
-            globalState.setSchema(databaseTables);
+            globalState.setSchema(globalState.getSchema().withoutTable(viewName));
         }
     }
 
@@ -445,14 +434,7 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
         } catch (Throwable t2) {
             globalState.getLogger().writeCurrent("-- Warning: drop table fail");
         } finally {
-            List<GeneralTable> databaseTables = new ArrayList<>(globalState.getSchema().getDatabaseTables());
-            for (int i = 0; i < databaseTables.size(); i++) {
-                if (databaseTables.get(i).getName().equals(tableName)) {
-                    databaseTables.remove(i);
-                    break;
-                }
-            }
-            globalState.setSchema(databaseTables);
+            globalState.setSchema(globalState.getSchema().withoutTable(tableName));
         }
     }
 
@@ -548,14 +530,42 @@ public class GeneralProvider extends SQLProviderAdapter<GeneralProvider.GeneralG
         DatabaseEngineFactory<GeneralGlobalState> databaseEngineFactory = globalState.getDbmsSpecificOptions()
                 .getDatabaseEngineFactory();
         String databaseName = globalState.getDatabaseName();
+        SQLConnectionPool.getInstance().setMaxIdle(globalState.getDbmsSpecificOptions().maxIdleConnections);
 
         // Try CREATE DATABASE:
+        long start = Metrics.start();
         Connection conn = databaseEngineFactory.cleanOrSetUpDatabase(globalState, databaseName);
+        Metrics.record(Metrics.Phase.CLEAN_OR_SET_UP_DATABASE, start);
         globalState.getHandler().setOption(GeneratorNode.CREATE_DATABASE, databaseEngineFactory.isNewSchema());
+        globalState.getHandler().configure(globalState.getDbmsSpecificOptions().feedbackDecay,
+                globalState.getDbmsSpecificOptions().feedbackWindow);
 
         return new SQLConnection(conn);
     }
 
+    @Override
+    public boolean saveDatabase(GeneralGlobalState globalState, File snapshot) throws SQLException {
+        return globalState.getDbmsSpecificOptions().getDatabaseEngineFactory().saveSnapshot(globalState, snapshot);
+    }
+
+    @Override
+    public boolean hasIsolatedDatabases(GeneralOptions options) {
+        return options.getDatabaseEngineFactory().hasIsolatedDatabases();
+    }
+
+    @Override
+    public SQLConnection restoreDatabase(GeneralGlobalState globalState, File snapshot) throws SQLException {
+        SQLConnection con = createDatabase(globalState);
+        globalState.setConnection(con);
+        try {
+            globalState.getDbmsSpecificOptions().getDatabaseEngineFactory().restoreSnapshot(globalState, snapshot);
+        } catch (SQLException | RuntimeException e) {
+            con.close();
+            throw e;
+        }
+        return con;
+    }
+
     @Override
     public String getDBMSName() {
         return "general";
@@ -4,10 +4,11 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import sqlancer.Randomly;
 import sqlancer.common.query.SQLQueryAdapter;
@@ -93,22 +94,10 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
         protected void parseFragments(String... s) {
             String key = s[0];
 
-            Pattern pattern = Pattern.compile("<([^>]*)>");
-            Matcher matcher = pattern.matcher(s[1]);
-
-            String content = "";
-            StringBuffer output = new StringBuffer();
-
             List<GeneralFragmentVariable> vars = new ArrayList<>();
+            String fmtString = parseVariable(s[1], vars);
 
-            while (matcher.find()) {
-                content = matcher.group(1);
-                matcher.appendReplacement(output, "%s");
-                vars.add(GeneralFragmentVariable.valueOf(content.toUpperCase()));
-            }
-            matcher.appendTail(output);
-
-            addFragment(key, output.toString(), vars);
+            addFragment(key, fmtString, vars);
 
             // if key is not in the typeMap, add it
             if (!typeMap.containsValue(key)) {
@@ -129,7 +118,26 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
             return get(key, state);
         }
 
+        @Override
+        public void appendTo(StringBuilder sb, int index, GeneralGlobalState state) {
+            if (getLearn()) {
+                super.appendTo(sb, index, state);
+                return;
+            }
+            GeneralFragmentChoice choice = getRandomChoice(typeMap.get(index), state);
+            if (choice == null) {
+                sb.append("NULL");
+            } else {
+                choice.appendTo(sb, state);
+            }
+        }
+
         public String get(String key, GeneralGlobalState state) {
+            GeneralFragmentChoice choice = getRandomChoice(key, state);
+            return choice == null ? "NULL" : choice.toString(state);
+        }
+
+        private GeneralFragmentChoice getRandomChoice(String key, GeneralGlobalState state) {
             // actually, if typeMap contains the key, then fragments must contain the key
             if (getFragments().containsKey(key) && typeAvailabilityMap.get(key)) {
                 GeneralFragmentChoice choice = Randomly.fromList(getFragments().get(key));
@@ -139,9 +147,9 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
                     // can't match data format with type
                     state.getHandler().addScore(choice);
                 }
-                return choice.toString(state);
+                return choice;
             } else {
-                return "NULL";
+                return null;
             }
         }
 
@@ -161,7 +169,7 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
         }
 
         @Override
-        public void learnSpecificTopicFromLearner(GeneralGlobalState globalState, String type) {
+        public CompletableFuture<String> learnSpecificTopicAsync(GeneralGlobalState globalState, String type) {
             StringBuilder templateBuilder = new StringBuilder();
             templateBuilder.append(String.format("CREATE TABLE TEST_TABLE (COL %s);\n", type));
             templateBuilder
@@ -199,10 +207,12 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
             String examples = exampleBuilder.toString();
             learner.setExamples(examples);
             System.out.println("Updating fragments from learner for type " + type);
-            learner.learn();
-            System.out.println("Processing and loading fragments from learner for type " + type);
-            String fragmentsString = learner.getFragments();
+            return learner.learnAsync();
+        }
 
+        @Override
+        public void loadLearnedTopic(GeneralGlobalState globalState, String type, String fragmentsString) {
+            System.out.println("Processing and loading fragments from learner for type " + type);
             if (fragmentsString.isEmpty()) {
                 System.out.println("No fragments learned for type " + type);
                 return;
@@ -224,53 +234,42 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
             }
             String key = s[0];
 
-            StringBuffer fmtString = new StringBuffer();
             List<GeneralFragmentVariable> vars = new ArrayList<>();
-            Pattern pattern = Pattern.compile("<([^>]*)>");
-            Matcher matcher = pattern.matcher(s[1]);
-
-            String content = "";
-
-            while (matcher.find()) {
-                content = matcher.group(1);
-                matcher.appendReplacement(fmtString, "%s");
-                vars.add(GeneralFragmentVariable.valueOf(content.toUpperCase()));
-            }
-            matcher.appendTail(fmtString);
+            String fmtString = parseVariable(s[1], vars);
             GeneralFragments typeFragments = GeneralSchema.getFragments();
             GeneralFragments funcFragments = GeneralFunction.getFragments();
             GeneralFragments opFragments = GeneralBinaryOperator.getFragments();
 
             switch (key) {
             case "0":
-                typeFragments.addFragment(type, fmtString.toString(), vars);
+                typeFragments.addFragment(type, fmtString, vars);
                 break;
             case "1":
-                funcFragments.addFragment("0", fmtString.toString().replaceAll("^\"+|\"+$", ""), vars);
-                // typeToFunction.get(type).add(fmtString.toString())
+                funcFragments.addFragment("0", fmtString.replaceAll("^\"+|\"+$", ""), vars);
+                // typeToFunction.get(type).add(fmtString)
                 try {
-                    updateTypeToFunction(type, new ArrayList<>(List.of(fmtString.toString())), false);
+                    updateTypeToFunction(type, new ArrayList<>(List.of(fmtString)), false);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
                 break;
             case "2":
                 // add more cases here
-                funcFragments.addFragment("1", fmtString.toString().replaceAll("^\"+|\"+$", ""), vars);
+                funcFragments.addFragment("1", fmtString.replaceAll("^\"+|\"+$", ""), vars);
                 try {
-                    updateTypeToFunction(type, new ArrayList<>(List.of(fmtString.toString())), false);
+                    updateTypeToFunction(type, new ArrayList<>(List.of(fmtString)), false);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
                 break;
             case "3":
-                funcFragments.addFragment("2", fmtString.toString().replaceAll("^\"+|\"+$", ""), vars);
+                funcFragments.addFragment("2", fmtString.replaceAll("^\"+|\"+$", ""), vars);
                 break;
             case "4":
-                opFragments.addFragment("BOOLEAN", fmtString.toString().replaceAll("^\"+|\"+$", ""), vars);
+                opFragments.addFragment("BOOLEAN", fmtString.replaceAll("^\"+|\"+$", ""), vars);
                 break;
             case "5":
-                opFragments.addFragment(type, fmtString.toString().replaceAll("^\"+|\"+$", ""), vars);
+                opFragments.addFragment(type, fmtString.replaceAll("^\"+|\"+$", ""), vars);
                 break;
             default:
                 break;
@@ -526,8 +525,60 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
 
     }
 
+    // the suffixes t<n> of the table names, which are taken when choosing a free table name
+    private final Set<String> tableNameSuffixes = new HashSet<>();
+
     public GeneralSchema(List<GeneralTable> databaseTables) {
         super(databaseTables);
+        for (GeneralTable table : getDatabaseTables()) {
+            String name = table.getName();
+            int digits = name.length();
+            while (digits > 0 && Character.isDigit(name.charAt(digits - 1))) {
+                digits--;
+            }
+            if (digits > 0 && digits < name.length() && name.charAt(digits - 1) == 't') {
+                tableNameSuffixes.add(name.substring(digits - 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the schema in which the table replaces the table of the same name, or is added if there is none.
+     *
+     * @param table
+     *            the new or changed table
+     *
+     * @return the new schema
+     */
+    public GeneralSchema withTable(GeneralTable table) {
+        List<GeneralTable> databaseTables = new ArrayList<>(getDatabaseTables());
+        for (int i = 0; i < databaseTables.size(); i++) {
+            if (databaseTables.get(i).getName().equals(table.getName())) {
+                databaseTables.set(i, table);
+                return new GeneralSchema(databaseTables);
+            }
+        }
+        databaseTables.add(table);
+        return new GeneralSchema(databaseTables);
+    }
+
+    /**
+     * Returns the schema without the first table of the name.
+     *
+     * @param name
+     *            the name of the dropped table or view
+     *
+     * @return the new schema
+     */
+    public GeneralSchema withoutTable(String name) {
+        List<GeneralTable> databaseTables = new ArrayList<>(getDatabaseTables());
+        for (int i = 0; i < databaseTables.size(); i++) {
+            if (databaseTables.get(i).getName().equals(name)) {
+                databaseTables.remove(i);
+                break;
+            }
+        }
+        return new GeneralSchema(databaseTables);
     }
 
     public GeneralTables getRandomTableNonEmptyTables() {
@@ -554,8 +605,9 @@ public class GeneralSchema extends AbstractSchema<GeneralGlobalState, GeneralTab
             i = (int) Randomly.getNotCachedInteger(0, 10);
         }
         do {
-            String tableName = String.format("t%d", i++);
-            if (super.getDatabaseTables().stream().noneMatch(t -> t.getName().endsWith(tableName))) {
+            String tableName = "t" + i++;
+            // no table name ends with the name
+            if (!tableNameSuffixes.contains(tableName)) {
                 return tableName;
             }
         } while (true);
@@ -0,0 +1,294 @@
+package sqlancer.general;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import sqlancer.general.GeneralOptions.SchemaResetMode;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+
+/**
+ * Removes the tables and views that an earlier run left behind for a database name, for engines on which the database
+ * cannot simply be dropped and recreated. The generators name tables {@code <db><delim>t<i>} and views
+ * {@code <db><delim>v<i>}.
+ *
+ * In {@link SchemaResetMode#CATALOG} mode, the objects are looked up through the JDBC catalog (which the drivers answer
+ * from information_schema, sqlite_master, duckdb_tables() and the like), and only the objects that exist are dropped,
+ * views first, in as few statements as the dialect allows. If the catalog cannot be read, or if it lists objects that
+ * look generated but none of them with the prefix, the reset falls back to {@link SchemaResetMode#BLIND}, which tries
+ * to drop t0..t99 and v0..v99 one by one as SQLancer always did.
+ */
+public final class GeneralSchemaReset {
+
+    private static final int MAX_OBJECTS = 100;
+    private static final Pattern GENERATED_NAME = Pattern.compile(".*[tv]\\d+", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, Statistics> STATISTICS = new ConcurrentSkipListMap<>();
+
+    private final GeneralGlobalState globalState;
+    private final Connection conn;
+    private final String prefix;
+    private String catalog;
+    private String schemaPattern;
+    private String qualifier = "";
+    private String dropSuffix = "";
+    private boolean ifExists;
+    private boolean dropList = true;
+    private boolean logStatements;
+
+    public GeneralSchemaReset(GeneralGlobalState globalState, Connection conn, String prefix) {
+        this.globalState = globalState;
+        this.conn = conn;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Creates a reset for the tables and views of a database, whose names the generators prefix with the database name
+     * and the {@code --database-table-delim}.
+     *
+     * @param globalState
+     *            the global state
+     * @param conn
+     *            the connection
+     * @param databaseName
+     *            the name of the database
+     *
+     * @return the reset
+     */
+    public static GeneralSchemaReset forDatabase(GeneralGlobalState globalState, Connection conn, String databaseName) {
+        return new GeneralSchemaReset(globalState, conn,
+                databaseName + globalState.getDbmsSpecificOptions().dbTableDelim);
+    }
+
+    /**
+     * Restricts the catalog lookup to the given catalog and schema, and qualifies the dropped names accordingly.
+     *
+     * @param catalog
+     *            the catalog name as understood by {@link DatabaseMetaData#getTables}
+     * @param schema
+     *            the schema name as understood by {@link DatabaseMetaData#getTables}
+     * @param qualifier
+     *            the string that is put in front of each dropped object, e.g., {@code MEMORY.db0.}
+     *
+     * @return this reset
+     */
+    public GeneralSchemaReset inSchema(String catalog, String schema, String qualifier) {
+        this.catalog = catalog;
+        this.schemaPattern = schema;
+        this.qualifier = qualifier;
+        return this;
+    }
+
+    public GeneralSchemaReset cascade() {
+        this.dropSuffix = " CASCADE";
+        return this;
+    }
+
+    public GeneralSchemaReset ifExists() {
+        this.ifExists = true;
+        return this;
+    }
+
+    // the dialect does not accept DROP TABLE t0, t1
+    public GeneralSchemaReset withoutDropList() {
+        this.dropList = false;
+        return this;
+    }
+
+    // write the executed DROP statements to the reproduction state
+    public GeneralSchemaReset logStatements() {
+        this.logStatements = true;
+        return this;
+    }
+
+    public void run() {
+        SchemaResetMode mode = globalState.getDbmsSpecificOptions().schemaReset;
+        long start = System.nanoTime();
+        int nrDropped;
+        if (mode == SchemaResetMode.CATALOG) {
+            List<String> tables = new ArrayList<>();
+            List<String> views = new ArrayList<>();
+            boolean matched;
+            try {
+                matched = readCatalog(tables, views);
+            } catch (SQLException e) {
+                matched = false;
+            }
+            if (matched) {
+                nrDropped = drop("VIEW", views) + drop("TABLE", tables);
+            } else {
+                mode = SchemaResetMode.BLIND;
+                nrDropped = dropBlindly();
+            }
+        } else {
+            nrDropped = dropBlindly();
+        }
+        String key = globalState.getDbmsSpecificOptions().getDatabaseEngineFactory() + " " + mode;
+        STATISTICS.computeIfAbsent(key, k -> new Statistics()).record(System.nanoTime() - start, nrDropped);
+    }
+
+    /*
+     * Collects the generated objects, as the names under which they are dropped, and returns false if there are objects
+     * that look generated, but none of them matches the prefix. Then, the catalog might report the names differently
+     * than the generators wrote them, and the reset cannot rely on it.
+     */
+    private boolean readCatalog(List<String> tables, List<String> views) throws SQLException {
+        // some catalogs fold unquoted names to upper case
+        Pattern name = Pattern.compile(Pattern.quote(prefix) + "([tv]\\d+)", Pattern.CASE_INSENSITIVE);
+        boolean hasGenerated = false;
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet rs = metaData.getTables(catalog, schemaPattern, null, null)) {
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                if (tableName == null) {
+                    continue;
+                }
+                // a delimiter like "." makes the database part of the name a schema or catalog of the catalog
+                String objectName = getObjectName(name, tableName, rs.getString("TABLE_SCHEM"),
+                        rs.getString("TABLE_CAT"));
+                if (objectName == null) {
+                    hasGenerated |= GENERATED_NAME.matcher(tableName).matches();
+                    continue;
+                }
+                String type = rs.getString("TABLE_TYPE");
+                boolean isView;
+                if (type == null) {
+                    isView = Character.toLowerCase(objectName.charAt(0)) == 'v';
+                } else {
+                    isView = type.toUpperCase(Locale.ROOT).contains("VIEW");
+                }
+                if (type != null && !isView && !type.toUpperCase(Locale.ROOT).contains("TABLE")) {
+                    // system tables, sequences, synonyms, ...
+                    continue;
+                }
+                (isView ? views : tables).add(prefix + objectName);
+            }
+        }
+        return !hasGenerated || !tables.isEmpty() || !views.isEmpty();
+    }
+
+    // returns the t<i> or v<i> part of the name, or null if the object was not generated for the prefix
+    private static String getObjectName(Pattern name, String tableName, String schema, String catalog) {
+        Matcher m = name.matcher(tableName);
+        if (m.matches()) {
+            return m.group(1);
+        }
+        for (String qualifier : Arrays.asList(schema, catalog)) {
+            if (qualifier != null) {
+                m = name.matcher(qualifier + "." + tableName);
+                if (m.matches()) {
+                    return m.group(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int drop(String kind, List<String> names) {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        if (dropList && names.size() > 1) {
+            StringBuilder sb = new StringBuilder(dropPrefix(kind));
+            for (int i = 0; i < names.size(); i++) {
+                if (i != 0) {
+                    sb.append(", ");
+                }
+                sb.append(qualifier).append(names.get(i));
+            }
+            sb.append(dropSuffix);
+            if (tryExecute(sb.toString())) {
+                return names.size();
+            }
+        }
+        // views can depend on each other, so retry the failed drops as long as some succeed
+        List<String> remaining = new ArrayList<>(names);
+        int nrDropped = 0;
+        boolean progress = true;
+        while (progress && !remaining.isEmpty()) {
+            progress = false;
+            for (Iterator<String> it = remaining.iterator(); it.hasNext();) {
+                if (tryExecute(dropPrefix(kind) + qualifier + it.next() + dropSuffix)) {
+                    it.remove();
+                    nrDropped++;
+                    progress = true;
+                }
+            }
+        }
+        return nrDropped;
+    }
+
+    private int dropBlindly() {
+        int nrDropped = 0;
+        for (int i = 0; i < MAX_OBJECTS; i++) {
+            if (tryExecute(dropPrefix("TABLE") + qualifier + prefix + "t" + i + dropSuffix)) {
+                nrDropped++;
+            }
+            if (tryExecute(dropPrefix("VIEW") + qualifier + prefix + "v" + i + dropSuffix)) {
+                nrDropped++;
+            }
+        }
+        return nrDropped;
+    }
+
+    private String dropPrefix(String kind) {
+        return ifExists ? "DROP " + kind + " IF EXISTS " : "DROP " + kind + " ";
+    }
+
+    private boolean tryExecute(String sql) {
+        try (Statement s = conn.createStatement()) {
+            s.execute(sql);
+        } catch (SQLException e) {
+            return false;
+        }
+        if (logStatements) {
+            globalState.getState().logStatement(sql);
+        }
+        return true;
+    }
+
+    /**
+     * Returns one line per engine and reset mode with the number of resets, the mean and maximum latency, and the
+     * number of dropped objects.
+     *
+     * @return the report, which is empty if no database has been reset yet
+     */
+    public static String getReport() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Statistics> entry : STATISTICS.entrySet()) {
+            Statistics s = entry.getValue();
+            long count = s.count.get();
+            sb.append(String.format("Schema reset %s: %d resets, %.2f ms mean, %.2f ms max, %d objects dropped%n",
+                    entry.getKey(), count, count == 0 ? 0.0 : s.totalNanos.get() / 1e6 / count, s.maxNanos.get() / 1e6,
+                    s.nrDropped.get()));
+        }
+        return sb.toString();
+    }
+
+    private static final class Statistics {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong nrDropped = new AtomicLong();
+
+        void record(long nanos, int dropped) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            nrDropped.addAndGet(dropped);
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+package sqlancer.general;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent statistics about the options of the generator, such as generator nodes, composite options, or fragments,
+ * which are shared by all threads.
+ *
+ * Keys are interned to dense ids, so that the generator can count and look up options by id without boxing. Each thread
+ * adds the successes of the options in its own stripe of primitive counters, which only that thread writes, and
+ * {@link #aggregate()} sums the stripes without locking. The counters are doubles, since the threads add decayed counts
+ * (see {@link GeneralDecayedCounters}). The options and examples are stored in segments of atomic arrays indexed by id,
+ * which are never copied, so that a write to an option is never lost. Only interning a new key takes a lock.
+ */
+public final class GeneralStatistics<K> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final int UNSET = 0;
+    private static final int DISABLED = 1;
+    private static final int ENABLED = 2;
+
+    private final Map<K, Integer> ids = new ConcurrentHashMap<>();
+    // replaced by a larger copy when a segment is added, but the segments themselves are shared by the copies
+    private volatile List<Segment> segments = List.of(new Segment());
+    private volatile int size;
+
+    private final Queue<Stripe> stripes = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Stripe> localStripe = ThreadLocal.withInitial(() -> {
+        Stripe stripe = new Stripe();
+        stripes.add(stripe);
+        return stripe;
+    });
+
+    /*
+     * The keys, options, and examples of SEGMENT_SIZE consecutive ids.
+     */
+    private final class Segment {
+        private final AtomicReferenceArray<K> keys = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        private final AtomicIntegerArray options = new AtomicIntegerArray(SEGMENT_SIZE);
+        private final AtomicReferenceArray<String> examples = new AtomicReferenceArray<>(SEGMENT_SIZE);
+    }
+
+    /*
+     * The success and count of each id, interleaved, as the raw bits of doubles. Only the owning thread writes a
+     * stripe, so it can add without compare-and-set, and it grows the stripe by replacing it with a larger copy.
+     */
+    private static final class Stripe {
+        private volatile AtomicLongArray counters = new AtomicLongArray(2 * INITIAL_CAPACITY);
+
+        void add(int id, double success, double count) {
+            AtomicLongArray c = counters;
+            if (2 * id + 1 >= c.length()) {
+                AtomicLongArray grown = new AtomicLongArray(Math.max(c.length() * 2, 2 * id + 2));
+                for (int i = 0; i < c.length(); i++) {
+                    grown.lazySet(i, c.get(i));
+                }
+                counters = grown;
+                c = grown;
+            }
+            c.lazySet(2 * id, Double.doubleToRawLongBits(get(c, 2 * id) + success));
+            c.lazySet(2 * id + 1, Double.doubleToRawLongBits(get(c, 2 * id + 1) + count));
+        }
+
+        static double get(AtomicLongArray c, int i) {
+            return Double.longBitsToDouble(c.get(i));
+        }
+    }
+
+    /**
+     * The sums of the stripes at the time of {@link GeneralStatistics#aggregate()}.
+     */
+    public static final class Snapshot {
+        private final double[] success;
+        private final double[] count;
+
+        private Snapshot(int size) {
+            success = new double[size];
+            count = new double[size];
+        }
+
+        public int size() {
+            return count.length;
+        }
+
+        public double getSuccess(int id) {
+            return id < success.length ? success[id] : 0;
+        }
+
+        public double getCount(int id) {
+            return id < count.length ? count[id] : 0;
+        }
+    }
+
+    /**
+     * Gets the id of a key, and interns the key if it has none yet.
+     *
+     * @param key
+     *            the key
+     *
+     * @return the id of the key, which is the number of keys interned before it
+     */
+    public int getId(K key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        return intern(key);
+    }
+
+    private synchronized int intern(K key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int newId = size;
+        List<Segment> s = segments;
+        if (newId == s.size() * SEGMENT_SIZE) {
+            List<Segment> grown = new ArrayList<>(s);
+            grown.add(new Segment());
+            s = grown;
+            segments = s;
+        }
+        s.get(newId >>> SEGMENT_BITS).keys.set(newId & (SEGMENT_SIZE - 1), key);
+        size = newId + 1;
+        // publish the id only after a segment holds it
+        ids.put(key, newId);
+        return newId;
+    }
+
+    private Segment getSegment(int id) {
+        return segments.get(id >>> SEGMENT_BITS);
+    }
+
+    private static int getIndex(int id) {
+        return id & (SEGMENT_SIZE - 1);
+    }
+
+    public K getKey(int id) {
+        return getSegment(id).keys.get(getIndex(id));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the successes and counts of the keys to the stripe of the current thread.
+     *
+     * @param success
+     *            the successes by id
+     * @param count
+     *            the executions by id
+     */
+    public void addAll(double[] success, double[] count) {
+        Stripe stripe = localStripe.get();
+        for (int id = 0; id < count.length; id++) {
+            if (count[id] != 0) {
+                stripe.add(id, success[id], count[id]);
+            }
+        }
+    }
+
+    /**
+     * Sums the stripes of all threads. Counts that other threads add concurrently might be missing, but are included by
+     * the next aggregation.
+     *
+     * @return the success and count of every key interned so far
+     */
+    public Snapshot aggregate() {
+        Snapshot snapshot = new Snapshot(size);
+        for (Stripe stripe : stripes) {
+            AtomicLongArray c = stripe.counters;
+            int n = Math.min(snapshot.size(), c.length() / 2);
+            for (int id = 0; id < n; id++) {
+                snapshot.success[id] += Stripe.get(c, 2 * id);
+                snapshot.count[id] += Stripe.get(c, 2 * id + 1);
+            }
+        }
+        return snapshot;
+    }
+
+    public boolean hasOption(int id) {
+        return getSegment(id).options.get(getIndex(id)) != UNSET;
+    }
+
+    public boolean getOption(int id, boolean defaultValue) {
+        int state = getSegment(id).options.get(getIndex(id));
+        return state == UNSET ? defaultValue : state == ENABLED;
+    }
+
+    /**
+     * Sets an option.
+     *
+     * @param id
+     *            the id of the option
+     * @param value
+     *            the new value
+     *
+     * @return whether the value changed, which is the case if the option was not set before
+     */
+    public boolean setOption(int id, boolean value) {
+        int state = value ? ENABLED : DISABLED;
+        return getSegment(id).options.getAndSet(getIndex(id), state) != state;
+    }
+
+    /**
+     * Sets an option unless it has been set before.
+     *
+     * @param id
+     *            the id of the option
+     * @param value
+     *            the new value
+     *
+     * @return whether the option was set
+     */
+    public boolean setOptionIfAbsent(int id, boolean value) {
+        int state = value ? ENABLED : DISABLED;
+        return getSegment(id).options.compareAndSet(getIndex(id), UNSET, state);
+    }
+
+    public String getExample(int id) {
+        return getSegment(id).examples.get(getIndex(id));
+    }
+
+    /**
+     * Sets the example of an option unless it already has one.
+     *
+     * @param id
+     *            the id of the option
+     * @param example
+     *            a statement that uses the option and executed successfully
+     */
+    public void setExampleIfAbsent(int id, String example) {
+        getSegment(id).examples.compareAndSet(getIndex(id), null, example);
+    }
+
+}
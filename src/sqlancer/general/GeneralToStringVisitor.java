@@ -1,5 +1,10 @@
 package sqlancer.general;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sqlancer.Metrics;
 import sqlancer.common.ast.newast.NewToStringVisitor;
 import sqlancer.common.ast.newast.Node;
 import sqlancer.general.ast.GeneralCast;
@@ -12,22 +17,62 @@ import sqlancer.general.ast.GeneralSelect.GeneralSubquery;
 
 public class GeneralToStringVisitor extends NewToStringVisitor<GeneralExpression> {
 
+    // the visitor of each thread, which is reused unless asString is called while it renders
+    private static final ThreadLocal<GeneralToStringVisitor> VISITOR = ThreadLocal
+            .withInitial(GeneralToStringVisitor::new);
+
+    private enum NodeKind {
+        CONSTANT(GeneralConstant.class), SELECT(GeneralSelect.class), JOIN(GeneralJoin.class),
+        COLUMN_REFERENCE(GeneralColumnReference.class), CAST(GeneralCast.class), SUBQUERY(GeneralSubquery.class);
+
+        private final Class<?> type;
+
+        NodeKind(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    private static final ClassValue<NodeKind> NODE_KINDS = new ClassValue<NodeKind>() {
+        @Override
+        protected NodeKind computeValue(Class<?> type) {
+            for (NodeKind kind : NodeKind.values()) {
+                if (kind.type.isAssignableFrom(type)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    };
+
+    private boolean inUse;
+
     @Override
     public void visitSpecific(Node<GeneralExpression> expr) {
-        if (expr instanceof GeneralConstant) {
+        NodeKind kind = NODE_KINDS.get(expr.getClass());
+        if (kind == null) {
+            throw new AssertionError(expr.getClass());
+        }
+        switch (kind) {
+        case CONSTANT:
             visit((GeneralConstant) expr);
-        } else if (expr instanceof GeneralSelect) {
+            break;
+        case SELECT:
             visit((GeneralSelect) expr);
-        } else if (expr instanceof GeneralJoin) {
+            break;
+        case JOIN:
             visit((GeneralJoin) expr);
-        } else if (expr instanceof GeneralColumnReference) {
+            break;
+        case COLUMN_REFERENCE:
             visit((GeneralColumnReference) expr);
-        } else if (expr instanceof GeneralCast) {
+            break;
+        case CAST:
             visit((GeneralCast) expr);
-        } else if (expr instanceof GeneralSubquery) {
+            break;
+        case SUBQUERY:
             visit((GeneralSubquery) expr);
-        } else {
-            throw new AssertionError(expr.getClass());
+            break;
+        default:
+            throw new AssertionError(kind);
         }
     }
 
@@ -125,9 +170,74 @@ public class GeneralToStringVisitor extends NewToStringVisitor<GeneralExpression
     }
 
     public static String asString(Node<GeneralExpression> expr) {
-        GeneralToStringVisitor visitor = new GeneralToStringVisitor();
-        visitor.visit(expr);
-        return visitor.get();
+        return asString(expr, null);
+    }
+
+    private static String asString(Node<GeneralExpression> expr, Map<Node<GeneralExpression>, String> segments) {
+        long start = Metrics.start();
+        GeneralToStringVisitor visitor = VISITOR.get();
+        if (visitor.inUse) {
+            // for example, a node whose text is rendered by another call of asString
+            visitor = new GeneralToStringVisitor();
+        }
+        visitor.inUse = true;
+        try {
+            if (segments != null) {
+                visitor.setSegments(segments);
+            }
+            visitor.visit(expr);
+            return visitor.get();
+        } finally {
+            visitor.reset();
+            visitor.inUse = false;
+            Metrics.record(Metrics.Phase.RENDERING, start);
+        }
+    }
+
+    /**
+     * Subtrees that are shared by several queries, such as the predicate and the tables of the queries of an oracle,
+     * rendered once and spliced into each query that contains them.
+     */
+    public static class Segments {
+
+        private final Map<Node<GeneralExpression>, String> segments = new IdentityHashMap<>();
+
+        /**
+         * Renders a shared subtree, whose text is spliced into the queries rendered afterwards. The subtree must not be
+         * modified afterwards.
+         *
+         * @param expr
+         *            the subtree
+         *
+         * @return the text of the subtree
+         */
+        public String add(Node<GeneralExpression> expr) {
+            String text = segments.get(expr);
+            if (text == null) {
+                text = GeneralToStringVisitor.asString(expr, segments);
+                segments.put(expr, text);
+            }
+            return text;
+        }
+
+        public void addAll(List<? extends Node<GeneralExpression>> exprs) {
+            for (Node<GeneralExpression> expr : exprs) {
+                add(expr);
+            }
+        }
+
+        /**
+         * Renders a query, into which the text of the shared subtrees is spliced.
+         *
+         * @param expr
+         *            the query
+         *
+         * @return the text of the query, which is the same as {@link GeneralToStringVisitor#asString(Node)}
+         */
+        public String asString(Node<GeneralExpression> expr) {
+            return GeneralToStringVisitor.asString(expr, segments);
+        }
+
     }
 
 }
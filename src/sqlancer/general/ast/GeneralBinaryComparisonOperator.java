@@ -47,7 +47,7 @@ public enum GeneralBinaryComparisonOperator implements Operator {
                 || !handler.getCompositeOption(node.toString(), type.getPrimitiveDataType().toString())
                 || !Randomly.getBooleanWithSmallProbability());
         handler.addScore(node);
-        handler.addScore(node.toString() + "-" + type.getPrimitiveDataType().toString());
+        handler.addScore(node.toString(), type.getPrimitiveDataType().toString());
         return op;
     }
 
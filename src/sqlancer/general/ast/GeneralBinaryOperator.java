@@ -3,8 +3,6 @@ package sqlancer.general.ast;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import sqlancer.Randomly;
 import sqlancer.common.ast.BinaryOperatorNode.Operator;
@@ -77,21 +75,10 @@ public class GeneralBinaryOperator implements Operator {
         protected void parseFragments(String... s) {
             String key = s[0];
 
-            StringBuffer fmtString = new StringBuffer();
             List<GeneralFragmentVariable> vars = new ArrayList<>();
-            Pattern pattern = Pattern.compile("<([^>]*)>");
-            Matcher matcher = pattern.matcher(s[1]);
+            String fmtString = parseVariable(s[1], vars);
 
-            String content = "";
-
-            while (matcher.find()) {
-                content = matcher.group(1);
-                matcher.appendReplacement(fmtString, "%s");
-                vars.add(GeneralFragmentVariable.valueOf(content.toUpperCase()));
-            }
-            matcher.appendTail(fmtString);
-
-            addFragment(key, fmtString.toString(), vars);
+            addFragment(key, fmtString, vars);
         }
     }
 
@@ -6,8 +6,10 @@ import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import sqlancer.AliasSampler;
 import sqlancer.Randomly;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.general.GeneralErrorHandler;
@@ -30,6 +32,8 @@ public class GeneralFunction {
     // Integer: number of arguments, if negative then variadic
     private static HashMap<String, Integer> functions = initFunctions();
     private static GeneralFunctionFragments fragments = new GeneralFunctionFragments();
+    private static volatile int functionsVersion;
+    private static volatile AliasSampler<Map.Entry<String, Integer>> functionSampler;
 
     private static final class GeneralFunctionFragments extends GeneralFragments {
         GeneralFunctionFragments() {
@@ -183,21 +187,30 @@ public class GeneralFunction {
     }
 
     public static GeneralFunction getRandomByOptions(GeneralErrorHandler handler) {
-        GeneralFunction op;
-        String node;
-        if (functions.size() <= 0) {
+        AliasSampler<Map.Entry<String, Integer>> sampler = getFunctionSampler(handler);
+        if (sampler.isEmpty()) {
             return null;
         }
-        do {
-            // select a random string-integer pair from hashmap functions
-            // TODO: There's a concurrency issue here
-            String funcName = Randomly.fromList(List.copyOf(functions.keySet()));
-            int funcArgs = functions.get(funcName);
-            node = "FUNCTION" + "-" + funcName;
-            op = new GeneralFunction(funcArgs, funcName);
-        } while (!handler.getCompositeOption(node) || !Randomly.getBooleanWithSmallProbability());
-        handler.addScore(node);
-        return op;
+        Map.Entry<String, Integer> function = sampler.sample();
+        handler.addScore("FUNCTION", function.getKey());
+        return new GeneralFunction(function.getValue(), function.getKey());
+    }
+
+    // all enabled functions are equally likely; the sampler is only rebuilt when the functions or options change
+    private static AliasSampler<Map.Entry<String, Integer>> getFunctionSampler(GeneralErrorHandler handler) {
+        long stamp = (long) functionsVersion << 32 | handler.getOptionsVersion() & 0xFFFFFFFFL;
+        AliasSampler<Map.Entry<String, Integer>> sampler = functionSampler;
+        if (sampler == null || sampler.getStamp() != stamp) {
+            List<Map.Entry<String, Integer>> candidates;
+            synchronized (GeneralFunction.class) {
+                candidates = functions.entrySet().stream().map(e -> Map.entry(e.getKey(), e.getValue()))
+                        .collect(Collectors.toList());
+            }
+            sampler = AliasSampler.create(candidates, f -> handler.getCompositeOption("FUNCTION", f.getKey()) ? 1 : 0,
+                    stamp);
+            functionSampler = sampler;
+        }
+        return sampler;
     }
 
     public static List<GeneralFunction> getRandomCompatibleFunctions(GeneralErrorHandler handler,
@@ -258,8 +271,9 @@ public class GeneralFunction {
         mergeFunctions(newFuncsUpper);
     }
 
-    public static void mergeFunctions(HashMap<String, Integer> newFunctions) {
+    public static synchronized void mergeFunctions(HashMap<String, Integer> newFunctions) {
         functions.putAll(newFunctions);
+        functionsVersion++;
     }
 
     public static GeneralFragments getFragments() {
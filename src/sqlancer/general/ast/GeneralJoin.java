@@ -3,6 +3,8 @@ package sqlancer.general.ast;
 import java.util.ArrayList;
 import java.util.List;
 
+import sqlancer.AliasSampler;
+import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
 import sqlancer.common.ast.newast.Node;
 import sqlancer.common.ast.newast.TableReferenceNode;
@@ -28,31 +30,44 @@ public class GeneralJoin implements Node<GeneralExpression> {
         INNER, NATURAL, LEFT, RIGHT;
 
         private static final List<JoinType> VALUE_NOT_NJ = List.of(INNER, LEFT, RIGHT);
+        private static volatile AliasSampler<JoinType> sampler;
+        private static volatile AliasSampler<JoinType> samplerWithoutNJ;
+
+        private final GeneratorNode node = GeneratorNode.valueOf(name() + "_JOIN");
 
         public static JoinType getRandom() {
             return Randomly.fromOptions(values());
         }
 
         public static JoinType getRandomByOptions(GeneralErrorHandler handler) {
-            // TODO refactor this function and also DBFunction one
-            JoinType joinType;
-            GeneratorNode node;
-            do {
-                joinType = getRandom();
-                node = GeneratorNode.valueOf(joinType.name() + "_JOIN");
-            } while (!handler.getOption(node) || !Randomly.getBooleanWithSmallProbability());
-            handler.addScore(node);
-            return joinType;
+            AliasSampler<JoinType> s = sampler;
+            if (s == null || s.getStamp() != handler.getOptionsVersion()) {
+                s = createSampler(List.of(values()), handler);
+                sampler = s;
+            }
+            return pick(s, handler);
         }
 
         public static JoinType getRandomByOptionsWithoutNJ(GeneralErrorHandler handler) {
-            JoinType joinType;
-            GeneratorNode node;
-            do {
-                joinType = Randomly.fromList(VALUE_NOT_NJ);
-                node = GeneratorNode.valueOf(joinType.name() + "_JOIN");
-            } while (!handler.getOption(node) || !Randomly.getBoolean());
-            handler.addScore(node);
+            AliasSampler<JoinType> s = samplerWithoutNJ;
+            if (s == null || s.getStamp() != handler.getOptionsVersion()) {
+                s = createSampler(VALUE_NOT_NJ, handler);
+                samplerWithoutNJ = s;
+            }
+            return pick(s, handler);
+        }
+
+        private static AliasSampler<JoinType> createSampler(List<JoinType> joinTypes, GeneralErrorHandler handler) {
+            return AliasSampler.create(joinTypes, j -> handler.getOption(j.node) ? 1 : 0, handler.getOptionsVersion());
+        }
+
+        private static JoinType pick(AliasSampler<JoinType> s, GeneralErrorHandler handler) {
+            if (s.isEmpty()) {
+                // all join types are disabled
+                throw new IgnoreMeException();
+            }
+            JoinType joinType = s.sample();
+            handler.addScore(joinType.node);
             return joinType;
         }
     }
@@ -60,19 +75,27 @@ public class GeneralJoin implements Node<GeneralExpression> {
     public enum OuterType {
         FULL, LEFT, RIGHT;
 
+        private static volatile AliasSampler<OuterType> sampler;
+
+        private final GeneratorNode node = GeneratorNode.valueOf(name() + "_NATURAL_JOIN");
+
         public static OuterType getRandom() {
             return Randomly.fromOptions(values());
         }
 
         public static OuterType getRandomByOptions(GeneralErrorHandler handler) {
-            // TODO refactor this function and also DBFunction one
-            OuterType outerType;
-            GeneratorNode node;
-            do {
-                outerType = getRandom();
-                node = GeneratorNode.valueOf(outerType.name() + "_NATURAL_JOIN");
-            } while (!handler.getOption(node) || !Randomly.getBooleanWithSmallProbability());
-            handler.addScore(node);
+            AliasSampler<OuterType> s = sampler;
+            if (s == null || s.getStamp() != handler.getOptionsVersion()) {
+                s = AliasSampler.create(List.of(values()), o -> handler.getOption(o.node) ? 1 : 0,
+                        handler.getOptionsVersion());
+                sampler = s;
+            }
+            if (s.isEmpty()) {
+                // all outer join types are disabled
+                throw new IgnoreMeException();
+            }
+            OuterType outerType = s.sample();
+            handler.addScore(outerType.node);
             return outerType;
         }
     }
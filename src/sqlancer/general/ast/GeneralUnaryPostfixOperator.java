@@ -46,7 +46,7 @@ public enum GeneralUnaryPostfixOperator implements Operator {
                 || !handler.getCompositeOption(node.toString(), type.getPrimitiveDataType().toString())
                 || !Randomly.getBooleanWithSmallProbability());
         handler.addScore(node);
-        handler.addScore(node.toString() + "-" + type.getPrimitiveDataType().toString());
+        handler.addScore(node.toString(), type.getPrimitiveDataType().toString());
         return op;
     }
 
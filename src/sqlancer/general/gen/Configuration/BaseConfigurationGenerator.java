@@ -5,7 +5,9 @@ import sqlancer.GlobalState;
 import sqlancer.MainOptions;
 import sqlancer.Randomly;
 import sqlancer.common.query.SQLQueryAdapter;
+import sqlancer.general.gen.ParameterAwareGenerator;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public abstract class BaseConfigurationGenerator {
@@ -15,7 +17,9 @@ public abstract class BaseConfigurationGenerator {
 
     // 训练相关的静态变量
     protected static Map<String, Double> databaseParameterProbabilities = new HashMap<>();
-    public static Map<String, double[]> parameterFeatureProbabilities = new HashMap<>();
+    public static Map<String, double[]> parameterFeatureProbabilities = new ConcurrentHashMap<>();
+    // the statistics from which parameterFeatureProbabilities are computed, so that later results can be merged
+    private static final Map<String, ParameterAwareGenerator> parameterStatistics = new HashMap<>();
     public static boolean isTrainingPhase = false;
     public static final int TRAINING_SAMPLES = 1;
 
@@ -81,6 +85,48 @@ public abstract class BaseConfigurationGenerator {
 
 
 
+    /**
+     * Splits the actions into disjoint subsets, one per training worker.
+     *
+     * @param actions
+     *            the actions to be trained
+     * @param nrWorkers
+     *            the number of workers
+     *
+     * @return at most nrWorkers non-empty lists of actions
+     */
+    public static List<List<ConfigurationAction>> partitionActions(ConfigurationAction[] actions, int nrWorkers) {
+        int nrPartitions = Math.max(1, Math.min(nrWorkers, actions.length));
+        List<List<ConfigurationAction>> partitions = new ArrayList<>();
+        for (int i = 0; i < nrPartitions; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < actions.length; i++) {
+            partitions.get(i % nrPartitions).add(actions[i]);
+        }
+        return partitions;
+    }
+
+    /**
+     * Merges the statistics that a training worker collected for its actions. Statistics of an action that has been
+     * trained before are added to the earlier ones.
+     *
+     * @param statistics
+     *            the statistics of each action, by the name of the action
+     */
+    public static synchronized void mergeTrainingResults(Map<String, ParameterAwareGenerator> statistics) {
+        for (Map.Entry<String, ParameterAwareGenerator> entry : statistics.entrySet()) {
+            ParameterAwareGenerator merged = parameterStatistics.get(entry.getKey());
+            if (merged == null) {
+                merged = entry.getValue().snapshot();
+                parameterStatistics.put(entry.getKey(), merged);
+            } else {
+                merged.merge(entry.getValue());
+            }
+            parameterFeatureProbabilities.put(entry.getKey(), merged.getFeatureProbabilities());
+        }
+    }
+
     // 抽象方法，子类必须实现
     protected abstract String getDatabaseType();
     public abstract ConfigurationAction[] getAllActions();
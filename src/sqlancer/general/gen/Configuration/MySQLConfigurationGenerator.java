@@ -256,6 +256,13 @@ public class MySQLConfigurationGenerator extends BaseConfigurationGenerator{
         return new SQLQueryAdapter(sb.toString());
     }
 
+    /**
+     * Creates a generator that is not shared with other threads, unlike {@link #getInstance}.
+     */
+    public static BaseConfigurationGenerator newInstance(Randomly r, MainOptions options) {
+        return new MySQLConfigurationGenerator(r, options);
+    }
+
     public static BaseConfigurationGenerator getInstance(Randomly r, MainOptions options) {
         if (INSTANCE == null) {
             synchronized (MySQLConfigurationGenerator.class) {
@@ -298,6 +305,28 @@ public class MySQLConfigurationGenerator extends BaseConfigurationGenerator{
         return new SQLQueryAdapter(sb.toString());
     }
 
+    /**
+     * Returns the statements that reset all variables that the actions can set in the session scope, so that a
+     * connection can be reused for another database.
+     */
+    public static List<String> getSessionResetStatements() {
+        return SESSION_RESET_STATEMENTS;
+    }
+
+    private static final List<String> SESSION_RESET_STATEMENTS = createSessionResetStatements();
+
+    private static List<String> createSessionResetStatements() {
+        Set<String> variables = new LinkedHashSet<>();
+        for (Action a : Action.values()) {
+            if (a.canBeUsedInScope(Scope.SESSION)) {
+                // the switchable optimizations are flags of a single variable
+                String name = a.getName();
+                variables.add(name.startsWith("optimizer_switch") ? "optimizer_switch" : name);
+            }
+        }
+        return variables.stream().map(v -> "SET SESSION " + v + " = DEFAULT").collect(Collectors.toUnmodifiableList());
+    }
+
     public static SQLQueryAdapter resetOptimizer() {
         return new SQLQueryAdapter("SET optimizer_switch='default'");
     }
@@ -275,6 +275,13 @@ public final class PostgresConfigurationGenerator extends BaseConfigurationGener
         return new SQLQueryAdapter(sb.toString());
     }
 
+    /**
+     * Creates a generator that is not shared with other threads, unlike {@link #getInstance}.
+     */
+    public static BaseConfigurationGenerator newInstance(Randomly r, MainOptions options) {
+        return new PostgresConfigurationGenerator(r, options);
+    }
+
     public static BaseConfigurationGenerator getInstance(Randomly r, MainOptions options) {
 
             if (INSTANCE == null) {
@@ -21,4 +21,17 @@ public class GeneralConfigurationGenerator {
         }
     }
 
+    // creates a generator for a training worker, which must not share the generator with the other workers
+    public static BaseConfigurationGenerator createTrainingGenerator(GeneralOptions.GeneralDatabaseEngineFactory dbType,
+            GlobalState<?, ?, ?> globalState) {
+        switch (dbType) {
+        case MYSQL:
+            return MySQLConfigurationGenerator.newInstance(globalState.getRandomly(), globalState.getOptions());
+        case POSTGRESQL:
+            return PostgresConfigurationGenerator.newInstance(globalState.getRandomly(), globalState.getOptions());
+        default:
+            throw new IllegalArgumentException("Unsupported database type: " + dbType);
+        }
+    }
+
 }
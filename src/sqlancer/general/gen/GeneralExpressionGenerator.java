@@ -37,8 +37,7 @@ import sqlancer.general.ast.GeneralFunction;
 import sqlancer.general.ast.GeneralUnaryPostfixOperator;
 import sqlancer.general.ast.GeneralUnaryPrefixOperator;
 
-import static sqlancer.general.gen.Configuration.BaseConfigurationGenerator.isTrainingPhase;
-import static sqlancer.general.gen.ParameterAwareGenerator.featureSet;
+import static sqlancer.general.gen.ParameterAwareGenerator.getFeatureSet;
 
 public final class
 
@@ -46,7 +45,6 @@ GeneralExpressionGenerator
         extends UntypedExpressionGenerator<Node<GeneralExpression>, GeneralColumn> {
 
     private final GeneralGlobalState globalState;
-    private static double[] curProbabilities = new double[Expression.values().length];
     public GeneralExpressionGenerator(GeneralGlobalState globalState) {
         this.globalState = globalState;
     }
@@ -70,10 +68,18 @@ GeneralExpressionGenerator
         CASE(1),
         IN(1);
 
+        private static final List<Expression> VALUES = List.of(values());
+
         private int numOptions;
+        private final GeneratorNode node;
 
         Expression(int numOptions) {
             this.numOptions = numOptions;
+            this.node = GeneratorNode.valueOf(name());
+        }
+
+        public GeneratorNode getGeneratorNode() {
+            return node;
         }
 
         private static double getTotal() {
@@ -85,22 +91,8 @@ GeneralExpressionGenerator
         }
         // 修改此方法以使用 ParameterAwareGenerator
         public static Expression getRandomByProportion(GeneralErrorHandler handler) {
-
-                    if (isTrainingPhase)return Randomly.fromOptions(values());
-                    double rand = Randomly.getPercentage();
-                    double cumulativeProbability = 0.0;
-
-                    for (int i = 0; i < Expression.values().length; i++) {
-                        Expression e = Expression.values()[i];
-                        if (!handler.getOption(GeneratorNode.valueOf(e.toString()))) {
-                            continue;
-                        }
-                        cumulativeProbability += curProbabilities[i];
-                         if (rand < cumulativeProbability) {
-                            return e;
-                        }
-                    }
-                    return Randomly.fromOptions(values());
+            // no probabilities are assigned to the expressions, so any expression is picked uniformly
+            return Randomly.fromList(VALUES);
         }
 
 //        public static Expression getRandomByProportion(GeneralErrorHandler handler) {
@@ -131,62 +123,62 @@ GeneralExpressionGenerator
         // 将 parameterAwareGenerator 传递给选择方法
         Expression expr = Expression.getRandomByProportion(handler);
         // TODO Handle IllegalArgumentException
-        globalState.getHandler().addScore(GeneratorNode.valueOf(expr.toString()));
+        globalState.getHandler().addScore(expr.getGeneratorNode());
         switch (expr) {
 
-            case UNARY_POSTFIX:
-                featureSet.add(Expression.UNARY_POSTFIX);
-                return new NewUnaryPostfixOperatorNode<GeneralExpression>(generateExpression(depth + 1),
-                        GeneralUnaryPostfixOperator.getRandomByOptions(handler));
+        case UNARY_POSTFIX:
+            getFeatureSet().add(Expression.UNARY_POSTFIX);
+            return new NewUnaryPostfixOperatorNode<GeneralExpression>(generateExpression(depth + 1),
+                    GeneralUnaryPostfixOperator.getRandomByOptions(handler));
         case UNARY_PREFIX:
-            featureSet.add(Expression.UNARY_PREFIX);
+            getFeatureSet().add(Expression.UNARY_PREFIX);
             return new NewUnaryPrefixOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     GeneralUnaryPrefixOperator.getRandomByOptions(handler));
         case BINARY_COMPARISON:
-            featureSet.add(Expression.BINARY_COMPARISON);
+            getFeatureSet().add(Expression.BINARY_COMPARISON);
             return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     generateExpression(depth + 1), GeneralBinaryComparisonOperator.getRandomByOptions(handler));
         case BINARY_LOGICAL:
-            featureSet.add(Expression.BINARY_LOGICAL);
+            getFeatureSet().add(Expression.BINARY_LOGICAL);
             return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     generateExpression(depth + 1), GeneralBinaryLogicalOperator.getRandomByOptions(handler));
 
-            case BINARY_OPERATOR:
-                featureSet.add(Expression.BINARY_OPERATOR);
-                return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(depth + 1),
-                        generateExpression(depth + 1), GeneralBinaryOperator.getRandomByOptions(handler));
+        case BINARY_OPERATOR:
+            getFeatureSet().add(Expression.BINARY_OPERATOR);
+            return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(depth + 1),
+                    generateExpression(depth + 1), GeneralBinaryOperator.getRandomByOptions(handler));
         case BINARY_ARITHMETIC:
-            featureSet.add(Expression.BINARY_ARITHMETIC);
+            getFeatureSet().add(Expression.BINARY_ARITHMETIC);
             return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     generateExpression(depth + 1), GeneralBinaryArithmeticOperator.getRandomByOptions(handler));
 
         case CAST:
-            featureSet.add(Expression.CAST);
+            getFeatureSet().add(Expression.CAST);
             return new GeneralCast(generateExpression(depth + 1), GeneralCompositeDataType.getRandomWithoutNull(),
                     GeneralCastOperator.getRandomByOptions(handler));
         case FUNC:
-            featureSet.add(Expression.FUNC);
+            getFeatureSet().add(Expression.FUNC);
             // GeneralDBFunction func = GeneralDBFunction.getRandomByOptions(handler);
             GeneralFunction func = GeneralFunction.getRandomByOptions(handler);
             if (func != null) {
                 return new NewFunctionNode<GeneralExpression, GeneralFunction>(
                         generateExpressions(func.getNrArgs(), depth + 1), func);
             }
-            case BETWEEN:
-            featureSet.add(Expression.BETWEEN);
+        case BETWEEN:
+            getFeatureSet().add(Expression.BETWEEN);
             return new NewBetweenOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     generateExpression(depth + 1), generateExpression(depth + 1), Randomly.getBoolean());
 
         case CASE:
-            featureSet.add(Expression.CASE);
+            getFeatureSet().add(Expression.CASE);
             int nr = Randomly.smallNumber() + 1;
             return new NewCaseOperatorNode<GeneralExpression>(generateExpression(depth + 1),
                     generateExpressions(nr, depth + 1), generateExpressions(nr, depth + 1),
                     generateExpression(depth + 1));
-            case IN:
-                featureSet.add(Expression.IN);
-                return new NewInOperatorNode<GeneralExpression>(generateExpression(depth + 1),
-                        generateExpressions(Randomly.smallNumber() + 1, depth + 1), Randomly.getBoolean());
+        case IN:
+            getFeatureSet().add(Expression.IN);
+            return new NewInOperatorNode<GeneralExpression>(generateExpression(depth + 1),
+                    generateExpressions(Randomly.smallNumber() + 1, depth + 1), Randomly.getBoolean());
 
         default:
             throw new AssertionError();
@@ -171,7 +171,7 @@ public final class GeneralTableGenerator {
                 columnType = GeneralCompositeDataType.getRandomWithoutNull();
             }
             // TODO: make this as a feedback for the learner
-            globalState.getHandler().addScore("COLUMN-" + columnType.toString());
+            globalState.getHandler().addScore("COLUMN", columnType.toString());
             columns.add(new GeneralColumn(columnName, columnType, false, false));
         }
         return columns;
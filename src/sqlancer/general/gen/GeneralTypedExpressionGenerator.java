@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import sqlancer.Randomly;
@@ -39,13 +40,16 @@ import sqlancer.general.ast.GeneralFunction;
 import sqlancer.general.ast.GeneralUnaryPostfixOperator;
 import sqlancer.general.ast.GeneralUnaryPrefixOperator;
 
-import static sqlancer.general.gen.ParameterAwareGenerator.featureSet;
+import static sqlancer.general.gen.ParameterAwareGenerator.getFeatureSet;
 
 public class GeneralTypedExpressionGenerator
         extends TypedExpressionGenerator<Node<GeneralExpression>, GeneralColumn, GeneralCompositeDataType> {
 
     private final GeneralGlobalState globalState;
     private boolean nullFlag;
+    // the columns grouped by the key of their type, which is built for the columns that have been set
+    private List<GeneralColumn> indexedColumns;
+    private Map<String, List<GeneralColumn>> columnsByType;
 
     public GeneralTypedExpressionGenerator(GeneralGlobalState globalState) {
         this.globalState = globalState;
@@ -81,8 +85,8 @@ public class GeneralTypedExpressionGenerator
 
     @Override
     public List<Node<GeneralExpression>> generateOrderBys() {
-        HashMap<String, Integer> tmpCompositeScore = new HashMap<>(
-                globalState.getHandler().getGeneratorInfo().getCompositeGeneratorScore());
+        LongCounterMap tmpCompositeScore = globalState.getHandler().getGeneratorInfo().getCompositeGeneratorScore()
+                .copy();
         // globalState.getLogger().writeCurrent("-- " + tmpCompositeScore);
         List<Node<GeneralExpression>> expr = super.generateOrderBys();
         List<Node<GeneralExpression>> orderingTerms = new ArrayList<>(expr.size());
@@ -111,7 +115,7 @@ public class GeneralTypedExpressionGenerator
             final int ind = i;
             // TODO: looks like we could make this invarian out of the loop. Not sure if stronly needed.
             List<GeneralCompositeDataType> availTypes = GeneralCompositeDataType.getSupportedTypes().stream()
-                    .filter(t -> handler.getCompositeOptionNullAsFalse(function.toString() + "-" + ind + t.toString()))
+                    .filter(t -> handler.getCompositeOptionNullAsFalse(function.toString(), ind + t.toString()))
                     .collect(Collectors.toList());
             GeneralCompositeDataType type;
             // TODO: make it fully controlled by the handler
@@ -125,8 +129,7 @@ public class GeneralTypedExpressionGenerator
             args.add(newExpr);
             // check if newExpr is a
             if (!nullFlag) {
-                String key = function.toString() + "-" + ind + type.toString();
-                handler.addScore(key);
+                handler.addScore(function.toString(), ind + type.toString());
             }
             // nullFlag = false;
         }
@@ -145,7 +148,7 @@ public class GeneralTypedExpressionGenerator
             return generateLeafNode(type);
         } else {
             if (Randomly.getBooleanWithRatherLowProbability() && handler.getOption(GeneratorNode.FUNC)) {
-                featureSet.add(GeneralExpressionGenerator.Expression.FUNC);
+                getFeatureSet().add(GeneralExpressionGenerator.Expression.FUNC);
                 handler.addScore(GeneratorNode.FUNC);
                 List<GeneralFunction> applicableFunctions = new ArrayList<>();
                 try {
@@ -160,22 +163,22 @@ public class GeneralTypedExpressionGenerator
                     nullFlag = false;
                     NewFunctionNode<GeneralExpression, GeneralFunction> functionNode = new NewFunctionNode<>(
                             generateFunctionExpressions(function, depth + 1, handler), function);
-                    handler.addScore("FUNCTION-" + function.toString());
+                    handler.addScore("FUNCTION", function.toString());
                     if (!nullFlag) {
-                        handler.addScore(type.toString() + "-" + function.toString());
+                        handler.addScore(type.toString(), function.toString());
                     }
                     nullFlag = false;
                     return functionNode;
                 }
             }
             if (Randomly.getBooleanWithRatherLowProbability() && handler.getOption(GeneratorNode.CAST)) {
-                featureSet.add(GeneralExpressionGenerator.Expression.CAST);
+                getFeatureSet().add(GeneralExpressionGenerator.Expression.CAST);
                 handler.addScore(GeneratorNode.CAST);
                 return new GeneralCast(generateExpression(getRandomType(), depth + 1), type,
                         GeneralCastOperator.getRandomByOptions(handler));
             }
             if (Randomly.getBooleanWithRatherLowProbability() && handler.getOption(GeneratorNode.CASE)) {
-                featureSet.add(GeneralExpressionGenerator.Expression.CASE);
+                getFeatureSet().add(GeneralExpressionGenerator.Expression.CASE);
                 handler.addScore(GeneratorNode.CASE);
                 GeneralCompositeDataType condType = getRandomType();
                 List<Node<GeneralExpression>> conditions = new ArrayList<>();
@@ -193,13 +196,12 @@ public class GeneralTypedExpressionGenerator
 
             }
             if (Randomly.getBooleanWithRatherLowProbability() && handler.getOption(GeneratorNode.BINARY_OPERATOR)) {
-                featureSet.add(GeneralExpressionGenerator.Expression.BINARY_OPERATOR);
+                getFeatureSet().add(GeneralExpressionGenerator.Expression.BINARY_OPERATOR);
                 handler.addScore(GeneratorNode.BINARY_OPERATOR);
                 Operator op = GeneralBinaryOperator.getRandomByType(globalState.getHandler(), type);
                 if (op != null) {
                     List<GeneralCompositeDataType> availTypes = GeneralCompositeDataType.getSupportedTypes().stream()
-                            .filter(t -> handler
-                                    .getCompositeOptionNullAsFalse("BINOP" + op.toString() + "-" + t.toString()))
+                            .filter(t -> handler.getCompositeOptionNullAsFalse("BINOP" + op.toString(), t.toString()))
                             .collect(Collectors.toList());
                     GeneralCompositeDataType newType;
                     if (availTypes.size() == 0 || Randomly.getBooleanWithRatherLowProbability()) {
@@ -210,7 +212,7 @@ public class GeneralTypedExpressionGenerator
                     Node<GeneralExpression> left = generateExpression(newType, depth + 1);
                     Node<GeneralExpression> right = generateExpression(newType, depth + 1);
                     if (!nullFlag) {
-                        handler.addScore("BINOP" + op.toString() + "-" + newType.toString());
+                        handler.addScore("BINOP" + op.toString(), newType.toString());
                     }
                     return new NewBinaryOperatorNode<GeneralExpression>(left, right, op);
                 }
@@ -327,33 +329,33 @@ public class GeneralTypedExpressionGenerator
         Node<GeneralExpression> expr;
         switch (exprType) {
         case UNARY_PREFIX:
-            featureSet.add(GeneralExpressionGenerator.Expression.UNARY_PREFIX);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.UNARY_PREFIX);
             return new NewUnaryPrefixOperatorNode<GeneralExpression>(
                     generateExpression(GeneralDataType.BOOLEAN.get(), depth + 1), GeneralUnaryPrefixOperator.NOT);
         case BINARY_COMPARISON:
-            featureSet.add(GeneralExpressionGenerator.Expression.BINARY_COMPARISON);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.BINARY_COMPARISON);
             return getBinaryComparison(depth);
         case BINARY_LOGICAL:
-            featureSet.add(GeneralExpressionGenerator.Expression.BINARY_LOGICAL);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.BINARY_LOGICAL);
             return getAndOrChain(depth);
         // case REGEX:
         // return new CockroachDBRegexOperation(generateExpression(GeneralDataType.STRING.get(), depth + 1),
         // generateExpression(GeneralDataType.STRING.get(), depth + 1),
         // CockroachDBRegexOperator.getRandom());
         case UNARY_POSTFIX:
-            featureSet.add(GeneralExpressionGenerator.Expression.UNARY_POSTFIX);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.UNARY_POSTFIX);
             return new NewUnaryPostfixOperatorNode<GeneralExpression>(generateExpression(getRandomType(), depth + 1),
                     GeneralUnaryPostfixOperator.getRandomByOptions(handler));
         case BINARY_OPERATOR:
-            featureSet.add(GeneralExpressionGenerator.Expression.BINARY_OPERATOR);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.BINARY_OPERATOR);
             return new NewBinaryOperatorNode<GeneralExpression>(generateExpression(getRandomType(), depth + 1),
                     generateExpression(getRandomType(), depth + 1),
                     GeneralBinaryOperator.getRandomByType(globalState.getHandler(), GeneralDataType.BOOLEAN.get()));
         case IN:
-            featureSet.add(GeneralExpressionGenerator.Expression.IN);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.IN);
             return getInOperation(depth);
         case BETWEEN:
-            featureSet.add(GeneralExpressionGenerator.Expression.BETWEEN);
+            getFeatureSet().add(GeneralExpressionGenerator.Expression.BETWEEN);
             GeneralCompositeDataType type = getRandomType();
             expr = generateExpression(type, depth + 1);
             Node<GeneralExpression> left = generateExpression(type, depth + 1);
@@ -403,20 +405,26 @@ public class GeneralTypedExpressionGenerator
                 GeneralBinaryComparisonOperator.getRandomByOptions(globalState.getHandler(), type));
     }
 
-    private boolean isTypeCompatible(GeneralCompositeDataType typeA, GeneralCompositeDataType typeB) {
-        if (typeA.getPrimitiveDataType() != typeB.getPrimitiveDataType()) {
-            return false;
-        }
-        if (typeA.getPrimitiveDataType() == GeneralDataType.STRING
-                && typeB.getPrimitiveDataType() == GeneralDataType.STRING) {
-            return true; // STRING is compatible with all VARTYPEs
+    // types are compatible if and only if they have the same key; STRING is compatible with all VARTYPEs
+    private static String getTypeKey(GeneralCompositeDataType type) {
+        GeneralDataType primitive = type.getPrimitiveDataType();
+        return primitive == GeneralDataType.STRING ? primitive.name() : primitive.name() + " " + type.toString();
+    }
+
+    private List<GeneralColumn> getColumnsOfType(GeneralCompositeDataType type) {
+        if (indexedColumns != columns) {
+            columnsByType = new HashMap<>();
+            for (GeneralColumn column : columns) {
+                columnsByType.computeIfAbsent(getTypeKey(column.getType()), k -> new ArrayList<>()).add(column);
+            }
+            indexedColumns = columns;
         }
-        return typeA.toString().equals(typeB.toString());
+        return columnsByType.getOrDefault(getTypeKey(type), Collections.emptyList());
     }
 
     @Override
     protected boolean canGenerateColumnOfType(GeneralCompositeDataType type) {
-        return columns.stream().anyMatch(c -> isTypeCompatible(c.getType(), type));
+        return !getColumnsOfType(type).isEmpty();
     }
 
     @Override
@@ -464,8 +472,7 @@ public class GeneralTypedExpressionGenerator
 
     @Override
     protected Node<GeneralExpression> generateColumn(GeneralCompositeDataType type) {
-        GeneralColumn column = Randomly.fromList(
-                columns.stream().filter(c -> isTypeCompatible(c.getType(), type)).collect(Collectors.toList()));
+        GeneralColumn column = Randomly.fromList(getColumnsOfType(type));
         // if (type.getPrimitiveDataType().equals(GeneralDataType.VARTYPE)) {
         // globalState.getLogger().writeCurrent("-- type " + type);
         // }
@@ -1,7 +1,6 @@
 package sqlancer.general.gen;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import sqlancer.Randomly;
@@ -41,8 +40,8 @@ public final class GeneralViewGenerator {
             columns.add(new GeneralColumn("c" + i, GeneralCompositeDataType.getRandomWithoutNull(), false, false));
         }
         sb.append(") AS ");
-        HashMap<String, Integer> tmpCompositeScore = new HashMap<>(
-                globalState.getHandler().getGeneratorInfo().getCompositeGeneratorScore());
+        LongCounterMap tmpCompositeScore = globalState.getHandler().getGeneratorInfo().getCompositeGeneratorScore()
+                .copy();
         GeneralSelect select = GeneralRandomQuerySynthesizer.generateSelect(globalState, columns);
         sb.append(GeneralToStringVisitor.asString(select));
         GeneralTable newTable = new GeneralTable(viewName, columns, true);
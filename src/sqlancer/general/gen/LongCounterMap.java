@@ -0,0 +1,136 @@
+package sqlancer.general.gen;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from non-negative {@code long} keys to {@code long} counters. Unlike a
+ * {@code HashMap<Long, Long>}, it neither boxes keys nor values and allocates only when it grows, which makes it
+ * suitable for sparse statistics over large key spaces such as (feature, coverage edge) pairs.
+ *
+ * The map is not thread-safe. Threads that collect statistics concurrently should each own a map and combine them with
+ * {@link #addAll(LongCounterMap)} once they are done.
+ */
+public final class LongCounterMap {
+
+    private static final long FREE = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long key, long value);
+    }
+
+    public LongCounterMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongCounterMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    private LongCounterMap(LongCounterMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    private static int slot(long key, int mask) {
+        // Stafford variant 13 of the MurmurHash3 finalizer
+        long h = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (h ^ (h >>> 31)) & mask;
+    }
+
+    public long get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            } else if (k == FREE) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Adds the delta to the counter of the key, which is zero if the key has not been added before.
+     *
+     * @param key
+     *            a non-negative key
+     * @param delta
+     *            the value to add
+     *
+     * @return the new value of the counter
+     */
+    public long add(long key, long delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException(String.valueOf(key));
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] += delta;
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return delta;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        Arrays.fill(keys, FREE);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    public void addAll(LongCounterMap other) {
+        other.forEach(this::add);
+    }
+
+    public LongCounterMap copy() {
+        return new LongCounterMap(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
@@ -1,16 +1,15 @@
 package sqlancer.general.gen;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-import sqlancer.AFLMonitor;
 import sqlancer.Randomly;
+import sqlancer.TouchedEdges;
 import sqlancer.general.GeneralErrorHandler.GeneratorNode;
 import sqlancer.general.GeneralProvider.GeneralGlobalState;
 
-import static sqlancer.AFLMonitor.coverageBuf;
-
 /**
  * Implements Parameter-Aware Test Case Synthesis.
  * This class calculates the generation probability of SQL features based on
@@ -27,16 +26,79 @@ public class ParameterAwareGenerator {
     // For this example, we'll use placeholder data.
     // Map<ParameterConfig, Map<GeneratorNode, Integer>>
 
-    public static Set<GeneralExpressionGenerator.Expression> featureSet = new java.util.HashSet<>();
+    // the features of the query that is being generated, which each thread collects separately
+    private static final ThreadLocal<Set<GeneralExpressionGenerator.Expression>> FEATURE_SET = ThreadLocal
+            .withInitial(() -> EnumSet.noneOf(GeneralExpressionGenerator.Expression.class));
+
+    public static Set<GeneralExpressionGenerator.Expression> getFeatureSet() {
+        return FEATURE_SET.get();
+    }
 
     private int testCounts = 0;
-    private final int[] featureCounts = new int[GeneralExpressionGenerator.Expression.values().length];
-    //
-    private final int[] edgeCounts = new int[AFLMonitor.AFL_MAP_SIZE];
-    // Map<ParameterConfig, Map<GeneratorNode, Map<Edge, Integer>>>
-    private final  int[][] featureEdgeCounts = new int[GeneralExpressionGenerator.Expression.values().length][AFLMonitor.AFL_MAP_SIZE];
+    private final int[] featureCounts;
+    // 以下统计均为稀疏存储：只有被触及过的边才占用空间（稠密矩阵每个 JVM 约 67 MB）
+    // Map<Edge, Integer>
+    private final LongCounterMap edgeCounts;
+    // Map<(GeneratorNode, Edge), Integer>, see featureEdgeKey
+    private final LongCounterMap featureEdgeCounts;
     // Map<Edge, Integer>
-    private final long[] totalEdgeHitCounts = new long[AFLMonitor.AFL_MAP_SIZE];
+    private final LongCounterMap totalEdgeHitCounts;
+
+    // the weights only change when new samples are added, so they are cached for the current number of tests
+    private double[] cachedWeights;
+    private int cachedWeightsTestCounts = -1;
+
+    public ParameterAwareGenerator() {
+        featureCounts = new int[GeneralExpressionGenerator.Expression.values().length];
+        edgeCounts = new LongCounterMap();
+        featureEdgeCounts = new LongCounterMap();
+        totalEdgeHitCounts = new LongCounterMap();
+    }
+
+    private ParameterAwareGenerator(ParameterAwareGenerator other) {
+        testCounts = other.testCounts;
+        featureCounts = other.featureCounts.clone();
+        edgeCounts = other.edgeCounts.copy();
+        featureEdgeCounts = other.featureEdgeCounts.copy();
+        totalEdgeHitCounts = other.totalEdgeHitCounts.copy();
+    }
+
+    private static long featureEdgeKey(int feature, int edge) {
+        return (long) feature << 32 | edge;
+    }
+
+    /**
+     * @return an independent copy of the statistics collected so far
+     */
+    public ParameterAwareGenerator snapshot() {
+        return new ParameterAwareGenerator(this);
+    }
+
+    /**
+     * Adds the statistics of another generator, for example one that was filled by a different thread, to this one. The
+     * other generator must not be modified concurrently.
+     *
+     * @param other
+     *            the generator whose counts should be added
+     */
+    public void merge(ParameterAwareGenerator other) {
+        testCounts += other.testCounts;
+        for (int i = 0; i < featureCounts.length; i++) {
+            featureCounts[i] += other.featureCounts[i];
+        }
+        edgeCounts.addAll(other.edgeCounts);
+        featureEdgeCounts.addAll(other.featureEdgeCounts);
+        totalEdgeHitCounts.addAll(other.totalEdgeHitCounts);
+        cachedWeightsTestCounts = -1;
+    }
+
+    public int getTestCounts() {
+        return testCounts;
+    }
+
+    public int getNrTouchedEdges() {
+        return edgeCounts.size();
+    }
 //    // Map<ParameterConfig, Integer>
 //    private final Map<String, double[]> totalSamplesPerConfig = new HashMap<>();
 
@@ -51,7 +113,7 @@ public class ParameterAwareGenerator {
      * @return The novelty score.
      */
     private double getNovelty(int edge) {
-        long hitCount = totalEdgeHitCounts[edge];
+        long hitCount = totalEdgeHitCounts.get(edge);
         return 1.0 / Math.sqrt(1.0 + hitCount);
     }
 
@@ -65,8 +127,8 @@ public class ParameterAwareGenerator {
     private double calculateMutualInformation(int feature, int edge) {
         // 从数组中获取计数
         int countF1 = featureCounts[feature];
-        int countE1 = edgeCounts[edge];
-        int countF1E1 = featureEdgeCounts[feature][edge];
+        int countE1 = (int) edgeCounts.get(edge);
+        int countF1E1 = (int) featureEdgeCounts.get(featureEdgeKey(feature, edge));
 
 
 
@@ -86,20 +148,20 @@ public class ParameterAwareGenerator {
         // MI = Σ p(x,y) * log2( p(x,y) / (p(x)*p(y)) )
         if (countF1E1 > 0) {
             double pF1E1 = (double) countF1E1 / testCounts;
-            mi += pF1E1 * Math.log((double) (countF1E1 * testCounts) / (countF1 * countE1));
+            mi += pF1E1 * Math.log((double) countF1E1 * testCounts / ((double) countF1 * countE1));
         }
         if (countF1E0 > 0) {
             double pF1E0 = (double) countF1E0 / testCounts;
-            mi += pF1E0 * Math.log((double) (countF1E0 * testCounts)/ (countF1  * countE0 ));
+            mi += pF1E0 * Math.log((double) countF1E0 * testCounts / ((double) countF1 * countE0));
         }
         if (countF0E1 > 0) {
             double pF0E1 = (double) countF0E1 / testCounts;
-            mi += pF0E1 * Math.log((double) (countF0E1 * testCounts) / (countF0 * countE1));
+            mi += pF0E1 * Math.log((double) countF0E1 * testCounts / ((double) countF0 * countE1));
 
         }
         if (countF0E0 > 0) {
             double pF0E0 = (double) countF0E0 / testCounts;
-            mi += pF0E0 * Math.log((double) (countF0E0 * testCounts) / ( countF0  * countE0 ));
+            mi += pF0E0 * Math.log((double) countF0E0 * testCounts / ((double) countF0 * countE0));
         }
         // 将对数底从自然对数e转换为2
         return mi / Math.log(2);
@@ -110,25 +172,25 @@ public class ParameterAwareGenerator {
      * @return A map from GeneratorNode to its calculated weight.
      */
     public double[] getFeatureWeights() {
+        if (cachedWeightsTestCounts == testCounts) {
+            return cachedWeights.clone();
+        }
         double[] weights = new double[featureCounts.length];
 
         // 优化：交换内外循环，外层遍历边，内层遍历特征
-        for (int j = 0; j < edgeCounts.length; j++) {
-            // 优化：如果一个边从未被触发，它对任何特征的权重贡献都为0，跳过
-            if (edgeCounts[j] == 0) {
-                continue;
-            }
-
+        // 优化：只遍历被触发过的边，从未被触发的边对任何特征的权重贡献都为0
+        edgeCounts.forEach((edge, count) -> {
             // 优化：在内层循环外计算一次 novelty
-            // 修正：getNovelty应该使用边的索引j，而不是特征的索引i
-            double novelty = getNovelty(j);
+            double novelty = getNovelty((int) edge);
 
             for (int i = 0; i < featureCounts.length; i++) {
-                double mi = calculateMutualInformation(i, j);
+                double mi = calculateMutualInformation(i, (int) edge);
                 weights[i] += mi * novelty;
             }
-        }
-        return weights;
+        });
+        cachedWeights = weights;
+        cachedWeightsTestCounts = testCounts;
+        return weights.clone();
     }
 
 
@@ -163,27 +225,29 @@ public class ParameterAwareGenerator {
         return probabilities;
     }
 
-    public void updateCounts() {
+    public void updateCounts(TouchedEdges touchedEdges) {
         testCounts++;
 
         // 将对 featureCounts 的更新移到循环外，因为它与 coverageBuf 的内容无关
+        Set<GeneralExpressionGenerator.Expression> featureSet = getFeatureSet();
+        int[] features = new int[featureSet.size()];
+        int nrFeatures = 0;
         for (GeneralExpressionGenerator.Expression feature : featureSet) {
             featureCounts[feature.ordinal()] += 1;
+            features[nrFeatures++] = feature.ordinal();
         }
 
-        // 只遍历一次 coverageBuf
-        for (int i = 0; i < AFLMonitor.AFL_MAP_SIZE; i++) {
-            // 仅在覆盖信息不为零时处理
-            if (coverageBuf[i] != 0) {
+        // 只遍历本次查询触及的边
+        for (int k = 0; k < touchedEdges.size(); k++) {
+            int i = touchedEdges.getEdge(k);
 
-                // 更新基本边计数
-                edgeCounts[i] += 1;
-                totalEdgeHitCounts[i] +=(coverageBuf[i]& 0xFF);
+            // 更新基本边计数
+            edgeCounts.add(i, 1);
+            totalEdgeHitCounts.add(i, touchedEdges.getHitCount(k));
 
-                // 一次性更新所有 feature 相关的边计数
-                for (GeneralExpressionGenerator.Expression feature : featureSet) {
-                    featureEdgeCounts[feature.ordinal()][i] += 1;
-                }
+            // 一次性更新所有 feature 相关的边计数
+            for (int f = 0; f < nrFeatures; f++) {
+                featureEdgeCounts.add(featureEdgeKey(features[f], i), 1);
             }
         }
     }
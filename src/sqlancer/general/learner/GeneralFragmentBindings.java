@@ -0,0 +1,58 @@
+package sqlancer.general.learner;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.learner.GeneralFragments.GeneralFragmentVariable;
+
+/**
+ * The values that the variables of a fragment are bound to while the fragment is rendered.
+ *
+ * All slots of the same variable in a fragment are bound to the same value. Since generating a value can render other
+ * fragments, for example, a function in a random expression, each render acquires its own bindings, which are taken
+ * from a pool of the calling thread and returned to it after the render.
+ */
+final class GeneralFragmentBindings {
+
+    private static final GeneralFragmentVariable[] VARIABLES = GeneralFragmentVariable.values();
+    private static final ThreadLocal<Deque<GeneralFragmentBindings>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final String[] values = new String[VARIABLES.length];
+
+    private GeneralFragmentBindings() {
+    }
+
+    /**
+     * Returns unbound bindings, which must be released by the calling thread after the render.
+     */
+    static GeneralFragmentBindings acquire() {
+        GeneralFragmentBindings bindings = POOL.get().poll();
+        return bindings == null ? new GeneralFragmentBindings() : bindings;
+    }
+
+    void release() {
+        Arrays.fill(values, null);
+        POOL.get().push(this);
+    }
+
+    /**
+     * Binds each variable to a newly generated value.
+     *
+     * @param vars
+     *            the variables, in the order in which their values are generated
+     * @param state
+     *            the state of the calling thread
+     */
+    void bind(GeneralFragmentVariable[] vars, GeneralGlobalState state) {
+        for (GeneralFragmentVariable var : vars) {
+            values[var.ordinal()] = var.generate(state);
+        }
+    }
+
+    String get(GeneralFragmentVariable var) {
+        return values[var.ordinal()];
+    }
+
+}
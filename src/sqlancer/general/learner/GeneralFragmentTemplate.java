@@ -0,0 +1,175 @@
+package sqlancer.general.learner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.learner.GeneralFragments.GeneralFragmentVariable;
+
+/**
+ * A fragment that has been compiled once into the literal segments between its variables, so that it can be rendered
+ * without parsing its format string.
+ *
+ * The format string of a fragment contains a <code>%s</code> for each variable. The only other conversions that are
+ * compiled are <code>%%</code> and <code>%n</code>; a format string with any other conversion is rendered by
+ * {@link String#format}. Literal segments that refer to test objects, such as <code>TEST_TABLE</code>, are marked when
+ * compiled, so that only they are searched for test objects when rendered.
+ */
+final class GeneralFragmentTemplate {
+
+    static final String TEST_OBJECT_PREFIX = "TEST_";
+
+    private final String fmtString;
+    private final GeneralFragmentVariable[] vars;
+    // the literal segments before, between, and after the slots, or null if the format string is not compiled
+    private final String[] literals;
+    private final boolean[] refersToTestObjects;
+    private final String name;
+
+    GeneralFragmentTemplate(String fmtString, List<GeneralFragmentVariable> vars) {
+        this.fmtString = fmtString;
+        this.vars = vars.toArray(new GeneralFragmentVariable[0]);
+        this.literals = compile(fmtString, this.vars.length);
+        if (literals == null) {
+            this.refersToTestObjects = null;
+        } else {
+            this.refersToTestObjects = new boolean[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                refersToTestObjects[i] = literals[i].contains(TEST_OBJECT_PREFIX);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb, null, null);
+        this.name = sb.toString();
+    }
+
+    private static String[] compile(String fmtString, int nrVars) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < fmtString.length(); i++) {
+            char c = fmtString.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 == fmtString.length()) {
+                return null;
+            }
+            switch (fmtString.charAt(++i)) {
+            case 's':
+                literals.add(literal.toString());
+                literal.setLength(0);
+                break;
+            case '%':
+                literal.append('%');
+                break;
+            case 'n':
+                literal.append(System.lineSeparator());
+                break;
+            default:
+                return null;
+            }
+        }
+        literals.add(literal.toString());
+        if (literals.size() - 1 > nrVars) {
+            return null;
+        }
+        return literals.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the fragment with the names of its variables in angle brackets, for example,
+     * <code>LIMIT &lt;RANDOM_INT&gt;</code>.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Generates the variables of the fragment and appends the rendered fragment.
+     *
+     * @param sb
+     *            the builder to append to
+     * @param state
+     *            the state that generates the variables
+     * @param replaceTestObjects
+     *            whether to replace the references to test objects by the test objects of the state
+     */
+    void appendTo(StringBuilder sb, GeneralGlobalState state, boolean replaceTestObjects) {
+        GeneralFragmentBindings bindings = GeneralFragmentBindings.acquire();
+        try {
+            bindings.bind(vars, state);
+            appendTo(sb, bindings, replaceTestObjects ? state : null);
+        } finally {
+            bindings.release();
+        }
+    }
+
+    // appends the values of the bindings, or the names of the variables if there are no bindings
+    private void appendTo(StringBuilder sb, GeneralFragmentBindings bindings, GeneralGlobalState testObjectState) {
+        if (literals == null) {
+            Object[] values = new Object[vars.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = getValue(i, bindings);
+            }
+            String fragment = String.format(fmtString, values);
+            if (testObjectState == null) {
+                sb.append(fragment);
+            } else {
+                appendReplacingTestObjects(sb, fragment, testObjectState);
+            }
+            return;
+        }
+        for (int i = 0; i < literals.length; i++) {
+            if (testObjectState != null && refersToTestObjects[i]) {
+                appendReplacingTestObjects(sb, literals[i], testObjectState);
+            } else {
+                sb.append(literals[i]);
+            }
+            if (i < literals.length - 1) {
+                sb.append(getValue(i, bindings));
+            }
+        }
+    }
+
+    private String getValue(int slot, GeneralFragmentBindings bindings) {
+        return bindings == null ? "<" + vars[slot].name() + ">" : bindings.get(vars[slot]);
+    }
+
+    /*
+     * Appends the string, in which each reference to a test object is replaced by the test object with the longest name
+     * that the reference starts with, so that TEST_COLUMN10 does not refer to TEST_COLUMN1.
+     */
+    static void appendReplacingTestObjects(StringBuilder sb, String s, GeneralGlobalState state) {
+        if (!state.hasTestObjects()) {
+            sb.append(s);
+            return;
+        }
+        int from = 0;
+        int start;
+        while ((start = s.indexOf(TEST_OBJECT_PREFIX, from)) != -1) {
+            int end = start + TEST_OBJECT_PREFIX.length();
+            while (end < s.length() && (Character.isLetterOrDigit(s.charAt(end)) || s.charAt(end) == '_')) {
+                end++;
+            }
+            sb.append(s, from, start);
+            String testObject = null;
+            int nameEnd = end;
+            while (nameEnd > start + TEST_OBJECT_PREFIX.length()) {
+                testObject = state.getTestObject(s.substring(start, nameEnd));
+                if (testObject != null) {
+                    break;
+                }
+                nameEnd--;
+            }
+            if (testObject == null) {
+                sb.append(s, start, end);
+            } else {
+                sb.append(testObject).append(s, nameEnd, end);
+            }
+            from = end;
+        }
+        sb.append(s, from, s.length());
+    }
+
+}
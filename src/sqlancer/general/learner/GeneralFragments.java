@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,7 +45,7 @@ public abstract class GeneralFragments {
                 if (g.getSchema().getDatabaseTables().isEmpty()) {
                     return GeneralConstant.createVartypeConstant("c0");
                 }
-                GeneralTable table = g.getSchema().getRandomTable(t -> !t.isView());
+                GeneralTable table = g.getSchema().getRandomTableNoView();
                 return new ColumnReferenceNode<GeneralExpression, GeneralColumn>(table.getRandomColumn());
             }
         }, "Random column"), RANDOM_TABLE((g) -> {
@@ -54,7 +55,7 @@ public abstract class GeneralFragments {
                 if (g.getSchema().getDatabaseTables().isEmpty()) {
                     return GeneralConstant.createVartypeConstant("t0");
                 }
-                GeneralTable table = g.getSchema().getRandomTable(t -> !t.isView());
+                GeneralTable table = g.getSchema().getRandomTableNoView();
                 return GeneralConstant.createVartypeConstant(table.getName());
             }
         }, "Random table"), RANDOM_EXPRESSION((g) -> {
@@ -81,15 +82,10 @@ public abstract class GeneralFragments {
             return GeneralConstant.createVartypeConstant(dateFormat.format(timestamp));
         }, "Get a random timestamp. e.g., 2021-01-01 00:00:00"), NULL((g) -> {
             return null;
-        }) {
-            @Override
-            public String toString() {
-                return "";
-            }
-        };
+        });
 
-        private Node<GeneralExpression> node;
-        private GeneralVariableGenerator<GeneralGlobalState> generator;
+        // the variables are shared by all threads, so the generated values are bound by GeneralFragmentBindings
+        private final GeneralVariableGenerator<GeneralGlobalState> generator;
         private String description = "";
 
         GeneralFragmentVariable(GeneralVariableGenerator<GeneralGlobalState> generator) {
@@ -101,12 +97,17 @@ public abstract class GeneralFragments {
             this.description = description;
         }
 
-        public void genVariable(GeneralGlobalState state) {
-            node = generator.generate(state);
-        }
-
-        public String toString() {
-            return GeneralToStringVisitor.asString(node);
+        /**
+         * Generates a value of the variable.
+         *
+         * @param state
+         *            the state of the calling thread
+         *
+         * @return the value, or the empty string if the variable has no value
+         */
+        public String generate(GeneralGlobalState state) {
+            Node<GeneralExpression> node = generator.generate(state);
+            return node == null ? "" : GeneralToStringVisitor.asString(node);
         }
 
         public String getDescription() {
@@ -119,18 +120,27 @@ public abstract class GeneralFragments {
         private String fmtString;
         private List<GeneralFragmentVariable> vars;
         private String key;
+        private final GeneralFragmentTemplate template;
 
         public GeneralFragmentChoice(String fmtString, List<GeneralFragmentVariable> vars, String key) {
             this.fmtString = fmtString;
             this.vars = vars;
             this.key = key;
+            this.template = new GeneralFragmentTemplate(fmtString, vars);
         }
 
         public String toString(GeneralGlobalState state) {
-            for (GeneralFragmentVariable var : vars) {
-                var.genVariable(state);
-            }
-            return String.format(fmtString, vars.stream().map(var -> var.toString()).toArray());
+            StringBuilder sb = new StringBuilder();
+            template.appendTo(sb, state, false);
+            return sb.toString();
+        }
+
+        /**
+         * Generates the variables of the fragment and appends it, with its references to test objects replaced by the
+         * test objects of the state.
+         */
+        public void appendTo(StringBuilder sb, GeneralGlobalState state) {
+            template.appendTo(sb, state, true);
         }
 
         @Override
@@ -147,7 +157,7 @@ public abstract class GeneralFragments {
         }
 
         public String getFragmentName() {
-            return String.format(fmtString, vars.stream().map(var -> String.format("<%s>", var.name())).toArray());
+            return template.getName();
         }
 
         @Override
@@ -171,6 +181,7 @@ public abstract class GeneralFragments {
 
     private boolean learnFlag = false;
     public static final String PLACEHOLDER = "{%d}";
+    protected static final Pattern VARIABLE_PATTERN = Pattern.compile("<([^>]*)>");
     private HashMap<String, List<GeneralFragmentChoice>> fragments = new HashMap<>();
     private HashMap<String, List<GeneralFragmentChoice>> newFragments = new HashMap<>();
     protected String currentSketch = "";
@@ -226,21 +237,43 @@ public abstract class GeneralFragments {
     }
 
     public String get(int index, GeneralGlobalState state) {
-        String key = String.valueOf(index);
         if (learnFlag) {
             return getPlaceHolder(index);
         }
-        if (fragments.containsKey(key)) {
-            List<GeneralFragmentChoice> choices = fragments.get(key);
-            if (choices.isEmpty()) {
-                return "";
-            }
-            GeneralFragmentChoice choice = Randomly.fromList(choices);
-            state.getHandler().addScore(choice);
-            return choice.toString(state);
-        } else {
-            return "";
+        GeneralFragmentChoice choice = getRandomChoice(index, state);
+        return choice == null ? "" : choice.toString(state);
+    }
+
+    /**
+     * Appends a random fragment of the index, like {@link #get(int, GeneralGlobalState)}, but with its references to
+     * test objects replaced and without creating an intermediate string.
+     *
+     * @param sb
+     *            the builder to append to
+     * @param index
+     *            the index of the fragment
+     * @param state
+     *            the state that generates the variables of the fragment
+     */
+    public void appendTo(StringBuilder sb, int index, GeneralGlobalState state) {
+        if (learnFlag) {
+            sb.append(getPlaceHolder(index));
+            return;
+        }
+        GeneralFragmentChoice choice = getRandomChoice(index, state);
+        if (choice != null) {
+            choice.appendTo(sb, state);
+        }
+    }
+
+    private GeneralFragmentChoice getRandomChoice(int index, GeneralGlobalState state) {
+        List<GeneralFragmentChoice> choices = fragments.get(String.valueOf(index));
+        if (choices == null || choices.isEmpty()) {
+            return null;
         }
+        GeneralFragmentChoice choice = Randomly.fromList(choices);
+        state.getHandler().addScore(choice);
+        return choice;
     }
 
     public String getPlaceHolder(int index) {
@@ -317,28 +350,16 @@ public abstract class GeneralFragments {
         }
         String key = s[0];
 
-        StringBuffer fmtString = new StringBuffer();
         List<GeneralFragmentVariable> vars = new ArrayList<>();
-        Pattern pattern = Pattern.compile("<([^>]*)>");
-        Matcher matcher = pattern.matcher(s[1]);
-
-        String content = "";
-
-        while (matcher.find()) {
-            content = matcher.group(1);
-            matcher.appendReplacement(fmtString, "%s");
-            vars.add(GeneralFragmentVariable.valueOf(content.toUpperCase()));
-        }
-        matcher.appendTail(fmtString);
+        String fmtString = parseVariable(s[1], vars);
 
-        addFragment(key, fmtString.toString(), vars);
+        addFragment(key, fmtString, vars);
 
     }
 
     protected String parseVariable(String s, List<GeneralFragmentVariable> vars) {
         StringBuffer fmtString = new StringBuffer();
-        Pattern pattern = Pattern.compile("<([^>]*)>");
-        Matcher matcher = pattern.matcher(s);
+        Matcher matcher = VARIABLE_PATTERN.matcher(s);
 
         String content = "";
 
@@ -495,7 +516,25 @@ public abstract class GeneralFragments {
             String databaseName);
 
     public void learnSpecificTopicFromLearner(GeneralGlobalState globalState, String topic) {
-        throw new UnsupportedOperationException();
+        loadLearnedTopic(globalState, topic, learnSpecificTopicAsync(globalState, topic).join());
     };
 
+    /**
+     * Learns the fragments of a topic without blocking the calling thread.
+     *
+     * @param globalState
+     *            the state of the thread that requests the topic
+     * @param topic
+     *            the topic to be learned
+     *
+     * @return the learned fragments, to be passed to {@link #loadLearnedTopic}
+     */
+    public CompletableFuture<String> learnSpecificTopicAsync(GeneralGlobalState globalState, String topic) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void loadLearnedTopic(GeneralGlobalState globalState, String topic, String learnedFragments) {
+        throw new UnsupportedOperationException();
+    }
+
 }
@@ -0,0 +1,144 @@
+package sqlancer.general.learner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import sqlancer.Metrics;
+
+/**
+ * Issues the requests of the learner asynchronously. All requests share one HTTP client, and thus its connection pool,
+ * and the processes that the learner runs are started on a shared pool of daemon threads.
+ */
+public final class GeneralLLMClient {
+
+    private static final String CHAT_URL = "https://api.openai.com/v1/chat/completions";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private static final ThreadFactory DAEMON_THREADS = r -> {
+        Thread t = new Thread(r, "learner");
+        t.setDaemon(true);
+        return t;
+    };
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(DAEMON_THREADS);
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder().dispatcher(new Dispatcher(EXECUTOR))
+            .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES)).connectTimeout(60, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS).build();
+
+    private GeneralLLMClient() {
+    }
+
+    /**
+     * Asks the chat model.
+     *
+     * @param model
+     *            the name of the model
+     * @param system
+     *            the system message
+     * @param user
+     *            the user message
+     *
+     * @return the content of the answer, which completes exceptionally if the request fails
+     */
+    public static CompletableFuture<String> chat(String model, String system, String user) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long start = Metrics.start();
+        future.whenComplete((content, e) -> Metrics.record(Metrics.Phase.LLM_CALL, start));
+        String apiKey = System.getenv("OPENAI_API_KEY");
+        if (apiKey == null) {
+            future.completeExceptionally(new IOException("OPENAI_API_KEY environment variable not set"));
+            return future;
+        }
+        JSONObject json = new JSONObject();
+        json.put("model", model);
+        JSONArray messages = new JSONArray();
+        messages.put(new JSONObject().put("role", "system").put("content", system));
+        messages.put(new JSONObject().put("role", "user").put("content", user));
+        json.put("messages", messages);
+
+        RequestBody body = RequestBody.create(json.toString(), JSON);
+        Request request = new Request.Builder().url(CHAT_URL).post(body).addHeader("Content-Type", "application/json")
+                .addHeader("Authorization", "Bearer " + apiKey).build();
+        CLIENT.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    future.complete(parseContent(responseBody.string()));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    static String parseContent(String response) {
+        JSONObject json = new JSONObject(response);
+        JSONArray choices = json.getJSONArray("choices");
+        JSONObject choice = choices.getJSONObject(0);
+        JSONObject message = choice.getJSONObject("message");
+        return message.getString("content");
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param command
+     *            the command and its arguments
+     *
+     * @return the output of the command without line breaks, which completes exceptionally if the command fails
+     */
+    public static CompletableFuture<String> run(List<String> command) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ProcessBuilder pb = new ProcessBuilder(command);
+                pb.redirectErrorStream(true);
+                Process p = pb.start();
+                StringBuilder sb = new StringBuilder();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        sb.append(line);
+                    }
+                }
+                int exitCode = p.waitFor();
+                if (exitCode != 0) {
+                    throw new IOException("Error: " + exitCode + System.lineSeparator() + sb);
+                }
+                return sb.toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }, EXECUTOR);
+    }
+
+}
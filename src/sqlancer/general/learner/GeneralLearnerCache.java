@@ -0,0 +1,119 @@
+package sqlancer.general.learner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A content-addressed cache of the responses of the learner on disk. Each response is stored in a file named after the
+ * SHA-256 hash of everything the response depends on (e.g., the model, the prompts, and the DBMS), so that the cache
+ * needs no index and can be shared by concurrent threads and runs.
+ */
+public class GeneralLearnerCache {
+
+    public enum Mode {
+        // always ask the model
+        OFF,
+        // serve cached responses, and cache the new ones
+        READ_WRITE,
+        // serve only cached responses, without accessing the network, to reproduce earlier runs
+        REPLAY
+    }
+
+    private final Path directory;
+    private final Mode mode;
+
+    public GeneralLearnerCache(String directory, Mode mode) {
+        this.directory = Paths.get(directory);
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Computes the key of a response.
+     *
+     * @param parts
+     *            everything the response depends on
+     *
+     * @return the hexadecimal SHA-256 hash of the parts
+     */
+    public static String getKey(String... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        for (String part : parts) {
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            // prefix each part by its length, so that moving text between parts changes the key
+            digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+            digest.update(bytes);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".txt");
+    }
+
+    /**
+     * Gets a cached response.
+     *
+     * @param key
+     *            the key computed by {@link #getKey}
+     *
+     * @return the response, or null if it is not cached or the cache is off
+     */
+    public String get(String key) {
+        if (mode == Mode.OFF) {
+            return null;
+        }
+        try {
+            return Files.readString(getPath(key), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Caches a response, unless the cache is off or only replays. The response is written to a temporary file that is
+     * then moved atomically, so that concurrent readers never see a partial response.
+     *
+     * @param key
+     *            the key computed by {@link #getKey}
+     * @param response
+     *            the response
+     */
+    public void put(String key, String response) {
+        if (mode != Mode.READ_WRITE) {
+            return;
+        }
+        Path path = getPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.writeString(tmp, response, StandardCharsets.UTF_8);
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -35,9 +35,7 @@ public class GeneralStringBuilder<E extends GeneralFragments> {
     public void append(Object obj, int index) {
         sb.append(obj);
         if (fragments.getLearn() || !couldRandom || Randomly.getBoolean()) {
-            String fragment = fragments.get(index, state);
-            fragment = state.replaceTestObject(fragment);
-            sb.append(fragment);
+            fragments.appendTo(sb, index, state);
         }
     }
 
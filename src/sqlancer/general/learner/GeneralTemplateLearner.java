@@ -1,28 +1,17 @@
 package sqlancer.general.learner;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import sqlancer.FeatureLearner;
 import sqlancer.general.GeneralLearningManager.SQLFeature;
+import sqlancer.general.GeneralOptions;
 import sqlancer.general.GeneralProvider.GeneralGlobalState;
 
 public class GeneralTemplateLearner implements FeatureLearner {
 
-    private static final String CHAT_URL = "https://api.openai.com/v1/chat/completions";
-    private final String apiKey = System.getenv("OPENAI_API_KEY");
-
     private String rawFragments = "";
     private GeneralGlobalState globalState;
     private SQLFeature feature;
@@ -36,16 +25,27 @@ public class GeneralTemplateLearner implements FeatureLearner {
 
     @Override
     public void learn() {
-        String response = "";
-        String reference = "";
+        learnAsync().join();
+    }
 
+    /**
+     * Learns the fragments without blocking the calling thread. The responses are served from the cache of the learner
+     * if possible.
+     *
+     * @return the fragments, which are also returned by {@link #getFragments()} once the future completes
+     */
+    public CompletableFuture<String> learnAsync() {
+        CompletableFuture<String> reference;
         // get the documentation reference
         if (globalState.getDbmsSpecificOptions().useRetrievalAugmentation) {
             reference = retrieveSummarization();
+        } else {
+            reference = CompletableFuture.completedFuture("");
         }
-        response = getDialectFromReference(reference);
-
-        rawFragments = process(response);
+        return reference.thenCompose(this::getDialectFromReference).thenApply(response -> {
+            rawFragments = process(response);
+            return rawFragments;
+        });
     }
 
     public GeneralTemplateLearner(GeneralGlobalState globalState, SQLFeature feature, String template, String variables,
@@ -103,40 +103,54 @@ public class GeneralTemplateLearner implements FeatureLearner {
     // return doc_url;
     // }
 
-    private String retrieveSummarization() {
-        try {
-            // assume that the python environment is set up
-            List<String> command = Arrays.asList("python3", "src/chat.py", "--dbms",
-                    globalState.getDbmsNameForLearning(), "--feature", feature.toString(), "--topic", topic, "--learn");
-            System.out.println("Execute " + command);
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true);
-            Process p = pb.start();
-            BufferedReader reader = new BufferedReader(new java.io.InputStreamReader(p.getInputStream()));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
+    private GeneralLearnerCache getCache() {
+        GeneralOptions options = globalState.getDbmsSpecificOptions();
+        return new GeneralLearnerCache(options.learnerCacheDirectory, options.learnerCache);
+    }
 
-            int exitCode = p.waitFor();
-            if (exitCode != 0) {
-                System.out.println("Error: " + exitCode);
-                System.err.println(sb.toString());
-                return null;
-            } else {
-                return sb.toString();
+    /*
+     * Serves the response from the cache, or computes it and caches it if it is not null. If the response cannot be
+     * computed, or is not cached in replay mode, the default is returned.
+     */
+    private CompletableFuture<String> getCached(String key, String description, String defaultValue,
+            Supplier<CompletableFuture<String>> compute) {
+        GeneralLearnerCache cache = getCache();
+        String cached = cache.get(key);
+        if (cached != null) {
+            if (globalState.getOptions().debugLogs()) {
+                System.out.println("Learner cache hit for " + description);
             }
-
-        } catch (Exception e) {
-            // TODO: handle exception
-            e.printStackTrace();
-            return null;
+            return CompletableFuture.completedFuture(cached);
         }
+        if (cache.getMode() == GeneralLearnerCache.Mode.REPLAY) {
+            System.err.println("No cached response for " + description + " in replay mode");
+            return CompletableFuture.completedFuture(defaultValue);
+        }
+        return compute.get().handle((response, e) -> {
+            if (e != null) {
+                System.err.println("Learner request for " + description + " failed: " + e.getMessage());
+                return defaultValue;
+            }
+            if (response != null) {
+                cache.put(key, response);
+            }
+            return response;
+        });
     }
 
-    private String getDialectFromReference(String reference) {
-        String response = "";
+    private CompletableFuture<String> retrieveSummarization() {
+        // assume that the python environment is set up
+        List<String> command = Arrays.asList("python3", "src/chat.py", "--dbms", globalState.getDbmsNameForLearning(),
+                "--feature", feature.toString(), "--topic", topic, "--learn");
+        String key = GeneralLearnerCache.getKey("summarization", globalState.getDbmsNameForLearning(),
+                feature.toString(), topic);
+        return getCached(key, "summarization of " + topic, null, () -> {
+            System.out.println("Execute " + command);
+            return GeneralLLMClient.run(command);
+        });
+    }
+
+    private CompletableFuture<String> getDialectFromReference(String reference) {
         String model = "gpt-4o";
         String system = systemPrompt;
         StringBuilder sb = new StringBuilder();
@@ -174,60 +188,8 @@ public class GeneralTemplateLearner implements FeatureLearner {
             System.out.println("User prompt:");
             System.out.println(user);
         }
-        try {
-            response = getChatGPTResponse(model, system, user);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        try {
-            response = parseAndGetGPTContent(response);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return response;
-    }
-
-    private String getChatGPTResponse(String model, String system, String user) throws IOException {
-        if (apiKey == null) {
-            System.err.println("OPENAI_API_KEY environment variable not set");
-            return "";
-        }
-        OkHttpClient client = new OkHttpClient.Builder().connectTimeout(60, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS).build();
-
-        JSONObject json = new JSONObject();
-
-        json.put("model", model);
-
-        // manage the messages
-        JSONArray messages = new JSONArray();
-
-        JSONObject message1 = new JSONObject();
-        message1.put("role", "system");
-        message1.put("content", system);
-
-        JSONObject message2 = new JSONObject();
-        message2.put("role", "user");
-        message2.put("content", user);
-        messages.put(message1);
-        messages.put(message2);
-
-        json.put("messages", messages);
-
-        RequestBody body = RequestBody.create(json.toString(), MediaType.parse("application/json; charset=utf-8"));
-
-        Request request = new Request.Builder().url(CHAT_URL).post(body).addHeader("Content-Type", "application/json")
-                .addHeader("Authorization", "Bearer " + apiKey).build();
-        Response response = client.newCall(request).execute();
-        return response.body().string();
-    }
-
-    private String parseAndGetGPTContent(String response) {
-        JSONObject json = new JSONObject(response);
-        JSONArray choices = json.getJSONArray("choices");
-        JSONObject choice = choices.getJSONObject(0);
-        JSONObject message = choice.getJSONObject("message");
-        return message.getString("content");
+        String key = GeneralLearnerCache.getKey("chat", model, system, user, globalState.getDbmsNameForLearning());
+        return getCached(key, "dialect of " + topic, "", () -> GeneralLLMClient.chat(model, system, user));
     }
 
     public String getFragments() {
@@ -1,5 +1,6 @@
 package sqlancer.general.oracle;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -20,6 +21,8 @@ import sqlancer.common.ast.newast.TableReferenceNode;
 import sqlancer.common.gen.ExpressionGenerator;
 import sqlancer.common.oracle.NoRECBase;
 import sqlancer.common.oracle.TestOracle;
+import sqlancer.common.query.SQLParameterizer;
+import sqlancer.common.query.SQLParameterizer.ParameterizedQuery;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.common.query.SQLancerResultSet;
 import sqlancer.general.GeneralErrorHandler.GeneratorNode;
@@ -85,11 +88,14 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
 
                 // first count
                 int firstCount = 0;
-                try (Statement stat = globalState.getConnection().createStatement()) {
+                try {
+                    Statement stat = globalState.getConnection().borrowStatement();
                     try (ResultSet rs = stat.executeQuery(firstQueryString)) {
                         while (rs.next()) {
                             firstCount++;
                         }
+                    } finally {
+                        globalState.getConnection().releaseStatement(stat);
                     }
                 } catch (SQLException e) {
                     throw new IgnoreMeException();
@@ -142,11 +148,16 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
         }
         optimizedQueryString = GeneralToStringVisitor.asString(optimizedSelect);
 
-        try (Statement stat = con.createStatement()) {
-            if (options.logEachSelect()) {
-                logger.writeCurrent(optimizedQueryString);
+        try {
+            Statement stat = con.borrowStatement();
+            try {
+                if (options.logEachSelect()) {
+                    logger.writeCurrent(optimizedQueryString);
+                }
+                stat.executeQuery(optimizedQueryString);
+            } finally {
+                con.releaseStatement(stat);
             }
-            stat.executeQuery(optimizedQueryString);
         } catch (SQLException e) {
             Main.nrUnsuccessfulActions.addAndGet(1);
             state.getHandler().appendScoreToTable(false, true);
@@ -173,9 +184,15 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
         List<TableReferenceNode<GeneralExpression, GeneralTable>> tableList = tables.stream()
                 .map(t -> new TableReferenceNode<GeneralExpression, GeneralTable>(t)).collect(Collectors.toList());
         List<Node<GeneralExpression>> joins = GeneralJoin.getJoins(tableList, state);
+        // the predicate and the tables are shared by both queries, so they are rendered once
+        GeneralToStringVisitor.Segments segments = new GeneralToStringVisitor.Segments();
+        segments.add(randomWhereCondition);
+        segments.addAll(tableList);
+        segments.addAll(joins);
 
-        int secondCount = getSecondQuery(tableList.stream().collect(Collectors.toList()), randomWhereCondition, joins);
-        int firstCount = getFirstQueryCount(con, tableList.stream().collect(Collectors.toList()), columns,
+        int secondCount = getSecondQuery(segments, tableList.stream().collect(Collectors.toList()),
+                randomWhereCondition, joins);
+        int firstCount = getFirstQueryCount(con, segments, tableList.stream().collect(Collectors.toList()), columns,
                 randomWhereCondition, joins);
         if (firstCount == -1 || secondCount == -1) {
             state.getHandler().appendScoreToTable(false, true);
@@ -191,8 +208,8 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
         state.getHandler().appendScoreToTable(true, true, optimizedQueryString);
     }
 
-    private int getSecondQuery(List<Node<GeneralExpression>> tableList, Node<GeneralExpression> randomWhereCondition,
-            List<Node<GeneralExpression>> joins) throws SQLException {
+    private int getSecondQuery(GeneralToStringVisitor.Segments segments, List<Node<GeneralExpression>> tableList,
+            Node<GeneralExpression> randomWhereCondition, List<Node<GeneralExpression>> joins) throws SQLException {
         GeneralSelect select = new GeneralSelect();
         // select.setGroupByClause(groupBys);
         // GeneralExpression isTrue =
@@ -204,9 +221,9 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
         // select.setSelectType(SelectType.ALL);
         select.setJoinList(joins);
         int secondCount = 0;
-        unoptimizedQueryString = GeneralToStringVisitor.asString(select);
+        unoptimizedQueryString = segments.asString(select);
         // errors.add("canceling statement due to statement timeout");
-        SQLQueryAdapter q = new SQLQueryAdapter(unoptimizedQueryString, errors);
+        SQLQueryAdapter q = new SQLQueryAdapter(unoptimizedQueryString, errors).withBoundConstants(options);
         SQLancerResultSet rs;
         try {
             rs = q.executeAndGetLogged(state);
@@ -231,9 +248,9 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
         return secondCount;
     }
 
-    private int getFirstQueryCount(SQLConnection con, List<Node<GeneralExpression>> tableList,
-            List<GeneralColumn> columns, Node<GeneralExpression> randomWhereCondition,
-            List<Node<GeneralExpression>> joins) throws SQLException {
+    private int getFirstQueryCount(SQLConnection con, GeneralToStringVisitor.Segments segments,
+            List<Node<GeneralExpression>> tableList, List<GeneralColumn> columns,
+            Node<GeneralExpression> randomWhereCondition, List<Node<GeneralExpression>> joins) throws SQLException {
         optimizedSelect = new GeneralSelect();
         // select.setGroupByClause(groupBys);
         // GeneralAggregate aggr = new GeneralAggregate(
@@ -255,15 +272,37 @@ public class GeneralNoRECOracle extends NoRECBase<GeneralGlobalState> implements
             optimizedSelect.setOrderByExpressions(new
                      GeneralExpressionGenerator(state).setColumns(columns).generateOrderBys());
         }
-        optimizedQueryString = GeneralToStringVisitor.asString(optimizedSelect);
+        optimizedQueryString = segments.asString(optimizedSelect);
         int firstCount = 0;
-        try (Statement stat = con.createStatement()) {
+        try {
             if (options.logEachSelect()) {
                 logger.writeCurrent(optimizedQueryString);
             }
-            try (ResultSet rs = stat.executeQuery(optimizedQueryString)) {
-                while (rs.next()) {
-                    firstCount++;
+            // the constants are bound like those of the unoptimized query, so that both queries type them the same way
+            ParameterizedQuery parameterized = options.bindConstants()
+                    ? SQLParameterizer.parameterize(optimizedQueryString) : null;
+            if (parameterized == null || parameterized.getParameters().isEmpty()) {
+                Statement stat = con.borrowStatement();
+                try (ResultSet rs = stat.executeQuery(optimizedQueryString)) {
+                    while (rs.next()) {
+                        firstCount++;
+                    }
+                } finally {
+                    con.releaseStatement(stat);
+                }
+            } else {
+                PreparedStatement stat = con.borrowPreparedStatement(parameterized.getTemplate());
+                boolean success = false;
+                try {
+                    parameterized.bind(stat);
+                    try (ResultSet rs = stat.executeQuery()) {
+                        while (rs.next()) {
+                            firstCount++;
+                        }
+                    }
+                    success = true;
+                } finally {
+                    con.releasePreparedStatement(parameterized.getTemplate(), stat, success);
                 }
             }
         } catch (SQLException e) {
@@ -7,6 +7,7 @@ import java.util.List;
 import sqlancer.ComparatorHelper;
 import sqlancer.Randomly;
 import sqlancer.Reproducer;
+import sqlancer.ResultSetFingerprint;
 import sqlancer.general.GeneralErrors;
 import sqlancer.general.GeneralProvider.GeneralGlobalState;
 import sqlancer.general.GeneralToStringVisitor;
@@ -65,10 +66,17 @@ public class GeneralQueryPartitioningWhere extends GeneralQueryPartitioningBase
         reproducer = null;
         super.check();
         select.setWhereClause(null);
-        String originalQueryString = GeneralToStringVisitor.asString(select);
-        List<String> resultSet;
+        // the queries only differ in their WHERE and ORDER BY clauses, so their other clauses are rendered once
+        GeneralToStringVisitor.Segments segments = new GeneralToStringVisitor.Segments();
+        segments.addAll(select.getFetchColumns());
+        segments.addAll(select.getFromList());
+        segments.addAll(select.getJoinList());
+        segments.add(predicate);
+        String originalQueryString = segments.asString(select);
+        ResultSetFingerprint resultSet;
         try {
-            resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
+            resultSet = ComparatorHelper.getResultSetFirstColumnFingerprint(originalQueryString, errors, state,
+                    ComparatorHelper::canonicalizeResultValue);
         } catch (Exception e) {
             if (select.getJoinList().size() == 0 && select.getFromList().size() <= 2) {
                 e.printStackTrace();
@@ -87,24 +95,25 @@ public class GeneralQueryPartitioningWhere extends GeneralQueryPartitioningBase
             select.setOrderByExpressions(gen.generateOrderBys());
         }
         select.setWhereClause(predicate);
-        String firstQueryString = GeneralToStringVisitor.asString(select);
+        String firstQueryString = segments.asString(select);
         select.setWhereClause(negatedPredicate);
-        String secondQueryString = GeneralToStringVisitor.asString(select);
+        String secondQueryString = segments.asString(select);
         select.setWhereClause(isNullPredicate);
-        String thirdQueryString = GeneralToStringVisitor.asString(select);
+        String thirdQueryString = segments.asString(select);
         List<String> combinedString = new ArrayList<>();
 
-        List<String> secondResultSet;
+        ResultSetFingerprint secondResultSet;
         try {
-            secondResultSet = ComparatorHelper.getCombinedResultSet(firstQueryString, secondQueryString,
-                    thirdQueryString, combinedString, !orderBy, state, errors);
+            secondResultSet = ComparatorHelper.getCombinedResultSetFingerprint(firstQueryString, secondQueryString,
+                    thirdQueryString, combinedString, !orderBy, state, errors,
+                    ComparatorHelper::canonicalizeResultValue);
         } catch (Exception e) {
             state.getHandler().appendScoreToTable(false, true);
             throw e;
         }
         try {
             ComparatorHelper.assumeResultSetsAreEqual(resultSet, secondResultSet, originalQueryString, combinedString,
-                    state, ComparatorHelper::canonicalizeResultValue);
+                    state, ComparatorHelper::canonicalizeResultValue, errors);
         } catch (AssertionError e) {
             // TODO we need to give some information to the handler here
             // state.getHandler().printStatistics();
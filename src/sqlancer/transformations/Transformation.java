@@ -11,8 +11,8 @@ import java.util.function.Supplier;
  */
 public class Transformation {
 
-    private static Supplier<Boolean> bugJudgement;
-    private static long reduceSteps;
+    private Supplier<Boolean> bugJudgement;
+    private long reduceSteps;
 
     protected boolean isChanged;
     protected String current;
@@ -28,7 +28,7 @@ public class Transformation {
     protected Transformation() {
     }
 
-    public static void setBugJudgement(Supplier<Boolean> judgement) {
+    public void setBugJudgement(Supplier<Boolean> judgement) {
         bugJudgement = judgement;
     }
 
@@ -94,7 +94,7 @@ public class Transformation {
 
     public boolean bugStillTriggers() {
         try {
-            return Transformation.bugJudgement.get();
+            return bugJudgement.get();
         } catch (Exception ignored) {
         }
         return false;
@@ -108,7 +108,7 @@ public class Transformation {
         return isChanged;
     }
 
-    public static long getReduceSteps() {
+    public long getReduceSteps() {
         return reduceSteps;
     }
 
@@ -0,0 +1,40 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestAliasSampler {
+
+    private static final int NR_RUNS = 100000;
+
+    @Test
+    public void testProportions() {
+        new Randomly(42);
+        List<String> items = List.of("a", "b", "c", "d");
+        double[] weights = { 1, 3, 0, 6 };
+        AliasSampler<String> sampler = AliasSampler.create(items, s -> weights[items.indexOf(s)], 0);
+        assertEquals(3, sampler.size());
+        int[] counts = new int[items.size()];
+        for (int i = 0; i < NR_RUNS; i++) {
+            counts[items.indexOf(sampler.sample())]++;
+        }
+        assertEquals(0, counts[2]);
+        assertEquals(0.1, (double) counts[0] / NR_RUNS, 0.01);
+        assertEquals(0.3, (double) counts[1] / NR_RUNS, 0.01);
+        assertEquals(0.6, (double) counts[3] / NR_RUNS, 0.01);
+    }
+
+    @Test
+    public void testEmpty() {
+        AliasSampler<String> sampler = AliasSampler.create(List.of("a", "b"), s -> 0, 7);
+        assertTrue(sampler.isEmpty());
+        assertEquals(7, sampler.getStamp());
+        assertThrows(IllegalStateException.class, sampler::sample);
+    }
+
+}
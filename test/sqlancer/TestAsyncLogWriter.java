@@ -0,0 +1,101 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sqlancer.common.log.AsyncLogWriter;
+import sqlancer.common.log.AsyncLogWriter.Compression;
+import sqlancer.common.log.AsyncLogWriter.FlushPolicy;
+
+public class TestAsyncLogWriter {
+
+    @TempDir
+    Path dir;
+
+    private static String read(File file) throws IOException {
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testOnBugOnlyWritesWhenSynced() throws IOException {
+        File file = dir.resolve("db0-cur.log").toFile();
+        try (AsyncLogWriter writer = new AsyncLogWriter(file, false, Compression.NONE, FlushPolicy.ON_BUG, 1000,
+                1 << 16)) {
+            writer.write("SELECT 1;\n");
+            writer.append("SELECT 2;\n").append('-');
+            assertEquals("", read(file));
+            writer.sync();
+            assertEquals("SELECT 1;\nSELECT 2;\n-", read(file));
+        }
+    }
+
+    @Test
+    public void testEveryWrite() throws IOException {
+        File file = dir.resolve("db0-cur.log").toFile();
+        try (AsyncLogWriter writer = new AsyncLogWriter(file, false, Compression.NONE, FlushPolicy.EVERY_WRITE, 1000,
+                1 << 16)) {
+            writer.write("SELECT 1;\n");
+            assertEquals("SELECT 1;\n", read(file));
+        }
+    }
+
+    @Test
+    public void testBufferIsBounded() throws IOException {
+        File file = dir.resolve("db0-cur.log").toFile();
+        try (AsyncLogWriter writer = new AsyncLogWriter(file, false, Compression.NONE, FlushPolicy.ON_BUG, 1000, 4)) {
+            writer.write("0123456789abcdef");
+            writer.write("0123");
+            writer.flush();
+            assertEquals("0123456789abcdef0123", read(file));
+        }
+    }
+
+    @Test
+    public void testCloseWritesEverything() throws IOException {
+        File file = dir.resolve("db0-plan.log").toFile();
+        StringBuilder expected = new StringBuilder();
+        try (AsyncLogWriter writer = new AsyncLogWriter(file, true, Compression.NONE, FlushPolicy.SIZE, 1000, 64)) {
+            for (int i = 0; i < 1000; i++) {
+                String line = "SELECT " + i + ";\n";
+                writer.write(line);
+                expected.append(line);
+            }
+        }
+        assertEquals(expected.toString(), read(file));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        File file = dir.resolve("db0-cur.log").toFile();
+        try (AsyncLogWriter writer = new AsyncLogWriter(file, false, Compression.GZIP, FlushPolicy.INTERVAL, 10,
+                1 << 16)) {
+            writer.write("CREATE TABLE t0(c0 INT);\n");
+        }
+        File compressed = dir.resolve("db0-cur.log.gz").toFile();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(compressed))) {
+            assertEquals("CREATE TABLE t0(c0 INT);\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        File file = dir.resolve("db0-cur.log").toFile();
+        AsyncLogWriter writer = new AsyncLogWriter(file, false, Compression.NONE, FlushPolicy.INTERVAL, 1000, 1 << 16);
+        writer.close();
+        writer.close();
+        assertThrows(IOException.class, () -> writer.write("SELECT 1;"));
+    }
+
+}
@@ -0,0 +1,20 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class TestComparatorHelper {
+
+    @Test
+    public void testRemoveTrailingZerosMatchesRegex() {
+        String[] values = { "", "0", "00", ".0", "0.0", "1.0", "1.000", "1.50", "1.05", "10", "100", "1.", "-0.0",
+                "1e10", "1.0.0", "abc.00", "0.", "." };
+        for (String value : values) {
+            assertEquals(value.replaceAll("[\\.]0+$", ""), ComparatorHelper.removeTrailingZeros(value), value);
+        }
+        assertNull(ComparatorHelper.removeTrailingZeros(null));
+    }
+
+}
@@ -0,0 +1,75 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TestDatabaseTaskScheduler {
+
+    private static final int NR_TRIES = 5;
+    private static final int NR_DATABASES = 20;
+    private static final int MAX_CONNECTIONS = 3;
+
+    @Test
+    public void testAllDatabasesRunWithinConnectionLimit() throws InterruptedException {
+        ExecutorService executor = DatabaseTaskScheduler
+                .createExecutorService(DatabaseTaskScheduler.ExecutorMode.WORK_STEALING, MAX_CONNECTIONS);
+        Set<Long> seeds = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger finishedTries = new AtomicInteger();
+        new DatabaseTaskScheduler(executor, MAX_CONNECTIONS, NR_TRIES, NR_DATABASES, 1000,
+                (tryIndex, database, seed) -> {
+                    int nowRunning = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(nowRunning, Math::max);
+                    assertTrue(seeds.add(seed));
+                    running.decrementAndGet();
+                    return true;
+                }, finishedTries::incrementAndGet).start();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(NR_TRIES, finishedTries.get());
+        assertTrue(maxRunning.get() <= MAX_CONNECTIONS);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < NR_TRIES; i++) {
+            for (int j = 0; j < NR_DATABASES; j++) {
+                expected.add(DatabaseTaskScheduler.getSeed(1000, NR_TRIES, i, j));
+            }
+        }
+        assertEquals(expected, seeds);
+        // the first database of a try gets the seed of the try
+        assertEquals(1003, DatabaseTaskScheduler.getSeed(1000, NR_TRIES, 3, 0));
+    }
+
+    @Test
+    public void testStuckDatabaseDoesNotBlockOtherTries() throws InterruptedException {
+        ExecutorService executor = DatabaseTaskScheduler
+                .createExecutorService(DatabaseTaskScheduler.ExecutorMode.VIRTUAL, 2);
+        CountDownLatch othersFinished = new CountDownLatch(NR_TRIES - 1);
+        AtomicInteger nrDatabases = new AtomicInteger();
+        new DatabaseTaskScheduler(executor, 2, NR_TRIES, NR_DATABASES, 0, (tryIndex, database, seed) -> {
+            if (tryIndex == 0) {
+                // stuck until all other tries have finished
+                try {
+                    othersFinished.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+            nrDatabases.incrementAndGet();
+            return true;
+        }, othersFinished::countDown).start();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals((NR_TRIES - 1) * NR_DATABASES, nrDatabases.get());
+    }
+
+}
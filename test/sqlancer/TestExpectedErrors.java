@@ -2,7 +2,9 @@ package sqlancer;
 
 import java.util.regex.Pattern;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
@@ -60,4 +62,41 @@ public class TestExpectedErrors {
         assertTrue(errors.errorIsExpected("PRIMARY KEY constraint was violated!"));
     }
 
+    @Test
+    public void testMatchingError() {
+        ExpectedErrors errors = new ExpectedErrors();
+        errors.add("division by zero");
+        errors.add("overflow");
+        errors.add("flow");
+        errors.addRegex(Pattern.compile("value .* out of range"));
+        errors.addRegex(Pattern.compile("CANNOT CAST.*", Pattern.CASE_INSENSITIVE));
+        errors.addRegex(Pattern.compile("(a)\\1 repeated"));
+        assertEquals("division by zero", errors.getMatchingError("ERROR: division by zero"));
+        assertEquals("flow", errors.getMatchingError("integer underflow"));
+        assertEquals("value .* out of range", errors.getMatchingError("value 3 out of range"));
+        assertEquals("CANNOT CAST.*", errors.getMatchingError("cannot cast 'a' to INT"));
+        assertEquals("(a)\\1 repeated", errors.getMatchingError("aa repeated"));
+        assertNull(errors.getMatchingError("value 3 is outside the range"));
+        // the expected errors can be extended after they have been matched
+        errors.add("outside");
+        assertEquals("outside", errors.getMatchingError("value 3 is outside the range"));
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        ExpectedErrors errors = new ExpectedErrors();
+        assertEquals("syntax", errors.getMatchingError("You have an error in your SQL Syntax"));
+        assertEquals("syntax", errors.getMatchingError("SYNTAX ERROR"));
+        assertFalse(errors.errorIsExpected("syntactic"));
+    }
+
+    @Test
+    public void testMatchAllIsTriedLast() {
+        ExpectedErrors errors = new ExpectedErrors();
+        errors.addRegex(Pattern.compile(".*", Pattern.DOTALL));
+        errors.addRegex(Pattern.compile("no such .*"));
+        assertEquals("no such .*", errors.getMatchingError("no such table: t0"));
+        assertEquals(".*", errors.getMatchingError("any\nerror"));
+    }
+
 }
@@ -0,0 +1,77 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TestMetrics {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, Metrics.getBucket(0));
+        assertEquals(1, Metrics.getBucket(1));
+        assertEquals(2, Metrics.getBucket(3));
+        assertEquals(11, Metrics.getBucket(1024));
+        assertEquals(Metrics.NR_BUCKETS - 1, Metrics.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        long countBefore = Metrics.getCount(Metrics.Phase.REDUCTION);
+        Metrics.record(Metrics.Phase.REDUCTION, Metrics.start());
+        Metrics.increment("testdbms", Metrics.Counter.STATEMENTS);
+        Metrics.increment("testdbms", Metrics.Counter.STATEMENTS);
+        assertEquals(countBefore + 1, Metrics.getCount(Metrics.Phase.REDUCTION));
+        assertEquals(2, Metrics.getCount("testdbms", Metrics.Counter.STATEMENTS));
+
+        StringWriter writer = new StringWriter();
+        Metrics.writePrometheus(writer);
+        String text = writer.toString();
+        String infBucket = "sqlancer_phase_seconds_bucket{phase=\"reduction\",le=\"+Inf\"} ";
+        assertTrue(text.contains(infBucket + (countBefore + 1)));
+        assertTrue(text.contains("sqlancer_phase_seconds_count{phase=\"reduction\"} " + (countBefore + 1)));
+        assertTrue(text.contains("sqlancer_statements_total{dbms=\"testdbms\"} 2"));
+
+        Path file = Files.createTempFile("metrics", ".json");
+        try {
+            Metrics.writeSnapshot(file, Metrics.Format.JSON);
+            JSONObject json = new JSONObject(Files.readString(file));
+            assertEquals(countBefore + 1, json.getJSONObject("phases").getJSONObject("reduction").getLong("count"));
+            assertEquals(2, json.getJSONObject("counters").getJSONObject("testdbms").getLong("statements"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testFlightRecorderEvent() throws IOException {
+        Path file = Files.createTempFile("metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sqlancer.Phase");
+            recording.start();
+            Metrics.record(Metrics.Phase.LLM_CALL, Metrics.start());
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("sqlancer.Phase")).collect(Collectors.toList());
+            assertEquals(1, events.size());
+            assertEquals("llm_call", events.get(0).getString("phase"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TestQueryPlanPool {
+
+    @Test
+    public void testNormalize() {
+        String plan = "SCAN t12 USING INDEX i3 (v10 count7 t)";
+        String expected = plan.replaceAll("t[0-9]+", "t0").replaceAll("v[0-9]+", "v0").replaceAll("i[0-9]+", "i0");
+        assertEquals(expected, QueryPlanPool.normalize(plan));
+        assertEquals(QueryPlanPool.getFingerprint(expected), QueryPlanPool.getFingerprint(plan));
+        assertNotEquals(QueryPlanPool.getFingerprint("SCAN t0"), QueryPlanPool.getFingerprint("SEARCH t0"));
+    }
+
+    @Test
+    public void testAdd() {
+        QueryPlanPool pool = new QueryPlanPool();
+        assertTrue(pool.add("SCAN t0", "SELECT * FROM t0"));
+        // plans that only differ in the tables are the same
+        assertFalse(pool.add("SCAN t1", "SELECT * FROM t1"));
+        assertTrue(pool.add("SEARCH t0 USING INDEX i0", "SELECT * FROM t0 WHERE c0 = 1"));
+        assertEquals(2, pool.size());
+        assertTrue(pool.containsPlan("SCAN t5"));
+    }
+
+    @Test
+    public void testCheckAfterMutation() throws Exception {
+        QueryPlanPool pool = new QueryPlanPool();
+        Map<String, String> plans = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            plans.put("q" + i, "PLAN " + i);
+            pool.add("PLAN " + i, "q" + i);
+        }
+        List<String> checked = new ArrayList<>();
+        QueryPlanPool.QueryPlanProvider provider = query -> {
+            checked.add(query);
+            return plans.get(query);
+        };
+        plans.put("q0", "NEW PLAN 0");
+        plans.put("q1", "");
+        QueryPlanPool.CheckResult result = pool.checkAfterMutation(provider, 2);
+        assertEquals(List.of("q0", "q1"), checked);
+        assertEquals(2, result.getNrChecked());
+        assertEquals(1, result.getNrNewPlans());
+        assertEquals(0.5, result.getReward());
+        // the invalid query has been removed
+        assertEquals(3, pool.size());
+        assertTrue(pool.containsPlan("NEW PLAN 0"));
+        assertFalse(pool.containsPlan("PLAN 0"));
+
+        // the queries that have been unchecked longest are checked next
+        checked.clear();
+        plans.put("q3", "PLAN 2");
+        result = pool.checkAfterMutation(provider, 2);
+        assertEquals(List.of("q2", "q3"), checked);
+        assertEquals(0, result.getNrNewPlans());
+        // the query whose plan changed to one that the pool contains has been removed
+        assertEquals(2, pool.size());
+        checked.clear();
+        pool.checkAfterMutation(provider, -1);
+        assertEquals(List.of("q0", "q2"), checked);
+    }
+
+}
@@ -1,5 +1,6 @@
 package sqlancer;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -10,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -234,4 +236,58 @@ public class TestRandomly {
         return values;
     }
 
+    @Test // check that every engine is deterministic for a given seed and respects the bounds of its draws
+    public void testEngines() {
+        for (RandomEngine.Kind kind : RandomEngine.Kind.values()) {
+            RandomEngine first = kind.create(123);
+            RandomEngine second = kind.create(123);
+            for (int i = 0; i < NR_MIN_RUNS; i++) {
+                long val = first.nextLong(-1, Long.MAX_VALUE);
+                assertEquals(val, second.nextLong(-1, Long.MAX_VALUE));
+                assertTrue(val >= -1);
+                assertTrue(val < Long.MAX_VALUE);
+                long wide = first.nextLong(Long.MIN_VALUE, Long.MAX_VALUE);
+                assertEquals(wide, second.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+                assertTrue(wide < Long.MAX_VALUE);
+                int small = first.nextInt(3, 7);
+                assertEquals(small, second.nextInt(3, 7));
+                assertTrue(small >= 3 && small < 7);
+            }
+            assertThrows(IllegalArgumentException.class, () -> first.nextLong(5, 5));
+        }
+    }
+
+    @Test
+    public void testEngineBulkFill() {
+        RandomEngine engine = RandomEngine.Kind.XOSHIRO256.create(42);
+        byte[] bytes = new byte[13];
+        engine.nextBytes(bytes);
+        String s = engine.nextString("ab", 20);
+        assertEquals(20, s.length());
+        assertTrue(s.chars().allMatch(c -> c == 'a' || c == 'b'));
+    }
+
+    @Test // the legacy engine draws the same values as java.util.Random, which Randomly used before the engines
+    public void testLegacyEngineMatchesRandom() {
+        RandomEngine engine = RandomEngine.Kind.LEGACY.create(123);
+        Random random = new Random(123);
+        for (int i = 0; i < NR_MIN_RUNS; i++) {
+            assertEquals(random.longs(-5, 1000).findFirst().getAsLong(), engine.nextLong(-5, 1000));
+            assertEquals(random.longs(0, Long.MAX_VALUE).findFirst().getAsLong(), engine.nextLong(0, Long.MAX_VALUE));
+            assertEquals(random.longs(Long.MIN_VALUE, Long.MAX_VALUE).findFirst().getAsLong(),
+                    engine.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+            assertEquals(random.nextInt(100), engine.nextInt(100));
+            assertEquals(random.nextInt(), engine.nextInt());
+            assertEquals(random.nextLong(), engine.nextLong());
+            assertEquals(random.nextBoolean(), engine.nextBoolean());
+            assertEquals(random.nextDouble(), engine.nextDouble());
+            assertEquals(random.nextGaussian(), engine.nextGaussian());
+        }
+        byte[] expected = new byte[13];
+        random.nextBytes(expected);
+        byte[] actual = new byte[13];
+        engine.nextBytes(actual);
+        assertArrayEquals(expected, actual);
+    }
+
 }
@@ -0,0 +1,48 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class TestResultSetFingerprint {
+
+    private static ResultSetFingerprint of(String... values) {
+        ResultSetFingerprint fingerprint = new ResultSetFingerprint();
+        for (String value : values) {
+            fingerprint.add(value);
+        }
+        return fingerprint;
+    }
+
+    @Test
+    public void testOrderInsensitive() {
+        assertEquals(of("a", "b", null, "c"), of("c", null, "a", "b"));
+        assertEquals(of(), of());
+    }
+
+    @Test
+    public void testDuplicates() {
+        assertNotEquals(of("a", "a", "b"), of("a", "b", "b"));
+        assertNotEquals(of("a", "a"), of("a"));
+        assertNotEquals(of("a", "b"), of("a", "b", "a", "b"));
+    }
+
+    @Test
+    public void testDistinguishesValues() {
+        assertNotEquals(of("ab"), of("ba"));
+        assertNotEquals(of("1"), of("1 "));
+        assertNotEquals(of((String) null), of("NULL"));
+        assertNotEquals(of(""), of((String) null));
+        assertNotEquals(of("ab", "c"), of("a", "bc"));
+    }
+
+    @Test
+    public void testAddAll() {
+        ResultSetFingerprint combined = of("a", null);
+        combined.addAll(of("b", "a"));
+        assertEquals(of("a", "a", "b", null), combined);
+        assertEquals(4, combined.getCount());
+    }
+
+}
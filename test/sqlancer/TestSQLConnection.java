@@ -0,0 +1,64 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+
+public class TestSQLConnection {
+
+    private static SQLConnection connect(int statementCacheSize) throws SQLException {
+        return new SQLConnection(DriverManager.getConnection("jdbc:h2:mem:"), statementCacheSize);
+    }
+
+    @Test
+    public void testStatementsAreReused() throws SQLException {
+        try (SQLConnection con = connect(SQLConnection.DEFAULT_STATEMENT_CACHE_SIZE)) {
+            Statement first = con.borrowStatement();
+            ResultSet rs = first.executeQuery("SELECT 1");
+            // a borrowed statement is not handed out again before it is released
+            Statement second = con.borrowStatement();
+            assertNotSame(first, second);
+            assertTrue(rs.next());
+            con.releaseStatement(second);
+            con.releaseStatement(first);
+            assertSame(first, con.borrowStatement());
+        }
+    }
+
+    @Test
+    public void testPreparedStatementCache() throws SQLException {
+        try (SQLConnection con = connect(2)) {
+            PreparedStatement p1 = con.borrowPreparedStatement("SELECT ?");
+            con.releasePreparedStatement("SELECT ?", p1, true);
+            assertSame(p1, con.borrowPreparedStatement("SELECT ?"));
+            con.releasePreparedStatement("SELECT ?", p1, true);
+            for (String query : new String[] { "SELECT ? + 1", "SELECT ? + 2" }) {
+                con.releasePreparedStatement(query, con.borrowPreparedStatement(query), true);
+            }
+            // the least recently used statement is evicted
+            assertEquals(2, con.getNrCachedPreparedStatements());
+            assertTrue(p1.isClosed());
+            PreparedStatement failed = con.borrowPreparedStatement("SELECT ? + 1");
+            con.releasePreparedStatement("SELECT ? + 1", failed, false);
+            assertTrue(failed.isClosed());
+            assertEquals(1, con.getNrCachedPreparedStatements());
+            PreparedStatement cached = con.borrowPreparedStatement("SELECT ? + 2");
+            con.releasePreparedStatement("SELECT ? + 2", cached, true);
+            con.invalidatePreparedStatements();
+            assertTrue(cached.isClosed());
+            assertEquals(0, con.getNrCachedPreparedStatements());
+            assertFalse(con.borrowPreparedStatement("SELECT ?").isClosed());
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TestSQLConnectionPool {
+
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+    private static final List<String> RESET = List.of("SET @V = NULL");
+
+    private final List<Connection> physicalConnections = new ArrayList<>();
+    private final SQLConnectionPool pool = new SQLConnectionPool(url -> {
+        Connection connection = DriverManager.getConnection(url);
+        physicalConnections.add(connection);
+        return connection;
+    });
+
+    @AfterEach
+    public void closeIdle() {
+        pool.closeIdle();
+    }
+
+    private static Object getVariable(Connection connection) throws SQLException {
+        try (Statement s = connection.createStatement(); ResultSet rs = s.executeQuery("SELECT @V")) {
+            rs.next();
+            return rs.getObject(1);
+        }
+    }
+
+    @Test
+    public void testReuseResetsSession() throws SQLException {
+        try (Connection connection = pool.getConnection(URL, "db0", RESET)) {
+            connection.createStatement().execute("SET @V = 1");
+            assertEquals(1, getVariable(connection));
+        }
+        assertEquals(1, pool.getNrIdle());
+        try (Connection connection = pool.getConnection(URL, "db0", RESET)) {
+            assertNull(getVariable(connection));
+        }
+        assertEquals(1, pool.getNrCreated());
+        assertEquals(1, pool.getNrReused());
+        // a connection is not reused for another database
+        try (Connection connection = pool.getConnection(URL, "db1", RESET)) {
+            assertEquals(2, pool.getNrCreated());
+        }
+        assertEquals(2, pool.getNrIdle());
+    }
+
+    @Test
+    public void testCloseReleasesStatements() throws SQLException {
+        Connection connection = pool.getConnection(URL, "db0", RESET);
+        Statement statement = connection.createStatement();
+        connection.close();
+        assertTrue(statement.isClosed());
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+        // closing twice does not return the connection twice
+        connection.close();
+        assertEquals(1, pool.getNrIdle());
+    }
+
+    @Test
+    public void testBrokenConnectionIsDiscarded() throws SQLException {
+        Connection connection = pool.getConnection(URL, "db0", RESET);
+        physicalConnections.get(0).close();
+        connection.close();
+        assertEquals(0, pool.getNrIdle());
+        assertEquals(1, pool.getNrDiscarded());
+        try (Connection newConnection = pool.getConnection(URL, "db0", RESET)) {
+            assertEquals(2, pool.getNrCreated());
+        }
+    }
+
+    @Test
+    public void testUnsupportedResetStatementIsDropped() throws SQLException {
+        List<String> reset = List.of("SET @V = NULL", "SET UNKNOWN_VARIABLE = DEFAULT");
+        try (Connection connection = pool.getConnection(URL, "db0", reset)) {
+            connection.createStatement().execute("SET @V = 1");
+        }
+        try (Connection connection = pool.getConnection(URL, "db0", reset)) {
+            assertNull(getVariable(connection));
+        }
+        assertEquals(1, pool.getNrReused());
+        assertEquals(0, pool.getNrDiscarded());
+    }
+
+    @Test
+    public void testFailedResetIsDiscarded() throws SQLException {
+        // the reset statement succeeds on a new connection, but fails after @W is set to 0
+        List<String> reset = List.of("SET @V = 1 / @W");
+        try (Connection connection = pool.getConnection(URL, "db0", reset)) {
+            connection.createStatement().execute("SET @W = 0");
+        }
+        assertEquals(0, pool.getNrIdle());
+        assertEquals(1, pool.getNrDiscarded());
+        assertTrue(physicalConnections.get(0).isClosed());
+    }
+
+    @Test
+    public void testMaxIdle() throws SQLException {
+        pool.setMaxIdle(1);
+        Connection first = pool.getConnection(URL, "db0", RESET);
+        Connection second = pool.getConnection(URL, "db1", RESET);
+        first.close();
+        second.close();
+        // the connection that has been idle longest is closed
+        assertEquals(1, pool.getNrIdle());
+        assertTrue(physicalConnections.get(0).isClosed());
+        try (Connection connection = pool.getConnection(URL, "db1", RESET)) {
+            assertEquals(1, pool.getNrReused());
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.common.query.SQLParameterizer;
+import sqlancer.common.query.SQLParameterizer.ParameterizedQuery;
+
+public class TestSQLParameterizer {
+
+    private static void assertParameterized(String query, String template, Object... parameters) {
+        ParameterizedQuery parameterized = SQLParameterizer.parameterize(query);
+        assertEquals(template, parameterized.getTemplate());
+        assertEquals(List.of(parameters), parameterized.getParameters());
+    }
+
+    private static void assertUnchanged(String query) {
+        ParameterizedQuery parameterized = SQLParameterizer.parameterize(query);
+        assertEquals(query, parameterized.getTemplate());
+        assertTrue(parameterized.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testOperands() {
+        assertParameterized("SELECT ((t0.c0 > 1) AND (t0.c1 = 'a''b')) IS TRUE FROM t0;",
+                "SELECT ((t0.c0 > ?) AND (t0.c1 = ?)) IS TRUE FROM t0;", 1L, "a'b");
+        assertParameterized("SELECT * FROM t0 WHERE -0.5 < c0 OR c1 IN (2, 'x') LIMIT 10",
+                "SELECT * FROM t0 WHERE -? < c0 OR c1 IN (?, ?) LIMIT 10", new BigDecimal("0.5"), 2L, "x");
+        assertParameterized("SELECT CASE WHEN c0 THEN 1 ELSE 2 END FROM t0",
+                "SELECT CASE WHEN c0 THEN ? ELSE ? END FROM t0", 1L, 2L);
+    }
+
+    private static int count(Connection con, String query, boolean isTrue) throws SQLException {
+        ParameterizedQuery parameterized = SQLParameterizer.parameterize(query);
+        try (PreparedStatement s = con.prepareStatement(parameterized.getTemplate())) {
+            parameterized.bind(s);
+            int count = 0;
+            try (ResultSet rs = s.executeQuery()) {
+                while (rs.next()) {
+                    count += !isTrue || rs.getBoolean(1) ? 1 : 0;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Test
+    public void testNoRECQueriesAreParameterizedAlike() throws SQLException {
+        String predicate = "((t0.c0 + 2) > 2.5) AND (t1.c1 NOT IN ('b', 'c'))";
+        String join = " JOIN t1 ON (t0.c0 = 1)";
+        String unoptimized = "SELECT " + predicate + " IS TRUE FROM t0" + join;
+        String optimized = "SELECT t0.c0 FROM t0" + join + " WHERE " + predicate;
+        String boundPredicate = "((t0.c0 + ?) > ?) AND (t1.c1 NOT IN (?, ?))";
+        assertParameterized(unoptimized, "SELECT " + boundPredicate + " IS TRUE FROM t0 JOIN t1 ON (t0.c0 = ?)", 2L,
+                new BigDecimal("2.5"), "b", "c", 1L);
+        assertParameterized(optimized, "SELECT t0.c0 FROM t0 JOIN t1 ON (t0.c0 = ?) WHERE " + boundPredicate, 1L, 2L,
+                new BigDecimal("2.5"), "b", "c");
+        try (Connection con = DriverManager.getConnection("jdbc:h2:mem:"); Statement s = con.createStatement()) {
+            s.execute("CREATE TABLE t0 (c0 INT)");
+            s.execute("CREATE TABLE t1 (c1 VARCHAR)");
+            s.execute("INSERT INTO t0 VALUES (1), (2)");
+            s.execute("INSERT INTO t1 VALUES ('a'), ('b')");
+            // both queries bind the constants of the predicate with the same types
+            assertEquals(1, count(con, unoptimized, true));
+            assertEquals(count(con, unoptimized, true), count(con, optimized, false));
+        }
+    }
+
+    @Test
+    public void testKeptConstants() {
+        // calls, types, typed literals, positions, and numbers that are part of other tokens
+        assertUnchanged("SELECT SUBSTR(c0, 1, 2), CAST(c1 AS DECIMAL(10, 2)) FROM t0 ORDER BY 1, 2");
+        assertUnchanged("SELECT * FROM t0 WHERE c0 = DATE '2020-01-01' AND c1 > 1e5");
+        assertUnchanged("SELECT \"1\" FROM t0 GROUP BY 1");
+    }
+
+    @Test
+    public void testUnsupportedQueries() {
+        assertUnchanged("SELECT * FROM t0 WHERE c0 = 1 -- comment");
+        assertUnchanged("SELECT * FROM t0 WHERE c0 = 'a\\'b'");
+        assertUnchanged("SELECT * FROM t0 WHERE c0 ? 'key' AND c1 = 1");
+    }
+
+}
@@ -0,0 +1,36 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.common.query.SQLancerResultSet;
+
+public class TestSQLancerResultSet {
+
+    @Test
+    public void testClosedResultSetReleasesStatement() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:resultset");
+                Statement statement = connection.createStatement()) {
+            ResultSet rs = statement.executeQuery("SELECT 1");
+            AtomicInteger nrReleased = new AtomicInteger();
+            SQLancerResultSet result = new SQLancerResultSet(rs, nrReleased::incrementAndGet);
+            rs.close();
+            result.close();
+            assertEquals(1, nrReleased.get());
+            // the statement is released only once
+            result.close();
+            assertEquals(1, nrReleased.get());
+            assertFalse(statement.isClosed());
+        }
+    }
+
+}
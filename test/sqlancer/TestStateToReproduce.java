@@ -0,0 +1,121 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.StateToReproduce.OracleRunReproductionState;
+import sqlancer.common.query.ExpectedErrors;
+import sqlancer.common.query.Query;
+import sqlancer.common.query.SQLQueryAdapter;
+import sqlancer.general.GeneralProvider;
+
+public class TestStateToReproduce {
+
+    private static List<String> getLogStrings(StateToReproduce state) {
+        List<String> logStrings = new ArrayList<>();
+        for (Query<?> statement : state.getStatements()) {
+            logStrings.add(statement.getLogString());
+        }
+        return logStrings;
+    }
+
+    @Test
+    public void testSpill() {
+        try (StateToReproduce state = new StateToReproduce("database0", new GeneralProvider())) {
+            state.setMemoryBudget(1000);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                // includes multi-byte characters and line breaks
+                String statement = "INSERT INTO t0 VALUES (" + i + ", 'ü\n');";
+                expected.add(statement);
+                state.logStatement(new SQLQueryAdapter(statement));
+            }
+            assertTrue(state.getNrSpilledStatements() > 900);
+            assertEquals(expected, getLogStrings(state));
+
+            // logging continues after reading the statements
+            state.logStatement("SELECT 1;");
+            expected.add("SELECT 1;");
+            assertEquals(expected, getLogStrings(state));
+
+            state.setStatements(List.of(new SQLQueryAdapter("SELECT 2;")));
+            assertEquals(0, state.getNrSpilledStatements());
+            assertEquals(List.of("SELECT 2;"), getLogStrings(state));
+        }
+    }
+
+    @Test
+    public void testKeepsNewestStatement() {
+        try (StateToReproduce state = new StateToReproduce("database0", new GeneralProvider())) {
+            state.setMemoryBudget(0);
+            state.logStatement("CREATE TABLE t0 (c0 INT);");
+            state.logStatement("SELECT * FROM t0;");
+            assertEquals(1, state.getNrSpilledStatements());
+            assertEquals(List.of("CREATE TABLE t0 (c0 INT);", "SELECT * FROM t0;"), getLogStrings(state));
+        }
+    }
+
+    @Test
+    public void testLocalState() {
+        try (StateToReproduce state = new StateToReproduce("database0", new GeneralProvider())) {
+            state.setMemoryBudget(0);
+            state.logStatement("CREATE TABLE t0 (c0 INT);");
+            try (OracleRunReproductionState localState = state.createLocalState()) {
+                localState.log("SELECT 1;");
+            }
+            try (OracleRunReproductionState localState = state.createLocalState()) {
+                localState.log("SELECT 2;");
+                localState.executedWithoutError();
+            }
+            assertEquals(List.of("CREATE TABLE t0 (c0 INT);", "SELECT 1;"), getLogStrings(state));
+        }
+    }
+
+    @Test
+    public void testSpilledStatementsKeepExpectedErrors() {
+        try (StateToReproduce state = new StateToReproduce("database0", new GeneralProvider())) {
+            state.setMemoryBudget(0);
+            ExpectedErrors errors = ExpectedErrors.from("division by zero")
+                    .addRegex(Pattern.compile("value .* out of range", Pattern.CASE_INSENSITIVE));
+            state.logStatement(new SQLQueryAdapter("INSERT INTO t0 VALUES (1 / 0);", errors, true));
+            state.logStatement(new SQLQueryAdapter("INSERT INTO t0 VALUES (2 / 0);", errors, false));
+            state.logStatement(new SQLQueryAdapter("SELECT 1;"));
+            state.logStatement(new SQLQueryAdapter("SELECT 2;"));
+            assertEquals(3, state.getNrSpilledStatements());
+            List<Query<?>> statements = state.getStatements();
+            assertTrue(statements.get(0).couldAffectSchema());
+            assertFalse(statements.get(1).couldAffectSchema());
+            for (int i = 0; i < 2; i++) {
+                ExpectedErrors read = statements.get(i).getExpectedErrors();
+                assertTrue(read.errorIsExpected("ERROR: division by zero"));
+                assertTrue(read.errorIsExpected("VALUE 3 OUT OF RANGE"));
+            }
+            assertFalse(statements.get(2).getExpectedErrors().errorIsExpected("division by zero"));
+        }
+    }
+
+    @Test
+    public void testSetStatementsDoesNotSpill() {
+        try (StateToReproduce state = new StateToReproduce("database0", new GeneralProvider())) {
+            state.setMemoryBudget(0);
+            List<Query<?>> statements = List.of(new SQLQueryAdapter("CREATE TABLE t0 (c0 INT);"),
+                    new SQLQueryAdapter("SELECT * FROM t0;"));
+            state.setStatements(statements);
+            assertEquals(0, state.getNrSpilledStatements());
+            assertSame(statements.get(0), state.getStatements().get(0));
+            // statements that are logged afterwards spill again
+            state.logStatement("SELECT 1;");
+            assertEquals(2, state.getNrSpilledStatements());
+            assertEquals(List.of("CREATE TABLE t0 (c0 INT);", "SELECT * FROM t0;", "SELECT 1;"), getLogStrings(state));
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestTouchedEdges {
+
+    @Test
+    public void testCollect() {
+        // not a multiple of the word size, so that the tail is scanned byte by byte
+        int mapSize = 8 * 1000 + 5;
+        ByteBuffer map = ByteBuffer.allocateDirect(mapSize);
+        int[] touched = { 0, 7, 8, 4242, 7999, 8000, mapSize - 1 };
+        for (int edge : touched) {
+            map.put(edge, (byte) (edge % 255 + 1));
+        }
+        map.put(100, (byte) 0xFF);
+        TouchedEdges edges = new TouchedEdges().collect(map, mapSize);
+        assertEquals(touched.length + 1, edges.size());
+        List<Integer> visited = new ArrayList<>();
+        edges.forEach((edge, hitCount) -> {
+            visited.add(edge);
+            assertEquals(edge == 100 ? 255 : edge % 255 + 1, hitCount);
+        });
+        assertEquals(List.of(0, 7, 8, 100, 4242, 7999, 8000, mapSize - 1), visited);
+    }
+
+    @Test
+    public void testReuse() {
+        ByteBuffer map = ByteBuffer.allocate(4096);
+        TouchedEdges edges = new TouchedEdges();
+        for (int i = 0; i < map.capacity(); i++) {
+            map.put(i, (byte) 1);
+        }
+        assertEquals(4096, edges.collect(map, map.capacity()).size());
+        for (int i = 0; i < map.capacity(); i++) {
+            map.put(i, (byte) 0);
+        }
+        assertTrue(edges.collect(map, map.capacity()).isEmpty());
+    }
+
+}
@@ -0,0 +1,59 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.general.gen.LongCounterMap;
+
+public class TestGeneralDecayedCounters {
+
+    private static LongCounterMap score(long... ids) {
+        LongCounterMap score = new LongCounterMap();
+        for (long id : ids) {
+            score.add(id, 1);
+        }
+        return score;
+    }
+
+    @Test
+    public void testWithoutDecay() {
+        GeneralDecayedCounters counters = new GeneralDecayedCounters(1);
+        counters.add(score(0, 2, 2), true);
+        counters.add(score(2), false);
+        counters.add(score(), true);
+        assertEquals(3, counters.size());
+        assertEquals(1, counters.getSuccess(0));
+        assertEquals(1, counters.getCount(0));
+        assertEquals(0, counters.getCount(1));
+        assertEquals(2, counters.getSuccess(2));
+        assertEquals(2, counters.getCount(2));
+        assertEquals(0, counters.getCount(100));
+    }
+
+    @Test
+    public void testDecay() {
+        GeneralDecayedCounters counters = new GeneralDecayedCounters(0.5);
+        counters.add(score(0), true);
+        counters.add(score(0), false);
+        counters.add(score(1), true);
+        assertEquals(0.25, counters.getSuccess(0), 1e-12);
+        assertEquals(0.75, counters.getCount(0), 1e-12);
+        assertEquals(1, counters.getCount(1), 1e-12);
+    }
+
+    @Test
+    public void testRescale() {
+        // the weight of the statements exceeds the range of doubles without rescaling
+        GeneralDecayedCounters counters = new GeneralDecayedCounters(0.9);
+        for (int i = 0; i < 100000; i++) {
+            counters.add(score(i % 2), true);
+        }
+        // the sums converge to the geometric series 1 + 0.81 + 0.81^2 + ... and 0.9 times that
+        assertEquals(1 / (1 - 0.81), counters.getCount(1), 1e-9);
+        assertEquals(0.9 / (1 - 0.81), counters.getSuccess(0), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new GeneralDecayedCounters(0));
+    }
+
+}
@@ -0,0 +1,144 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.general.GeneralOptions.GeneralDatabaseEngineFactory;
+import sqlancer.general.GeneralOptions.SchemaResetMode;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+
+public class TestGeneralSchemaReset {
+
+    private static GeneralGlobalState createState(SchemaResetMode mode) {
+        return createState(GeneralDatabaseEngineFactory.SQLITE, mode, "_");
+    }
+
+    private static GeneralGlobalState createState(GeneralDatabaseEngineFactory engine, SchemaResetMode mode,
+            String dbTableDelim) {
+        GeneralOptions options = new GeneralOptions();
+        options.databaseEngine = engine;
+        options.schemaReset = mode;
+        options.dbTableDelim = dbTableDelim;
+        GeneralGlobalState state = new GeneralGlobalState();
+        state.setDbmsSpecificOptions(options);
+        return state;
+    }
+
+    private static Connection createDatabase() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement s = conn.createStatement()) {
+            s.execute("CREATE TABLE db0_t0 (c0 INT)");
+            s.execute("CREATE TABLE db0_t1 (c0 INT)");
+            s.execute("CREATE VIEW db0_v0 AS SELECT * FROM db0_t0");
+            s.execute("CREATE VIEW db0_v1 AS SELECT * FROM db0_v0");
+            s.execute("CREATE TABLE db1_t0 (c0 INT)");
+            s.execute("CREATE TABLE db0_other (c0 INT)");
+        }
+        return conn;
+    }
+
+    private static Set<String> getH2Objects(Connection conn) throws SQLException {
+        Set<String> names = new TreeSet<>();
+        try (Statement s = conn.createStatement();
+                ResultSet rs = s.executeQuery("SELECT TABLE_SCHEMA || '.' || TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+                        + " WHERE TABLE_SCHEMA <> 'INFORMATION_SCHEMA'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static Set<String> getObjects(Connection conn) throws SQLException {
+        Set<String> names = new TreeSet<>();
+        try (Statement s = conn.createStatement();
+                ResultSet rs = s.executeQuery("SELECT name FROM sqlite_master WHERE type IN ('table', 'view')")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testCatalogDropsOnlyGeneratedObjects() throws SQLException {
+        try (Connection conn = createDatabase()) {
+            new GeneralSchemaReset(createState(SchemaResetMode.CATALOG), conn, "db0_").run();
+            assertEquals(Set.of("db0_other", "db1_t0"), getObjects(conn));
+        }
+    }
+
+    @Test
+    public void testCatalogWithoutDropList() throws SQLException {
+        try (Connection conn = createDatabase()) {
+            new GeneralSchemaReset(createState(SchemaResetMode.CATALOG), conn, "db0_").withoutDropList().run();
+            assertEquals(Set.of("db0_other", "db1_t0"), getObjects(conn));
+        }
+    }
+
+    @Test
+    public void testCatalogWithDelimiter() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement s = conn.createStatement()) {
+                s.execute("CREATE TABLE db0__t0 (c0 INT)");
+                s.execute("CREATE VIEW db0__v0 AS SELECT * FROM db0__t0");
+                s.execute("CREATE TABLE db0_t1 (c0 INT)");
+            }
+            GeneralGlobalState state = createState(GeneralDatabaseEngineFactory.SQLITE, SchemaResetMode.CATALOG, "__");
+            GeneralSchemaReset.forDatabase(state, conn, "db0").run();
+            assertEquals(Set.of("db0_t1"), getObjects(conn));
+        }
+    }
+
+    @Test
+    public void testCatalogWithSchemaDelimiter() throws SQLException {
+        // the catalog reports db0.t0 as the table T0 in the schema DB0
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schemareset")) {
+            try (Statement s = conn.createStatement()) {
+                s.execute("CREATE SCHEMA db0");
+                s.execute("CREATE TABLE db0.t0 (c0 INT)");
+                s.execute("CREATE VIEW db0.v0 AS SELECT * FROM db0.t0");
+                s.execute("CREATE TABLE t0 (c0 INT)");
+            }
+            GeneralGlobalState state = createState(GeneralDatabaseEngineFactory.H2, SchemaResetMode.CATALOG, ".");
+            GeneralSchemaReset.forDatabase(state, conn, "db0").run();
+            assertEquals(Set.of("PUBLIC.T0"), getH2Objects(conn));
+        }
+        assertTrue(GeneralSchemaReset.getReport().contains("H2 CATALOG"));
+    }
+
+    @Test
+    public void testUnmatchedCatalogFallsBackToBlind() throws SQLException {
+        // the catalog lists generated objects, but none with the prefix
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement s = conn.createStatement()) {
+                s.execute("CREATE TABLE db0_t0 (c0 INT)");
+            }
+            // the engine only names the statistics of this reset
+            GeneralGlobalState state = createState(GeneralDatabaseEngineFactory.DUCKDB, SchemaResetMode.CATALOG, "_");
+            GeneralSchemaReset.forDatabase(state, conn, "db1").run();
+            assertEquals(Set.of("db0_t0"), getObjects(conn));
+        }
+        assertTrue(GeneralSchemaReset.getReport().contains("DUCKDB BLIND"));
+    }
+
+    @Test
+    public void testBlindMatchesCatalog() throws SQLException {
+        try (Connection conn = createDatabase()) {
+            new GeneralSchemaReset(createState(SchemaResetMode.BLIND), conn, "db0_").run();
+            assertEquals(Set.of("db0_other", "db1_t0"), getObjects(conn));
+        }
+        assertTrue(GeneralSchemaReset.getReport().contains("SQLITE BLIND"));
+    }
+
+}
@@ -0,0 +1,104 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.Randomly;
+import sqlancer.common.schema.TableIndex;
+import sqlancer.general.GeneralSchema.GeneralColumn;
+import sqlancer.general.GeneralSchema.GeneralDataType;
+import sqlancer.general.GeneralSchema.GeneralTable;
+
+public class TestGeneralSchemaSnapshot {
+
+    private static GeneralTable createTable(String name, boolean isView, String... indexNames) {
+        List<GeneralColumn> columns = List.of(new GeneralColumn("c0", GeneralDataType.INT.get(), false, true),
+                new GeneralColumn("c1", GeneralDataType.INT.get(), false, true));
+        List<TableIndex> indexes = new ArrayList<>();
+        for (String indexName : indexNames) {
+            indexes.add(TableIndex.create(indexName));
+        }
+        return new GeneralTable(name, columns, indexes, isView);
+    }
+
+    @Test
+    public void testIndexes() {
+        GeneralTable t0 = createTable("t0", false, "i0");
+        GeneralTable v0 = createTable("v0", true);
+        GeneralTable t1 = createTable("t1", false, "i1");
+        List<GeneralTable> tables = new ArrayList<>(List.of(t0, v0, t1));
+        GeneralSchema schema = new GeneralSchema(tables);
+        tables.clear();
+        assertEquals(List.of(t0, v0, t1), schema.getDatabaseTables());
+        assertEquals(List.of(v0), schema.getViews());
+        assertEquals(List.of(t0, t1), schema.getDatabaseTablesWithoutViews());
+        assertSame(t1, schema.getDatabaseTable("t1"));
+        assertNull(schema.getDatabaseTable("T1"));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(schema.getRandomTableNoView().isView());
+            String indexName = schema.getFreeIndexName();
+            assertFalse(indexName.equals("i0") || indexName.equals("i1"));
+            assertFalse(schema.getFreeViewName().equals("v0"));
+            assertFalse(t0.getFreeColumnName().equals("c0") || t0.getFreeColumnName().equals("c1"));
+        }
+    }
+
+    @Test
+    public void testFreeTableName() {
+        // a free table name is not a suffix of a table name
+        GeneralSchema schema = new GeneralSchema(
+                List.of(createTable("db0_t0", false), createTable("t1", false), createTable("t2a", false)));
+        for (int i = 0; i < 100; i++) {
+            String tableName = schema.getFreeTableName();
+            assertFalse(tableName.equals("t0") || tableName.equals("t1"));
+        }
+        List<String> tableNames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tableNames.add(schema.getFreeTableName());
+        }
+        assertTrue(tableNames.contains("t2"));
+    }
+
+    @Test
+    public void testWithTable() {
+        GeneralTable t0 = createTable("t0", false);
+        GeneralTable v0 = createTable("v0", true);
+        GeneralSchema schema = new GeneralSchema(List.of(t0, v0));
+        GeneralTable newT0 = createTable("t0", false, "i0");
+        GeneralTable t1 = createTable("t1", false);
+        GeneralSchema changed = schema.withTable(newT0).withTable(t1);
+        assertEquals(List.of(t0, v0), schema.getDatabaseTables());
+        assertEquals(List.of(newT0, v0, t1), changed.getDatabaseTables());
+        assertEquals(List.of(newT0, t1), changed.getDatabaseTablesWithoutViews());
+        assertSame(newT0, changed.getDatabaseTable("t0"));
+        assertEquals(List.of(newT0, t1), changed.withoutTable("v0").getDatabaseTables());
+        assertEquals(List.of(newT0, v0, t1), changed.withoutTable("v1").getDatabaseTables());
+    }
+
+    @Test
+    public void testFromListWithPredicate() {
+        // the element is the one that is picked from the filtered list with the same random state
+        List<Integer> list = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        Predicate<Integer> isEven = i -> i % 2 == 0;
+        List<Integer> evens = list.stream().filter(isEven).collect(Collectors.toList());
+        for (long seed = 0; seed < 100; seed++) {
+            new Randomly(seed);
+            int expected = Randomly.fromList(evens);
+            new Randomly(seed);
+            assertEquals(expected, Randomly.fromList(list, isEven));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> Randomly.fromList(list, i -> i > 10));
+    }
+
+}
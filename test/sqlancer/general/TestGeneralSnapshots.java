@@ -0,0 +1,162 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.beust.jcommander.JCommander;
+
+import sqlancer.MainOptions;
+import sqlancer.ReducerExecutor;
+import sqlancer.Reproducer;
+import sqlancer.SQLConnection;
+import sqlancer.common.query.Query;
+import sqlancer.common.query.SQLQueryAdapter;
+import sqlancer.general.GeneralOptions.GeneralDatabaseEngineFactory;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+
+public class TestGeneralSnapshots {
+
+    @TempDir
+    Path dir;
+
+    private static GeneralGlobalState createState(GeneralDatabaseEngineFactory engine, String databaseName) {
+        GeneralOptions options = new GeneralOptions();
+        options.databaseEngine = engine;
+        GeneralGlobalState state = new GeneralGlobalState();
+        state.setDbmsSpecificOptions(options);
+        state.setDatabaseName(databaseName);
+        return state;
+    }
+
+    @Test
+    public void testSQLite() throws Exception {
+        // the driver parses the file name of the backup command itself
+        testSaveAndRestore(GeneralDatabaseEngineFactory.SQLITE, "the snapshot's file");
+    }
+
+    @Test
+    public void testDuckDB() throws Exception {
+        testSaveAndRestore(GeneralDatabaseEngineFactory.DUCKDB, "snapshot");
+    }
+
+    @Test
+    public void testH2() throws Exception {
+        try {
+            testSaveAndRestore(GeneralDatabaseEngineFactory.H2, "snapshot");
+        } finally {
+            deleteH2Databases();
+        }
+    }
+
+    // the H2 engine keeps its databases in the working directory
+    private static void deleteH2Databases() throws IOException {
+        Path directory = Path.of("databases", "h2");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot_db*")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        for (Path path = directory; path != null; path = path.getParent()) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+                if (files.iterator().hasNext()) {
+                    break;
+                }
+            }
+            Files.delete(path);
+        }
+    }
+
+    private void testSaveAndRestore(GeneralDatabaseEngineFactory engine, String fileName) throws Exception {
+        GeneralProvider provider = new GeneralProvider();
+        File snapshot = dir.resolve(fileName).toFile();
+        GeneralGlobalState state = createState(engine, "snapshot_db0");
+        try (SQLConnection con = provider.createDatabase(state)) {
+            state.setConnection(con);
+            try (Statement s = con.createStatement()) {
+                s.execute("CREATE TABLE snapshot_db0_t0 (c0 INT)");
+                s.execute("INSERT INTO snapshot_db0_t0 VALUES (1), (2), (3)");
+            }
+            assertTrue(provider.saveDatabase(state, snapshot));
+        }
+        GeneralGlobalState restoredState = createState(engine, "snapshot_db1");
+        try (SQLConnection con = provider.restoreDatabase(restoredState, snapshot); Statement s = con.createStatement();
+                ResultSet rs = s.executeQuery("SELECT SUM(c0) FROM snapshot_db0_t0")) {
+            assertTrue(rs.next());
+            assertEquals(6, rs.getInt(1));
+        }
+    }
+
+    private static final class CountingProvider extends GeneralProvider {
+        private int nrSaved;
+
+        @Override
+        public boolean saveDatabase(GeneralGlobalState globalState, File snapshot) throws SQLException {
+            nrSaved++;
+            return super.saveDatabase(globalState, snapshot);
+        }
+    }
+
+    private static List<Query<SQLConnection>> without(List<Query<SQLConnection>> statements, int index) {
+        List<Query<SQLConnection>> candidate = new ArrayList<>(statements);
+        candidate.remove(index);
+        return candidate;
+    }
+
+    @Test
+    public void testReducerExecutor() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        GeneralGlobalState state = createState(GeneralDatabaseEngineFactory.SQLITE, "reducer_db0");
+        MainOptions options = new MainOptions();
+        JCommander.newBuilder().addObject(options).build().parse("--reducer-workers", "2");
+        state.setMainOptions(options);
+        state.setState(provider.getStateToReproduce("reducer_db0"));
+        List<Query<SQLConnection>> statements = List.of(new SQLQueryAdapter("CREATE TABLE t0 (c0 INT)", true),
+                new SQLQueryAdapter("INSERT INTO t0 VALUES (1)"), new SQLQueryAdapter("INSERT INTO t0 VALUES (2)"),
+                new SQLQueryAdapter("INSERT INTO t0 VALUES (3)"));
+        // the bug triggers as long as t0 contains 3
+        Reproducer<GeneralGlobalState> reproducer = s -> {
+            try (Statement st = s.getConnection().createStatement();
+                    ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM t0 WHERE c0 = 3")) {
+                return rs.next() && rs.getInt(1) == 1;
+            } catch (SQLException e) {
+                return false;
+            }
+        };
+        try (ReducerExecutor<GeneralGlobalState, GeneralOptions, SQLConnection> executor = new ReducerExecutor<>(
+                provider, reproducer, state)) {
+            assertEquals(2, executor.getNrWorkers());
+            executor.startPhase();
+            List<Query<SQLConnection>> withoutThird = without(statements, 3);
+            List<Query<SQLConnection>> withoutSecond = without(statements, 2);
+            assertEquals(1,
+                    executor.findFirstTriggering(List.of(withoutThird, withoutSecond), List.of(3, 2), statements));
+            // the reducer continues with the statements of the second worker
+            assertEquals(withoutSecond, state.getState().getStatements());
+            // the snapshot of a prefix is reused
+            assertFalse(executor.bugStillTriggers(withoutThird, 3, statements));
+            assertEquals(2, provider.nrSaved);
+            assertTrue(executor.getPhaseStatistics().contains("3 restored from snapshots"));
+            // the snapshot of the first two statements is still valid for the reduced statements
+            assertFalse(executor.bugStillTriggers(without(withoutSecond, 2), 2, withoutSecond));
+            assertEquals(2, provider.nrSaved);
+            assertTrue(executor.bugStillTriggers(without(withoutSecond, 1), 1, withoutSecond));
+            assertEquals(3, provider.nrSaved);
+        }
+    }
+
+}
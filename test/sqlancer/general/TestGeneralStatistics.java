@@ -0,0 +1,129 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestGeneralStatistics {
+
+    private static final int NR_THREADS = 8;
+    private static final int NR_KEYS = 500;
+    private static final int NR_ROUNDS = 200;
+
+    @Test
+    public void testConcurrentCounting() throws InterruptedException {
+        GeneralStatistics<String> statistics = new GeneralStatistics<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < NR_THREADS; t++) {
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < NR_ROUNDS; round++) {
+                    double[] success = new double[NR_KEYS];
+                    double[] count = new double[NR_KEYS];
+                    for (int key = 0; key < NR_KEYS; key++) {
+                        // intern the keys concurrently, and in a different order in each round
+                        int id = statistics.getId("key" + (key + round) % NR_KEYS);
+                        success[id] = 1;
+                        count[id] = 2;
+                    }
+                    statistics.addAll(success, count);
+                    // aggregate while the other threads add
+                    statistics.aggregate();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(NR_KEYS, statistics.size());
+        GeneralStatistics.Snapshot snapshot = statistics.aggregate();
+        for (int key = 0; key < NR_KEYS; key++) {
+            int id = statistics.getId("key" + key);
+            assertEquals("key" + key, statistics.getKey(id));
+            assertEquals(NR_THREADS * NR_ROUNDS, snapshot.getSuccess(id));
+            assertEquals(2 * NR_THREADS * NR_ROUNDS, snapshot.getCount(id));
+        }
+    }
+
+    @Test
+    public void testOptions() {
+        GeneralStatistics<String> statistics = new GeneralStatistics<>();
+        int id = statistics.getId("FUNCTION-ABS");
+        assertFalse(statistics.hasOption(id));
+        assertTrue(statistics.getOption(id, true));
+        assertFalse(statistics.getOption(id, false));
+        assertTrue(statistics.setOptionIfAbsent(id, false));
+        assertFalse(statistics.setOptionIfAbsent(id, true));
+        assertFalse(statistics.getOption(id, true));
+        assertFalse(statistics.setOption(id, false));
+        assertTrue(statistics.setOption(id, true));
+        assertTrue(statistics.getOption(id, false));
+        // the options survive growing the table
+        for (int i = 0; i < 1000; i++) {
+            statistics.getId("FUNCTION-" + i);
+        }
+        assertTrue(statistics.getOption(id, false));
+        assertEquals(id, statistics.getId("FUNCTION-ABS"));
+    }
+
+    @Test
+    public void testConcurrentOptions() throws InterruptedException {
+        GeneralStatistics<String> statistics = new GeneralStatistics<>();
+        int nrKeys = 100 * NR_KEYS;
+        List<Thread> threads = new ArrayList<>();
+        // intern the keys while the other threads set the options and examples of the keys interned so far
+        threads.add(new Thread(() -> {
+            for (int key = 0; key < nrKeys; key++) {
+                statistics.getId("key" + key);
+            }
+        }));
+        for (int t = 0; t < NR_THREADS - 1; t++) {
+            boolean value = t % 2 == 0;
+            threads.add(new Thread(() -> {
+                int id = 0;
+                while (id < nrKeys) {
+                    if (id < statistics.size()) {
+                        if (value) {
+                            statistics.setOption(id, true);
+                        } else {
+                            statistics.setOptionIfAbsent(id, false);
+                        }
+                        statistics.setExampleIfAbsent(id, "SELECT " + id);
+                        id++;
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int id = 0; id < nrKeys; id++) {
+            assertTrue(statistics.hasOption(id));
+            // setOption is not overwritten by setOptionIfAbsent
+            assertTrue(statistics.getOption(id, false));
+            assertEquals("SELECT " + id, statistics.getExample(id));
+        }
+    }
+
+    @Test
+    public void testExamples() {
+        GeneralStatistics<String> statistics = new GeneralStatistics<>();
+        int id = statistics.getId("COLUMN-INT");
+        assertNull(statistics.getExample(id));
+        statistics.setExampleIfAbsent(id, "SELECT 1");
+        statistics.setExampleIfAbsent(id, "SELECT 2");
+        assertEquals("SELECT 1", statistics.getExample(id));
+    }
+
+}
@@ -0,0 +1,67 @@
+package sqlancer.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.common.ast.newast.NewBinaryOperatorNode;
+import sqlancer.common.ast.newast.NewUnaryPostfixOperatorNode;
+import sqlancer.common.ast.newast.NewUnaryPrefixOperatorNode;
+import sqlancer.common.ast.newast.Node;
+import sqlancer.general.ast.GeneralBinaryComparisonOperator;
+import sqlancer.general.ast.GeneralConstant;
+import sqlancer.general.ast.GeneralExpression;
+import sqlancer.general.ast.GeneralSelect;
+import sqlancer.general.ast.GeneralUnaryPostfixOperator;
+import sqlancer.general.ast.GeneralUnaryPrefixOperator;
+
+public class TestGeneralToStringVisitor {
+
+    @Test
+    public void testSegmentsAreSpliced() {
+        Node<GeneralExpression> predicate = new NewBinaryOperatorNode<>(GeneralConstant.createIntConstant(1),
+                GeneralConstant.createIntConstant(2), GeneralBinaryComparisonOperator.EQUALS);
+        Node<GeneralExpression> column = GeneralConstant.createStringConstant("a");
+        GeneralSelect select = new GeneralSelect();
+        select.setFetchColumns(List.of(column));
+        select.setFromList(List.of());
+        GeneralToStringVisitor.Segments segments = new GeneralToStringVisitor.Segments();
+        segments.add(column);
+        assertEquals(GeneralToStringVisitor.asString(predicate), segments.add(predicate));
+        for (Node<GeneralExpression> where : List.of(predicate,
+                new NewUnaryPrefixOperatorNode<>(predicate, GeneralUnaryPrefixOperator.NOT),
+                new NewUnaryPostfixOperatorNode<>(predicate, GeneralUnaryPostfixOperator.IS_NULL))) {
+            select.setWhereClause(where);
+            assertEquals(GeneralToStringVisitor.asString(select), segments.asString(select));
+        }
+    }
+
+    @Test
+    public void testVisitorIsReused() {
+        Node<GeneralExpression> first = new NewUnaryPrefixOperatorNode<>(GeneralConstant.createIntConstant(1),
+                GeneralUnaryPrefixOperator.NOT);
+        assertEquals("(NOT 1)", GeneralToStringVisitor.asString(first));
+        assertEquals("2", GeneralToStringVisitor.asString(GeneralConstant.createIntConstant(2)));
+        assertThrows(AssertionError.class, () -> GeneralToStringVisitor.asString(new Node<GeneralExpression>() {
+        }));
+        // the visitor is reset after a node that cannot be rendered
+        assertEquals("(NOT 1)", GeneralToStringVisitor.asString(first));
+    }
+
+    @Test
+    public void testSegmentsAreNotVisited() {
+        Node<GeneralExpression> constant = GeneralConstant.createIntConstant(1);
+        Map<Node<GeneralExpression>, String> segments = new IdentityHashMap<>();
+        segments.put(constant, "x");
+        GeneralToStringVisitor visitor = new GeneralToStringVisitor();
+        visitor.setSegments(segments);
+        visitor.visit(new NewUnaryPrefixOperatorNode<>(constant, GeneralUnaryPrefixOperator.NOT));
+        assertEquals("(NOT x)", visitor.get());
+    }
+
+}
@@ -0,0 +1,129 @@
+package sqlancer.general.gen;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.MemoryCoverageSource;
+import sqlancer.Randomly;
+import sqlancer.TouchedEdges;
+import sqlancer.general.gen.Configuration.BaseConfigurationGenerator;
+import sqlancer.general.gen.Configuration.BaseConfigurationGenerator.ConfigurationAction;
+import sqlancer.general.gen.Configuration.BaseConfigurationGenerator.Scope;
+
+public class TestConfigurationTraining {
+
+    private static final int MAP_SIZE = 1 << 16;
+    private static final int NR_SAMPLES = 100;
+
+    private static ConfigurationAction action(String name) {
+        return new ConfigurationAction() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Object generateValue(Randomly r) {
+                return 0;
+            }
+
+            @Override
+            public Scope[] getScopes() {
+                return new Scope[] { Scope.GLOBAL };
+            }
+
+            @Override
+            public boolean canBeUsedInScope(Scope scope) {
+                return scope == Scope.GLOBAL;
+            }
+        };
+    }
+
+    /*
+     * Simulates the coverage of a query, which depends on the sample, and records it with its features.
+     */
+    private static void train(ParameterAwareGenerator statistics, MemoryCoverageSource coverage, int sample) {
+        Set<GeneralExpressionGenerator.Expression> featureSet = ParameterAwareGenerator.getFeatureSet();
+        featureSet.clear();
+        GeneralExpressionGenerator.Expression[] expressions = GeneralExpressionGenerator.Expression.values();
+        featureSet.add(expressions[sample % expressions.length]);
+        coverage.clearCoverage();
+        coverage.getMap().put(sample % 7, (byte) 1).put(100 + sample % 3, (byte) sample);
+        statistics.updateCounts(coverage.collectTouchedEdges(new TouchedEdges()));
+    }
+
+    @Test
+    public void testPartitionActions() {
+        ConfigurationAction[] actions = new ConfigurationAction[10];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = action("action" + i);
+        }
+        List<List<ConfigurationAction>> partitions = BaseConfigurationGenerator.partitionActions(actions, 3);
+        assertEquals(3, partitions.size());
+        Set<ConfigurationAction> seen = new HashSet<>();
+        for (List<ConfigurationAction> partition : partitions) {
+            assertTrue(partition.size() >= 3 && partition.size() <= 4);
+            for (ConfigurationAction action : partition) {
+                assertTrue(seen.add(action));
+            }
+        }
+        assertEquals(actions.length, seen.size());
+        // more workers than actions, or none
+        ConfigurationAction[] twoActions = { actions[0], actions[1] };
+        assertEquals(2, BaseConfigurationGenerator.partitionActions(twoActions, 8).size());
+        assertEquals(1, BaseConfigurationGenerator.partitionActions(actions, 0).size());
+    }
+
+    @Test
+    public void testClearCoverage() {
+        MemoryCoverageSource coverage = new MemoryCoverageSource(MAP_SIZE);
+        coverage.getMap().put(0, (byte) 1).put(MAP_SIZE - 1, (byte) 2);
+        TouchedEdges edges = coverage.collectTouchedEdges(new TouchedEdges());
+        assertEquals(2, edges.size());
+        assertEquals(MAP_SIZE - 1, edges.getEdge(1));
+        coverage.clearCoverage();
+        assertTrue(coverage.collectTouchedEdges(edges).isEmpty());
+    }
+
+    @Test
+    public void testParallelTrainingMatchesSerial() throws InterruptedException {
+        String name = "test_parallel_training";
+        ParameterAwareGenerator serial = new ParameterAwareGenerator();
+        MemoryCoverageSource serialCoverage = new MemoryCoverageSource(MAP_SIZE);
+        for (int sample = 0; sample < 2 * NR_SAMPLES; sample++) {
+            train(serial, serialCoverage, sample);
+        }
+
+        // two workers with their own coverage train half of the samples each
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int worker = w;
+            workers.add(new Thread(() -> {
+                ParameterAwareGenerator statistics = new ParameterAwareGenerator();
+                MemoryCoverageSource coverage = new MemoryCoverageSource(MAP_SIZE);
+                for (int sample = worker * NR_SAMPLES; sample < (worker + 1) * NR_SAMPLES; sample++) {
+                    train(statistics, coverage, sample);
+                }
+                BaseConfigurationGenerator.mergeTrainingResults(Map.of(name, statistics));
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertArrayEquals(serial.getFeatureProbabilities(),
+                BaseConfigurationGenerator.parameterFeatureProbabilities.get(name), 1e-12);
+    }
+
+}
@@ -0,0 +1,49 @@
+package sqlancer.general.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.Randomly;
+
+public class TestLongCounterMap {
+
+    @Test
+    public void testAgainstHashMap() {
+        new Randomly(1);
+        LongCounterMap map = new LongCounterMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (long) Randomly.getNotCachedInteger(0, 11) << 32 | Randomly.getNotCachedInteger(0, 5000);
+            long delta = Randomly.getNotCachedInteger(1, 256);
+            assertEquals(expected.merge(key, delta, Long::sum), map.add(key, delta));
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+        assertEquals(0, map.get(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> map.add(-1, 1));
+    }
+
+    @Test
+    public void testCopyAndMerge() {
+        LongCounterMap first = new LongCounterMap();
+        first.add(1, 2);
+        first.add(3, 4);
+        LongCounterMap second = first.copy();
+        second.add(1, 10);
+        second.add(5, 6);
+        assertEquals(2, first.get(1));
+        first.addAll(second);
+        assertEquals(14, first.get(1));
+        assertEquals(8, first.get(3));
+        assertEquals(6, first.get(5));
+        assertEquals(3, first.size());
+    }
+
+}
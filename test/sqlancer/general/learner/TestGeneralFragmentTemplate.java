@@ -0,0 +1,93 @@
+package sqlancer.general.learner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.Randomly;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+import sqlancer.general.learner.GeneralFragments.GeneralFragmentVariable;
+
+public class TestGeneralFragmentTemplate {
+
+    private static String render(GeneralFragmentTemplate template, GeneralGlobalState state,
+            boolean replaceTestObjects) {
+        StringBuilder sb = new StringBuilder();
+        template.appendTo(sb, state, replaceTestObjects);
+        return sb.toString();
+    }
+
+    @Test
+    public void testRender() {
+        GeneralGlobalState state = new GeneralGlobalState();
+        state.setRandomly(new Randomly(0));
+        GeneralFragmentTemplate template = new GeneralFragmentTemplate("LIMIT %s OFFSET %s -- 100%%",
+                List.of(GeneralFragmentVariable.RANDOM_POSITIVE_INT, GeneralFragmentVariable.NULL));
+        assertEquals("LIMIT <RANDOM_POSITIVE_INT> OFFSET <NULL> -- 100%", template.getName());
+        assertTrue(render(template, state, false).matches("LIMIT [0-9]+ OFFSET  -- 100%"));
+    }
+
+    @Test
+    public void testConcurrentBindings() throws Exception {
+        // all slots of a variable are bound to the same value, which other threads do not overwrite
+        GeneralFragmentTemplate template = new GeneralFragmentTemplate("%s = %s",
+                List.of(GeneralFragmentVariable.RANDOM_INT, GeneralFragmentVariable.RANDOM_INT));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                long seed = i;
+                results.add(executor.submit(() -> {
+                    GeneralGlobalState state = new GeneralGlobalState();
+                    state.setRandomly(new Randomly(seed));
+                    for (int j = 0; j < 10000; j++) {
+                        String[] sides = render(template, state, false).split(" = ");
+                        if (!sides[0].equals(sides[1])) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFormattedFallback() {
+        GeneralGlobalState state = new GeneralGlobalState();
+        GeneralFragmentTemplate template = new GeneralFragmentTemplate("%-6s|%1$s",
+                List.of(GeneralFragmentVariable.NULL));
+        assertEquals("<NULL>|<NULL>", template.getName());
+        assertEquals("      |", render(template, state, false));
+    }
+
+    @Test
+    public void testTestObjects() {
+        GeneralGlobalState state = new GeneralGlobalState();
+        GeneralFragmentTemplate template = new GeneralFragmentTemplate(
+                "ON TEST_TABLE(TEST_COLUMN1, TEST_COLUMN10, TEST_OTHER)", List.of());
+        assertEquals("ON TEST_TABLE(TEST_COLUMN1, TEST_COLUMN10, TEST_OTHER)", render(template, state, true));
+        state.setTestObject("TEST_TABLE", "t0");
+        state.setTestObject("TEST_COLUMN1", "c1");
+        state.setTestObject("TEST_COLUMN10", "c10");
+        assertEquals("ON t0(c1, c10, TEST_OTHER)", render(template, state, true));
+        assertEquals("ON TEST_TABLE(TEST_COLUMN1, TEST_COLUMN10, TEST_OTHER)", render(template, state, false));
+        state.cleanTestObject();
+        state.setTestObject("TEST_COLUMN1", "c1");
+        // the longest test object that a reference starts with is used
+        assertEquals("ON TEST_TABLE(c1, c10, TEST_OTHER)", render(template, state, true));
+    }
+
+}
@@ -0,0 +1,66 @@
+package sqlancer.general.learner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sqlancer.MainOptions;
+import sqlancer.general.GeneralLearningManager.SQLFeature;
+import sqlancer.general.GeneralOptions;
+import sqlancer.general.GeneralProvider.GeneralGlobalState;
+
+public class TestGeneralLearnerCache {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testKey() {
+        assertEquals(GeneralLearnerCache.getKey("gpt-4o", "system", "user"),
+                GeneralLearnerCache.getKey("gpt-4o", "system", "user"));
+        assertNotEquals(GeneralLearnerCache.getKey("gpt-4o", "system", "user"),
+                GeneralLearnerCache.getKey("gpt-4o", "systemuser", ""));
+        assertNotEquals(GeneralLearnerCache.getKey("gpt-4o", "system", "user"),
+                GeneralLearnerCache.getKey("gpt-4o-mini", "system", "user"));
+    }
+
+    @Test
+    public void testReadWrite() {
+        GeneralLearnerCache cache = new GeneralLearnerCache(dir.toString(), GeneralLearnerCache.Mode.READ_WRITE);
+        String key = GeneralLearnerCache.getKey("chat", "prompt");
+        assertNull(cache.get(key));
+        cache.put(key, "0,INT\n1,VARCHAR\n");
+        assertEquals("0,INT\n1,VARCHAR\n", cache.get(key));
+        assertEquals("0,INT\n1,VARCHAR\n",
+                new GeneralLearnerCache(dir.toString(), GeneralLearnerCache.Mode.REPLAY).get(key));
+        assertNull(new GeneralLearnerCache(dir.toString(), GeneralLearnerCache.Mode.OFF).get(key));
+    }
+
+    @Test
+    public void testReplayDoesNotWrite() {
+        GeneralLearnerCache cache = new GeneralLearnerCache(dir.toString(), GeneralLearnerCache.Mode.REPLAY);
+        String key = GeneralLearnerCache.getKey("chat", "prompt");
+        cache.put(key, "response");
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testReplayMissDoesNotAccessNetwork() {
+        GeneralOptions options = new GeneralOptions();
+        options.learnerCache = GeneralLearnerCache.Mode.REPLAY;
+        options.learnerCacheDirectory = dir.toString();
+        GeneralGlobalState state = new GeneralGlobalState();
+        state.setMainOptions(new MainOptions());
+        state.setDbmsSpecificOptions(options);
+        GeneralTemplateLearner learner = new GeneralTemplateLearner(state, SQLFeature.DATATYPE,
+                "CREATE TABLE t0(c0 {0})", "", "system", "overview");
+        assertEquals("", learner.learnAsync().join());
+        assertEquals("", learner.getFragments());
+    }
+
+}